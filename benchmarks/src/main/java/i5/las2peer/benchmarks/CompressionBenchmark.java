@@ -0,0 +1,130 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.persistency.EnvelopeVersion;
+import i5.las2peer.security.AgentContext;
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.serialization.CompressionTools;
+import i5.las2peer.serialization.SerializeTools;
+
+/**
+ * Storing and fetching {@link EnvelopeVersion}s with JSON content with and without compression. Store covers creating
+ * and serializing the envelope, as the storage does before splitting it into parts, fetch covers deserializing and
+ * decrypting it. The secondary results {@code contentBytes} and {@code storedBytes} count the bytes of content and of
+ * serialized envelopes processed in the measurement, their ratio is the size of a stored envelope relative to its
+ * content.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CompressionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class JsonContent {
+
+		@Param({ "10240", "1048576", "10485760" })
+		public int size;
+
+		/**
+		 * compression threshold in bytes, 0 disables compression
+		 */
+		@Param({ "0", "1024" })
+		public int threshold;
+
+		public LocalNode node;
+		public UserAgentImpl author;
+		public String content;
+		public EnvelopeVersion envelope;
+		public byte[] stored;
+		public AgentContext authorContext;
+
+		@Setup
+		public void setup() throws Exception {
+			CompressionTools.setThreshold(threshold);
+			node = new LocalNodeManager().launchNode();
+			author = UserAgentImpl.createUserAgent("authorpass");
+			author.unlock("authorpass");
+			content = createJson(size);
+			envelope = node.createEnvelope("benchmark", author.getPublicKey(), content, author);
+			stored = SerializeTools.serialize(envelope);
+			authorContext = new AgentContext(node, author);
+		}
+
+		@TearDown
+		public void tearDown() {
+			node.shutDown();
+			CompressionTools.setThreshold(CompressionTools.DEFAULT_THRESHOLD);
+		}
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Sizes {
+
+		public long contentBytes;
+		public long storedBytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			contentBytes = 0;
+			storedBytes = 0;
+		}
+
+		public void count(JsonContent state, byte[] stored) {
+			contentBytes += state.content.length();
+			storedBytes += stored.length;
+		}
+	}
+
+	/**
+	 * creates an array of JSON objects of about the given size
+	 */
+	private static String createJson(int size) {
+		StringBuilder sb = new StringBuilder(size + 100);
+		sb.append('[');
+		for (int i = 0; sb.length() < size; i++) {
+			sb.append("{\"id\":").append(i).append(",\"name\":\"user").append(i % 997)
+					.append("\",\"email\":\"user").append(i % 997).append("@example.org\",\"score\":")
+					.append((i * 7919) % 10000).append(",\"active\":").append(i % 3 == 0).append("},");
+		}
+		sb.setCharAt(sb.length() - 1, ']');
+		return sb.toString();
+	}
+
+	@Benchmark
+	public byte[] store(JsonContent state, Sizes sizes) throws Exception {
+		EnvelopeVersion envelope = state.node.createEnvelope(state.envelope, state.content, state.author);
+		byte[] stored = SerializeTools.serialize(envelope);
+		sizes.count(state, stored);
+		return stored;
+	}
+
+	@Benchmark
+	public Serializable fetch(JsonContent state, Sizes sizes) throws Exception {
+		sizes.count(state, state.stored);
+		EnvelopeVersion envelope = (EnvelopeVersion) SerializeTools.deserialize(state.stored);
+		return envelope.getContent(state.authorContext);
+	}
+
+}
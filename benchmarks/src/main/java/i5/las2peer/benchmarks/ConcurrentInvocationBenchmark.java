@@ -0,0 +1,103 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.benchmarks.services.BenchmarkService;
+import i5.las2peer.execution.VirtualThreads;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.p2p.Node;
+import i5.las2peer.security.UserAgentImpl;
+
+/**
+ * Many concurrent service invocations, each blocking for a while like a service waiting for the storage or a nested
+ * invocation. Each benchmark operation starts all invocations at once and waits until they are done. With platform
+ * threads the pool of the node limits the invocations running at the same time, the others wait in its queue. With
+ * virtual threads and the default limits of the node all invocations are in flight at the same time, so the operation
+ * takes about as long as a single blocking call.
+ *
+ * Virtual threads need a Java 21 runtime, on older runtimes the node falls back to platform threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ConcurrentInvocationBenchmark {
+
+	private static final ServiceNameVersion SERVICE = new ServiceNameVersion(BenchmarkService.class.getName(), "1.0");
+	@Param({ "false", "true" })
+	public boolean virtualThreads;
+
+	/**
+	 * number of invocations started at once
+	 */
+	@Param({ "1000", "10000" })
+	public int inFlight;
+
+	/**
+	 * time each invocation blocks in milliseconds
+	 */
+	@Param({ "100" })
+	public int blocking;
+
+	private LocalNode node;
+	private UserAgentImpl agent;
+
+	@Setup
+	public void setup() throws Exception {
+		if (virtualThreads && !VirtualThreads.isSupported()) {
+			throw new IllegalStateException("Virtual threads are not supported by this runtime");
+		}
+		agent = UserAgentImpl.createUserAgent("benchmarkpass");
+		agent.unlock("benchmarkpass");
+
+		node = new LocalNodeManager().newNode();
+		node.setVirtualThreads(virtualThreads);
+		if (!virtualThreads) {
+			// calls exceeding the default pool wait in the queue instead of being rejected
+			node.setServiceExecutorLimits(Node.DEFAULT_SERVICE_EXECUTOR_POOL_SIZE, inFlight);
+		}
+		node.storeAgent(agent);
+		node.launch();
+		node.startService(SERVICE, "servicepass");
+	}
+
+	@TearDown
+	public void tearDown() {
+		node.shutDown();
+	}
+
+	@Benchmark
+	public int invokeBlocking() throws Exception {
+		List<CompletableFuture<Serializable>> futures = new ArrayList<>(inFlight);
+		for (int i = 0; i < inFlight; i++) {
+			futures.add(node.invokeAsync(agent, SERVICE, "block", new Serializable[] { blocking }, false, true));
+		}
+		int sum = 0;
+		for (CompletableFuture<Serializable> future : futures) {
+			sum += (Integer) future.get();
+		}
+		return sum;
+	}
+
+}
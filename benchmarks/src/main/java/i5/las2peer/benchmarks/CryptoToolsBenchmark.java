@@ -0,0 +1,124 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.security.KeyPair;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.tools.CryptoException;
+import i5.las2peer.tools.CryptoTools;
+
+/**
+ * Symmetric and asymmetric encryption, signatures and passphrase key derivation of {@link CryptoTools}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoToolsBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Payload {
+
+		@Param({ "64", "4096", "1048576" })
+		public int size;
+
+		public byte[] data;
+		public SecretKey key;
+		public byte[] encrypted;
+		public byte[] encryptedAuthenticated;
+		public KeyPair keyPair;
+		public byte[] signature;
+
+		@Setup
+		public void setup() throws CryptoException {
+			data = new byte[size];
+			new Random(size).nextBytes(data);
+			key = CryptoTools.generateSymmetricKey();
+			encrypted = CryptoTools.encryptSymmetric(data, key);
+			encryptedAuthenticated = CryptoTools.encryptSymmetricAuthenticated(data, key);
+			keyPair = CryptoTools.generateKeyPair();
+			signature = CryptoTools.signContent(data, keyPair.getPrivate());
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Keys {
+
+		public KeyPair keyPair;
+		public SecretKey symmetricKey;
+		public byte[] encryptedKey;
+		public byte[] salt;
+
+		@Setup
+		public void setup() throws Exception {
+			keyPair = CryptoTools.generateKeyPair();
+			symmetricKey = CryptoTools.generateSymmetricKey();
+			// the same as agents do to share a symmetric key
+			encryptedKey = CryptoTools.encryptAsymmetric(symmetricKey, keyPair.getPublic());
+			salt = CryptoTools.generateSalt();
+		}
+	}
+
+	@Benchmark
+	public byte[] encryptSymmetric(Payload payload) throws CryptoException {
+		return CryptoTools.encryptSymmetric(payload.data, payload.key);
+	}
+
+	@Benchmark
+	public byte[] decryptSymmetric(Payload payload) throws CryptoException {
+		return CryptoTools.decryptSymmetric(payload.encrypted, payload.key);
+	}
+
+	@Benchmark
+	public byte[] encryptSymmetricAuthenticated(Payload payload) throws CryptoException {
+		return CryptoTools.encryptSymmetricAuthenticated(payload.data, payload.key);
+	}
+
+	@Benchmark
+	public byte[] decryptSymmetricAuthenticated(Payload payload) throws CryptoException {
+		return CryptoTools.decryptSymmetricAuthenticated(payload.encryptedAuthenticated, payload.key);
+	}
+
+	@Benchmark
+	public byte[] sign(Payload payload) throws CryptoException {
+		return CryptoTools.signContent(payload.data, payload.keyPair.getPrivate());
+	}
+
+	@Benchmark
+	public boolean verify(Payload payload) throws Exception {
+		return CryptoTools.verifySignature(payload.signature, payload.data, payload.keyPair.getPublic());
+	}
+
+	@Benchmark
+	public byte[] encryptAsymmetric(Keys keys) throws Exception {
+		return CryptoTools.encryptAsymmetric(keys.symmetricKey, keys.keyPair.getPublic());
+	}
+
+	@Benchmark
+	public Serializable decryptAsymmetric(Keys keys) throws Exception {
+		return CryptoTools.decryptAsymmetric(keys.encryptedKey, keys.keyPair.getPrivate());
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public SecretKey generateKeyForPassphrase(Keys keys) throws CryptoException {
+		return CryptoTools.generateKeyForPassphrase("benchmark passphrase", keys.salt);
+	}
+
+}
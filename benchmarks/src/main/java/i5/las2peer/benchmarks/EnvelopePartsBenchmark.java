@@ -0,0 +1,126 @@
+package i5.las2peer.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.persistency.EnvelopeVersion;
+import i5.las2peer.persistency.NetworkArtifact;
+import i5.las2peer.persistency.helper.PartOutputStream;
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.serialization.SerializationException;
+import i5.las2peer.serialization.SerializeTools;
+
+/**
+ * Splitting large {@link EnvelopeVersion}s into the parts stored in the network and building them from the parts
+ * again. The streamed benchmarks serialize directly into the parts and read the envelope from the sequence of parts,
+ * like the shared storage does. The copied benchmarks serialize into a single array and copy the parts out of it,
+ * respectively concatenate the parts before reading, for comparison. The network itself is not part of the
+ * measurement. Run with {@code -prof gc} to compare the allocated memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EnvelopePartsBenchmark {
+
+	@Param({ "1048576", "10485760", "52428800" })
+	public int size;
+
+	private LocalNode node;
+	private EnvelopeVersion envelope;
+	private List<byte[]> parts;
+
+	@Setup
+	public void setup() throws Exception {
+		node = new LocalNodeManager().launchNode();
+		UserAgentImpl author = UserAgentImpl.createUserAgent("authorpass");
+		author.unlock("authorpass");
+		byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		envelope = node.createEnvelope("benchmark", author.getPublicKey(), content, author);
+		parts = insertStreamed();
+	}
+
+	@TearDown
+	public void tearDown() {
+		node.shutDown();
+	}
+
+	@Benchmark
+	public List<byte[]> insertStreamed() throws IOException {
+		List<byte[]> result = new ArrayList<>();
+		PartOutputStream partStream = new PartOutputStream(NetworkArtifact.MAX_SIZE) {
+			@Override
+			protected void onPart(int partIndex, byte[] part) {
+				result.add(part);
+			}
+		};
+		try (ObjectOutputStream oos = new ObjectOutputStream(partStream)) {
+			oos.writeObject(envelope);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<byte[]> insertCopied() throws SerializationException {
+		byte[] serialized = SerializeTools.serialize(envelope);
+		List<byte[]> result = new ArrayList<>();
+		for (int offset = 0; offset < serialized.length; offset += NetworkArtifact.MAX_SIZE) {
+			result.add(Arrays.copyOfRange(serialized, offset,
+					Math.min(offset + NetworkArtifact.MAX_SIZE, serialized.length)));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public Object fetchStreamed() throws IOException, ClassNotFoundException {
+		List<InputStream> partStreams = new ArrayList<>(parts.size());
+		for (byte[] part : parts) {
+			partStreams.add(new ByteArrayInputStream(part));
+		}
+		try (ObjectInputStream ois = new ObjectInputStream(
+				new SequenceInputStream(Collections.enumeration(partStreams)))) {
+			return ois.readObject();
+		}
+	}
+
+	@Benchmark
+	public Object fetchCopied() throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			concatenated.write(part);
+		}
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(concatenated.toByteArray()))) {
+			return ois.readObject();
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.persistency.EnvelopeVersion;
+import i5.las2peer.security.AgentContext;
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.serialization.SerializeTools;
+
+/**
+ * Creation and decryption of {@link EnvelopeVersion}s with many readers and with large contents. The large content
+ * benchmarks also serialize the envelope, as the storage does before splitting it into parts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EnvelopeVersionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Readers {
+
+		@Param({ "1", "10", "50" })
+		public int readers;
+
+		public LocalNode node;
+		public UserAgentImpl author;
+		public List<UserAgentImpl> readerAgents;
+		public String content;
+		public EnvelopeVersion envelope;
+		public AgentContext readerContext;
+
+		@Setup
+		public void setup() throws Exception {
+			node = new LocalNodeManager().launchNode();
+			author = UserAgentImpl.createUserAgent("authorpass");
+			author.unlock("authorpass");
+			readerAgents = new ArrayList<>();
+			readerAgents.add(author);
+			for (int i = 1; i < readers; i++) {
+				readerAgents.add(UserAgentImpl.createUserAgent("readerpass"));
+			}
+			content = "envelope content";
+			envelope = node.createEnvelope("benchmark", author.getPublicKey(), content, readerAgents);
+			readerContext = new AgentContext(node, author);
+		}
+
+		@TearDown
+		public void tearDown() {
+			node.shutDown();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class LargeContent {
+
+		@Param({ "1048576", "10485760", "52428800" })
+		public int size;
+
+		public LocalNode node;
+		public UserAgentImpl author;
+		public byte[] content;
+		public EnvelopeVersion envelope;
+		public AgentContext authorContext;
+
+		@Setup
+		public void setup() throws Exception {
+			node = new LocalNodeManager().launchNode();
+			author = UserAgentImpl.createUserAgent("authorpass");
+			author.unlock("authorpass");
+			content = new byte[size];
+			new Random(size).nextBytes(content);
+			envelope = node.createEnvelope("benchmark", author.getPublicKey(), content, author);
+			authorContext = new AgentContext(node, author);
+		}
+
+		@TearDown
+		public void tearDown() {
+			node.shutDown();
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public EnvelopeVersion createWithReaders(Readers state) throws Exception {
+		return state.node.createEnvelope(state.envelope, state.content, state.readerAgents);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Serializable getContentWithReaders(Readers state) throws Exception {
+		return state.envelope.getContent(state.readerContext);
+	}
+
+	@Benchmark
+	public EnvelopeVersion createLarge(LargeContent state) throws Exception {
+		return state.node.createEnvelope(state.envelope, state.content, state.author);
+	}
+
+	@Benchmark
+	public Serializable getContentLarge(LargeContent state) throws Exception {
+		return state.envelope.getContent(state.authorContext);
+	}
+
+	@Benchmark
+	public byte[] serializeLarge(LargeContent state) throws Exception {
+		return SerializeTools.serialize(state.envelope);
+	}
+
+}
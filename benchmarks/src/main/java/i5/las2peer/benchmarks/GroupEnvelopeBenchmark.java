@@ -0,0 +1,105 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.persistency.EnvelopeVersion;
+import i5.las2peer.security.AgentContext;
+import i5.las2peer.security.AgentImpl;
+import i5.las2peer.security.GroupAgentImpl;
+import i5.las2peer.security.UserAgentImpl;
+
+/**
+ * Reading an envelope 1000 times, that is readable by a group. The reader is a member of the innermost group of a chain
+ * of nested groups. The envelope is read from one context, which keeps the unlocked groups, or from a new context for
+ * each read, which has to unlock each group of the chain again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupEnvelopeBenchmark {
+
+	private static final int READS = 1000;
+
+	/**
+	 * number of nested groups between the reader and the envelope
+	 */
+	@Param({ "1", "3" })
+	public int depth;
+
+	/**
+	 * how long a context uses an unlocked group before checking it, 0 checks the group on each read
+	 */
+	@Param({ "10000", "0" })
+	public long groupTimeout;
+
+	private LocalNode node;
+	private UserAgentImpl reader;
+	private EnvelopeVersion envelope;
+	private AgentContext context;
+
+	@Setup
+	public void setup() throws Exception {
+		AgentContext.setGroupTimeout(groupTimeout);
+		node = new LocalNodeManager().launchNode();
+		reader = UserAgentImpl.createUserAgent("readerpass");
+		reader.unlock("readerpass");
+		node.storeAgent(reader);
+		AgentImpl member = reader;
+		GroupAgentImpl group = null;
+		for (int i = 0; i < depth; i++) {
+			group = GroupAgentImpl.createGroupAgent(new AgentImpl[] { member });
+			group.unlock(member);
+			node.storeAgent(group);
+			member = group;
+		}
+		envelope = node.createEnvelope("benchmark", reader.getPublicKey(), "group content", group);
+		context = new AgentContext(node, reader);
+	}
+
+	@TearDown
+	public void tearDown() {
+		node.shutDown();
+		AgentContext.setGroupTimeout(AgentContext.DEFAULT_GROUP_TIMEOUT);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public Serializable readSharedContext() throws Exception {
+		Serializable content = null;
+		for (int i = 0; i < READS; i++) {
+			content = envelope.getContent(context);
+		}
+		return content;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(READS)
+	public Serializable readNewContext() throws Exception {
+		Serializable content = null;
+		for (int i = 0; i < READS; i++) {
+			content = envelope.getContent(new AgentContext(node, reader));
+		}
+		return content;
+	}
+
+}
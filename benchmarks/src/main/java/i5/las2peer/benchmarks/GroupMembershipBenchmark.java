@@ -0,0 +1,197 @@
+package i5.las2peer.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.api.security.AgentException;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.security.AgentImpl;
+import i5.las2peer.security.AgentStorage;
+import i5.las2peer.security.GroupAgentImpl;
+import i5.las2peer.security.GroupMembershipIndex;
+import i5.las2peer.security.UserAgentImpl;
+
+/**
+ * Transitive membership checks in a hierarchy of 5 levels of nested groups with 1000 users in the groups of the lowest
+ * level. The checks use a warm {@link GroupMembershipIndex}, a cleared one, which has to fetch the whole hierarchy
+ * again, and for comparison a depth first search fetching each member, as done without an index. Each fetch from the
+ * local node can be delayed to simulate a lookup in the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GroupMembershipBenchmark {
+
+	private static final int LEVELS = 5;
+	private static final int BRANCHING = 3;
+	private static final int USERS = 1000;
+
+	/**
+	 * a member in the last group of the lowest level or an agent outside of the hierarchy
+	 */
+	@Param({ "member", "outsider" })
+	public String checked;
+
+	/**
+	 * simulated latency of each agent fetch in milliseconds
+	 */
+	@Param({ "0", "2" })
+	public int fetchLatency;
+
+	// the hierarchy is created once per JVM, since creating the keys of all agents takes a while
+	private static LocalNode node;
+	private static GroupAgentImpl root;
+	private static UserAgentImpl member;
+	private static UserAgentImpl outsider;
+
+	private AgentStorage storage;
+	private GroupMembershipIndex index;
+	private String agentId;
+
+	@Setup
+	public void setup() throws Exception {
+		if (node == null) {
+			createHierarchy();
+		}
+		storage = new AgentStorage() {
+			@Override
+			public AgentImpl getAgent(String id) throws AgentException {
+				if (fetchLatency > 0) {
+					try {
+						Thread.sleep(fetchLatency);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return node.getAgent(id);
+			}
+
+			@Override
+			public boolean hasAgent(String id) throws AgentException {
+				return node.hasAgent(id);
+			}
+		};
+		index = new GroupMembershipIndex(storage);
+		agentId = "member".equals(checked) ? member.getIdentifier() : outsider.getIdentifier();
+	}
+
+	private static void createHierarchy() throws Exception {
+		node = new LocalNodeManager().launchNode();
+		List<UserAgentImpl> users = IntStream.range(0, USERS).parallel().mapToObj(i -> createUser())
+				.collect(Collectors.toList());
+		for (UserAgentImpl user : users) {
+			node.storeAgent(user);
+		}
+		int leafGroups = (int) Math.pow(BRANCHING, LEVELS - 1);
+		List<List<AgentImpl>> members = new ArrayList<>();
+		for (int i = 0; i < leafGroups; i++) {
+			members.add(new ArrayList<>());
+		}
+		for (int i = 0; i < USERS; i++) {
+			members.get(i % leafGroups).add(users.get(i));
+		}
+		// create the groups bottom up, each group is a member of exactly one group of the next level
+		List<GroupAgentImpl> level = createGroups(members);
+		while (level.size() > 1) {
+			List<List<AgentImpl>> parents = new ArrayList<>();
+			for (int i = 0; i < level.size(); i += BRANCHING) {
+				parents.add(new ArrayList<AgentImpl>(level.subList(i, i + BRANCHING)));
+			}
+			level = createGroups(parents);
+		}
+		root = level.get(0);
+		// a user in the last group of the lowest level
+		member = users.get(USERS - 1 - USERS % leafGroups);
+		outsider = createUser();
+	}
+
+	private static List<GroupAgentImpl> createGroups(List<List<AgentImpl>> members) {
+		List<GroupAgentImpl> groups = members.parallelStream().map(m -> {
+			try {
+				GroupAgentImpl group = GroupAgentImpl.createGroupAgent(m.toArray(new AgentImpl[m.size()]));
+				group.unlock(m.get(0));
+				return group;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}).collect(Collectors.toList());
+		for (GroupAgentImpl group : groups) {
+			try {
+				node.storeAgent(group);
+			} catch (AgentException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return groups;
+	}
+
+	private static UserAgentImpl createUser() {
+		try {
+			UserAgentImpl user = UserAgentImpl.createUserAgent("userpass");
+			user.unlock("userpass");
+			return user;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		index.clear();
+	}
+
+	@Benchmark
+	public boolean indexWarm() {
+		return index.isMember(root.getIdentifier(), agentId);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public boolean indexCleared() {
+		index.clear();
+		return index.isMember(root.getIdentifier(), agentId);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public boolean depthFirstWithoutIndex() {
+		return isMemberDepthFirst(root, agentId);
+	}
+
+	private boolean isMemberDepthFirst(GroupAgentImpl group, String id) {
+		if (group.hasMember(id)) {
+			return true;
+		}
+		for (String memberId : group.getMemberList()) {
+			try {
+				AgentImpl agent = storage.getAgent(memberId);
+				if (agent instanceof GroupAgentImpl && isMemberDepthFirst((GroupAgentImpl) agent, id)) {
+					return true;
+				}
+			} catch (AgentException e) {
+			}
+		}
+		return false;
+	}
+
+}
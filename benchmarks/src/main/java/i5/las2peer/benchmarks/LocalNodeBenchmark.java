@@ -0,0 +1,176 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.api.execution.ServiceCall;
+import i5.las2peer.api.execution.ServiceCallResult;
+import i5.las2peer.api.logging.MonitoringEvent;
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.benchmarks.services.BenchmarkService;
+import i5.las2peer.benchmarks.services.FanOutService;
+import i5.las2peer.logging.NodeObserver;
+import i5.las2peer.p2p.LinkModel;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.p2p.NetworkSimulator;
+import i5.las2peer.security.ServiceAgentImpl;
+import i5.las2peer.security.UserAgentImpl;
+
+/**
+ * End-to-end service invocations between {@link LocalNode}s: local calls, remote calls, batches and a
+ * {@link FanOutService} calling {@link FanOutService#TARGETS} services at other nodes. Messages are delivered without
+ * delay, either by a thread per message or by a {@link NetworkSimulator}. Optionally a node observer receives all
+ * monitoring events, to measure the cost of event delivery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalNodeBenchmark {
+
+	private static final ServiceNameVersion SERVICE = new ServiceNameVersion(BenchmarkService.class.getName(), "1.0");
+	private static final ServiceNameVersion FAN_OUT_SERVICE = new ServiceNameVersion(FanOutService.class.getName(),
+			"1.0");
+	private static final int CALLS = 100;
+
+	@Param({ "threads", "simulator" })
+	public String network;
+
+	@Param({ "false", "true" })
+	public boolean observed;
+
+	private NetworkSimulator simulator;
+	private LocalNode serviceNode;
+	private LocalNode callerNode;
+	private List<LocalNode> targetNodes;
+	private ServiceAgentImpl serviceAgent;
+	private UserAgentImpl agent;
+	private List<ServiceCall> calls;
+
+	private final LongAdder observedEvents = new LongAdder();
+
+	@Setup
+	public void setup() throws Exception {
+		LocalNodeManager manager;
+		if ("simulator".equals(network)) {
+			simulator = new NetworkSimulator(NetworkSimulator.Clock.REAL_TIME, 1, LinkModel.constant(0));
+			manager = new LocalNodeManager(simulator);
+		} else {
+			manager = new LocalNodeManager();
+			manager.setMinMessageWait(0);
+			manager.setMaxMessageWait(0);
+		}
+
+		agent = UserAgentImpl.createUserAgent("benchmarkpass");
+		agent.unlock("benchmarkpass");
+
+		serviceNode = manager.newNode();
+		callerNode = manager.newNode();
+		if (observed) {
+			NodeObserver observer = new NodeObserver() {
+				@Override
+				public void log(Long timestamp, MonitoringEvent event, String sourceNode, String sourceAgentId,
+						String destinationNode, String destinationAgentId, String remarks) {
+					observedEvents.increment();
+				}
+			};
+			serviceNode.addObserver(observer);
+			callerNode.addObserver(observer);
+		}
+		serviceNode.storeAgent(agent);
+		serviceNode.launch();
+		callerNode.launch();
+		serviceAgent = serviceNode.startService(SERVICE, "servicepass");
+		serviceNode.startService(FAN_OUT_SERVICE, "servicepass");
+		// each target of the fan-out service runs at a node of its own
+		targetNodes = new ArrayList<>();
+		for (int i = 0; i < FanOutService.TARGETS; i++) {
+			LocalNode targetNode = manager.newNode();
+			targetNode.launch();
+			targetNode.startService(FanOutService.getTarget(i), "servicepass");
+			targetNodes.add(targetNode);
+		}
+
+		calls = new ArrayList<>();
+		for (int i = 0; i < CALLS; i++) {
+			calls.add(new ServiceCall("inc", i));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		callerNode.shutDown();
+		serviceNode.shutDown();
+		for (LocalNode targetNode : targetNodes) {
+			targetNode.shutDown();
+		}
+		if (simulator != null) {
+			simulator.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Serializable invokeLocal() throws Exception {
+		return serviceNode.invoke(agent, SERVICE, "inc", new Serializable[] { 1 });
+	}
+
+	@Benchmark
+	public Serializable invokeRemote() throws Exception {
+		return callerNode.invokeGlobally(agent, serviceAgent.getIdentifier(), serviceNode.getNodeId(), "inc",
+				new Serializable[] { 1 });
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CALLS)
+	public int invokeRemoteSequential() throws Exception {
+		int sum = 0;
+		for (int i = 0; i < CALLS; i++) {
+			sum += (Integer) callerNode.invoke(agent, SERVICE, "inc", new Serializable[] { i });
+		}
+		return sum;
+	}
+
+	/**
+	 * One request to a service calling its targets asynchronously, so the request takes about as long as the slowest
+	 * target.
+	 */
+	@Benchmark
+	public Serializable invokeFanOut() throws Exception {
+		return callerNode.invoke(agent, FAN_OUT_SERVICE, "fanOut", new Serializable[] { 1 });
+	}
+
+	/**
+	 * The same request with the targets called one after another, for comparison with {@link #invokeFanOut()}.
+	 */
+	@Benchmark
+	public Serializable invokeFanOutSequential() throws Exception {
+		return callerNode.invoke(agent, FAN_OUT_SERVICE, "fanOutSequential", new Serializable[] { 1 });
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CALLS)
+	public List<ServiceCallResult> invokeRemoteBatch() throws Exception {
+		return callerNode.invokeBatch(agent, SERVICE, calls, true, false, false);
+	}
+
+}
@@ -0,0 +1,113 @@
+package i5.las2peer.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.communication.Message;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.security.UserAgentImpl;
+
+/**
+ * Creation, encoding and opening of {@link Message}s between two agents, with and without session keys and in XML and
+ * binary content format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+	@Param({ "0", "600000" })
+	public long sessionKeyLifetime;
+
+	@Param({ "false", "true" })
+	public boolean binaryContent;
+
+	@Param({ "100", "100000" })
+	public int contentLength;
+
+	private UserAgentImpl sender;
+	private UserAgentImpl recipient;
+	private LocalNode node;
+	private String content;
+
+	private Message message;
+	private String xml;
+	private byte[] binary;
+
+	@Setup
+	public void setup() throws Exception {
+		sender = UserAgentImpl.createUserAgent("senderpass");
+		sender.unlock("senderpass");
+		recipient = UserAgentImpl.createUserAgent("recipientpass");
+		recipient.unlock("recipientpass");
+		// the node is not launched, it only provides the message settings and the agents
+		node = new LocalNodeManager().newNode();
+		node.setSessionKeyLifetime(sessionKeyLifetime);
+		node.setBinaryMessageContent(binaryContent);
+		node.storeAgent(sender);
+		node.storeAgent(recipient);
+
+		StringBuilder sb = new StringBuilder(contentLength);
+		for (int i = 0; i < contentLength; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		content = sb.toString();
+
+		message = new Message(sender, recipient, content, Message.DEFAULT_TIMEOUT, node);
+		message.close();
+		xml = message.toXmlString();
+		binary = message.toBinary();
+	}
+
+	@Benchmark
+	public Message construct() throws Exception {
+		return new Message(sender, recipient, content, Message.DEFAULT_TIMEOUT, node);
+	}
+
+	@Benchmark
+	public String toXmlString() {
+		return message.toXmlString();
+	}
+
+	@Benchmark
+	public Message createFromXml() throws Exception {
+		return Message.createFromXml(xml);
+	}
+
+	@Benchmark
+	public byte[] toBinary() throws Exception {
+		return message.toBinary();
+	}
+
+	@Benchmark
+	public Message createFromBinary() throws Exception {
+		return Message.createFromBinary(binary);
+	}
+
+	/**
+	 * Opening changes the message, so each operation decodes a fresh copy first. Subtract {@link #createFromBinary()}
+	 * to get the cost of opening alone.
+	 */
+	@Benchmark
+	public Object open() throws Exception {
+		Message received = Message.createFromBinary(binary);
+		received.open(recipient, node);
+		return received.getContent();
+	}
+
+}
@@ -0,0 +1,98 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.benchmarks.services.BenchmarkService;
+import i5.las2peer.p2p.LinkModel;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.p2p.NetworkSimulator;
+import i5.las2peer.security.ServiceAgentImpl;
+import i5.las2peer.security.UserAgentImpl;
+
+/**
+ * Remote invocations in a network of many {@link LocalNode}s, connected by a {@link NetworkSimulator} with 20 ms
+ * latency and 5 ms jitter in virtual time. Measures how many invocations the simulation handles per second of real
+ * time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class NetworkSimulationBenchmark {
+
+	private static final int SERVICE_NODES = 4;
+
+	@Param({ "50", "200" })
+	public int nodes;
+
+	private NetworkSimulator simulator;
+	private final List<LocalNode> callerNodes = new ArrayList<>();
+	private final List<LocalNode> serviceNodes = new ArrayList<>();
+	private final List<ServiceAgentImpl> serviceAgents = new ArrayList<>();
+	private UserAgentImpl agent;
+	private final AtomicInteger next = new AtomicInteger();
+
+	@Setup
+	public void setup() throws Exception {
+		simulator = new NetworkSimulator(NetworkSimulator.Clock.VIRTUAL_TIME, 1, LinkModel.of(20, 5, 0, 0));
+		LocalNodeManager manager = new LocalNodeManager(simulator);
+		agent = UserAgentImpl.createUserAgent("benchmarkpass");
+		agent.unlock("benchmarkpass");
+
+		ServiceNameVersion service = new ServiceNameVersion(BenchmarkService.class.getName(), "1.0");
+		for (int i = 0; i < SERVICE_NODES; i++) {
+			LocalNode node = manager.newNode();
+			node.storeAgent(agent);
+			node.launch();
+			serviceAgents.add(node.startService(service, "servicepass"));
+			serviceNodes.add(node);
+		}
+		for (int i = SERVICE_NODES; i < nodes; i++) {
+			callerNodes.add(manager.launchNode());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (LocalNode node : callerNodes) {
+			node.shutDown();
+		}
+		for (LocalNode node : serviceNodes) {
+			node.shutDown();
+		}
+		simulator.shutdown();
+	}
+
+	@Benchmark
+	public Serializable invokeRemote() throws Exception {
+		int i = next.getAndIncrement() & Integer.MAX_VALUE;
+		LocalNode caller = callerNodes.get(i % callerNodes.size());
+		int target = i % SERVICE_NODES;
+		return caller.invokeGlobally(agent, serviceAgents.get(target).getIdentifier(),
+				serviceNodes.get(target).getNodeId(), "inc", new Serializable[] { i });
+	}
+
+}
@@ -0,0 +1,65 @@
+package i5.las2peer.benchmarks;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.benchmarks.services.BenchmarkService;
+import i5.las2peer.restMapper.RESTResponse;
+import i5.las2peer.restMapper.RESTService;
+
+/**
+ * Dispatch of a request through {@link RESTService#handle(URI, URI, String, byte[], Map)} to a trivial JAX-RS
+ * resource, without any network or RMI overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RESTServiceBenchmark {
+
+	private static final byte[] EMPTY_BODY = new byte[0];
+
+	private BenchmarkService service;
+	private URI baseUri;
+	private URI pingUri;
+	private URI echoUri;
+	private Map<String, List<String>> headers;
+
+	@Setup
+	public void setup() throws Exception {
+		service = new BenchmarkService();
+		baseUri = new URI("http://localhost:8080/benchmark/");
+		pingUri = baseUri.resolve("ping");
+		echoUri = baseUri.resolve("echo/las2peer");
+		headers = new HashMap<>();
+		headers.put("Accept", Collections.singletonList("text/plain"));
+	}
+
+	@Benchmark
+	public RESTResponse handlePing() {
+		return service.handle(baseUri, pingUri, "GET", EMPTY_BODY, headers);
+	}
+
+	@Benchmark
+	public RESTResponse handleEcho() {
+		return service.handle(baseUri, echoUri, "GET", EMPTY_BODY, headers);
+	}
+
+}
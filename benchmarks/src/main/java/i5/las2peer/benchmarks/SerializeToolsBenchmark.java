@@ -0,0 +1,86 @@
+package i5.las2peer.benchmarks;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.serialization.SerializationException;
+import i5.las2peer.serialization.SerializeTools;
+
+/**
+ * Round trips through {@link SerializeTools} for a byte array and a map of strings of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeToolsBenchmark {
+
+	@Param({ "16", "1024", "65536" })
+	public int size;
+
+	private byte[] bytes;
+	private HashMap<String, String> map;
+	private byte[] serializedBytes;
+	private byte[] serializedMap;
+	private String base64Map;
+
+	@Setup
+	public void setup() throws SerializationException {
+		bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		map = new HashMap<>();
+		for (int i = 0; i < size / 16; i++) {
+			map.put("key-" + i, "value-" + i);
+		}
+		serializedBytes = SerializeTools.serialize(bytes);
+		serializedMap = SerializeTools.serialize(map);
+		base64Map = SerializeTools.serializeToBase64(map);
+	}
+
+	@Benchmark
+	public byte[] serializeBytes() throws SerializationException {
+		return SerializeTools.serialize(bytes);
+	}
+
+	@Benchmark
+	public Serializable deserializeBytes() throws SerializationException {
+		return SerializeTools.deserialize(serializedBytes);
+	}
+
+	@Benchmark
+	public byte[] serializeMap() throws SerializationException {
+		return SerializeTools.serialize(map);
+	}
+
+	@Benchmark
+	public Serializable deserializeMap() throws SerializationException {
+		return SerializeTools.deserialize(serializedMap);
+	}
+
+	@Benchmark
+	public Serializable base64RoundTrip() throws SerializationException {
+		return SerializeTools.deserializeBase64(SerializeTools.serializeToBase64(map));
+	}
+
+	@Benchmark
+	public Serializable deserializeBase64() throws SerializationException {
+		return SerializeTools.deserializeBase64(base64Map);
+	}
+
+}
@@ -0,0 +1,84 @@
+package i5.las2peer.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.benchmarks.services.BenchmarkService;
+import i5.las2peer.p2p.AliasNotFoundException;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.p2p.ServiceAliasManager;
+import i5.las2peer.p2p.ServiceAliasManager.AliasResolveResponse;
+
+/**
+ * Resolution of request paths to service names by the {@link ServiceAliasManager} of a node in a network of five
+ * nodes. The alias is registered by another node, so uncached lookups have to fetch it from the shared storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceAliasBenchmark {
+
+	private static final int NODES = 5;
+
+	private final List<LocalNode> nodes = new ArrayList<>();
+	private ServiceAliasManager aliasManager;
+
+	@Setup
+	public void setup() throws Exception {
+		LocalNodeManager manager = new LocalNodeManager();
+		manager.setMinMessageWait(0);
+		manager.setMaxMessageWait(0);
+		for (int i = 0; i < NODES; i++) {
+			nodes.add(manager.launchNode());
+		}
+		nodes.get(0).startService(new ServiceNameVersion(BenchmarkService.class.getName(), "1.0"), "servicepass");
+		aliasManager = nodes.get(NODES - 1).getServiceAliasManager();
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (LocalNode node : nodes) {
+			node.shutDown();
+		}
+	}
+
+	@Benchmark
+	public AliasResolveResponse resolveCached() throws AliasNotFoundException {
+		return aliasManager.resolvePathToServiceName("benchmark/echo/las2peer");
+	}
+
+	@Benchmark
+	public AliasResolveResponse resolveUncached() throws AliasNotFoundException {
+		aliasManager.clearCache();
+		return aliasManager.resolvePathToServiceName("benchmark/echo/las2peer");
+	}
+
+	@Benchmark
+	public boolean resolveMissing() {
+		try {
+			aliasManager.resolvePathToServiceName("missing/path");
+			return true;
+		} catch (AliasNotFoundException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package i5.las2peer.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.benchmarks.services.BenchmarkService;
+import i5.las2peer.execution.ServiceHelper;
+
+/**
+ * Method lookup and reflective dispatch of service calls through {@link ServiceHelper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceHelperBenchmark {
+
+	private BenchmarkService service;
+	private Object[] incParameters;
+	private Object[] echoParameters;
+
+	@Setup
+	public void setup() {
+		service = new BenchmarkService();
+		incParameters = new Object[] { 41 };
+		echoParameters = new Object[] { "benchmark" };
+	}
+
+	@Benchmark
+	public Method searchMethod() throws Exception {
+		return ServiceHelper.searchMethod(BenchmarkService.class, "inc", incParameters);
+	}
+
+	@Benchmark
+	public Object executeInc() throws Exception {
+		return ServiceHelper.execute(service, "inc", incParameters);
+	}
+
+	@Benchmark
+	public Object executeEcho() throws Exception {
+		return ServiceHelper.execute(service, "echo", echoParameters);
+	}
+
+}
@@ -0,0 +1,118 @@
+package i5.las2peer.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.benchmarks.services.BenchmarkService;
+import i5.las2peer.connectors.webConnector.WebConnector;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.security.UserAgentImpl;
+
+/**
+ * HTTP load on a {@link WebConnector} in front of a {@link LocalNode}. Concurrent clients call a trivial REST resource
+ * anonymously and with basic authentication, which covers alias resolution, authentication and the RMI to the service.
+ * Besides the throughput the request latency is sampled, JMH reports its percentiles like p50 and p99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class WebConnectorBenchmark {
+
+	private LocalNode node;
+	private WebConnector connector;
+	private String endpoint;
+	private String authorization;
+
+	@Setup
+	public void setup() throws Exception {
+		UserAgentImpl agent = UserAgentImpl.createUserAgent("benchmarkpass");
+		agent.unlock("benchmarkpass");
+
+		LocalNodeManager manager = new LocalNodeManager();
+		manager.setMinMessageWait(0);
+		manager.setMaxMessageWait(0);
+		node = manager.newNode();
+		node.storeAgent(agent);
+		node.launch();
+		node.startService(new ServiceNameVersion(BenchmarkService.class.getName(), "1.0"), "servicepass");
+
+		// port 0 lets the system pick a free port
+		connector = new WebConnector(true, 0, false, 0);
+		connector.setLogStream(new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				// discard the connector log
+			}
+		});
+		connector.start(node);
+		endpoint = connector.getHttpEndpoint();
+		authorization = "Basic " + Base64.getEncoder()
+				.encodeToString((agent.getIdentifier() + ":benchmarkpass").getBytes(StandardCharsets.UTF_8));
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		connector.stop();
+		node.shutDown();
+	}
+
+	@Benchmark
+	public int getAnonymous() throws IOException {
+		return get(endpoint + "/benchmark/ping", null);
+	}
+
+	@Benchmark
+	public int getAuthenticated() throws IOException {
+		return get(endpoint + "/benchmark/ping", authorization);
+	}
+
+	private static int get(String url, String authorization) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		if (authorization != null) {
+			connection.setRequestProperty("Authorization", authorization);
+		}
+		int code = connection.getResponseCode();
+		InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+		if (in != null) {
+			// read the whole response, so that the connection can be reused
+			try (InputStream stream = in; OutputStream sink = new ByteArrayOutputStream()) {
+				byte[] buffer = new byte[1024];
+				int read;
+				while ((read = stream.read(buffer)) != -1) {
+					sink.write(buffer, 0, read);
+				}
+			}
+		}
+		if (code != 200) {
+			throw new IOException("Unexpected response code " + code + " for " + url);
+		}
+		return code;
+	}
+
+}
@@ -0,0 +1,51 @@
+package i5.las2peer.benchmarks.services;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+import i5.las2peer.restMapper.RESTService;
+import i5.las2peer.restMapper.annotations.ServicePath;
+
+/**
+ * A trivial service used by the benchmarks. It offers methods for remote invocation and a small REST resource.
+ */
+@ServicePath("benchmark")
+public class BenchmarkService extends RESTService {
+
+	@Override
+	protected void initResources() {
+		getResourceConfig().register(Resource.class);
+	}
+
+	public int inc(int value) {
+		return value + 1;
+	}
+
+	public String echo(String value) {
+		return value;
+	}
+
+	public int block(int millis) throws InterruptedException {
+		// stands in for a service waiting for the storage or a nested invocation
+		Thread.sleep(millis);
+		return millis;
+	}
+
+	@Path("/")
+	public static class Resource {
+
+		@GET
+		@Path("/ping")
+		public String ping() {
+			return "pong";
+		}
+
+		@GET
+		@Path("/echo/{value}")
+		public String echo(@PathParam("value") String value) {
+			return value;
+		}
+	}
+
+}
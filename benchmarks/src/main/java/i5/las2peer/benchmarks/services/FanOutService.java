@@ -0,0 +1,48 @@
+package i5.las2peer.benchmarks.services;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import i5.las2peer.api.Context;
+import i5.las2peer.api.Service;
+import i5.las2peer.api.p2p.ServiceNameVersion;
+
+/**
+ * A service calling {@link #TARGETS} other services for each request, like a service aggregating the answers of
+ * several backends. The targets are the versions of the {@link BenchmarkService} returned by {@link #getTarget(int)}.
+ */
+public class FanOutService extends Service {
+
+	public static final int TARGETS = 10;
+
+	/**
+	 * @param index The index of the target, between 0 and {@link #TARGETS} - 1
+	 * @return Returns the service called as the given target
+	 */
+	public static ServiceNameVersion getTarget(int index) {
+		return new ServiceNameVersion(BenchmarkService.class.getName(), "2." + index);
+	}
+
+	public int fanOut(int value) throws Exception {
+		List<CompletableFuture<Serializable>> futures = new ArrayList<>(TARGETS);
+		for (int i = 0; i < TARGETS; i++) {
+			futures.add(Context.get().invokeAsync(getTarget(i), "inc", value));
+		}
+		int sum = 0;
+		for (CompletableFuture<Serializable> future : futures) {
+			sum += (Integer) future.get();
+		}
+		return sum;
+	}
+
+	public int fanOutSequential(int value) throws Exception {
+		int sum = 0;
+		for (int i = 0; i < TARGETS; i++) {
+			sum += (Integer) Context.get().invoke(getTarget(i), "inc", value);
+		}
+		return sum;
+	}
+
+}
@@ -1,11 +1,15 @@
 package i5.las2peer.api;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
 import i5.las2peer.api.execution.InternalServiceException;
 import i5.las2peer.api.execution.ServiceAccessDeniedException;
+import i5.las2peer.api.execution.ServiceCall;
+import i5.las2peer.api.execution.ServiceCallResult;
 import i5.las2peer.api.execution.ServiceInvocationFailedException;
 import i5.las2peer.api.execution.ServiceMethodNotFoundException;
 import i5.las2peer.api.execution.ServiceNotAuthorizedException;
@@ -429,6 +433,105 @@ public interface Context {
 			ServiceMethodNotFoundException, ServiceInvocationFailedException, ServiceAccessDeniedException,
 			ServiceNotAuthorizedException;
 
+	/**
+	 * Invokes the method of any other service on behalf of the main agent without waiting for the result.
+	 * 
+	 * The calling thread does not block, so several services can be invoked in parallel. Looking up the service and
+	 * calling it, also if it runs at this node, is done by threads of the node, which are limited like service calls.
+	 * If the node is overloaded, the returned future fails with a {@link ServiceNotAvailableException}. Dependent
+	 * stages of the returned future are not executed in the context of this service, use {@link #getExecutor()} to
+	 * run them inside it.
+	 * 
+	 * @param service The service class. A version may be specified (for example package.serviceClass@1.0.0-1 or
+	 *            package.serviceClass@1.0). The core tries to find an appropriate version (version 1.0.5 matches 1.0).
+	 *            If no version is specified, the newest version is picked.
+	 * @param method The service method.
+	 * @param parameters The parameters list.
+	 * @return A future completed with the invocation result or exceptionally with one of the exceptions thrown by
+	 *         {@link #invoke(String, String, Serializable...)}.
+	 */
+	public CompletableFuture<Serializable> invokeAsync(String service, String method, Serializable... parameters);
+
+	/**
+	 * Invokes the method of any other service on behalf of the main agent without waiting for the result.
+	 * 
+	 * @see #invokeAsync(String, String, Serializable...)
+	 * @param service The service class and version.
+	 * @param method The service method.
+	 * @param parameters The parameters list.
+	 * @return A future completed with the invocation result or exceptionally with one of the exceptions thrown by
+	 *         {@link #invoke(ServiceNameVersion, String, Serializable...)}.
+	 */
+	public CompletableFuture<Serializable> invokeAsync(ServiceNameVersion service, String method,
+			Serializable... parameters);
+
+	/**
+	 * Invokes a service method using the agent of this service as calling agent without waiting for the result.
+	 * 
+	 * @see #invokeAsync(String, String, Serializable...)
+	 * @param service The service class. A version may be specified (for example package.serviceClass@1.0.0-1 or
+	 *            package.serviceClass@1.0). The core tries to find an appropriate version (version 1.0.5 matches 1.0).
+	 *            If no version is specified, the newest version is picked.
+	 * @param method The service method.
+	 * @param parameters The parameters list.
+	 * @return A future completed with the invocation result or exceptionally with one of the exceptions thrown by
+	 *         {@link #invokeInternally(String, String, Serializable...)}.
+	 */
+	public CompletableFuture<Serializable> invokeInternallyAsync(String service, String method,
+			Serializable... parameters);
+
+	/**
+	 * Invokes a service method using the agent of this service as calling agent without waiting for the result.
+	 * 
+	 * @see #invokeAsync(String, String, Serializable...)
+	 * @param service The service class and version.
+	 * @param method The service method.
+	 * @param parameters The parameters list.
+	 * @return A future completed with the invocation result or exceptionally with one of the exceptions thrown by
+	 *         {@link #invokeInternally(ServiceNameVersion, String, Serializable...)}.
+	 */
+	public CompletableFuture<Serializable> invokeInternallyAsync(ServiceNameVersion service, String method,
+			Serializable... parameters);
+
+	/**
+	 * Invokes several methods of the same service on behalf of the main agent with a single message.
+	 * 
+	 * All calls are executed by the same service instance. Sending them together saves the encryption, signing and
+	 * routing overhead of separate invocations. The exception of a single call is reported in its result and does not
+	 * affect the other calls.
+	 * 
+	 * @param service The service class. A version may be specified (for example package.serviceClass@1.0.0-1 or
+	 *            package.serviceClass@1.0). The core tries to find an appropriate version (version 1.0.5 matches 1.0).
+	 *            If no version is specified, the newest version is picked.
+	 * @param calls The method calls.
+	 * @param parallel If true, the service may execute the calls concurrently, otherwise they are executed in order.
+	 * @return One result per call, in the order of the calls.
+	 * @throws ServiceNotFoundException If the service is not known to the network.
+	 * @throws ServiceNotAvailableException If the service is temporarily not available.
+	 * @throws ServiceInvocationFailedException If the batch could not be delivered.
+	 * @throws ServiceAccessDeniedException If the access to the service has been denied.
+	 */
+	public List<ServiceCallResult> invokeBatch(String service, List<ServiceCall> calls, boolean parallel)
+			throws ServiceNotFoundException, ServiceNotAvailableException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException;
+
+	/**
+	 * Invokes several methods of the same service on behalf of the main agent with a single message.
+	 * 
+	 * @see #invokeBatch(String, List, boolean)
+	 * @param service The service class and version.
+	 * @param calls The method calls.
+	 * @param parallel If true, the service may execute the calls concurrently, otherwise they are executed in order.
+	 * @return One result per call, in the order of the calls.
+	 * @throws ServiceNotFoundException If the service is not known to the network.
+	 * @throws ServiceNotAvailableException If the service is temporarily not available.
+	 * @throws ServiceInvocationFailedException If the batch could not be delivered.
+	 * @throws ServiceAccessDeniedException If the access to the service has been denied.
+	 */
+	public List<ServiceCallResult> invokeBatch(ServiceNameVersion service, List<ServiceCall> calls, boolean parallel)
+			throws ServiceNotFoundException, ServiceNotAvailableException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException;
+
 	// Execution
 
 	/**
@@ -0,0 +1,34 @@
+package i5.las2peer.api.execution;
+
+import java.io.Serializable;
+
+/**
+ * A single method call of a batch invocation.
+ * 
+ * @see i5.las2peer.api.Context#invokeBatch(String, java.util.List, boolean)
+ */
+public class ServiceCall {
+
+	private final String method;
+	private final Serializable[] parameters;
+
+	/**
+	 * Creates a new service call.
+	 * 
+	 * @param method The service method.
+	 * @param parameters The parameters list.
+	 */
+	public ServiceCall(String method, Serializable... parameters) {
+		this.method = method;
+		this.parameters = parameters.clone();
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public Serializable[] getParameters() {
+		return parameters.clone();
+	}
+
+}
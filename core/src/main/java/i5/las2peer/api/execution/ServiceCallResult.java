@@ -0,0 +1,64 @@
+package i5.las2peer.api.execution;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of a single {@link ServiceCall} of a batch invocation. Either holds the result or the exception of the
+ * call.
+ */
+public class ServiceCallResult {
+
+	private final Serializable result;
+	private final ServiceInvocationException exception;
+
+	/**
+	 * Creates the result of a successful call.
+	 * 
+	 * @param result The invocation result.
+	 */
+	public ServiceCallResult(Serializable result) {
+		this.result = result;
+		this.exception = null;
+	}
+
+	/**
+	 * Creates the result of a failed call.
+	 * 
+	 * @param exception The exception thrown by the call.
+	 */
+	public ServiceCallResult(ServiceInvocationException exception) {
+		if (exception == null) {
+			throw new IllegalArgumentException("Exception must not be null");
+		}
+		this.result = null;
+		this.exception = exception;
+	}
+
+	/**
+	 * @return true, if the call succeeded
+	 */
+	public boolean isSuccess() {
+		return exception == null;
+	}
+
+	/**
+	 * Gets the result of the call.
+	 * 
+	 * @return The invocation result.
+	 * @throws ServiceInvocationException The exception thrown by the call, if it failed.
+	 */
+	public Serializable getResult() throws ServiceInvocationException {
+		if (exception != null) {
+			throw exception;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the exception thrown by the call or null, if the call succeeded
+	 */
+	public ServiceInvocationException getException() {
+		return exception;
+	}
+
+}
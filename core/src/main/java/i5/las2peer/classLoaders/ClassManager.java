@@ -11,6 +11,7 @@ import i5.las2peer.classLoaders.libraries.LibraryVersion;
 import i5.las2peer.classLoaders.libraries.LoadedLibrary;
 import i5.las2peer.classLoaders.libraries.Repository;
 import i5.las2peer.classLoaders.policies.ClassLoaderPolicy;
+import i5.las2peer.execution.ServiceHelper;
 
 /**
  * The main class for loading classes in the las2peer environment. This ClassManager handles library registering and
@@ -125,7 +126,8 @@ public class ClassManager {
 			throw new NotRegisteredException(service);
 		}
 
-		registeredLoaders.remove(service);
+		ServiceClassLoader loader = registeredLoaders.remove(service);
+		ServiceHelper.invalidateDispatchCache(loader);
 	}
 
 	/**
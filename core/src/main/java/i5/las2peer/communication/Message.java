@@ -1,6 +1,9 @@
 package i5.las2peer.communication;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
@@ -10,6 +13,7 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Objects;
 import java.util.Random;
 
 import javax.crypto.SecretKey;
@@ -25,11 +29,18 @@ import i5.las2peer.api.security.AgentException;
 import i5.las2peer.api.security.AgentLockedException;
 import i5.las2peer.api.security.AgentNotFoundException;
 import i5.las2peer.api.security.AnonymousAgent;
+import i5.las2peer.logging.metrics.LatencyHistogram;
+import i5.las2peer.logging.metrics.MetricFamily;
+import i5.las2peer.logging.metrics.MetricsRegistry;
+import i5.las2peer.p2p.Node;
 import i5.las2peer.persistency.EncodingFailedException;
+import i5.las2peer.security.AgentContext;
 import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.AgentStorage;
 import i5.las2peer.security.AnonymousAgentImpl;
 import i5.las2peer.security.InternalSecurityException;
+import i5.las2peer.security.SessionKey;
+import i5.las2peer.serialization.CompressionTools;
 import i5.las2peer.serialization.MalformedXMLException;
 import i5.las2peer.serialization.SerializationException;
 import i5.las2peer.serialization.SerializeTools;
@@ -52,11 +63,71 @@ import rice.p2p.commonapi.NodeHandle;
  * When specifying a topic, the message will be sent to all agents listening to the topic. Since these agents are not
  * known, the message will not be encrypted.
  * 
+ * Besides its XML representation a message can be transferred in a versioned, length-prefixed binary format, see
+ * {@link #toBinary()}. The signed content itself is XML by default. Binary content skips the base64 encoding of the
+ * payload, but can only be opened by nodes supporting it, so it has to be enabled explicitly for the creating node via
+ * {@link Node#setBinaryMessageContent(boolean)}. Responses always use the content format of the message they answer.
+ * 
+ * If the creating node has a session key lifetime set via {@link Node#setSessionKeyLifetime(long)}, the symmetric key
+ * is reused for all messages between the same pair of agents until it expires, see {@link SessionKey}. This saves the
+ * asymmetric encryption and decryption of a content key per message. The content is still signed by the sender, since
+ * the session key is known to all holders of the recipient's key, e. g. all members of a group, who could otherwise
+ * forge messages from the sender. Session keys are an opt-in per network. A node only accepts them, if it has a
+ * session key lifetime set itself, and rejects keys that expired or that are valid longer than its own lifetime
+ * allows. Messages created without a node use neither binary content nor session keys.
+ * 
+ * Serialized content is compressed before encryption, if enabled via
+ * {@link CompressionTools#setThreshold(int)}. This also requires all nodes to support it.
+ * 
  */
 public class Message implements XmlAble, Cloneable {
 
 	public static final long DEFAULT_TIMEOUT = 30 * 1000; // 30 seconds
 
+	/**
+	 * leading bytes ("L2PM") of a message in binary format
+	 */
+	private static final int BINARY_MAGIC = 0x4C32504D;
+
+	/**
+	 * leading bytes ("L2PC") of signed message content in binary format
+	 */
+	private static final int BINARY_CONTENT_MAGIC = 0x4C325043;
+
+	/**
+	 * highest version of the binary message format, version 1 does not support session keys and version 2 lacks the
+	 * content signature of messages using them
+	 */
+	public static final int BINARY_MESSAGE_VERSION = 3;
+
+	/**
+	 * version of signed content in binary format, version 1 has the same layout
+	 */
+	private static final byte BINARY_CONTENT_VERSION = 2;
+
+	/**
+	 * version of signed content in binary format, whose serialized content is compressed
+	 */
+	private static final byte BINARY_CONTENT_VERSION_COMPRESSED = 3;
+
+	/**
+	 * type of compressed serialized content in XML format, nodes without compression support reject it
+	 */
+	private static final String CONTENT_TYPE_COMPRESSED = "DeflatedSerializable";
+
+	private static final MetricFamily<LatencyHistogram> cryptoDuration = MetricsRegistry.getDefault().histogram(
+			"las2peer_message_crypto_duration_seconds", "Time spent encrypting, signing and opening messages",
+			"operation");
+	private static final String OPERATION_ENCRYPT = "encrypt";
+	private static final String OPERATION_SIGN = "sign";
+	private static final String OPERATION_OPEN = "open";
+
+	/**
+	 * how long a session key is accepted after its expiration or before its creation, covering transfer time and
+	 * clock differences between nodes
+	 */
+	private static final long SESSION_KEY_TOLERANCE_MS = 60 * 1000;
+
 	/**
 	 * sender of the message
 	 */
@@ -129,6 +200,31 @@ public class Message implements XmlAble, Cloneable {
 
 	private Serializable sendingNodeId = null;
 
+	/**
+	 * format of the signed content, binary or XML
+	 */
+	private boolean binaryContent = false;
+
+	/**
+	 * lifetime of session keys used or accepted by the node creating or opening this message, 0 disables them
+	 */
+	private long sessionKeyLifetime = 0;
+
+	/**
+	 * content encrypted with a session key shared by several messages
+	 */
+	private boolean sessionKey = false;
+
+	/**
+	 * signed expiration time of the session key
+	 */
+	private long sessionKeyExpiresMs;
+
+	/**
+	 * signature of the session key, see {@link SessionKey#getSignedData(byte[], String, String, long)}
+	 */
+	private byte[] baSessionKeySignature;
+
 	/**
 	 * constructor for the {@link XmlAble} facilities
 	 */
@@ -165,6 +261,23 @@ public class Message implements XmlAble, Cloneable {
 	 */
 	public Message(AgentImpl from, AgentImpl to, Serializable data, long timeOutMs)
 			throws EncodingFailedException, InternalSecurityException, SerializationException {
+		this(from, to, data, timeOutMs, null);
+	}
+
+	/**
+	 * create a new message using the message settings of the given node
+	 * 
+	 * @param from A sending agent
+	 * @param to A receiving agent
+	 * @param data Arbitrary data to wrap in the message
+	 * @param timeOutMs timeout for the validity of the new message
+	 * @param node The node creating the message, may be null to use neither binary content nor session keys
+	 * @throws EncodingFailedException If the content serialization fails
+	 * @throws InternalSecurityException the private key of the sender is not accessible for signing
+	 * @throws SerializationException If the content serialization fails
+	 */
+	public Message(AgentImpl from, AgentImpl to, Serializable data, long timeOutMs, Node node)
+			throws EncodingFailedException, InternalSecurityException, SerializationException {
 		if (from == null || to == null) {
 			throw new IllegalArgumentException("null not allowed as sender or recipient!");
 		}
@@ -173,15 +286,15 @@ public class Message implements XmlAble, Cloneable {
 		recipient = to;
 		recipientId = to.getIdentifier();
 		content = data;
+		applySettings(node);
 
 		timestampMs = new Date().getTime();
 		validMs = timeOutMs;
 
 		id = new Random().nextLong();
 
-		encryptContent();
-
 		try {
+			encryptContent();
 			signContent();
 		} catch (AgentLockedException e) {
 			throw new InternalSecurityException("Agent locked", e);
@@ -218,12 +331,30 @@ public class Message implements XmlAble, Cloneable {
 	 */
 	public Message(AgentImpl from, AgentImpl to, XmlAble data, long timeoutMs)
 			throws EncodingFailedException, InternalSecurityException, SerializationException {
+		this(from, to, data, timeoutMs, null);
+	}
+
+	/**
+	 * create a new message using the message settings of the given node
+	 * 
+	 * @param from A sending agent
+	 * @param to A receiving agent
+	 * @param data Arbitrary data to wrap in the message
+	 * @param timeoutMs timeout for the validity of the new message
+	 * @param node The node creating the message, may be null to use neither binary content nor session keys
+	 * @throws EncodingFailedException If the content serialization fails
+	 * @throws InternalSecurityException the private key of the sender is not accessible for signing
+	 * @throws SerializationException If the content serialization fails
+	 */
+	public Message(AgentImpl from, AgentImpl to, XmlAble data, long timeoutMs, Node node)
+			throws EncodingFailedException, InternalSecurityException, SerializationException {
 		sender = from;
 		senderId = from.getIdentifier();
 		recipient = to;
 		recipientId = to.getIdentifier();
 		content = data;
 		validMs = timeoutMs;
+		applySettings(node);
 
 		finalizeConstructor();
 	}
@@ -256,6 +387,23 @@ public class Message implements XmlAble, Cloneable {
 	 */
 	public Message(AgentImpl from, long topic, Serializable data, long timeoutMs)
 			throws EncodingFailedException, InternalSecurityException, SerializationException {
+		this(from, topic, data, timeoutMs, null);
+	}
+
+	/**
+	 * create a new message to all agents listening on the given topic using the message settings of the given node
+	 * 
+	 * @param from A sending agent
+	 * @param topic A target topic
+	 * @param data Arbitrary data to wrap in the message
+	 * @param timeoutMs A timeout to send message
+	 * @param node The node creating the message, may be null to use XML content
+	 * @throws EncodingFailedException If the content serialization fails
+	 * @throws InternalSecurityException the private key of the sender is not accessible for signing
+	 * @throws SerializationException If the content serialization fails
+	 */
+	public Message(AgentImpl from, long topic, Serializable data, long timeoutMs, Node node)
+			throws EncodingFailedException, InternalSecurityException, SerializationException {
 		if (from == null) {
 			throw new IllegalArgumentException("null not allowed as sender!");
 		}
@@ -265,6 +413,7 @@ public class Message implements XmlAble, Cloneable {
 		topicId = topic;
 		content = data;
 		validMs = timeoutMs;
+		applySettings(node);
 
 		timestampMs = new Date().getTime();
 
@@ -273,6 +422,18 @@ public class Message implements XmlAble, Cloneable {
 		finalizeConstructor();
 	}
 
+	/**
+	 * take the content format and session key lifetime from the given node
+	 * 
+	 * @param node A node or null for the defaults
+	 */
+	private void applySettings(Node node) {
+		if (node != null) {
+			binaryContent = node.isBinaryMessageContent();
+			sessionKeyLifetime = node.getSessionKeyLifetime();
+		}
+	}
+
 	/**
 	 * common to all constructors
 	 * 
@@ -285,14 +446,14 @@ public class Message implements XmlAble, Cloneable {
 		timestampMs = new Date().getTime();
 		id = new Random().nextLong();
 
-		if (!isTopic() && !(recipient instanceof AnonymousAgent)) {
-			encryptContent();
-		} else {
-			baDecryptedContent = getContentString().getBytes(StandardCharsets.UTF_8);
-			baEncryptedContent = baDecryptedContent;
-		}
-
 		try {
+			if (!isTopic() && !(recipient instanceof AnonymousAgent)) {
+				encryptContent();
+			} else {
+				baDecryptedContent = getContentBytes();
+				baEncryptedContent = baDecryptedContent;
+			}
+
 			signContent();
 		} catch (AgentLockedException e) {
 			throw new InternalSecurityException("Agent locked", e);
@@ -329,6 +490,8 @@ public class Message implements XmlAble, Cloneable {
 		content = data;
 
 		responseToId = responseTo.getId();
+		binaryContent = responseTo.binaryContent;
+		sessionKeyLifetime = responseTo.sessionKeyLifetime;
 
 		finalizeConstructor();
 	}
@@ -376,6 +539,8 @@ public class Message implements XmlAble, Cloneable {
 		content = data;
 
 		responseToId = responseTo.getId();
+		binaryContent = responseTo.binaryContent;
+		sessionKeyLifetime = responseTo.sessionKeyLifetime;
 
 		finalizeConstructor();
 	}
@@ -410,7 +575,13 @@ public class Message implements XmlAble, Cloneable {
 			sContent = ((XmlAble) content).toXmlString();
 		} else {
 			typeAttr = "Serializable";
-			sContent = Base64.getEncoder().encodeToString(SerializeTools.serialize((Serializable) content));
+			byte[] serialized = SerializeTools.serialize((Serializable) content);
+			byte[] compressed = CompressionTools.compressIfUseful(serialized);
+			if (compressed != null) {
+				typeAttr = CONTENT_TYPE_COMPRESSED;
+				serialized = compressed;
+			}
+			sContent = Base64.getEncoder().encodeToString(serialized);
 		}
 
 		String attrs = "";
@@ -430,22 +601,101 @@ public class Message implements XmlAble, Cloneable {
 				+ "</las2peer:messageContent>";
 	}
 
+	/**
+	 * get the contents of this message in the configured content format
+	 * 
+	 * @return the raw content to sign and encrypt
+	 * @throws SerializationException
+	 */
+	private byte[] getContentBytes() throws SerializationException {
+		if (binaryContent) {
+			return getBinaryContent();
+		}
+		return getContentString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * get the contents of this message in binary format
+	 * 
+	 * @return all important attributes followed by the serialized content
+	 * @throws SerializationException
+	 */
+	private byte[] getBinaryContent() throws SerializationException {
+		try {
+			byte[] data;
+			if (content instanceof XmlAble) {
+				data = ((XmlAble) content).toXmlString().getBytes(StandardCharsets.UTF_8);
+			} else {
+				data = SerializeTools.serialize((Serializable) content);
+			}
+			byte[] compressed = CompressionTools.compressIfUseful(data);
+			if (compressed != null) {
+				data = compressed;
+			}
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length + 256);
+			DataOutputStream out = new DataOutputStream(baos);
+			out.writeInt(BINARY_CONTENT_MAGIC);
+			out.writeByte(compressed != null ? BINARY_CONTENT_VERSION_COMPRESSED : BINARY_CONTENT_VERSION);
+			out.writeLong(id);
+			out.writeUTF(sender.getIdentifier());
+			out.writeBoolean(isTopic());
+			if (isTopic()) {
+				out.writeLong(topicId);
+			} else {
+				out.writeUTF(recipient.getIdentifier());
+			}
+			out.writeLong(timestampMs);
+			out.writeLong(validMs);
+			writeOptionalLong(out, responseToId);
+			out.writeBoolean(content instanceof XmlAble);
+			out.writeUTF(String.valueOf(content.getClass().getCanonicalName()));
+			writeBytes(out, data);
+			out.flush();
+			return baos.toByteArray();
+		} catch (IOException e) {
+			throw new SerializationException("unable to encode message content", e);
+		}
+	}
+
 	/**
 	 * encrypt the content of this message (as base64 encoded string) with asymmetric encryption
 	 * 
 	 * @throws EncodingFailedException If the content serialization fails
+	 * @throws AgentLockedException If a session key is used and the sender is locked
 	 */
-	private void encryptContent() throws EncodingFailedException {
+	private void encryptContent() throws EncodingFailedException, AgentLockedException {
 		if (recipient == null || recipient instanceof AnonymousAgent) {
 			return;
 		}
 
+		long start = System.nanoTime();
 		try {
+			encryptContentForRecipient();
+		} finally {
+			cryptoDuration.get(OPERATION_ENCRYPT).recordSince(start);
+		}
+	}
+
+	private void encryptContentForRecipient() throws EncodingFailedException, AgentLockedException {
+		try {
+			long lifetime = sessionKeyLifetime;
+			if (lifetime > 0 && !(sender instanceof AnonymousAgent)) {
+				SessionKey session = sender.getSessionKey(recipient, lifetime);
+				baContentKey = session.getEncryptedKey();
+				baSessionKeySignature = session.getSignature();
+				sessionKey = true;
+				sessionKeyExpiresMs = session.getExpires();
+
+				baDecryptedContent = getContentBytes();
+				baEncryptedContent = CryptoTools.encryptSymmetricAuthenticated(baDecryptedContent, session.getKey());
+				return;
+			}
+
 			SecretKey contentKey = CryptoTools.generateSymmetricKey();
 			baContentKey = CryptoTools.encryptAsymmetric(contentKey, recipient.getPublicKey());
 
-			String contentString = getContentString();
-			baDecryptedContent = contentString.getBytes(StandardCharsets.UTF_8);
+			baDecryptedContent = getContentBytes();
 			baEncryptedContent = CryptoTools.encryptSymmetric(baDecryptedContent, contentKey);
 		} catch (SerializationException e) {
 			throw new EncodingFailedException("serialization problems with encryption", e);
@@ -466,6 +716,7 @@ public class Message implements XmlAble, Cloneable {
 			return;
 		}
 
+		long start = System.nanoTime();
 		try {
 			Signature sig = sender.createSignature();
 			sig.update(baDecryptedContent);
@@ -477,6 +728,8 @@ public class Message implements XmlAble, Cloneable {
 			throw new EncodingFailedException("Algorithm problems", e);
 		} catch (SignatureException e) {
 			throw new EncodingFailedException("Signature problems", e);
+		} finally {
+			cryptoDuration.get(OPERATION_SIGN).recordSince(start);
 		}
 	}
 
@@ -628,6 +881,24 @@ public class Message implements XmlAble, Cloneable {
 			return;
 		}
 
+		long start = System.nanoTime();
+		try {
+			openContent(unlockedRecipient, storage, contentClsLoader);
+		} finally {
+			cryptoDuration.get(OPERATION_OPEN).recordSince(start);
+		}
+	}
+
+	private void openContent(AgentImpl unlockedRecipient, AgentStorage storage, ClassLoader contentClsLoader)
+			throws InternalSecurityException, AgentException {
+		Node node = null;
+		if (storage instanceof Node) {
+			node = (Node) storage;
+		} else if (storage instanceof AgentContext) {
+			node = ((AgentContext) storage).getLocalNode();
+		}
+		sessionKeyLifetime = node != null ? node.getSessionKeyLifetime() : 0;
+
 		sender = storage.getAgent(senderId);
 
 		if (recipientId != null) { // topic messages are not encrypted
@@ -644,63 +915,24 @@ public class Message implements XmlAble, Cloneable {
 
 		try {
 			if (!isTopic() && !(recipient instanceof AnonymousAgent)) {
-				SecretKey contentKey = recipient.decryptSymmetricKey(baContentKey);
-				baDecryptedContent = CryptoTools.decryptSymmetric(baEncryptedContent, contentKey);
+				if (sessionKey) {
+					checkSessionKeyLifetime();
+					SecretKey contentKey = recipient.openSessionKey(baContentKey, sender, sessionKeyExpiresMs,
+							baSessionKeySignature);
+					baDecryptedContent = CryptoTools.decryptSymmetricAuthenticated(baEncryptedContent, contentKey);
+				} else {
+					SecretKey contentKey = recipient.decryptSymmetricKey(baContentKey);
+					baDecryptedContent = CryptoTools.decryptSymmetric(baEncryptedContent, contentKey);
+				}
 			} else { // topics are not encrypted
 				baDecryptedContent = baEncryptedContent;
 			}
 
-			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-			Document doc = dBuilder.parse(new ByteArrayInputStream(baDecryptedContent));
-			doc.getDocumentElement().normalize();
-			Element root = doc.getDocumentElement();
-
-			if (!root.hasAttribute("sender")) {
-				throw new InternalSecurityException("content block needs sender attribute!");
-			}
-			if (!root.hasAttribute("recipient") && !root.hasAttribute("topic")) {
-				throw new InternalSecurityException("content block needs recipient or topic attribute!");
-			}
-			if (!root.hasAttribute("timestamp")) {
-				throw new InternalSecurityException("content block needs timestamp attribute!");
-			}
-			if (!root.hasAttribute("timeout")) {
-				throw new InternalSecurityException("content block needs timeout attribute!");
-			}
-			if (!root.hasAttribute("id")) {
-				throw new InternalSecurityException("content block needs id attribute!");
-			}
-
-			if (!root.getAttribute("sender").equalsIgnoreCase(sender.getIdentifier())) {
-				throw new InternalSecurityException("message is signed for another sender!!");
-			}
-			if (root.hasAttribute("recipient") && (recipient == null
-					|| !root.getAttribute("recipient").equalsIgnoreCase(recipient.getIdentifier()))) {
-				throw new InternalSecurityException("message is signed for another recipient!!");
-			}
-			if (root.hasAttribute("topic") && Long.parseLong(root.getAttribute("topic")) != (topicId)) {
-				throw new InternalSecurityException("message is signed for another topic!!");
-			}
-			if (Long.parseLong(root.getAttribute("timestamp")) != timestampMs) {
-				throw new InternalSecurityException("message is signed for another timestamp!!");
-			}
-			if (Long.parseLong(root.getAttribute("timeout")) != validMs) {
-				throw new InternalSecurityException("message is signed for another timeout value!!");
-			}
-			if (Long.parseLong(root.getAttribute("id")) != id) {
-				throw new InternalSecurityException("message is signed for another id!");
-			}
-
-			if ((root.hasAttribute("responseTo") || responseToId != null)
-					&& !responseToId.equals(Long.parseLong(root.getAttribute("responseTo")))) {
-				throw new InternalSecurityException("message is signed as response to another message!");
-			}
-
-			if (root.getAttribute("type").equals("Serializable")) {
-				content = SerializeTools.deserializeBase64(root.getTextContent(), contentClsLoader);
+			binaryContent = baDecryptedContent.length > 0 && baDecryptedContent[0] != '<';
+			if (binaryContent) {
+				openBinaryContent(contentClsLoader);
 			} else {
-				content = XmlAble.createFromXml(root.getFirstChild().toString(), root.getAttribute("class"));
+				openXmlContent(contentClsLoader);
 			}
 		} catch (CryptoException e) {
 			throw new InternalSecurityException("Crypto-Problems: Unable to open message content", e);
@@ -708,17 +940,165 @@ public class Message implements XmlAble, Cloneable {
 			throw new InternalSecurityException("deserializiation problems with decryption!", e);
 		} catch (ClassNotFoundException e) {
 			throw new InternalSecurityException("content class missing with decryption!", e);
-		} catch (MalformedXMLException | ParserConfigurationException | SAXException | IOException e) {
+		} catch (MalformedXMLException | ParserConfigurationException | SAXException e) {
 			throw new InternalSecurityException("xml syntax problems with decryption!", e);
+		} catch (IOException e) {
+			throw new InternalSecurityException("malformed content with decryption!", e);
 		}
 
-		// verify signature
 		verifySignature();
 	}
 
+	/**
+	 * check if the session key of this message is accepted by the opening node
+	 * 
+	 * @throws InternalSecurityException If session keys are disabled, the key has expired or its lifetime is longer
+	 *             than allowed
+	 */
+	private void checkSessionKeyLifetime() throws InternalSecurityException {
+		long lifetime = sessionKeyLifetime;
+		if (lifetime == 0) {
+			throw new InternalSecurityException("session keys are not accepted by this node");
+		}
+		long now = System.currentTimeMillis();
+		if (now > sessionKeyExpiresMs + SESSION_KEY_TOLERANCE_MS) {
+			throw new InternalSecurityException("session key expired");
+		}
+		if (sessionKeyExpiresMs > now + lifetime + SESSION_KEY_TOLERANCE_MS) {
+			throw new InternalSecurityException("session key lifetime exceeds the lifetime accepted by this node");
+		}
+	}
+
+	/**
+	 * read the decrypted content in XML format
+	 * 
+	 * @param contentClsLoader A class loader to deserialize the content
+	 */
+	private void openXmlContent(ClassLoader contentClsLoader) throws ParserConfigurationException, SAXException,
+			IOException, InternalSecurityException, SerializationException, ClassNotFoundException,
+			MalformedXMLException {
+		DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+		DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+		Document doc = dBuilder.parse(new ByteArrayInputStream(baDecryptedContent));
+		doc.getDocumentElement().normalize();
+		Element root = doc.getDocumentElement();
+
+		if (!root.hasAttribute("sender")) {
+			throw new InternalSecurityException("content block needs sender attribute!");
+		}
+		if (!root.hasAttribute("recipient") && !root.hasAttribute("topic")) {
+			throw new InternalSecurityException("content block needs recipient or topic attribute!");
+		}
+		if (!root.hasAttribute("timestamp")) {
+			throw new InternalSecurityException("content block needs timestamp attribute!");
+		}
+		if (!root.hasAttribute("timeout")) {
+			throw new InternalSecurityException("content block needs timeout attribute!");
+		}
+		if (!root.hasAttribute("id")) {
+			throw new InternalSecurityException("content block needs id attribute!");
+		}
+
+		checkSignedAttributes(root.getAttribute("sender"),
+				root.hasAttribute("recipient") ? root.getAttribute("recipient") : null,
+				root.hasAttribute("topic") ? Long.valueOf(root.getAttribute("topic")) : null,
+				Long.parseLong(root.getAttribute("timestamp")), Long.parseLong(root.getAttribute("timeout")),
+				Long.parseLong(root.getAttribute("id")),
+				root.hasAttribute("responseTo") ? Long.valueOf(root.getAttribute("responseTo")) : null);
+
+		String type = root.getAttribute("type");
+		if (type.equals("Serializable") || type.equals(CONTENT_TYPE_COMPRESSED)) {
+			byte[] serialized = Base64.getDecoder().decode(root.getTextContent());
+			if (type.equals(CONTENT_TYPE_COMPRESSED)) {
+				serialized = CompressionTools.decompress(serialized);
+			}
+			content = SerializeTools.deserialize(serialized, contentClsLoader);
+		} else {
+			content = XmlAble.createFromXml(root.getFirstChild().toString(), root.getAttribute("class"));
+		}
+	}
+
+	/**
+	 * read the decrypted content in binary format
+	 * 
+	 * @param contentClsLoader A class loader to deserialize the content
+	 */
+	private void openBinaryContent(ClassLoader contentClsLoader) throws IOException, InternalSecurityException,
+			SerializationException, ClassNotFoundException, MalformedXMLException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(baDecryptedContent));
+		if (in.readInt() != BINARY_CONTENT_MAGIC) {
+			throw new InternalSecurityException("unknown content format!");
+		}
+		byte version = in.readByte();
+		if (version < 1 || version > BINARY_CONTENT_VERSION_COMPRESSED) {
+			throw new InternalSecurityException("unsupported content format version " + version);
+		}
+		long signedId = in.readLong();
+		String signedSender = in.readUTF();
+		String signedRecipient = null;
+		Long signedTopic = null;
+		if (in.readBoolean()) {
+			signedTopic = in.readLong();
+		} else {
+			signedRecipient = in.readUTF();
+		}
+		long signedTimestamp = in.readLong();
+		long signedTimeout = in.readLong();
+		Long signedResponseTo = readOptionalLong(in);
+
+		checkSignedAttributes(signedSender, signedRecipient, signedTopic, signedTimestamp, signedTimeout, signedId,
+				signedResponseTo);
+
+		boolean xmlAble = in.readBoolean();
+		String className = in.readUTF();
+		byte[] data = readBytes(in);
+		if (version == BINARY_CONTENT_VERSION_COMPRESSED) {
+			data = CompressionTools.decompress(data);
+		}
+		if (xmlAble) {
+			content = XmlAble.createFromXml(new String(data, StandardCharsets.UTF_8), className);
+		} else {
+			content = SerializeTools.deserialize(data, contentClsLoader);
+		}
+	}
+
+	/**
+	 * compare the signed attributes of the content to the (unsigned) attributes of this message
+	 * 
+	 * @throws InternalSecurityException If the attributes do not match
+	 */
+	private void checkSignedAttributes(String signedSender, String signedRecipient, Long signedTopic,
+			long signedTimestamp, long signedTimeout, long signedId, Long signedResponseTo)
+			throws InternalSecurityException {
+		if (!signedSender.equalsIgnoreCase(sender.getIdentifier())) {
+			throw new InternalSecurityException("message is signed for another sender!!");
+		}
+		if (signedRecipient != null
+				&& (recipient == null || !signedRecipient.equalsIgnoreCase(recipient.getIdentifier()))) {
+			throw new InternalSecurityException("message is signed for another recipient!!");
+		}
+		if (signedTopic != null && !signedTopic.equals(topicId)) {
+			throw new InternalSecurityException("message is signed for another topic!!");
+		}
+		if (signedTimestamp != timestampMs) {
+			throw new InternalSecurityException("message is signed for another timestamp!!");
+		}
+		if (signedTimeout != validMs) {
+			throw new InternalSecurityException("message is signed for another timeout value!!");
+		}
+		if (signedId != id) {
+			throw new InternalSecurityException("message is signed for another id!");
+		}
+		if (!Objects.equals(signedResponseTo, responseToId)) {
+			throw new InternalSecurityException("message is signed as response to another message!");
+		}
+	}
+
 	/**
 	 * verify the signature of this message the content has to be available for this
 	 * 
+	 * For messages using a session key the signature of the key is verified, when the key is opened.
+	 * 
 	 * @throws InternalSecurityException If signature verification fails
 	 */
 	public void verifySignature() throws InternalSecurityException {
@@ -836,9 +1216,15 @@ public class Message implements XmlAble, Cloneable {
 		String encryption = "";
 		if (!isTopic()) {
 			receiver = "to=\"" + recipientId + "\"";
-			encryption = " encryption=\"" + CryptoTools.getSymmetricAlgorithm() + "\"";
-			contentKey = "\t<contentKey encryption=\"" + CryptoTools.getAsymmetricAlgorithm()
-					+ "\" encoding=\"base64\">" + base64ContentKey + "</contentKey>\n";
+			encryption = " encryption=\"" + (sessionKey ? CryptoTools.getAuthenticatedSymmetricAlgorithm()
+					: CryptoTools.getSymmetricAlgorithm()) + "\"";
+			String session = "";
+			if (sessionKey) {
+				session = " expires=\"" + sessionKeyExpiresMs + "\" signature=\""
+						+ Base64.getEncoder().encodeToString(baSessionKeySignature) + "\"";
+			}
+			contentKey = "\t<contentKey encryption=\"" + CryptoTools.getAsymmetricAlgorithm() + "\"" + session
+					+ " encoding=\"base64\">" + base64ContentKey + "</contentKey>\n";
 		} else {
 			receiver = "topic=\"" + topicId + "\"";
 		}
@@ -922,6 +1308,18 @@ public class Message implements XmlAble, Cloneable {
 			if (contentKey != null) {
 				baContentKey = Base64.getDecoder().decode(contentKey.getTextContent());
 			}
+			sessionKey = contentKey != null
+					&& CryptoTools.getAuthenticatedSymmetricAlgorithm().equals(content.getAttribute("encryption"));
+			if (sessionKey) {
+				if (!contentKey.hasAttribute("expires")) {
+					throw new MalformedXMLException("expiration of session key missing!");
+				}
+				if (!contentKey.hasAttribute("signature")) {
+					throw new MalformedXMLException("signature of session key missing!");
+				}
+				sessionKeyExpiresMs = Long.parseLong(contentKey.getAttribute("expires"));
+				baSessionKeySignature = Base64.getDecoder().decode(contentKey.getAttribute("signature"));
+			}
 
 			timestampMs = Long.parseLong(root.getAttribute("generated"));
 			validMs = Long.parseLong(root.getAttribute("timeout"));
@@ -937,6 +1335,166 @@ public class Message implements XmlAble, Cloneable {
 		}
 	}
 
+	/**
+	 * get this message in binary format
+	 * 
+	 * The encrypted content, content key and signature are contained as raw bytes, so compared to
+	 * {@link #toXmlString()} no base64 encoding and no XML parsing is necessary.
+	 * 
+	 * @return a versioned, length-prefixed binary representation of this message
+	 * @throws SerializationException If the sending node id could not be serialized
+	 */
+	public byte[] toBinary() throws SerializationException {
+		return toBinary(BINARY_MESSAGE_VERSION);
+	}
+
+	/**
+	 * get this message in the given version of the binary format, e. g. the highest version the receiving node reads
+	 * 
+	 * @param version A version between 1 and {@link #BINARY_MESSAGE_VERSION}
+	 * @return a versioned, length-prefixed binary representation of this message
+	 * @throws SerializationException If the version is not supported, the message can not be represented in this
+	 *             version or the sending node id could not be serialized
+	 */
+	public byte[] toBinary(int version) throws SerializationException {
+		if (version < 1 || version > BINARY_MESSAGE_VERSION) {
+			throw new SerializationException("unsupported binary message version " + version);
+		}
+		if (version < 3 && sessionKey) {
+			throw new SerializationException("binary message version " + version + " does not support session keys");
+		}
+		try {
+			byte[] sending = null;
+			if (sendingNodeId instanceof Long || sendingNodeId instanceof NodeHandle) {
+				sending = SerializeTools.serialize(sendingNodeId);
+			}
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(baEncryptedContent.length + 1024);
+			DataOutputStream out = new DataOutputStream(baos);
+			out.writeInt(BINARY_MAGIC);
+			out.writeByte(version);
+			out.writeLong(id);
+			writeOptionalLong(out, responseToId);
+			out.writeUTF(senderId);
+			out.writeBoolean(isTopic());
+			if (isTopic()) {
+				out.writeLong(topicId);
+			} else {
+				out.writeUTF(recipientId);
+			}
+			out.writeLong(timestampMs);
+			out.writeLong(validMs);
+			writeOptionalBytes(out, sending);
+			writeBytes(out, baEncryptedContent);
+			writeOptionalBytes(out, baContentKey);
+			if (version >= 2) {
+				out.writeBoolean(sessionKey);
+				if (sessionKey) {
+					out.writeLong(sessionKeyExpiresMs);
+					writeBytes(out, baSessionKeySignature);
+				}
+			}
+			writeBytes(out, baSignature != null ? baSignature : new byte[0]);
+			out.flush();
+			return baos.toByteArray();
+		} catch (IOException e) {
+			throw new SerializationException("unable to encode message", e);
+		}
+	}
+
+	/**
+	 * set the state of this message from the given binary representation
+	 * 
+	 * @param data A message in binary format as created by {@link #toBinary()}
+	 * @throws SerializationException If the data is malformed or has an unsupported version
+	 */
+	public void setStateFromBinary(byte[] data) throws SerializationException {
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			if (in.readInt() != BINARY_MAGIC) {
+				throw new SerializationException("binary message format expected");
+			}
+			byte version = in.readByte();
+			if (version < 1 || version > BINARY_MESSAGE_VERSION) {
+				throw new SerializationException("unsupported binary message version " + version);
+			}
+			id = in.readLong();
+			responseToId = readOptionalLong(in);
+			senderId = in.readUTF();
+			if (in.readBoolean()) {
+				topicId = in.readLong();
+			} else {
+				recipientId = in.readUTF();
+			}
+			timestampMs = in.readLong();
+			validMs = in.readLong();
+			byte[] sending = readOptionalBytes(in);
+			if (sending != null) {
+				sendingNodeId = SerializeTools.deserialize(sending);
+			}
+			baEncryptedContent = readBytes(in);
+			baContentKey = readOptionalBytes(in);
+			// version 1 does not know session keys
+			sessionKey = version >= 2 && in.readBoolean();
+			if (sessionKey) {
+				if (version < 3) {
+					throw new SerializationException("session key messages of version " + version + " are not signed");
+				}
+				sessionKeyExpiresMs = in.readLong();
+				baSessionKeySignature = readBytes(in);
+			}
+			baSignature = readBytes(in);
+			if (!isTopic() && baContentKey == null) {
+				throw new SerializationException("content key missing!");
+			}
+		} catch (IOException e) {
+			throw new SerializationException("malformed binary message", e);
+		}
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available()) {
+			throw new IOException("invalid field length " + length);
+		}
+		byte[] result = new byte[length];
+		in.readFully(result);
+		return result;
+	}
+
+	private static void writeOptionalBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeBoolean(bytes != null);
+		if (bytes != null) {
+			writeBytes(out, bytes);
+		}
+	}
+
+	private static byte[] readOptionalBytes(DataInputStream in) throws IOException {
+		if (in.readBoolean()) {
+			return readBytes(in);
+		}
+		return null;
+	}
+
+	private static void writeOptionalLong(DataOutputStream out, Long value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value);
+		}
+	}
+
+	private static Long readOptionalLong(DataInputStream in) throws IOException {
+		if (in.readBoolean()) {
+			return in.readLong();
+		}
+		return null;
+	}
+
 	/**
 	 * set the if of the node sending this message The NodeHandle-variant is for Pastry based networks.
 	 * 
@@ -1002,6 +1560,26 @@ public class Message implements XmlAble, Cloneable {
 		return result;
 	}
 
+	/**
+	 * factory: create a message from its binary representation
+	 * 
+	 * @param data A message in binary format as created by {@link #toBinary()}
+	 * @return a message generated from the given data
+	 * @throws SerializationException If the data is malformed or has an unsupported version
+	 */
+	public static Message createFromBinary(byte[] data) throws SerializationException {
+		Message result = new Message();
+		result.setStateFromBinary(data);
+		return result;
+	}
+
+	/**
+	 * @return true, if the content of this message is encrypted with a session key
+	 */
+	public boolean usesSessionKey() {
+		return sessionKey;
+	}
+
 	@Override
 	public Message clone() throws CloneNotSupportedException {
 		return (Message) super.clone();
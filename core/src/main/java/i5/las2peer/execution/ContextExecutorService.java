@@ -0,0 +1,127 @@
+package i5.las2peer.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The executor handed out to services via {@link ExecutionContext#getExecutor()}.
+ *
+ * It is a lightweight view on the node's {@link ServiceExecutor}: tasks run on pooled service threads with the
+ * context of the service call bound to them. Shutting down this view only affects the tasks submitted through it.
+ */
+class ContextExecutorService extends AbstractExecutorService {
+
+	private final ServiceExecutor serviceExecutor;
+	private final ExecutionContext context;
+	private final Set<TrackedTask<?>> pending = ConcurrentHashMap.newKeySet();
+	private volatile boolean shutdown = false;
+
+	ContextExecutorService(ServiceExecutor serviceExecutor, ExecutionContext context) {
+		this.serviceExecutor = serviceExecutor;
+		this.context = context;
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+		return new TrackedTask<>(callable);
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+		return new TrackedTask<>(runnable, value);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Executor of this service call has been shut down");
+		}
+		TrackedTask<?> task;
+		if (command instanceof TrackedTask) {
+			task = (TrackedTask<?>) command;
+		} else {
+			task = new TrackedTask<Void>(command, null);
+		}
+		pending.add(task);
+		try {
+			serviceExecutor.execute(context, task);
+		} catch (RejectedExecutionException e) {
+			pending.remove(task);
+			throw e;
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown = true;
+		List<Runnable> cancelled = new ArrayList<>();
+		for (TrackedTask<?> task : pending) {
+			if (task.cancel(true)) {
+				cancelled.add(task);
+			}
+		}
+		return cancelled;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return shutdown && pending.isEmpty();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (pending) {
+			while (!isTerminated()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * A future that removes itself from the pending tasks once it is done or cancelled.
+	 */
+	private class TrackedTask<T> extends FutureTask<T> {
+
+		private TrackedTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		private TrackedTask(Runnable runnable, T result) {
+			super(runnable, result);
+		}
+
+		@Override
+		protected void done() {
+			synchronized (pending) {
+				pending.remove(this);
+				pending.notifyAll();
+			}
+		}
+
+	}
+
+}
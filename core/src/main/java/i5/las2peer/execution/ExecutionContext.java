@@ -7,9 +7,12 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 import com.sun.beans.finder.ClassFinder;
@@ -18,6 +21,8 @@ import i5.las2peer.api.Context;
 import i5.las2peer.api.Service;
 import i5.las2peer.api.execution.InternalServiceException;
 import i5.las2peer.api.execution.ServiceAccessDeniedException;
+import i5.las2peer.api.execution.ServiceCall;
+import i5.las2peer.api.execution.ServiceCallResult;
 import i5.las2peer.api.execution.ServiceInvocationException;
 import i5.las2peer.api.execution.ServiceInvocationFailedException;
 import i5.las2peer.api.execution.ServiceMethodNotFoundException;
@@ -62,16 +67,13 @@ public class ExecutionContext implements Context {
 
 	final private AgentContext callerContext;
 	final private ServiceAgentImpl serviceAgent;
-	final private ServiceThreadFactory threadFactory;
-	final private ExecutorService executor;
 	final private Node node;
+	private ContextExecutorService executor;
 
 	public ExecutionContext(ServiceAgentImpl agent, AgentContext context, Node node) {
 		this.serviceAgent = agent;
 		this.callerContext = context;
 		this.node = node;
-		this.threadFactory = new ServiceThreadFactory(this);
-		this.executor = Executors.newSingleThreadExecutor(this.threadFactory);
 	}
 
 	public static ExecutionContext getCurrent() {
@@ -82,6 +84,15 @@ public class ExecutionContext implements Context {
 		return callerContext;
 	}
 
+	/**
+	 * Ends this service call. Pending tasks submitted to the executor of this context are cancelled.
+	 */
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
 	/*
 	 * Context implementation
 	 */
@@ -92,8 +103,11 @@ public class ExecutionContext implements Context {
 	}
 
 	@Override
-	public ExecutorService getExecutor() {
-		return this.executor;
+	public synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = new ContextExecutorService(node.getServiceExecutor(), this);
+		}
+		return executor;
 	}
 
 	@Override
@@ -149,35 +163,82 @@ public class ExecutionContext implements Context {
 		return invokeWithAgent(serviceAgent, service, method, parameters);
 	}
 
+	@Override
+	public CompletableFuture<Serializable> invokeAsync(String service, String method, Serializable... parameters) {
+		return invokeAsync(ServiceNameVersion.fromString(service), method, parameters);
+	}
+
+	@Override
+	public CompletableFuture<Serializable> invokeAsync(ServiceNameVersion service, String method,
+			Serializable... parameters) {
+		return invokeWithAgentAsync(callerContext.getMainAgent(), service, method, parameters);
+	}
+
+	@Override
+	public CompletableFuture<Serializable> invokeInternallyAsync(String service, String method,
+			Serializable... parameters) {
+		return invokeInternallyAsync(ServiceNameVersion.fromString(service), method, parameters);
+	}
+
+	@Override
+	public CompletableFuture<Serializable> invokeInternallyAsync(ServiceNameVersion service, String method,
+			Serializable... parameters) {
+		return invokeWithAgentAsync(serviceAgent, service, method, parameters);
+	}
+
+	@Override
+	public List<ServiceCallResult> invokeBatch(String service, List<ServiceCall> calls, boolean parallel)
+			throws ServiceNotFoundException, ServiceNotAvailableException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException {
+		return invokeBatch(ServiceNameVersion.fromString(service), calls, parallel);
+	}
+
+	@Override
+	public List<ServiceCallResult> invokeBatch(ServiceNameVersion service, List<ServiceCall> calls, boolean parallel)
+			throws ServiceNotFoundException, ServiceNotAvailableException, ServiceInvocationFailedException,
+			ServiceAccessDeniedException {
+		try {
+			List<ServiceCallResult> rmiResults = callerContext.getLocalNode().invokeBatch(callerContext.getMainAgent(),
+					service, calls, parallel, false, false);
+			List<ServiceCallResult> results = new ArrayList<>(rmiResults.size());
+			for (ServiceCallResult rmiResult : rmiResults) {
+				ServiceInvocationException exception = rmiResult.getException();
+				if (exception == null) {
+					try {
+						results.add(new ServiceCallResult(toLocalClassLoader(rmiResult.getResult())));
+					} catch (ServiceInvocationFailedException e) {
+						results.add(new ServiceCallResult(e));
+					}
+				} else if (exception instanceof ServiceNotFoundException
+						|| exception instanceof ServiceNotAvailableException
+						|| exception instanceof InternalServiceException
+						|| exception instanceof ServiceMethodNotFoundException
+						|| exception instanceof ServiceInvocationFailedException
+						|| exception instanceof ServiceAccessDeniedException
+						|| exception instanceof ServiceNotAuthorizedException) {
+					results.add(rmiResult);
+				} else {
+					results.add(new ServiceCallResult(
+							new ServiceInvocationFailedException("Service invocation failed.", exception)));
+				}
+			}
+			return results;
+		} catch (ServiceNotFoundException | ServiceNotAvailableException | ServiceInvocationFailedException
+				| ServiceAccessDeniedException e) {
+			throw e;
+		} catch (ServiceInvocationException e) {
+			throw new ServiceInvocationFailedException("Service invocation failed.", e);
+		} catch (AgentLockedException e) {
+			throw new IllegalStateException("Agent should be unlocked, but it isn't.");
+		}
+	}
+
 	private Serializable invokeWithAgent(AgentImpl agent, ServiceNameVersion service, String method,
 			Serializable[] parameters) throws ServiceNotFoundException, ServiceNotAvailableException,
 			InternalServiceException, ServiceMethodNotFoundException, ServiceInvocationFailedException,
 			ServiceAccessDeniedException, ServiceNotAuthorizedException {
 		try {
-			Serializable rmiResult = callerContext.getLocalNode().invoke(agent, service, method, parameters);
-			if (rmiResult == null) {
-				return null;
-			}
-			ClassLoader localServiceLoader = serviceAgent.getServiceInstance().getClass().getClassLoader();
-			if (rmiResult.getClass().getClassLoader() != localServiceLoader) {
-				// mimic global invocation serialization/deserialization to avoid class cast/not-found exceptions
-				try {
-					ByteArrayOutputStream baos = new ByteArrayOutputStream();
-					new ObjectOutputStream(baos).writeObject(rmiResult);
-					baos.close();
-					ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())) {
-						@Override
-						protected Class<?> resolveClass(ObjectStreamClass classDesc)
-								throws IOException, ClassNotFoundException {
-							return ClassFinder.resolveClass(classDesc.getName(), localServiceLoader);
-						}
-					};
-					rmiResult = (Serializable) ois.readObject();
-				} catch (IOException | ClassNotFoundException e) {
-					throw new ServiceInvocationFailedException("Re-serialization failed", e);
-				}
-			}
-			return rmiResult;
+			return toLocalClassLoader(callerContext.getLocalNode().invoke(agent, service, method, parameters));
 		} catch (ServiceNotFoundException | ServiceNotAvailableException | InternalServiceException
 				| ServiceMethodNotFoundException | ServiceInvocationFailedException | ServiceAccessDeniedException
 				| ServiceNotAuthorizedException e) {
@@ -189,6 +250,68 @@ public class ExecutionContext implements Context {
 		}
 	}
 
+	private CompletableFuture<Serializable> invokeWithAgentAsync(AgentImpl agent, ServiceNameVersion service,
+			String method, Serializable[] parameters) {
+		CompletableFuture<Serializable> result = new CompletableFuture<>();
+		callerContext.getLocalNode().invokeAsync(agent, service, method, parameters, false, false)
+				.whenComplete((rmiResult, exception) -> {
+					Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+					if (cause == null) {
+						try {
+							result.complete(toLocalClassLoader(rmiResult));
+						} catch (ServiceInvocationFailedException e) {
+							result.completeExceptionally(e);
+						}
+					} else if (cause instanceof ServiceNotFoundException
+							|| cause instanceof ServiceNotAvailableException
+							|| cause instanceof InternalServiceException
+							|| cause instanceof ServiceMethodNotFoundException
+							|| cause instanceof ServiceInvocationFailedException
+							|| cause instanceof ServiceAccessDeniedException
+							|| cause instanceof ServiceNotAuthorizedException) {
+						result.completeExceptionally(cause);
+					} else if (cause instanceof ServiceInvocationException) {
+						result.completeExceptionally(
+								new ServiceInvocationFailedException("Service invocation failed.", cause));
+					} else if (cause instanceof AgentLockedException) {
+						result.completeExceptionally(
+								new IllegalStateException("Agent should be unlocked, but it isn't."));
+					} else {
+						result.completeExceptionally(cause);
+					}
+				});
+		return result;
+	}
+
+	/**
+	 * mimics global invocation serialization/deserialization of results created by another service's class loader to
+	 * avoid class cast/not-found exceptions
+	 */
+	private Serializable toLocalClassLoader(Serializable rmiResult) throws ServiceInvocationFailedException {
+		if (rmiResult == null) {
+			return null;
+		}
+		ClassLoader localServiceLoader = serviceAgent.getServiceInstance().getClass().getClassLoader();
+		if (rmiResult.getClass().getClassLoader() != localServiceLoader) {
+			try {
+				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				new ObjectOutputStream(baos).writeObject(rmiResult);
+				baos.close();
+				ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())) {
+					@Override
+					protected Class<?> resolveClass(ObjectStreamClass classDesc)
+							throws IOException, ClassNotFoundException {
+						return ClassFinder.resolveClass(classDesc.getName(), localServiceLoader);
+					}
+				};
+				rmiResult = (Serializable) ois.readObject();
+			} catch (IOException | ClassNotFoundException e) {
+				throw new ServiceInvocationFailedException("Re-serialization failed", e);
+			}
+		}
+		return rmiResult;
+	}
+
 	@Override
 	public void monitorEvent(String message) {
 		monitorEvent(null, MonitoringEvent.SERVICE_MESSAGE, message);
@@ -0,0 +1,39 @@
+package i5.las2peer.execution;
+
+import java.io.Serializable;
+
+/**
+ * a batch of invocation tasks for the same service, which is sent and answered as one message
+ * 
+ * The answer is a {@link i5.las2peer.communication.RMIResultContent} containing an array with one
+ * {@link i5.las2peer.communication.RMIResultContent} or {@link i5.las2peer.communication.RMIExceptionContent} per
+ * task, so a failing task does not affect the others.
+ */
+public class RMIBatchTask implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final RMITask[] tasks;
+
+	private final boolean parallel;
+
+	/**
+	 * create a new batch of invocation tasks
+	 * 
+	 * @param tasks The tasks to execute, all for the same service
+	 * @param parallel If true, the tasks may be executed concurrently, otherwise they are executed in the given order
+	 */
+	public RMIBatchTask(RMITask[] tasks, boolean parallel) {
+		this.tasks = tasks.clone();
+		this.parallel = parallel;
+	}
+
+	public RMITask[] getTasks() {
+		return tasks;
+	}
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+}
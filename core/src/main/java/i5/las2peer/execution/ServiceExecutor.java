@@ -0,0 +1,315 @@
+package i5.las2peer.execution;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import i5.las2peer.p2p.NetworkSimulator;
+
+/**
+ * A bounded pool of {@link ServiceThread}s shared by all services running at a node.
+ *
+ * Each service call is executed on a pooled thread with its {@link ExecutionContext} bound to it. If all threads are
+ * busy, calls are queued up to the configured queue size. Further calls are rejected with a
+ * {@link RejectedExecutionException}, so that an overloaded node pushes back instead of spawning more threads.
+ *
+ * Calls issued from within a service call (e. g. a service invoking another local service) are executed directly on
+ * the calling thread. This avoids blocking a second pooled thread per nesting level, which could otherwise exhaust the
+ * pool and deadlock.
+ *
+ * In virtual thread mode each call runs on its own virtual thread instead. Since blocked virtual threads are cheap,
+ * pool size and queue size do not apply. The number of calls in flight is limited by a separate maximum, which is
+ * sized for many thousands of concurrent calls.
+ *
+ * The executor also runs the steps of asynchronous invocations started at the node, see {@link #executeStep(Runnable)}.
+ * Calls and steps started by a delivery of a {@link NetworkSimulator} run on its behalf, see
+ * {@link NetworkSimulator#inheritDelivery(Callable)}.
+ */
+public class ServiceExecutor {
+
+	public static final int DEFAULT_MAX_VIRTUAL_CALLS = 20000;
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final ThreadPoolExecutor pool;
+	private final ThreadPoolExecutor stepPool;
+	private final ExecutorService executor;
+	private final Semaphore permits;
+	private final int maxCalls;
+
+	/**
+	 * Creates a new service executor using pooled platform threads.
+	 *
+	 * @param poolSize The maximum number of threads executing service calls concurrently
+	 * @param queueSize The maximum number of calls waiting for a free thread, zero for direct hand-off
+	 */
+	public ServiceExecutor(int poolSize, int queueSize) {
+		this(poolSize, queueSize, false);
+	}
+
+	/**
+	 * Creates a new service executor.
+	 *
+	 * @param poolSize The maximum number of threads executing service calls concurrently
+	 * @param queueSize The maximum number of calls waiting for a free thread, zero for direct hand-off
+	 * @param virtualThreads If true, each call is executed on a new virtual thread. Has no effect if the runtime does
+	 *            not support virtual threads, see {@link VirtualThreads#isSupported()}.
+	 */
+	public ServiceExecutor(int poolSize, int queueSize, boolean virtualThreads) {
+		this(poolSize, queueSize, virtualThreads, DEFAULT_MAX_VIRTUAL_CALLS);
+	}
+
+	/**
+	 * Creates a new service executor.
+	 *
+	 * @param poolSize The maximum number of threads executing service calls concurrently
+	 * @param queueSize The maximum number of calls waiting for a free thread, zero for direct hand-off
+	 * @param virtualThreads If true, each call is executed on a new virtual thread. Has no effect if the runtime does
+	 *            not support virtual threads, see {@link VirtualThreads#isSupported()}.
+	 * @param maxVirtualCalls The maximum number of calls in flight in virtual thread mode
+	 */
+	public ServiceExecutor(int poolSize, int queueSize, boolean virtualThreads, int maxVirtualCalls) {
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least one");
+		}
+		if (maxVirtualCalls < 1) {
+			throw new IllegalArgumentException("Maximum number of virtual calls must be at least one");
+		}
+		if (virtualThreads && VirtualThreads.isSupported()) {
+			pool = null;
+			stepPool = null;
+			executor = VirtualThreads.newThreadPerTaskExecutor("las2peer-service-virtual-");
+			maxCalls = maxVirtualCalls;
+			permits = new Semaphore(maxCalls);
+		} else {
+			pool = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					newQueue(queueSize), new ServiceThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+			pool.allowCoreThreadTimeOut(true);
+			AtomicInteger stepThreads = new AtomicInteger(1);
+			stepPool = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					newQueue(queueSize), runnable -> {
+						Thread thread = new Thread(runnable, "las2peer-invocation-" + stepThreads.getAndIncrement());
+						thread.setDaemon(true);
+						return thread;
+					}, new ThreadPoolExecutor.AbortPolicy());
+			stepPool.allowCoreThreadTimeOut(true);
+			executor = pool;
+			maxCalls = 0;
+			permits = null;
+		}
+	}
+
+	private static BlockingQueue<Runnable> newQueue(int queueSize) {
+		if (queueSize > 0) {
+			return new ArrayBlockingQueue<>(queueSize);
+		}
+		return new SynchronousQueue<>();
+	}
+
+	/**
+	 * Checks if service calls are executed on virtual threads.
+	 *
+	 * @return Returns true, if this executor runs in virtual thread mode
+	 */
+	public boolean isVirtual() {
+		return pool == null;
+	}
+
+	/**
+	 * Executes the given task with the given context and waits for its result.
+	 *
+	 * @param context The context of this call
+	 * @param task The task to execute
+	 * @return Returns the result of the task
+	 * @throws ExecutionException If the task threw an exception, which is available as cause
+	 * @throws InterruptedException If the calling thread was interrupted while waiting
+	 * @throws RejectedExecutionException If the pool and its queue or the maximum number of virtual calls are saturated
+	 */
+	public <T> T invoke(ExecutionContext context, Callable<T> task) throws ExecutionException, InterruptedException {
+		if (ServiceThread.hasContext()) {
+			try {
+				return bind(context, task).call();
+			} catch (Exception e) {
+				throw new ExecutionException(e);
+			}
+		}
+
+		Future<T> future = submit(bind(context, task));
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		}
+	}
+
+	/**
+	 * Submits the given task with the given context without waiting for its result.
+	 *
+	 * Unlike {@link #invoke(ExecutionContext, Callable)} the task is always executed on another thread, so callers
+	 * running a service call themselves should not wait for it while the pool may be saturated.
+	 *
+	 * @param context The context of this call
+	 * @param task The task to execute
+	 * @return Returns the pending result of the task
+	 * @throws RejectedExecutionException If the pool and its queue are saturated
+	 */
+	public <T> Future<T> submit(ExecutionContext context, Callable<T> task) {
+		return submit(bind(context, task));
+	}
+
+	/**
+	 * Executes the given task asynchronously with the given context.
+	 *
+	 * @param context The context the task is bound to
+	 * @param task The task to execute
+	 * @throws RejectedExecutionException If the pool and its queue are saturated
+	 */
+	public void execute(ExecutionContext context, Runnable task) {
+		Runnable bound = bind(context, task);
+		if (permits == null) {
+			pool.execute(bound);
+		} else {
+			submit(Executors.callable(bound));
+		}
+	}
+
+	/**
+	 * Executes a step of an asynchronous invocation, which may block, like looking up a service instance or opening
+	 * the answer.
+	 *
+	 * Steps run on threads of their own, limited by the same pool and queue size as service calls. So a service call
+	 * waiting for an asynchronous invocation never occupies the thread the steps of that invocation need. In virtual
+	 * thread mode steps count towards the maximum number of calls in flight.
+	 *
+	 * @param step The step to execute, no context is bound to it
+	 * @throws RejectedExecutionException If the step pool and its queue or the maximum number of virtual calls are
+	 *             saturated, or if this executor has been shut down
+	 */
+	public void executeStep(Runnable step) {
+		if (stepPool == null) {
+			submit(Executors.callable(NetworkSimulator.inheritDelivery(step)));
+		} else {
+			stepPool.execute(NetworkSimulator.inheritDelivery(step));
+		}
+	}
+
+	/**
+	 * Gets the number of threads currently executing a service call.
+	 *
+	 * @return Returns the number of busy threads
+	 */
+	public int getActiveCount() {
+		if (permits == null) {
+			return pool.getActiveCount();
+		}
+		return maxCalls - permits.availablePermits();
+	}
+
+	/**
+	 * Gets the number of service calls waiting for a free thread.
+	 *
+	 * @return Returns the current queue length, always zero in virtual thread mode
+	 */
+	public int getQueueSize() {
+		if (permits == null) {
+			return pool.getQueue().size();
+		}
+		return 0;
+	}
+
+	/**
+	 * Stops all service threads. Queued calls are cancelled, so that callers waiting for them fail immediately. Queued
+	 * steps of asynchronous invocations are still executed, so their results are completed.
+	 */
+	public void shutdown() {
+		if (stepPool != null) {
+			stepPool.shutdown();
+		}
+		for (Runnable queued : executor.shutdownNow()) {
+			if (queued instanceof BoundRunnable) {
+				queued = ((BoundRunnable) queued).task;
+			}
+			if (queued instanceof Future) {
+				((Future<?>) queued).cancel(false);
+			}
+		}
+	}
+
+	private <T> Future<T> submit(Callable<T> task) {
+		if (permits == null) {
+			return pool.submit(task);
+		}
+		if (!permits.tryAcquire()) {
+			throw new RejectedExecutionException("Maximum number of concurrent service calls reached");
+		}
+		FutureTask<T> future = new FutureTask<T>(task) {
+			@Override
+			protected void done() {
+				permits.release();
+			}
+		};
+		try {
+			executor.execute(future);
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			throw e;
+		}
+		return future;
+	}
+
+	private static <T> Callable<T> bind(ExecutionContext context, Callable<T> task) {
+		return NetworkSimulator.inheritDelivery(() -> {
+			ExecutionContext previous = ServiceThread.bindContext(context);
+			try {
+				return task.call();
+			} finally {
+				ServiceThread.restoreContext(previous);
+			}
+		});
+	}
+
+	private static Runnable bind(ExecutionContext context, Runnable task) {
+		return new BoundRunnable(context, task);
+	}
+
+	/**
+	 * A runnable executed with a bound context, keeps the task so that it can be cancelled if it is still queued on
+	 * shutdown.
+	 */
+	private static class BoundRunnable implements Runnable {
+
+		private final ExecutionContext context;
+		private final Runnable task;
+		private final Runnable inherited;
+
+		private BoundRunnable(ExecutionContext context, Runnable task) {
+			this.context = context;
+			this.task = task;
+			this.inherited = NetworkSimulator.inheritDelivery(task);
+		}
+
+		@Override
+		public void run() {
+			ExecutionContext previous = ServiceThread.bindContext(context);
+			try {
+				inherited.run();
+			} finally {
+				ServiceThread.restoreContext(previous);
+			}
+		}
+
+	}
+
+}
@@ -1,9 +1,16 @@
 package i5.las2peer.execution;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import i5.las2peer.api.Service;
 import i5.las2peer.api.execution.ServiceMethodNotFoundException;
@@ -11,11 +18,28 @@ import i5.las2peer.api.execution.ServiceMethodNotFoundException;
 /**
  * static helper methods for invocation of service methods via reflection
  * 
- * 
+ * Resolved service methods are cached per service class and invoked through method handles. The cache entries of a
+ * service are dropped via {@link #invalidateDispatchCache(ClassLoader)} once its class loader is unregistered.
  *
  */
 public abstract class ServiceHelper {
 
+	private static final MethodHandle WRAP_TARGET_EXCEPTION;
+
+	static {
+		try {
+			WRAP_TARGET_EXCEPTION = MethodHandles.lookup().findStatic(ServiceHelper.class, "wrapTargetException",
+					MethodType.methodType(Object.class, Throwable.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * service class =&gt; (method name, actual parameter types) =&gt; resolved method
+	 */
+	private static final Map<Class<?>, Map<DispatchKey, Dispatcher>> dispatchCache = new ConcurrentHashMap<>();
+
 	/**
 	 * returns the wrapper class for a native class
 	 *
@@ -135,8 +159,30 @@ public abstract class ServiceHelper {
 	public static Object execute(Service service, String method, Object... parameters)
 			throws ServiceMethodNotFoundException, IllegalArgumentException, IllegalAccessException,
 			InvocationTargetException {
-		Method m = searchMethod(service.getClass(), method, parameters);
-		return m.invoke(service, parameters);
+		return getDispatcher(service.getClass(), method, parameters).invoke(service, parameters);
+	}
+
+	/**
+	 * Drops all cached service methods of classes loaded by the given class loader.
+	 * 
+	 * @param loader The class loader of an unregistered service
+	 */
+	public static void invalidateDispatchCache(ClassLoader loader) {
+		dispatchCache.keySet().removeIf(c -> c.getClassLoader() == loader);
+	}
+
+	private static Dispatcher getDispatcher(Class<? extends Service> serviceClass, String methodName, Object[] params)
+			throws ServiceMethodNotFoundException {
+		Map<DispatchKey, Dispatcher> classCache = dispatchCache.computeIfAbsent(serviceClass,
+				c -> new ConcurrentHashMap<>());
+		DispatchKey key = new DispatchKey(methodName, getActualParamTypes(params));
+		Dispatcher dispatcher = classCache.get(key);
+		if (dispatcher == null) {
+			// not found methods are not cached, so they throw on every call as before
+			dispatcher = new Dispatcher(searchMethod(serviceClass, methodName, params));
+			classCache.put(key, dispatcher);
+		}
+		return dispatcher;
 	}
 
 	/**
@@ -150,15 +196,7 @@ public abstract class ServiceHelper {
 	 */
 	public static Method searchMethod(Class<? extends Service> serviceClass, String methodName, Object[] params)
 			throws ServiceMethodNotFoundException {
-		Class<?>[] acActualParamTypes = new Class[params.length];
-
-		for (int i = 0; i < params.length; i++) {
-			if (params[i] == null) {
-				acActualParamTypes[i] = Serializable.class;
-			} else {
-				acActualParamTypes[i] = params[i].getClass();
-			}
-		}
+		Class<?>[] acActualParamTypes = getActualParamTypes(params);
 
 		Method found = null;
 
@@ -233,6 +271,99 @@ public abstract class ServiceHelper {
 		return found;
 	} // searchMethod
 
+	private static Class<?>[] getActualParamTypes(Object[] params) {
+		Class<?>[] result = new Class[params.length];
+		for (int i = 0; i < params.length; i++) {
+			if (params[i] == null) {
+				result[i] = Serializable.class;
+			} else {
+				result[i] = params[i].getClass();
+			}
+		}
+		return result;
+	}
+
+	private static Object wrapTargetException(Throwable t) throws InvocationTargetException {
+		throw new InvocationTargetException(t);
+	}
+
+	/**
+	 * Cache key of a resolved service method.
+	 */
+	private static class DispatchKey {
+
+		private final String methodName;
+		private final Class<?>[] paramTypes;
+		private final int hash;
+
+		private DispatchKey(String methodName, Class<?>[] paramTypes) {
+			this.methodName = methodName;
+			this.paramTypes = paramTypes;
+			this.hash = 31 * methodName.hashCode() + Arrays.hashCode(paramTypes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof DispatchKey)) {
+				return false;
+			}
+			DispatchKey other = (DispatchKey) obj;
+			return methodName.equals(other.methodName) && Arrays.equals(paramTypes, other.paramTypes);
+		}
+
+	}
+
+	/**
+	 * A resolved service method invoked through a method handle of type (Object, Object[])Object.
+	 * 
+	 * Exceptions thrown by the service method are wrapped in an {@link InvocationTargetException} and argument
+	 * conversion failures are reported as {@link IllegalArgumentException}, just like {@link Method#invoke}. Methods
+	 * not accessible through the public lookup fall back to reflection.
+	 */
+	private static class Dispatcher {
+
+		private final Method method;
+		private final MethodHandle handle;
+
+		private Dispatcher(Method method) {
+			this.method = method;
+			MethodHandle handle;
+			try {
+				MethodHandle target = MethodHandles.publicLookup().unreflect(method);
+				MethodHandle wrap = WRAP_TARGET_EXCEPTION
+						.asType(MethodType.methodType(target.type().returnType(), Throwable.class));
+				handle = MethodHandles.catchException(target, Throwable.class, wrap)
+						.asType(MethodType.genericMethodType(target.type().parameterCount()))
+						.asSpreader(Object[].class, method.getParameterCount());
+			} catch (IllegalAccessException e) {
+				handle = null;
+			}
+			this.handle = handle;
+		}
+
+		private Object invoke(Object service, Object[] params)
+				throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+			if (handle == null) {
+				return method.invoke(service, params);
+			}
+			try {
+				return (Object) handle.invokeExact(service, params);
+			} catch (InvocationTargetException | IllegalArgumentException e) {
+				throw e;
+			} catch (ClassCastException | NullPointerException | WrongMethodTypeException e) {
+				throw new IllegalArgumentException("argument type mismatch", e);
+			} catch (Throwable t) {
+				throw new InvocationTargetException(t);
+			}
+		}
+
+	}
+
 	/**
 	 * Creates a string with all classes from an array of parameters.
 	 * 
@@ -1,26 +1,80 @@
 package i5.las2peer.execution;
 
+/**
+ * A worker thread of a {@link ServiceExecutor}.
+ *
+ * Service threads are pooled and reused for many service calls. The {@link ExecutionContext} of the call currently
+ * executed is bound to the thread for the duration of the call, so {@link i5.las2peer.api.Context#getCurrent()} can be
+ * used from within service code. The binding is kept in a thread local, so it works the same way for virtual threads
+ * running service calls, which are not instances of this class.
+ */
 public class ServiceThread extends Thread {
 
-	private final ExecutionContext context;
+	private static final ThreadLocal<ExecutionContext> currentContext = new ThreadLocal<>();
 
-	public ServiceThread(ExecutionContext context, Runnable r) {
-		super(r);
-		this.context = context;
-	}
-
-	public ExecutionContext getContext() {
-		return this.context;
+	public ServiceThread(Runnable r, String name) {
+		super(r, name);
+		setDaemon(true);
 	}
 
+	/**
+	 * Gets the execution context bound to the current thread.
+	 *
+	 * @return Returns the current execution context
+	 * @throws IllegalStateException If the current thread does not execute a service call
+	 */
 	public static ExecutionContext getCurrentContext() {
-		Thread t = Thread.currentThread();
+		ExecutionContext context = currentContext.get();
 
-		if (!(t instanceof ServiceThread)) {
+		if (context == null) {
 			throw new IllegalStateException("Not executed in a ServiceThread environment!");
 		}
 
-		return ((ServiceThread) t).getContext();
+		return context;
+	}
+
+	/**
+	 * Checks if the current thread is a service thread.
+	 *
+	 * @return Returns true, if the current thread is a pooled service thread
+	 */
+	public static boolean isServiceThread() {
+		return Thread.currentThread() instanceof ServiceThread;
+	}
+
+	/**
+	 * Checks if the current thread executes a service call. Unlike {@link #isServiceThread()} this also holds for
+	 * virtual threads, which cannot be subclassed.
+	 *
+	 * @return Returns true, if an execution context is bound to the current thread
+	 */
+	public static boolean hasContext() {
+		return currentContext.get() != null;
+	}
+
+	/**
+	 * Binds the given context to the current thread.
+	 *
+	 * @param context The context to bind
+	 * @return Returns the previously bound context or {@code null}, should be passed to {@link #restoreContext}
+	 */
+	static ExecutionContext bindContext(ExecutionContext context) {
+		ExecutionContext previous = currentContext.get();
+		currentContext.set(context);
+		return previous;
+	}
+
+	/**
+	 * Restores the context of the current thread after a call finished.
+	 *
+	 * @param previous The context returned by {@link #bindContext}
+	 */
+	static void restoreContext(ExecutionContext previous) {
+		if (previous == null) {
+			currentContext.remove();
+		} else {
+			currentContext.set(previous);
+		}
 	}
 
 }
@@ -1,18 +1,22 @@
 package i5.las2peer.execution;
 
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ServiceThreadFactory implements ThreadFactory {
 
-	ExecutionContext context;
+	private static final AtomicInteger poolNumber = new AtomicInteger(1);
 
-	public ServiceThreadFactory(ExecutionContext context) {
-		this.context = context;
+	private final AtomicInteger threadNumber = new AtomicInteger(1);
+	private final String namePrefix;
+
+	public ServiceThreadFactory() {
+		this.namePrefix = "las2peer-service-" + poolNumber.getAndIncrement() + "-";
 	}
 
 	@Override
 	public Thread newThread(Runnable r) {
-		return new ServiceThread(context, r);
+		return new ServiceThread(r, namePrefix + threadNumber.getAndIncrement());
 	}
 
 }
@@ -0,0 +1,90 @@
+package i5.las2peer.execution;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads on runtimes that provide them (Java 21 and later).
+ *
+ * las2peer is compiled for Java 8, so the virtual thread API is looked up reflectively. On older runtimes
+ * {@link #isSupported()} returns false and callers are expected to fall back to platform threads.
+ */
+public final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL;
+	private static final Method BUILDER_NAME;
+	private static final Method BUILDER_FACTORY;
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		Method ofVirtual = null;
+		Method builderName = null;
+		Method builderFactory = null;
+		Method newThreadPerTaskExecutor = null;
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			builderName = builder.getMethod("name", String.class, long.class);
+			builderFactory = builder.getMethod("factory");
+			newThreadPerTaskExecutor = java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor",
+					ThreadFactory.class);
+		} catch (ClassNotFoundException | NoSuchMethodException e) {
+			// runtime without virtual threads
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		BUILDER_NAME = builderName;
+		BUILDER_FACTORY = builderFactory;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private VirtualThreads() {
+		// utility class
+	}
+
+	/**
+	 * Checks if the current runtime supports virtual threads.
+	 *
+	 * @return Returns true, if virtual threads can be created
+	 */
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Creates a factory for virtual threads.
+	 *
+	 * @param namePrefix The prefix of the thread names, followed by a counter
+	 * @return Returns a thread factory creating virtual threads
+	 * @throws UnsupportedOperationException If the runtime does not support virtual threads
+	 */
+	public static ThreadFactory newThreadFactory(String namePrefix) {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads are not supported by this runtime");
+		}
+		try {
+			Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+			return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Could not create virtual thread factory", e);
+		}
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each task.
+	 *
+	 * @param namePrefix The prefix of the thread names, followed by a counter
+	 * @return Returns an unbounded thread per task executor
+	 * @throws UnsupportedOperationException If the runtime does not support virtual threads
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+		ThreadFactory factory = newThreadFactory(namePrefix);
+		try {
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Could not create virtual thread executor", e);
+		}
+	}
+
+}
@@ -0,0 +1,375 @@
+package i5.las2peer.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+import i5.las2peer.api.logging.MonitoringEvent;
+
+/**
+ * Delivers the monitoring events of a node to its {@link NodeObserver}s.
+ *
+ * Publishing threads only copy the event parameters into a preallocated slot of a ring buffer. A single daemon thread
+ * takes the events from the buffer, computes their string forms and calls the observers. So logging I/O no longer runs
+ * on the thread that sends a message or invokes a service. If the buffer is full, new events are dropped and counted.
+ *
+ * Each observer may restrict the events it receives to a range of event codes. Events no observer is interested in are
+ * not buffered at all.
+ *
+ * With a buffer size of zero or after {@link #close()}, events are delivered synchronously by the publishing thread.
+ * After closing, publishers first wait until the buffered events are delivered and then deliver one after the other, so
+ * observers are still not called concurrently and events are not reordered.
+ */
+public class MonitoringEventBus {
+
+	private static final L2pLogger logger = L2pLogger.getInstance(MonitoringEventBus.class);
+
+	private static final long CLOSED = 1L << 62;
+	private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long CLOSE_TIMEOUT_MS = 5000;
+
+	private static final class Slot {
+		private volatile long sequence = -1;
+		private long timestamp;
+		private MonitoringEvent event;
+		private Object sourceNode;
+		private String sourceAgentId;
+		private Object destinationNode;
+		private String destinationAgentId;
+		private Object remarks;
+	}
+
+	private static final class Subscription {
+		private final NodeObserver observer;
+		private final int fromCode;
+		private final int toCode;
+
+		private Subscription(NodeObserver observer, int fromCode, int toCode) {
+			this.observer = observer;
+			this.fromCode = fromCode;
+			this.toCode = toCode;
+		}
+
+		private boolean accepts(MonitoringEvent event) {
+			int code = Math.abs(event.getCode());
+			return code >= fromCode && code <= toCode;
+		}
+	}
+
+	private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+	private final Function<Object, String> nodeRepresentation;
+	private final String threadName;
+
+	private final Slot[] slots;
+	private final int mask;
+	/**
+	 * next sequence to claim by a publisher, the {@link #CLOSED} bit is set once the bus is closed
+	 */
+	private final AtomicLong claimed = new AtomicLong();
+	/**
+	 * next sequence to deliver by the consumer
+	 */
+	private volatile long consumed;
+	private volatile boolean consumerWaiting;
+	private volatile Thread consumer;
+	private final AtomicLong dropped = new AtomicLong();
+	/**
+	 * serializes the synchronous deliveries after closing
+	 */
+	private final Object closedDelivery = new Object();
+
+	/**
+	 * Creates a new event bus.
+	 *
+	 * @param bufferSize The number of buffered events, rounded up to a power of two. Zero delivers all events
+	 *            synchronously.
+	 * @param nodeRepresentation Converts the node objects of an event into their string form. Called on the delivering
+	 *            thread.
+	 * @param threadName The name of the delivering thread
+	 */
+	public MonitoringEventBus(int bufferSize, Function<Object, String> nodeRepresentation, String threadName) {
+		this.nodeRepresentation = nodeRepresentation;
+		this.threadName = threadName;
+		if (bufferSize > 0) {
+			int capacity = Integer.highestOneBit(Math.min(bufferSize, 1 << 30));
+			if (capacity < bufferSize) {
+				capacity <<= 1;
+			}
+			slots = new Slot[capacity];
+			for (int i = 0; i < capacity; i++) {
+				slots[i] = new Slot();
+			}
+			mask = capacity - 1;
+		} else {
+			slots = null;
+			mask = 0;
+		}
+	}
+
+	/**
+	 * Adds an observer receiving all events. An already added observer is replaced.
+	 *
+	 * @param observer The observer that should be notified.
+	 */
+	public void addObserver(NodeObserver observer) {
+		addObserver(observer, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Adds an observer receiving only events with an absolute code in the given range. An already added observer is
+	 * replaced.
+	 *
+	 * @param observer The observer that should be notified.
+	 * @param fromCode The smallest absolute event code to deliver
+	 * @param toCode The largest absolute event code to deliver
+	 */
+	public void addObserver(NodeObserver observer, int fromCode, int toCode) {
+		synchronized (subscriptions) {
+			removeObserver(observer);
+			subscriptions.add(new Subscription(observer, fromCode, toCode));
+		}
+	}
+
+	/**
+	 * Removes an observer.
+	 *
+	 * @param observer The observer that should be removed.
+	 */
+	public void removeObserver(NodeObserver observer) {
+		synchronized (subscriptions) {
+			subscriptions.removeIf(subscription -> subscription.observer == observer);
+		}
+	}
+
+	/**
+	 * @return all observers currently added
+	 */
+	public List<NodeObserver> getObservers() {
+		List<NodeObserver> result = new ArrayList<>();
+		for (Subscription subscription : subscriptions) {
+			result.add(subscription.observer);
+		}
+		return result;
+	}
+
+	/**
+	 * Publishes an event. Node objects and remarks are converted to strings when the event is delivered.
+	 *
+	 * @param event The event for this notification.
+	 * @param sourceNode A source node for this event
+	 * @param sourceAgentId A source agent id for this event
+	 * @param destinationNode A destination node for this event
+	 * @param destinationAgentId A destination agent id for this event
+	 * @param remarks Some note or description about this event, converted by {@link String#valueOf(Object)}. Must not
+	 *            change after publishing, e. g. a string or a number.
+	 */
+	public void publish(MonitoringEvent event, Object sourceNode, String sourceAgentId, Object destinationNode,
+			String destinationAgentId, Object remarks) {
+		if (!isObserved(event)) {
+			return;
+		}
+		long timestamp = System.currentTimeMillis();
+		if (slots == null) {
+			deliver(timestamp, event, sourceNode, sourceAgentId, destinationNode, destinationAgentId, remarks);
+			return;
+		}
+
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if ((sequence & CLOSED) != 0) {
+				awaitDrained();
+				synchronized (closedDelivery) {
+					deliver(timestamp, event, sourceNode, sourceAgentId, destinationNode, destinationAgentId, remarks);
+				}
+				return;
+			}
+			if (sequence - consumed >= slots.length) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence + 1));
+
+		Slot slot = slots[(int) (sequence & mask)];
+		slot.timestamp = timestamp;
+		slot.event = event;
+		slot.sourceNode = sourceNode;
+		slot.sourceAgentId = sourceAgentId;
+		slot.destinationNode = destinationNode;
+		slot.destinationAgentId = destinationAgentId;
+		slot.remarks = remarks;
+		slot.sequence = sequence;
+
+		Thread current = consumer;
+		if (current == null) {
+			startConsumer();
+		} else if (consumerWaiting) {
+			LockSupport.unpark(current);
+		}
+	}
+
+	/**
+	 * @param event An event
+	 * @return true, if at least one observer receives the given event
+	 */
+	public boolean isObserved(MonitoringEvent event) {
+		for (Subscription subscription : subscriptions) {
+			if (subscription.accepts(event)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of events dropped, because the buffer was full
+	 */
+	public long getDroppedEvents() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return the number of events waiting for delivery
+	 */
+	public long getPendingEvents() {
+		return (claimed.get() & ~CLOSED) - consumed;
+	}
+
+	/**
+	 * Delivers all buffered events and stops the delivering thread. Events published afterwards are delivered
+	 * synchronously.
+	 */
+	public void close() {
+		if (slots == null) {
+			return;
+		}
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if ((sequence & CLOSED) != 0) {
+				return;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence | CLOSED));
+
+		Thread current;
+		synchronized (this) {
+			current = consumer;
+			if (current == null && consumed < sequence) {
+				// events are buffered, but no consumer has been started yet
+				startConsumer();
+				current = consumer;
+			}
+		}
+		if (current != null && current != Thread.currentThread()) {
+			LockSupport.unpark(current);
+			try {
+				current.join(CLOSE_TIMEOUT_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * waits until the consumer has delivered all buffered events of a closed bus, at most for the close timeout
+	 */
+	private void awaitDrained() {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MS);
+		while (consumed < (claimed.get() & ~CLOSED) && System.nanoTime() < deadline) {
+			Thread current = consumer;
+			if (current == Thread.currentThread()) {
+				// published by an observer while draining
+				return;
+			} else if (current == null) {
+				// close has not started the consumer yet
+				Thread.yield();
+			} else {
+				try {
+					current.join(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private synchronized void startConsumer() {
+		if (consumer != null) {
+			return;
+		}
+		Thread thread = new Thread(this::run, threadName);
+		thread.setDaemon(true);
+		consumer = thread;
+		thread.start();
+	}
+
+	private void run() {
+		long next = consumed;
+		while (true) {
+			long limit = claimed.get();
+			boolean closing = (limit & CLOSED) != 0;
+			limit &= ~CLOSED;
+			if (next == limit) {
+				if (closing) {
+					return;
+				}
+				consumerWaiting = true;
+				if (claimed.get() == limit) {
+					LockSupport.parkNanos(this, MAX_IDLE_NANOS);
+				}
+				consumerWaiting = false;
+				continue;
+			}
+
+			Slot slot = slots[(int) (next & mask)];
+			while (slot.sequence != next) {
+				// claimed, but not yet filled by its publisher
+				Thread.yield();
+			}
+			try {
+				deliver(slot.timestamp, slot.event, slot.sourceNode, slot.sourceAgentId, slot.destinationNode,
+						slot.destinationAgentId, slot.remarks);
+			} finally {
+				slot.event = null;
+				slot.sourceNode = null;
+				slot.sourceAgentId = null;
+				slot.destinationNode = null;
+				slot.destinationAgentId = null;
+				slot.remarks = null;
+				next++;
+				consumed = next;
+			}
+		}
+	}
+
+	private void deliver(long timestamp, MonitoringEvent event, Object sourceNode, String sourceAgentId,
+			Object destinationNode, String destinationAgentId, Object remarks) {
+		String sourceNodeRepresentation = null;
+		String destinationNodeRepresentation = null;
+		String remarksString = remarks == null ? null : remarks.toString();
+		boolean converted = false;
+		for (Subscription subscription : subscriptions) {
+			if (!subscription.accepts(event)) {
+				continue;
+			}
+			if (!converted) {
+				sourceNodeRepresentation = nodeRepresentation.apply(sourceNode);
+				destinationNodeRepresentation = nodeRepresentation.apply(destinationNode);
+				converted = true;
+			}
+			try {
+				subscription.observer.log(timestamp, event, sourceNodeRepresentation, sourceAgentId,
+						destinationNodeRepresentation, destinationAgentId, remarksString);
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "Observer failed to log event " + event, e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package i5.las2peer.logging.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A monotonically increasing count, e. g. of requests or failures.
+ *
+ * Increments are lock-free and do not allocate. Alternatively the count can be read from a function, e. g. from
+ * statistics an object keeps anyway.
+ */
+public class Counter {
+
+	private final LongAdder value = new LongAdder();
+	private volatile LongSupplier supplier;
+
+	/**
+	 * Increments this counter by one.
+	 */
+	public void inc() {
+		value.increment();
+	}
+
+	/**
+	 * Increments this counter by the given amount.
+	 *
+	 * @param amount A non-negative amount
+	 */
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	/**
+	 * Sets a function returning the count, which replaces the increments of this counter.
+	 *
+	 * @param supplier A function returning a count that never decreases, called on each read
+	 */
+	public void set(LongSupplier supplier) {
+		this.supplier = supplier;
+	}
+
+	/**
+	 * @return the current count
+	 */
+	public long get() {
+		LongSupplier current = supplier;
+		return current != null ? current.getAsLong() : value.sum();
+	}
+
+}
@@ -0,0 +1,28 @@
+package i5.las2peer.logging.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value sampled when the metrics are read, e. g. a queue length.
+ */
+public class Gauge {
+
+	private volatile DoubleSupplier supplier = () -> 0;
+
+	/**
+	 * Sets the function sampling the value of this gauge.
+	 *
+	 * @param supplier A function returning the current value, called on each read
+	 */
+	public void set(DoubleSupplier supplier) {
+		this.supplier = supplier;
+	}
+
+	/**
+	 * @return the current value
+	 */
+	public double get() {
+		return supplier.getAsDouble();
+	}
+
+}
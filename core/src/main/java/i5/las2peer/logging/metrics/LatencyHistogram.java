@@ -0,0 +1,141 @@
+package i5.las2peer.logging.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds with log-linear buckets, similar to an HDR histogram.
+ *
+ * Each power of two range is split into 16 linear sub buckets, so any recorded value is known with a relative error of
+ * at most 1/16 without configuring bucket bounds up front. Recording is lock-free and does not allocate.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos A duration in nanoseconds, negative values are recorded as zero
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		buckets.incrementAndGet(bucketIndex(value));
+		sum.add(value);
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Records the time passed since the given start.
+	 *
+	 * @param startNanos A start time taken from {@link System#nanoTime()}
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @return the number of recorded durations
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += buckets.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * @return the sum of all recorded durations in nanoseconds
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * @return the largest recorded duration in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the number of recorded durations up to the given bound.
+	 *
+	 * Durations are counted by bucket, so durations slightly above the bound may be included.
+	 *
+	 * @param nanos A bound in nanoseconds
+	 * @return the number of durations not larger than the bucket containing the given bound
+	 */
+	public long getCountAtOrBelow(long nanos) {
+		int last = bucketIndex(Math.max(nanos, 0));
+		long count = 0;
+		for (int i = 0; i <= last; i++) {
+			count += buckets.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Gets an estimate of the given quantile.
+	 *
+	 * @param quantile A quantile between 0 and 1, e. g. 0.99
+	 * @return the upper bound of the bucket containing the quantile in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getValueAtQuantile(double quantile) {
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(bucketUpperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * @param unit A time unit
+	 * @return the mean of all recorded durations in the given unit
+	 */
+	public double getMean(TimeUnit unit) {
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		return (double) getSum() / count / unit.toNanos(1);
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	static long bucketUpperBound(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long top = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+		return ((top + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,162 @@
+package i5.las2peer.logging.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A named metric with up to two labels. Each combination of label values has its own child metric, which is created on
+ * first use.
+ *
+ * Child lookups for existing label values do not allocate, so frequently used children don't need to be cached by the
+ * caller. Children with a label value that is not bounded, e. g. an agent id, should be avoided.
+ *
+ * @param <T> The type of the child metrics
+ */
+public class MetricFamily<T> {
+
+	/**
+	 * The metric types known by the Prometheus text format.
+	 */
+	public enum Type {
+		COUNTER,
+		GAUGE,
+		HISTOGRAM;
+
+		@Override
+		public String toString() {
+			return name().toLowerCase();
+		}
+	}
+
+	private final String name;
+	private final String help;
+	private final Type type;
+	private final String[] labelNames;
+	private final Supplier<T> factory;
+
+	private final T unlabeled;
+	private final ConcurrentHashMap<String, T> singleLabel = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, T>> twoLabels = new ConcurrentHashMap<>();
+
+	MetricFamily(String name, String help, Type type, Supplier<T> factory, String... labelNames) {
+		if (labelNames.length > 2) {
+			throw new IllegalArgumentException("At most two labels are supported");
+		}
+		this.name = name;
+		this.help = help;
+		this.type = type;
+		this.factory = factory;
+		this.labelNames = labelNames.clone();
+		this.unlabeled = labelNames.length == 0 ? factory.get() : null;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHelp() {
+		return help;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String[] getLabelNames() {
+		return labelNames.clone();
+	}
+
+	/**
+	 * @return the metric of a family without labels
+	 */
+	public T get() {
+		checkLabelCount(0);
+		return unlabeled;
+	}
+
+	/**
+	 * @param value The value of the only label
+	 * @return the child metric for the given label value
+	 */
+	public T get(String value) {
+		checkLabelCount(1);
+		T child = singleLabel.get(value);
+		if (child == null) {
+			child = singleLabel.computeIfAbsent(value, v -> factory.get());
+		}
+		return child;
+	}
+
+	/**
+	 * @param value1 The value of the first label
+	 * @param value2 The value of the second label
+	 * @return the child metric for the given label values
+	 */
+	public T get(String value1, String value2) {
+		checkLabelCount(2);
+		ConcurrentHashMap<String, T> children = twoLabels.get(value1);
+		if (children == null) {
+			children = twoLabels.computeIfAbsent(value1, v -> new ConcurrentHashMap<>());
+		}
+		T child = children.get(value2);
+		if (child == null) {
+			child = children.computeIfAbsent(value2, v -> factory.get());
+		}
+		return child;
+	}
+
+	/**
+	 * Removes the child metric for the given label value, e. g. when the labeled object is shut down.
+	 *
+	 * @param value The value of the only label
+	 */
+	public void remove(String value) {
+		checkLabelCount(1);
+		singleLabel.remove(value);
+	}
+
+	/**
+	 * Removes the child metric for the given label values.
+	 *
+	 * @param value1 The value of the first label
+	 * @param value2 The value of the second label
+	 */
+	public void remove(String value1, String value2) {
+		checkLabelCount(2);
+		ConcurrentHashMap<String, T> children = twoLabels.get(value1);
+		if (children != null) {
+			children.remove(value2);
+		}
+	}
+
+	/**
+	 * Calls the given consumer for each child metric with its label values.
+	 *
+	 * @param consumer A consumer for the label values and the child metric
+	 */
+	public void forEach(BiConsumer<String[], T> consumer) {
+		if (labelNames.length == 0) {
+			consumer.accept(new String[0], unlabeled);
+		} else if (labelNames.length == 1) {
+			for (Map.Entry<String, T> entry : singleLabel.entrySet()) {
+				consumer.accept(new String[] { entry.getKey() }, entry.getValue());
+			}
+		} else {
+			for (Map.Entry<String, ConcurrentHashMap<String, T>> outer : twoLabels.entrySet()) {
+				for (Map.Entry<String, T> inner : outer.getValue().entrySet()) {
+					consumer.accept(new String[] { outer.getKey(), inner.getKey() }, inner.getValue());
+				}
+			}
+		}
+	}
+
+	private void checkLabelCount(int count) {
+		if (labelNames.length != count) {
+			throw new IllegalArgumentException(
+					"Metric " + name + " has " + labelNames.length + " labels, but " + count + " values were given");
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+package i5.las2peer.logging.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Holds the metrics of this process and writes them in the Prometheus text format.
+ *
+ * Metrics are registered once, usually into static fields, and are recorded without locks or allocations afterwards.
+ * The process wide registry is returned by {@link #getDefault()}.
+ */
+public class MetricsRegistry {
+
+	/**
+	 * content type of the output of {@link #writePrometheus(Writer)}
+	 */
+	public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	/**
+	 * histogram bucket bounds in seconds written for {@link LatencyHistogram}s
+	 */
+	private static final String[] BUCKET_BOUNDS = { "0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01",
+			"0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10" };
+
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+	private final ConcurrentSkipListMap<String, MetricFamily<?>> families = new ConcurrentSkipListMap<>();
+
+	/**
+	 * @return the registry shared by all nodes of this process
+	 */
+	public static MetricsRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Gets or registers a family of counters.
+	 *
+	 * @param name The metric name, by convention ending with _total
+	 * @param help A description of the metric
+	 * @param labelNames Up to two label names
+	 * @return the counter family with the given name
+	 */
+	public MetricFamily<Counter> counter(String name, String help, String... labelNames) {
+		return register(name, help, MetricFamily.Type.COUNTER, Counter::new, labelNames);
+	}
+
+	/**
+	 * Gets or registers a family of gauges.
+	 *
+	 * @param name The metric name
+	 * @param help A description of the metric
+	 * @param labelNames Up to two label names
+	 * @return the gauge family with the given name
+	 */
+	public MetricFamily<Gauge> gauge(String name, String help, String... labelNames) {
+		return register(name, help, MetricFamily.Type.GAUGE, Gauge::new, labelNames);
+	}
+
+	/**
+	 * Gets or registers a family of latency histograms.
+	 *
+	 * @param name The metric name, by convention ending with _seconds
+	 * @param help A description of the metric
+	 * @param labelNames Up to two label names
+	 * @return the histogram family with the given name
+	 */
+	public MetricFamily<LatencyHistogram> histogram(String name, String help, String... labelNames) {
+		return register(name, help, MetricFamily.Type.HISTOGRAM, LatencyHistogram::new, labelNames);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> MetricFamily<T> register(String name, String help, MetricFamily.Type type, Supplier<T> factory,
+			String... labelNames) {
+		MetricFamily<?> family = families.computeIfAbsent(name,
+				n -> new MetricFamily<>(n, help, type, factory, labelNames));
+		if (family.getType() != type || family.getLabelNames().length != labelNames.length) {
+			throw new IllegalArgumentException("Metric " + name + " is already registered with a different type");
+		}
+		return (MetricFamily<T>) family;
+	}
+
+	/**
+	 * Writes all metrics in the Prometheus text exposition format 0.0.4.
+	 *
+	 * @param writer A writer for the output
+	 * @throws IOException If writing fails
+	 */
+	public void writePrometheus(Writer writer) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (MetricFamily<?> family : families.values()) {
+			String name = family.getName();
+			String[] labelNames = family.getLabelNames();
+			sb.append("# HELP ").append(name).append(' ').append(escapeHelp(family.getHelp())).append('\n');
+			sb.append("# TYPE ").append(name).append(' ').append(family.getType()).append('\n');
+			family.forEach((labelValues, metric) -> {
+				if (metric instanceof Counter) {
+					appendSample(sb, name, labelNames, labelValues, null, ((Counter) metric).get());
+				} else if (metric instanceof Gauge) {
+					appendSample(sb, name, labelNames, labelValues, null, ((Gauge) metric).get());
+				} else if (metric instanceof LatencyHistogram) {
+					appendHistogram(sb, name, labelNames, labelValues, (LatencyHistogram) metric);
+				}
+			});
+			writer.write(sb.toString());
+			sb.setLength(0);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * @return all metrics in the Prometheus text exposition format 0.0.4
+	 */
+	public String toPrometheus() {
+		StringWriter writer = new StringWriter();
+		try {
+			writePrometheus(writer);
+		} catch (IOException e) {
+			// not thrown by StringWriter
+			throw new IllegalStateException(e);
+		}
+		return writer.toString();
+	}
+
+	private static void appendHistogram(StringBuilder sb, String name, String[] labelNames, String[] labelValues,
+			LatencyHistogram histogram) {
+		// the bucket counts are read before the total, so the +Inf bucket is never smaller than the others
+		for (String bound : BUCKET_BOUNDS) {
+			long nanos = (long) (Double.parseDouble(bound) * TimeUnit.SECONDS.toNanos(1));
+			appendSample(sb, name + "_bucket", labelNames, labelValues, bound, histogram.getCountAtOrBelow(nanos));
+		}
+		long count = histogram.getCount();
+		appendSample(sb, name + "_bucket", labelNames, labelValues, "+Inf", count);
+		appendSample(sb, name + "_sum", labelNames, labelValues, null, histogram.getSum() / 1e9);
+		appendSample(sb, name + "_count", labelNames, labelValues, null, count);
+	}
+
+	private static void appendSample(StringBuilder sb, String name, String[] labelNames, String[] labelValues,
+			String le, double value) {
+		sb.append(name);
+		if (labelNames.length > 0 || le != null) {
+			sb.append('{');
+			for (int i = 0; i < labelNames.length; i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append(labelNames[i]).append("=\"").append(escapeLabelValue(labelValues[i])).append('"');
+			}
+			if (le != null) {
+				if (labelNames.length > 0) {
+					sb.append(',');
+				}
+				sb.append("le=\"").append(le).append('"');
+			}
+			sb.append('}');
+		}
+		sb.append(' ').append(formatValue(value)).append('\n');
+	}
+
+	private static String formatValue(double value) {
+		if (Double.isInfinite(value)) {
+			return value > 0 ? "+Inf" : "-Inf";
+		} else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	private static String escapeHelp(String help) {
+		return help.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+
+	private static String escapeLabelValue(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
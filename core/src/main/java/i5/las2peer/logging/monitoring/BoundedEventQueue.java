@@ -0,0 +1,109 @@
+package i5.las2peer.logging.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free queue backed by a ring buffer.
+ *
+ * Each slot carries a sequence number telling producers and consumers whether it may be written or read, so neither
+ * side takes a lock. The queue is used with many producers and one consumer, but producers may also remove elements to
+ * make room for new ones.
+ *
+ * @param <E> The type of the queued elements
+ */
+final class BoundedEventQueue<E> {
+
+	private final AtomicReferenceArray<E> elements;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * @param capacity The maximum number of queued elements, rounded up to a power of two
+	 */
+	BoundedEventQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, Math.min(capacity, 1 << 30)));
+		if (size < capacity) {
+			size <<= 1;
+		}
+		elements = new AtomicReferenceArray<>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds an element, if the queue is not full.
+	 *
+	 * @param element An element
+	 * @return true, if the element was added
+	 */
+	boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.set(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				// the slot still holds an element from the previous round
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Removes the oldest element.
+	 *
+	 * @return the removed element or null, if the queue is empty
+	 */
+	E poll() {
+		long position = head.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - (position + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					E element = elements.get(index);
+					elements.set(index, null);
+					sequences.set(index, position + mask + 1);
+					return element;
+				}
+				position = head.get();
+			} else if (difference < 0) {
+				// not yet written by its producer
+				return null;
+			} else {
+				position = head.get();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of queued elements, may be outdated as soon as it is returned
+	 */
+	int size() {
+		long size = tail.get() - head.get();
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+
+	/**
+	 * @return the maximum number of queued elements
+	 */
+	int capacity() {
+		return mask + 1;
+	}
+
+}
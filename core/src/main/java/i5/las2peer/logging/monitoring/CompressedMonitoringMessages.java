@@ -0,0 +1,78 @@
+package i5.las2peer.logging.monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import i5.las2peer.serialization.SerializationException;
+import i5.las2peer.serialization.SerializeTools;
+import i5.las2peer.tools.SimpleTools;
+
+/**
+ * A batch of {@link MonitoringMessage}s sent in deflated form. Used instead of a plain {@link MonitoringMessage} array,
+ * if the {@link MonitoringObserver} is configured to compress its batches.
+ *
+ * Monitoring events repeat the same node and agent ids over and over, so batches compress well.
+ */
+public class CompressedMonitoringMessages implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int count;
+	private final byte[] data;
+
+	private CompressedMonitoringMessages(int count, byte[] data) {
+		this.count = count;
+		this.data = data;
+	}
+
+	/**
+	 * Compresses a batch of messages.
+	 *
+	 * @param messages The messages to compress
+	 * @return the compressed batch
+	 * @throws SerializationException If the messages cannot be serialized
+	 */
+	public static CompressedMonitoringMessages compress(MonitoringMessage[] messages) throws SerializationException {
+		byte[] serialized = SerializeTools.serialize(messages);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(serialized.length / 4 + 16);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+			out.write(serialized);
+		} catch (IOException e) {
+			throw new SerializationException("Could not compress monitoring messages", e);
+		}
+		return new CompressedMonitoringMessages(messages.length, bytes.toByteArray());
+	}
+
+	/**
+	 * Restores the messages of this batch.
+	 *
+	 * @return the messages
+	 * @throws SerializationException If the batch cannot be decompressed or deserialized
+	 */
+	public MonitoringMessage[] getMessages() throws SerializationException {
+		try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+			return (MonitoringMessage[]) SerializeTools.deserialize(SimpleTools.toByteArray(in));
+		} catch (IOException | ClassCastException e) {
+			throw new SerializationException("Could not decompress monitoring messages", e);
+		}
+	}
+
+	/**
+	 * @return the number of messages in this batch
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the size of the compressed messages in bytes
+	 */
+	public int getCompressedSize() {
+		return data.length;
+	}
+
+}
@@ -1,20 +1,25 @@
 package i5.las2peer.logging.monitoring;
 
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import i5.las2peer.api.Configurable;
 import i5.las2peer.api.execution.ServiceInvocationException;
 import i5.las2peer.api.logging.MonitoringEvent;
 import i5.las2peer.api.security.AgentException;
 import i5.las2peer.api.security.AgentNotFoundException;
 import i5.las2peer.api.security.AgentOperationFailedException;
 import i5.las2peer.communication.Message;
+import i5.las2peer.logging.L2pLogger;
 import i5.las2peer.logging.NodeObserver;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.MetricsRegistry;
 import i5.las2peer.p2p.MessageResultListener;
 import i5.las2peer.p2p.Node;
 import i5.las2peer.persistency.EncodingFailedException;
@@ -28,24 +33,93 @@ import i5.las2peer.tools.CryptoException;
  * This is the base class of the logging module of las2peer. It sends the collected data to the "Monitoring Data
  * Processing Service" via the las2peer message concept.
  *
- * 
+ * Logged events are put into a bounded lock-free queue. Once {@link #start()} has been called, a single flushing thread
+ * sends them in batches, as soon as a batch is full or the flush interval has passed since the last flush. If the
+ * queue is full, the configured {@link BackpressurePolicy} decides which events are dropped. Dropped events are
+ * counted. After {@link #close()} the observer drops all events and sends nothing anymore.
  *
  */
-public class MonitoringObserver implements NodeObserver {
+public class MonitoringObserver extends Configurable implements NodeObserver {
+
+	private static final L2pLogger logger = L2pLogger.getInstance(MonitoringObserver.class);
+
+	/**
+	 * Policies applied when events are logged faster than they can be sent.
+	 */
+	public enum BackpressurePolicy {
+		/**
+		 * drop the oldest queued event to make room for the new one
+		 */
+		DROP_OLDEST,
+		/**
+		 * keep only every n-th event while the queue is more than half full, drop new events if it is full
+		 */
+		SAMPLE,
+		/**
+		 * block the logging thread until there is room in the queue
+		 */
+		BLOCK,
+	}
 
 	public static final String DATA_PROCESSING_SERVICE = "i5.las2peer.services.mobsos.dataProcessing.MobSOSDataProcessingService";
 	private static final int RMI_TIMEOUT = 5;
+	private static final long BLOCK_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final Counter droppedTotal = MetricsRegistry.getDefault().counter(
+			"las2peer_monitoring_events_dropped_total", "Monitoring events dropped before sending them").get();
+	private static final Counter sentTotal = MetricsRegistry.getDefault()
+			.counter("las2peer_monitoring_events_sent_total", "Monitoring events sent to the processing service")
+			.get();
+
+	public static final int DEFAULT_QUEUE_SIZE = 10000;
+	/**
+	 * maximum number of queued events, at least the batch size
+	 */
+	private int queueSize = DEFAULT_QUEUE_SIZE;
+
+	public static final long DEFAULT_FLUSH_INTERVAL = 10000;
+	/**
+	 * time in milliseconds after which queued events are sent, even if the batch is not full
+	 */
+	private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	public static final String DEFAULT_BACKPRESSURE_POLICY = BackpressurePolicy.DROP_OLDEST.name();
+	/**
+	 * name of the {@link BackpressurePolicy} applied if the queue is full
+	 */
+	private String backpressurePolicy = DEFAULT_BACKPRESSURE_POLICY;
+
+	public static final int DEFAULT_SAMPLE_RATE = 10;
+	/**
+	 * every n-th event is kept by {@link BackpressurePolicy#SAMPLE}
+	 */
+	private int sampleRate = DEFAULT_SAMPLE_RATE;
+
+	public static final boolean DEFAULT_COMPRESS_BATCHES = false;
+	/**
+	 * if true, batches are sent as {@link CompressedMonitoringMessages} instead of plain {@link MonitoringMessage}
+	 * arrays, which requires a processing service supporting them
+	 */
+	private boolean compressBatches = DEFAULT_COMPRESS_BATCHES;
+
 	private boolean readyForInitializing = true; // Is set to false as long as the node is not ready to initialize the
 													// monitoring agents.
 	private boolean initializedDone = false; // Used to determine, if the initialization process has finished.
-	private MonitoringMessage[] monitoringMessages; // The size is determined by the constructor. Will be send at once.
-	private int messagesCount; // Counter to determine how many messages are currently stored at the messages array.
+	private final int batchSize; // Number of messages that will be send at once.
+	private final BoundedEventQueue<MonitoringMessage> queue;
+	private volatile BackpressurePolicy policy;
+	private final AtomicLong sampled = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final Object flushLock = new Object();
+	private volatile Thread sendingThread;
+	private volatile boolean sendingThreadWaiting;
+	private volatile boolean closed;
+	private ExecutorService invocationExecutor; // Runs the lookup of the receiving agent, see getReceivingAgentID
 	private MonitoringAgent sendingAgent; // The agent responsible for this observer.
 	private MonitoringAgent receivingAgent; // The agent registered at the Processing Service.
 	private MessageResultListener messageResultListener; // The ResultListener that will be used for message-sending
 															// (currently unused though).
 	private Node registeredAt; // If we want to send messages, we need a sending node.
-	private long waitUntilSend;
 
 	/**
 	 * 
@@ -59,46 +133,35 @@ public class MonitoringObserver implements NodeObserver {
 	 * 
 	 */
 	public MonitoringObserver(int messageCache, Node registeredAt) {
-		this.registeredAt = registeredAt;
-		waitUntilSend = 1000 * 10; // 10 s
-		Thread sendingThread = new Thread() {
-			@Override
-			public void run() {
-				try {
-					while (true) {
-						Thread.sleep(waitUntilSend);
-						if (messagesCount > 0) {
-							checkInit();
-							// Send messages after waitUntilSend ms
-							if (initializedDone) {
-								// Do not send old messages...
-								int counter = messagesCount;
-								while (counter < monitoringMessages.length) {
-									monitoringMessages[counter] = null;
-									counter++;
-								}
-								// reset messageCount before sending messages
-								// otherwise StackOverflow...
-								messagesCount = 0;
-								sendMessages();
-							} else {
-								messagesCount = 0;
-								System.out.println("Monitoring: Problems with initializing Agents..");
-							}
-						}
-					}
-				} catch (InterruptedException v) {
-					System.out.println(v);
-				}
-			}
-		};
+		this(messageCache, -1, registeredAt);
+	}
 
-		sendingThread.start();
+	/**
+	 * Constructor for the MonitoringObserver with a given queue size.
+	 *
+	 * @param messageCache determines, how many messages will be stored locally before send to the central collection
+	 *            unit (&gt; 50)
+	 * @param queueSize the maximum number of queued messages or a negative value to use the configured size
+	 * @param registeredAt the node this observer is registered at
+	 */
+	public MonitoringObserver(int messageCache, int queueSize, Node registeredAt) {
+		setFieldValues();
+		if (queueSize >= 0) {
+			this.queueSize = queueSize;
+		}
+		this.registeredAt = registeredAt;
 		if (messageCache < 50) {
 			messageCache = 50; // Minimum cache to give the observer enough time to initialize before first sending
 		}
-		this.monitoringMessages = new MonitoringMessage[messageCache];
-		this.messagesCount = 0;
+		this.batchSize = messageCache;
+		this.queue = new BoundedEventQueue<>(Math.max(this.queueSize, batchSize));
+		try {
+			this.policy = BackpressurePolicy.valueOf(backpressurePolicy);
+		} catch (IllegalArgumentException e) {
+			logger.warning("Monitoring: Unknown backpressure policy '" + backpressurePolicy + "', using "
+					+ DEFAULT_BACKPRESSURE_POLICY);
+			this.policy = BackpressurePolicy.valueOf(DEFAULT_BACKPRESSURE_POLICY);
+		}
 		try {
 			sendingAgent = MonitoringAgent.createMonitoringAgent("sendingAgentPass");
 		} catch (CryptoException | AgentOperationFailedException e) {
@@ -106,6 +169,45 @@ public class MonitoringObserver implements NodeObserver {
 		}
 	}
 
+	/**
+	 * Starts the thread sending the queued messages. Until then messages are only sent by {@link #flush()}.
+	 *
+	 * @throws IllegalStateException If this observer has been closed
+	 */
+	public synchronized void start() {
+		if (closed) {
+			throw new IllegalStateException("Monitoring observer has been closed");
+		}
+		if (sendingThread == null) {
+			Thread thread = new Thread(this::runSendingThread, "las2peer-monitoring-observer");
+			thread.setDaemon(true);
+			sendingThread = thread;
+			thread.start();
+		}
+	}
+
+	private void runSendingThread() {
+		long lastFlush = System.nanoTime();
+		while (!closed) {
+			if (queue.size() >= batchSize) {
+				flush(false);
+				continue;
+			}
+			long wait = lastFlush + TimeUnit.MILLISECONDS.toNanos(flushInterval) - System.nanoTime();
+			if (wait <= 0) {
+				// Send messages after flushInterval ms
+				flush(true);
+				lastFlush = System.nanoTime();
+				continue;
+			}
+			sendingThreadWaiting = true;
+			if (queue.size() < batchSize && !closed) {
+				LockSupport.parkNanos(this, wait);
+			}
+			sendingThreadWaiting = false;
+		}
+	}
+
 	private void checkInit() {
 		if (readyForInitializing) {
 			readyForInitializing = false; // "Nearly" atomic, enough in this case;-)
@@ -163,13 +265,19 @@ public class MonitoringObserver implements NodeObserver {
 	 *             like the invoke method.
 	 */
 	private String getReceivingAgentID() throws ServiceInvocationException {
-		ExecutorService executor = Executors.newCachedThreadPool();
-		Callable<String> task = () -> {
+		if (invocationExecutor == null) {
+			// a single thread is reused for all attempts, a hanging attempt delays the next one
+			invocationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "las2peer-monitoring-init");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		Future<String> future = invocationExecutor.submit(() -> {
 			String[] testParameters = { "Node " + registeredAt.getNodeId() + " registered observer!" };
 			return (String) registeredAt.invoke(sendingAgent, DATA_PROCESSING_SERVICE, "getReceivingAgentId",
 					testParameters);
-		};
-		Future<String> future = executor.submit(task);
+		});
 		try {
 			return future.get(RMI_TIMEOUT, TimeUnit.SECONDS);
 		} catch (TimeoutException | InterruptedException | ExecutionException ex) {
@@ -182,8 +290,8 @@ public class MonitoringObserver implements NodeObserver {
 	/**
 	 *
 	 * Processes the incoming data by generating a {@link MonitoringMessage} of it. This {@link MonitoringMessage} will
-	 * be stored in an array of {@link MonitoringMessage}s, which will be send via a
-	 * {@link i5.las2peer.communication.Message} to the Processing Service.
+	 * be queued and later send together with other queued messages via a {@link i5.las2peer.communication.Message} to
+	 * the Processing Service.
 	 *
 	 */
 	@Override
@@ -205,56 +313,149 @@ public class MonitoringObserver implements NodeObserver {
 			return;
 		}
 
-		monitoringMessages[messagesCount++] = new MonitoringMessage(timestamp, event, sourceNode, sourceAgentId,
-				destinationNode, destinationAgentId, remarks);
-
-		if (readyToSend()) {
-			checkInit();
-			if (initializedDone) {
-				messagesCount = 0;
-				sendMessages();
-			} else {
-				messagesCount = 0;
-				System.out.println("Monitoring: Problems with initializing Agents..");
-			}
+		if (closed) {
+			drop(1);
+			return;
 		}
 
+		enqueue(new MonitoringMessage(timestamp, event, sourceNode, sourceAgentId, destinationNode,
+				destinationAgentId, remarks));
+
 		// We can only send our last message if the node is closing, so we will have to assume that all services are
 		// shutdown
 		// when a node is closed (seems to be a fair bet)
 		if (event == MonitoringEvent.NODE_SHUTDOWN) {
-			if (initializedDone) {
-				// To remove "old" messages since they are not overwritten
-				int counter = messagesCount;
-				while (counter < monitoringMessages.length) {
-					monitoringMessages[counter] = null;
-					counter++;
+			flush();
+			close();
+		}
+	}
+
+	private void enqueue(MonitoringMessage message) {
+		switch (policy) {
+		case DROP_OLDEST:
+			while (!queue.offer(message)) {
+				if (queue.poll() != null) {
+					drop(1);
 				}
-				sendMessages();
-			} else {
-				System.out.println("Monitoring: Problems with initializing Agents..");
 			}
+			break;
+		case SAMPLE:
+			if (queue.size() >= queue.capacity() / 2 && sampled.incrementAndGet() % Math.max(1, sampleRate) != 0) {
+				drop(1);
+				return;
+			}
+			if (!queue.offer(message)) {
+				drop(1);
+				return;
+			}
+			break;
+		case BLOCK:
+			while (!queue.offer(message)) {
+				if (closed || sendingThread == null) {
+					// nobody makes room in the queue
+					drop(1);
+					return;
+				}
+				LockSupport.unpark(sendingThread);
+				LockSupport.parkNanos(this, BLOCK_WAIT_NANOS);
+			}
+			break;
+		}
+
+		if (sendingThreadWaiting && queue.size() >= batchSize) {
+			LockSupport.unpark(sendingThread);
 		}
 	}
 
+	private void drop(int count) {
+		dropped.addAndGet(count);
+		droppedTotal.add(count);
+	}
+
 	/**
-	 * Checks whether the queue is ready to be flushed, either due to reaching the limit or because enough time has
-	 * passed
-	 * 
-	 * @return true is ready to flush
+	 * Sends all queued messages now. Returns after all messages queued before this call have been sent or dropped.
+	 * Does nothing, if this observer has been closed.
 	 */
-	private boolean readyToSend() {
-		if (messagesCount >= monitoringMessages.length) {
-			return true;
+	public void flush() {
+		flush(true);
+	}
+
+	/**
+	 * @param all if false, only full batches are sent
+	 */
+	private void flush(boolean all) {
+		synchronized (flushLock) {
+			// checked while holding the lock, so no invocation executor is created after close
+			while (!closed && queue.size() > 0 && (all || queue.size() >= batchSize)) {
+				int count = Math.min(queue.size(), batchSize);
+				MonitoringMessage[] batch = new MonitoringMessage[count];
+				int taken = 0;
+				while (taken < count) {
+					MonitoringMessage message = queue.poll();
+					if (message == null) {
+						break;
+					}
+					batch[taken++] = message;
+				}
+				if (taken == 0) {
+					return;
+				}
+				checkInit();
+				if (initializedDone) {
+					sendMessages(batch, taken);
+				} else {
+					drop(taken);
+					System.out.println("Monitoring: Problems with initializing Agents..");
+				}
+			}
 		}
+	}
 
-		if (messagesCount > 1) {
-			long previous = monitoringMessages[messagesCount - 2].getTimestamp();
-			long sendDeadline = System.currentTimeMillis() - waitUntilSend;
-			return previous < sendDeadline;
+	/**
+	 * Stops the sending thread of this observer. Afterwards messages are dropped, queued ones are not sent anymore.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		LockSupport.unpark(sendingThread);
+		synchronized (flushLock) {
+			if (invocationExecutor != null) {
+				invocationExecutor.shutdownNow();
+				invocationExecutor = null;
+			}
 		}
+	}
+
+	/**
+	 * @return the number of messages dropped, because the queue was full or the processing service was unavailable
+	 */
+	public long getDroppedEvents() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return the number of messages waiting to be sent
+	 */
+	public int getPendingEvents() {
+		return queue.size();
+	}
 
-		return false;
+	/**
+	 * Changes the policy applied when the queue is full.
+	 *
+	 * @param policy A backpressure policy
+	 */
+	public void setBackpressurePolicy(BackpressurePolicy policy) {
+		this.policy = policy;
+		this.backpressurePolicy = policy.name();
+	}
+
+	/**
+	 * @param compressBatches if true, batches are sent as {@link CompressedMonitoringMessages}
+	 */
+	public void setCompressBatches(boolean compressBatches) {
+		this.compressBatches = compressBatches;
 	}
 
 	private void resetReceivingAgent() {
@@ -270,9 +471,21 @@ public class MonitoringObserver implements NodeObserver {
 	 * Helper method that actually sends the {@link MonitoringMessage}s to the Processing Service's agent.
 	 *
 	 */
-	private void sendMessages() {
+	private void sendMessages(MonitoringMessage[] batch, int count) {
 		try {
-			Message las2peerMessage = new Message(sendingAgent, receivingAgent, monitoringMessages);
+			MonitoringMessage[] messages = batch;
+			if (count < batch.length) {
+				messages = new MonitoringMessage[count];
+				System.arraycopy(batch, 0, messages, 0, count);
+			}
+			Message las2peerMessage;
+			if (compressBatches) {
+				las2peerMessage = new Message(sendingAgent, receivingAgent,
+						CompressedMonitoringMessages.compress(messages), Message.DEFAULT_TIMEOUT, registeredAt);
+			} else {
+				las2peerMessage = new Message(sendingAgent, receivingAgent, messages, Message.DEFAULT_TIMEOUT,
+						registeredAt);
+			}
 			// if something goes wrong after sending a message the receiving agent is marked for reinitialization
 			messageResultListener = new MessageResultListener(2000) {
 				@Override
@@ -289,8 +502,10 @@ public class MonitoringObserver implements NodeObserver {
 				}
 			};
 			registeredAt.sendMessage(las2peerMessage, messageResultListener);
+			sentTotal.add(count);
 			System.out.println("Monitoring: message " + las2peerMessage.getId() + " send!");
 		} catch (InternalSecurityException | EncodingFailedException | SerializationException e) {
+			drop(count);
 			e.printStackTrace();
 		}
 	}
@@ -0,0 +1,193 @@
+package i5.las2peer.p2p;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import i5.las2peer.security.AgentImpl;
+import i5.las2peer.serialization.MalformedXMLException;
+
+/**
+ * Short living cache of agents fetched from the network, keyed by agent id.
+ *
+ * Each agent is parsed once and kept as a locked template together with its envelope version. Each hit returns a
+ * locked copy of the template, see {@link AgentImpl#cloneLocked()}, so no two callers ever share an agent object that
+ * one of them may unlock or modify.
+ *
+ * An entry is never replaced by an older envelope version, so a fetch finishing after a local update cannot bring back
+ * an outdated agent.
+ *
+ */
+public class AgentCache {
+
+	public static final long DEFAULT_TIMEOUT = 10 * 1000; // 10 seconds
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private static class CachedAgent {
+		private final long version;
+		private final AgentImpl agent;
+		private final long expires;
+
+		private CachedAgent(long version, AgentImpl agent, long expires) {
+			this.version = version;
+			this.agent = agent;
+			this.expires = expires;
+		}
+	}
+
+	private final LinkedHashMap<String, CachedAgent> agents = new LinkedHashMap<String, CachedAgent>(16, 0.75f,
+			true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedAgent> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private volatile long timeout = DEFAULT_TIMEOUT;
+	private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+	/**
+	 * Gets a fresh instance of a cached agent.
+	 *
+	 * @param id An agent id
+	 * @return Returns a new agent instance or null, if the agent is not cached or the entry has expired
+	 */
+	public AgentImpl get(String id) {
+		CachedAgent cached;
+		synchronized (agents) {
+			cached = agents.get(id);
+			if (cached != null && cached.expires < System.currentTimeMillis()) {
+				agents.remove(id);
+				cached = null;
+			}
+		}
+		if (cached == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		try {
+			AgentImpl agent = cached.agent.cloneLocked();
+			hits.incrementAndGet();
+			return agent;
+		} catch (CloneNotSupportedException e) {
+			// should not occur, since agents are cloneable
+			invalidate(id);
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Caches the given agent representation, unless a newer version is already cached.
+	 *
+	 * @param id An agent id
+	 * @param version The version of the envelope containing the agent
+	 * @param xml The XML representation of the agent
+	 */
+	public void put(String id, long version, String xml) {
+		if (timeout <= 0) {
+			return;
+		}
+		try {
+			put(id, version, AgentImpl.createFromXml(xml));
+		} catch (MalformedXMLException e) {
+			invalidate(id);
+		}
+	}
+
+	/**
+	 * Caches a copy of the given agent, unless a newer version is already cached.
+	 *
+	 * @param id An agent id
+	 * @param version The version of the envelope containing the agent
+	 * @param agent An agent freshly created from its XML representation, which is not registered at a node
+	 */
+	public void put(String id, long version, AgentImpl agent) {
+		if (timeout <= 0) {
+			return;
+		}
+		AgentImpl template;
+		try {
+			template = agent.cloneLocked();
+		} catch (CloneNotSupportedException e) {
+			// should not occur, since agents are cloneable
+			invalidate(id);
+			return;
+		}
+		synchronized (agents) {
+			CachedAgent cached = agents.get(id);
+			if (cached == null || cached.version <= version) {
+				agents.put(id, new CachedAgent(version, template, System.currentTimeMillis() + timeout));
+			}
+		}
+	}
+
+	/**
+	 * Removes the given agent from the cache.
+	 *
+	 * @param id An agent id
+	 */
+	public void invalidate(String id) {
+		synchronized (agents) {
+			agents.remove(id);
+		}
+	}
+
+	/**
+	 * Removes all agents from the cache.
+	 */
+	public void clear() {
+		synchronized (agents) {
+			agents.clear();
+		}
+	}
+
+	/**
+	 * Sets how long an agent is cached.
+	 *
+	 * @param timeoutMs A timeout in milliseconds, 0 disables the cache
+	 */
+	public void setTimeout(long timeoutMs) {
+		this.timeout = timeoutMs;
+		if (timeoutMs <= 0) {
+			clear();
+		}
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Sets the maximum number of cached agents. Least recently used agents are removed first.
+	 *
+	 * @param maxSize The maximum number of cached agents
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return how many requests were answered from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return how many requests were not found in the cache
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+}
@@ -0,0 +1,78 @@
+package i5.las2peer.p2p;
+
+import java.util.Random;
+
+import i5.las2peer.communication.Message;
+
+/**
+ * Models a link between two nodes of a {@link NetworkSimulator}.
+ *
+ * For each transmitted message the model decides how long the message travels or whether it is lost. All randomness
+ * must be taken from the given random generator, so that simulations started with the same seed are reproducible.
+ */
+@FunctionalInterface
+public interface LinkModel {
+
+	/**
+	 * Computes the transmission delay of a message.
+	 *
+	 * @param fromNode The id of the sending node
+	 * @param toNode The id of the receiving node
+	 * @param message The transmitted message
+	 * @param random The seeded random generator of the simulation
+	 * @return Returns the delay in milliseconds or a negative value, if the message is lost
+	 */
+	public long delay(long fromNode, long toNode, Message message, Random random);
+
+	/**
+	 * Creates a link model delaying all messages by the same time.
+	 *
+	 * @param latencyMs The delay in milliseconds
+	 * @return Returns a link model with a constant delay
+	 */
+	public static LinkModel constant(long latencyMs) {
+		return (fromNode, toNode, message, random) -> latencyMs;
+	}
+
+	/**
+	 * Creates a link model delaying messages by a uniformly distributed time.
+	 *
+	 * @param minMs The minimal delay in milliseconds
+	 * @param maxMs The maximal delay in milliseconds (inclusive)
+	 * @return Returns a link model with a uniformly distributed delay
+	 */
+	public static LinkModel uniform(long minMs, long maxMs) {
+		if (maxMs < minMs) {
+			throw new IllegalArgumentException("Maximal delay " + maxMs + " is smaller than minimal delay " + minMs);
+		}
+		long range = maxMs - minMs + 1;
+		return (fromNode, toNode, message, random) -> minMs + (long) (random.nextDouble() * range);
+	}
+
+	/**
+	 * Creates a link model with a base latency, gaussian jitter, limited bandwidth and random loss.
+	 *
+	 * @param latencyMs The base delay in milliseconds
+	 * @param jitterMs The standard deviation of the delay in milliseconds. The delay never drops below zero.
+	 * @param bytesPerSecond The bandwidth of the link. If positive, the XML size of each message is added as
+	 *            transmission time. Zero or less means unlimited.
+	 * @param lossRate The probability between 0 and 1 that a message is lost
+	 * @return Returns a link model combining the given parameters
+	 */
+	public static LinkModel of(long latencyMs, double jitterMs, long bytesPerSecond, double lossRate) {
+		return (fromNode, toNode, message, random) -> {
+			if (lossRate > 0 && random.nextDouble() < lossRate) {
+				return -1;
+			}
+			double delay = latencyMs;
+			if (jitterMs > 0) {
+				delay = Math.max(0, delay + random.nextGaussian() * jitterMs);
+			}
+			if (bytesPerSecond > 0) {
+				delay += message.toXmlString().length() * 1000.0 / bytesPerSecond;
+			}
+			return Math.round(delay);
+		};
+	}
+
+}
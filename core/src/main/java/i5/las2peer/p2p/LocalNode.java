@@ -3,7 +3,7 @@ package i5.las2peer.p2p;
 import java.io.Serializable;
 import java.security.PublicKey;
 import java.util.Collection;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 import i5.las2peer.api.persistency.EnvelopeAlreadyExistsException;
 import i5.las2peer.api.persistency.EnvelopeException;
@@ -25,6 +25,7 @@ import i5.las2peer.security.AgentContext;
 import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.AnonymousAgentImpl;
 import i5.las2peer.security.BotAgent;
+import i5.las2peer.security.GroupAgentImpl;
 import i5.las2peer.security.MessageReceiver;
 import i5.las2peer.security.UserAgentImpl;
 import i5.las2peer.serialization.MalformedXMLException;
@@ -65,8 +66,7 @@ public class LocalNode extends Node {
 		super(classManager);
 		this.localNodeManager = localNodeManager;
 
-		Random r = new Random();
-		nodeId = r.nextLong();
+		nodeId = localNodeManager.createNodeId();
 
 		setStatus(NodeStatus.CONFIGURED);
 	}
@@ -125,8 +125,10 @@ public class LocalNode extends Node {
 					Long[] ids = localNodeManager.findAllNodesWithTopic(message.getTopicId());
 
 					if (ids.length == 0) {
-						listener.collectException(
-								new MessageException("No agent listening to topic " + message.getTopicId()));
+						if (listener != null) {
+							listener.collectException(
+									new MessageException("No agent listening to topic " + message.getTopicId()));
+						}
 					} else {
 						localNodeManager.localSendMessage(ids[0], message);
 					}
@@ -138,9 +140,13 @@ public class LocalNode extends Node {
 					Long[] ids = localNodeManager.findAllNodesWithAgent(message.getRecipientId());
 
 					if (ids.length == 0) {
-						listener.collectException(new AgentNotRegisteredException(message.getRecipientId()));
+						if (listener != null) {
+							listener.collectException(new AgentNotRegisteredException(message.getRecipientId()));
+						}
 					} else {
-						listener.addRecipients(ids.length - 1);
+						if (listener != null) {
+							listener.addRecipients(ids.length - 1);
+						}
 						for (long id : ids) {
 							localNodeManager.localSendMessage(id, message);
 						}
@@ -149,10 +155,14 @@ public class LocalNode extends Node {
 					Long[] ids = localNodeManager.findAllNodesWithTopic(message.getTopicId());
 
 					if (ids.length == 0) {
-						listener.collectException(
-								new MessageException("No agent listening to topic " + message.getTopicId()));
+						if (listener != null) {
+							listener.collectException(
+									new MessageException("No agent listening to topic " + message.getTopicId()));
+						}
 					} else {
-						listener.addRecipients(ids.length - 1);
+						if (listener != null) {
+							listener.addRecipients(ids.length - 1);
+						}
 						for (long id : ids) {
 							localNodeManager.localSendMessage(id, message);
 						}
@@ -187,6 +197,17 @@ public class LocalNode extends Node {
 		}
 	}
 
+	@Override
+	protected void waitForAnswers(MessageResultListener listener, boolean collect) throws InterruptedException {
+		NetworkSimulator simulator = localNodeManager.getSimulator();
+		if (simulator == null) {
+			super.waitForAnswers(listener, collect);
+		} else {
+			// the answers are delivered by the simulator, which must not wait for this thread
+			simulator.waitFor(() -> super.waitForAnswers(listener, collect));
+		}
+	}
+
 	/**
 	 * @deprecated Use {@link #fetchEnvelope(String)} instead
 	 */
@@ -267,6 +288,8 @@ public class LocalNode extends Node {
 				getUserManager().registerUserAgent((UserAgentImpl) agent);
 			} else if (agent instanceof BotAgent) {
 				getUserManager().registerUserAgent((BotAgent) agent);
+			} else if (agent instanceof GroupAgentImpl) {
+				getGroupMembershipIndex().update((GroupAgentImpl) agent);
 			}
 		}
 	}
@@ -359,6 +382,11 @@ public class LocalNode extends Node {
 				exceptionHandler);
 	}
 
+	@Override
+	public CompletableFuture<Integer> storeEnvelopeFuture(EnvelopeVersion envelope, AgentImpl author) {
+		return localNodeManager.getStorage().storeEnvelopeFuture(envelope, author);
+	}
+
 	@Override
 	public EnvelopeVersion fetchEnvelope(String identifier, long timeoutMs)
 			throws EnvelopeNotFoundException, EnvelopeException {
@@ -371,6 +399,11 @@ public class LocalNode extends Node {
 		localNodeManager.getStorage().fetchEnvelopeAsync(identifier, envelopeHandler, exceptionHandler);
 	}
 
+	@Override
+	public CompletableFuture<EnvelopeVersion> fetchEnvelopeFuture(String identifier) {
+		return localNodeManager.getStorage().fetchEnvelopeFuture(identifier);
+	}
+
 	@Override
 	public void removeEnvelope(String identifier) throws EnvelopeNotFoundException, EnvelopeException {
 		localNodeManager.getStorage().removeEnvelope(identifier);
@@ -1,25 +1,63 @@
 package i5.las2peer.p2p;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.logging.Level;
 
 import i5.las2peer.api.security.AgentException;
 import i5.las2peer.classLoaders.ClassManager;
 import i5.las2peer.classLoaders.libraries.FileSystemRepository;
 import i5.las2peer.classLoaders.policies.DefaultPolicy;
 import i5.las2peer.communication.Message;
+import i5.las2peer.logging.L2pLogger;
 import i5.las2peer.persistency.LocalStorage;
 import i5.las2peer.security.AgentImpl;
 
 public class LocalNodeManager {
 
+	private static final L2pLogger logger = L2pLogger.getInstance(LocalNodeManager.class);
+
+	private final NetworkSimulator simulator;
+
 	public LocalNodeManager() {
+		this(null);
+	}
+
+	/**
+	 * create a manager transmitting all messages through the given network simulator
+	 * 
+	 * @param simulator A simulator deciding the delay and loss of each message or null to deliver each message in its
+	 *            own thread after a random delay between {@link #getMinMessageWait()} and
+	 *            {@link #getMaxMessageWait()}
+	 */
+	public LocalNodeManager(NetworkSimulator simulator) {
+		this.simulator = simulator;
 		startPendingTimer();
 	}
 
+	/**
+	 * @return the network simulator of this manager or null, if messages are delivered by separate threads
+	 */
+	public NetworkSimulator getSimulator() {
+		return simulator;
+	}
+
+	/**
+	 * create an id for a new node, drawn from the seeded simulator if present
+	 * 
+	 * @return a random node id
+	 */
+	protected long createNodeId() {
+		if (simulator != null) {
+			return simulator.nextLong();
+		}
+		return new Random().nextLong();
+	}
+
 	/************************** factories ***************************************/
 
 	/**
@@ -356,6 +394,24 @@ public class LocalNodeManager {
 		// since the recipient knows other versions of the involved agents
 		message.close();
 
+		if (simulator != null) {
+			Serializable sendingNodeId = message.getSendingNodeId();
+			long fromNode = sendingNodeId instanceof Long ? (Long) sendingNodeId : 0;
+			simulator.transmit(fromNode, nodeId, message, () -> {
+				LocalNode node = getNode(nodeId);
+				if (node == null) {
+					logger.fine("node " + nodeId + " is gone, message " + message.getId() + " dropped");
+					return;
+				}
+				try {
+					node.receiveMessage(message.clone());
+				} catch (Exception e) {
+					logger.log(Level.WARNING, "problems at node " + nodeId, e);
+				}
+			});
+			return;
+		}
+
 		new Thread(new Runnable() {
 			@Override
 			public void run() {
@@ -370,8 +426,7 @@ public class LocalNodeManager {
 				try {
 					getNode(nodeId).receiveMessage(message.clone());
 				} catch (Exception e) {
-					System.out.println("problems at node " + nodeId);
-					e.printStackTrace();
+					logger.log(Level.WARNING, "problems at node " + nodeId, e);
 					throw new RuntimeException(e);
 				}
 			}
@@ -0,0 +1,498 @@
+package i5.las2peer.p2p;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import i5.las2peer.communication.Message;
+import i5.las2peer.execution.VirtualThreads;
+import i5.las2peer.logging.L2pLogger;
+
+/**
+ * A discrete event scheduler simulating the network between the nodes of a {@link LocalNodeManager}.
+ *
+ * All transmissions and timers are queued as events ordered by their due time. A single scheduler thread takes the
+ * events from the queue and hands them to a pool of reusable delivery threads, because receiving a message may block
+ * until the answer of another message arrives. The delay and loss of each message is decided by a {@link LinkModel}
+ * using one seeded random generator.
+ *
+ * In {@link Clock#REAL_TIME} mode events are due after the given delay in wall clock time. In
+ * {@link Clock#VIRTUAL_TIME} mode the simulated clock jumps to the next event as soon as all running deliveries are
+ * done or waiting for a later event, for example for the answer to a message they sent. Such waits have to be run by
+ * {@link #waitFor(Wait)}. Service calls and other tasks a delivery hands to another thread carry the delivery along,
+ * see {@link #inheritDelivery(Callable)}, so their waits are attributed to it. A delivery counts as waiting as long as
+ * at least one wait is attributed to it. So simulated delays do not cost any real time.
+ * Runs are reproducible for a given seed, as long as the order of the transmissions does not depend on the scheduling
+ * of concurrently running threads.
+ */
+public class NetworkSimulator {
+
+	private static final L2pLogger logger = L2pLogger.getInstance(NetworkSimulator.class);
+
+	/**
+	 * the interval in which a virtual clock checks if the running deliveries are done or blocked
+	 */
+	private static final long SETTLE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	public enum Clock {
+		REAL_TIME,
+		VIRTUAL_TIME,
+	}
+
+	/**
+	 * A blocking wait for a later event of the simulation.
+	 */
+	public interface Wait {
+		public void await() throws InterruptedException;
+	}
+
+	/**
+	 * the delivery run by the current thread or on whose behalf the current thread works
+	 */
+	private static final ThreadLocal<Delivery> delivering = new ThreadLocal<>();
+
+	/**
+	 * A dispatched delivery. Its fields are guarded by the lock of its simulator.
+	 */
+	private static final class Delivery {
+		private final NetworkSimulator simulator;
+		/**
+		 * the number of waits attributed to this delivery
+		 */
+		private int waiters;
+		private boolean done;
+
+		private Delivery(NetworkSimulator simulator) {
+			this.simulator = simulator;
+		}
+	}
+
+	private static final class Event implements Comparable<Event> {
+		private final long time;
+		private final long sequence;
+		private final Runnable task;
+
+		private Event(long time, long sequence, Runnable task) {
+			this.time = time;
+			this.sequence = sequence;
+			this.task = task;
+		}
+
+		@Override
+		public int compareTo(Event other) {
+			int result = Long.compare(time, other.time);
+			return result != 0 ? result : Long.compare(sequence, other.sequence);
+		}
+	}
+
+	private final Clock clock;
+	private final Random random;
+	private volatile LinkModel linkModel;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final PriorityQueue<Event> events = new PriorityQueue<>();
+	private long sequence;
+	private long virtualTime;
+	private final long startNanos = System.nanoTime();
+	private boolean stopped;
+
+	private final Thread scheduler;
+	private final ExecutorService deliveries;
+	/**
+	 * deliveries dispatched, but not yet done
+	 */
+	private final AtomicInteger runningDeliveries = new AtomicInteger();
+	/**
+	 * running deliveries with at least one attributed wait, guarded by the lock
+	 */
+	private int waitingDeliveries;
+
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong lost = new AtomicLong();
+
+	/**
+	 * Creates a simulator delaying all messages uniformly between 500 and 550 ms, like the default
+	 * {@link LocalNodeManager}.
+	 *
+	 * @param clock The clock driving the simulation
+	 * @param seed The seed of the random generator
+	 */
+	public NetworkSimulator(Clock clock, long seed) {
+		this(clock, seed, LinkModel.uniform(500, 550));
+	}
+
+	/**
+	 * Creates a simulator.
+	 *
+	 * @param clock The clock driving the simulation
+	 * @param seed The seed of the random generator
+	 * @param linkModel The model deciding the delay and loss of each message
+	 */
+	public NetworkSimulator(Clock clock, long seed, LinkModel linkModel) {
+		this.clock = clock;
+		this.random = new Random(seed);
+		this.linkModel = linkModel;
+		if (VirtualThreads.isSupported()) {
+			deliveries = VirtualThreads.newThreadPerTaskExecutor("las2peer-network-delivery-");
+		} else {
+			AtomicInteger count = new AtomicInteger();
+			deliveries = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+					runnable -> {
+						Thread thread = new Thread(runnable, "las2peer-network-delivery-" + count.getAndIncrement());
+						thread.setDaemon(true);
+						return thread;
+					});
+		}
+		scheduler = new Thread(this::run, "las2peer-network-simulator");
+		scheduler.setDaemon(true);
+		scheduler.start();
+	}
+
+	/**
+	 * @return the clock driving this simulation
+	 */
+	public Clock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Replaces the link model. Affects only messages transmitted afterwards.
+	 *
+	 * @param linkModel The model deciding the delay and loss of each message
+	 */
+	public void setLinkModel(LinkModel linkModel) {
+		this.linkModel = linkModel;
+	}
+
+	/**
+	 * @return the current simulated time in milliseconds since the simulation started
+	 */
+	public long currentTimeMillis() {
+		if (clock == Clock.REAL_TIME) {
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		}
+		lock.lock();
+		try {
+			return virtualTime;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Draws the next value of the seeded random generator. Used to give nodes reproducible ids.
+	 *
+	 * @return Returns a random long value
+	 */
+	public long nextLong() {
+		lock.lock();
+		try {
+			return random.nextLong();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Schedules a task to run on a delivery thread after the given simulated delay.
+	 *
+	 * @param delayMs The delay in milliseconds
+	 * @param task The task to run
+	 */
+	public void schedule(long delayMs, Runnable task) {
+		lock.lock();
+		try {
+			if (stopped) {
+				throw new IllegalStateException("Network simulator has been shut down");
+			}
+			events.add(new Event(currentTimeMillis() + Math.max(0, delayMs), sequence++, task));
+			changed.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Transmits a message. The link model decides when the delivery task runs or whether the message is lost.
+	 *
+	 * @param fromNode The id of the sending node
+	 * @param toNode The id of the receiving node
+	 * @param message The message to transmit
+	 * @param delivery The task handing the message to the receiving node
+	 * @return Returns false, if the message is lost
+	 */
+	public boolean transmit(long fromNode, long toNode, Message message, Runnable delivery) {
+		sent.incrementAndGet();
+		long delay;
+		lock.lock();
+		try {
+			delay = linkModel.delay(fromNode, toNode, message, random);
+		} finally {
+			lock.unlock();
+		}
+		if (delay < 0) {
+			lost.incrementAndGet();
+			return false;
+		}
+		schedule(delay, () -> {
+			delivered.incrementAndGet();
+			delivery.run();
+		});
+		return true;
+	}
+
+	/**
+	 * @return the number of messages transmitted so far
+	 */
+	public long getSentMessages() {
+		return sent.get();
+	}
+
+	/**
+	 * @return the number of messages handed to their receiving node so far
+	 */
+	public long getDeliveredMessages() {
+		return delivered.get();
+	}
+
+	/**
+	 * @return the number of messages lost by the link model so far
+	 */
+	public long getLostMessages() {
+		return lost.get();
+	}
+
+	/**
+	 * @return the number of events not yet due
+	 */
+	public int getPendingEvents() {
+		lock.lock();
+		try {
+			return events.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Runs a wait for a later event, e. g. for the answer to a message. If it is run on behalf of a running delivery of
+	 * this simulator, the wait is attributed to that delivery and the virtual clock may advance while waiting.
+	 *
+	 * @param wait The blocking wait
+	 * @throws InterruptedException If the wait was interrupted
+	 */
+	public void waitFor(Wait wait) throws InterruptedException {
+		Delivery delivery = delivering.get();
+		if (delivery == null || delivery.simulator != this || !startWaiting(delivery)) {
+			wait.await();
+			return;
+		}
+		try {
+			wait.await();
+		} finally {
+			stopWaiting(delivery);
+		}
+	}
+
+	/**
+	 * Makes the given task run on behalf of the delivery run by the current thread, if any. Has to be applied to tasks a
+	 * delivery hands to another thread and waits for, like service calls, so that waits of the task are attributed to
+	 * the delivery.
+	 *
+	 * @param task The task to run on another thread
+	 * @return Returns the task carrying the current delivery or the given task, if no delivery is run
+	 */
+	public static <T> Callable<T> inheritDelivery(Callable<T> task) {
+		Delivery delivery = delivering.get();
+		if (delivery == null) {
+			return task;
+		}
+		return () -> {
+			Delivery previous = delivering.get();
+			delivering.set(delivery);
+			try {
+				return task.call();
+			} finally {
+				restoreDelivery(previous);
+			}
+		};
+	}
+
+	/**
+	 * Makes the given task run on behalf of the delivery run by the current thread, if any.
+	 *
+	 * @param task The task to run on another thread
+	 * @return Returns the task carrying the current delivery or the given task, if no delivery is run
+	 * @see #inheritDelivery(Callable)
+	 */
+	public static Runnable inheritDelivery(Runnable task) {
+		Delivery delivery = delivering.get();
+		if (delivery == null) {
+			return task;
+		}
+		return () -> {
+			Delivery previous = delivering.get();
+			delivering.set(delivery);
+			try {
+				task.run();
+			} finally {
+				restoreDelivery(previous);
+			}
+		};
+	}
+
+	private static void restoreDelivery(Delivery previous) {
+		if (previous == null) {
+			delivering.remove();
+		} else {
+			delivering.set(previous);
+		}
+	}
+
+	/**
+	 * @return Returns false, if the delivery is already done, so the wait is not attributed to it
+	 */
+	private boolean startWaiting(Delivery delivery) {
+		lock.lock();
+		try {
+			if (delivery.done) {
+				return false;
+			}
+			if (delivery.waiters++ == 0) {
+				waitingDeliveries++;
+				changed.signal();
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void stopWaiting(Delivery delivery) {
+		lock.lock();
+		try {
+			if (--delivery.waiters == 0 && !delivery.done) {
+				waitingDeliveries--;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void finishDelivery(Delivery delivery) {
+		lock.lock();
+		try {
+			delivery.done = true;
+			if (delivery.waiters > 0) {
+				// waits of tasks outliving the delivery do not count anymore
+				waitingDeliveries--;
+			}
+			runningDeliveries.decrementAndGet();
+			changed.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops the scheduler. Events not yet due are discarded.
+	 */
+	public void shutdown() {
+		lock.lock();
+		try {
+			stopped = true;
+			events.clear();
+			changed.signal();
+		} finally {
+			lock.unlock();
+		}
+		deliveries.shutdown();
+	}
+
+	private void run() {
+		while (true) {
+			Event event;
+			lock.lock();
+			try {
+				event = nextDueEvent();
+				if (event == null) {
+					return;
+				}
+			} finally {
+				lock.unlock();
+			}
+			Delivery delivery = new Delivery(this);
+			runningDeliveries.incrementAndGet();
+			try {
+				deliveries.execute(() -> {
+					delivering.set(delivery);
+					try {
+						event.task.run();
+					} catch (RuntimeException e) {
+						logger.log(Level.WARNING, "Simulated network event failed", e);
+					} finally {
+						delivering.remove();
+						finishDelivery(delivery);
+					}
+				});
+			} catch (RuntimeException e) {
+				runningDeliveries.decrementAndGet();
+				logger.log(Level.WARNING, "Could not dispatch simulated network event", e);
+			}
+		}
+	}
+
+	/**
+	 * Must be called while holding the lock.
+	 *
+	 * @return true, if every running delivery has at least one wait for a later event attributed, so that the virtual
+	 *         clock may advance
+	 */
+	private boolean isSettled() {
+		return waitingDeliveries >= runningDeliveries.get();
+	}
+
+	/**
+	 * Waits until the next event is due. Must be called while holding the lock.
+	 *
+	 * @return Returns the next due event or null, if the simulator has been shut down
+	 */
+	private Event nextDueEvent() {
+		try {
+			while (!stopped) {
+				Event next = events.peek();
+				if (next == null) {
+					changed.await();
+				} else if (clock == Clock.REAL_TIME) {
+					long wait = next.time - currentTimeMillis();
+					if (wait <= 0) {
+						return events.poll();
+					}
+					changed.await(wait, TimeUnit.MILLISECONDS);
+				} else if (next.time <= virtualTime) {
+					return events.poll();
+				} else if (isSettled()) {
+					virtualTime = next.time;
+				} else {
+					// a running delivery may still schedule an earlier event
+					changed.awaitNanos(SETTLE_NANOS);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+}
@@ -5,22 +5,35 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 import com.sun.management.OperatingSystemMXBean;
 
 import i5.las2peer.api.Configurable;
 import i5.las2peer.api.execution.ServiceAccessDeniedException;
+import i5.las2peer.api.execution.ServiceCall;
+import i5.las2peer.api.execution.ServiceCallResult;
 import i5.las2peer.api.execution.ServiceInvocationException;
 import i5.las2peer.api.execution.ServiceInvocationFailedException;
 import i5.las2peer.api.execution.ServiceNotAvailableException;
@@ -42,9 +55,18 @@ import i5.las2peer.communication.Message;
 import i5.las2peer.communication.MessageException;
 import i5.las2peer.communication.RMIExceptionContent;
 import i5.las2peer.communication.RMIResultContent;
+import i5.las2peer.execution.RMIBatchTask;
 import i5.las2peer.execution.RMITask;
+import i5.las2peer.execution.ServiceExecutor;
+import i5.las2peer.execution.VirtualThreads;
 import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.logging.MonitoringEventBus;
 import i5.las2peer.logging.NodeObserver;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.Gauge;
+import i5.las2peer.logging.metrics.LatencyHistogram;
+import i5.las2peer.logging.metrics.MetricFamily;
+import i5.las2peer.logging.metrics.MetricsRegistry;
 import i5.las2peer.logging.monitoring.MonitoringObserver;
 import i5.las2peer.p2p.NodeServiceCache.ServiceInstance;
 import i5.las2peer.persistency.EncodingFailedException;
@@ -55,6 +77,7 @@ import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.AgentStorage;
 import i5.las2peer.security.BotAgent;
 import i5.las2peer.security.GroupAgentImpl;
+import i5.las2peer.security.GroupMembershipIndex;
 import i5.las2peer.security.InternalSecurityException;
 import i5.las2peer.security.Mediator;
 import i5.las2peer.security.MessageReceiver;
@@ -127,6 +150,27 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 */
 	private int nodeServiceCacheResultCount = DEFAULT_NODE_SERVICE_CACHE_RESULT_COUNT;
 
+	public static final boolean DEFAULT_NODE_SERVICE_CACHE_STALE_WHILE_REVALIDATE = true;
+	/**
+	 * serve outdated service information while it is refreshed in the background
+	 */
+	private boolean nodeServiceCacheStaleWhileRevalidate = DEFAULT_NODE_SERVICE_CACHE_STALE_WHILE_REVALIDATE;
+
+	public static final int DEFAULT_SERVICE_ANNOUNCEMENT_INTERVAL = 0;
+	/**
+	 * interval in seconds in which local services announce themselves to their topic, 0 disables announcements
+	 * 
+	 * Only service agents subscribe to the topic of their service, so announcements reach nodes running another
+	 * instance of the service, but not the nodes calling it.
+	 */
+	private int serviceAnnouncementInterval = DEFAULT_SERVICE_ANNOUNCEMENT_INTERVAL;
+
+	public static final int DEFAULT_OBSERVER_EVENT_BUFFER_SIZE = 8192;
+	/**
+	 * number of monitoring events buffered for asynchronous delivery to the observers, 0 delivers them synchronously
+	 */
+	private int observerEventBufferSize = DEFAULT_OBSERVER_EVENT_BUFFER_SIZE;
+
 	public static final int DEFAULT_TIDY_UP_TIMER_INTERVAL = 60;
 	/**
 	 * frequency of the tidy up timer
@@ -145,16 +189,70 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 */
 	private int invocationRetryCount = DEFAULT_INVOCATION_RETRY_COUNT;
 
+	public static final String DEFAULT_SERVICE_SELECTION_POLICY = NodeServiceCache.SelectionPolicy.POWER_OF_TWO_CHOICES
+			.name();
 	/**
-	 * observers to be notified of all occurring events
+	 * policy to choose between several instances of a service in the network, see
+	 * {@link NodeServiceCache.SelectionPolicy}
 	 */
-	private HashSet<NodeObserver> observers = new HashSet<>();
+	private String serviceSelectionPolicy = DEFAULT_SERVICE_SELECTION_POLICY;
+
+	public static final int DEFAULT_SERVICE_EXECUTOR_POOL_SIZE = 200;
+	/**
+	 * maximum number of threads executing service calls concurrently
+	 */
+	private int serviceExecutorPoolSize = DEFAULT_SERVICE_EXECUTOR_POOL_SIZE;
+
+	public static final int DEFAULT_SERVICE_EXECUTOR_QUEUE_SIZE = 1000;
+	/**
+	 * number of service calls waiting for a free thread before further calls are rejected
+	 */
+	private int serviceExecutorQueueSize = DEFAULT_SERVICE_EXECUTOR_QUEUE_SIZE;
+
+	public static final int DEFAULT_SERVICE_EXECUTOR_MAX_VIRTUAL_CALLS = ServiceExecutor.DEFAULT_MAX_VIRTUAL_CALLS;
+	/**
+	 * maximum number of service calls in flight in virtual thread mode, replaces pool and queue size
+	 */
+	private int serviceExecutorMaxVirtualCalls = DEFAULT_SERVICE_EXECUTOR_MAX_VIRTUAL_CALLS;
+
+	public static final boolean DEFAULT_VIRTUAL_THREADS = false;
+	/**
+	 * execute service calls and message delivery on virtual threads, if supported by the runtime
+	 */
+	private boolean virtualThreads = DEFAULT_VIRTUAL_THREADS;
+
+	public static final boolean DEFAULT_BINARY_MESSAGE_CONTENT = false;
+	/**
+	 * encode the signed content of messages created by this node in binary format
+	 */
+	private volatile boolean binaryMessageContent = DEFAULT_BINARY_MESSAGE_CONTENT;
+
+	public static final long DEFAULT_SESSION_KEY_LIFETIME = 0;
+	/**
+	 * lifetime in milliseconds of session keys used and accepted for messages by this node, 0 disables them
+	 */
+	private volatile long sessionKeyLifetime = DEFAULT_SESSION_KEY_LIFETIME;
+
+	/**
+	 * thread pool executing all service calls of this node, created on first use
+	 */
+	private ServiceExecutor serviceExecutor;
+
+	/**
+	 * delivers all occurring events to the observers of this node
+	 */
+	private final MonitoringEventBus eventBus;
 
 	/**
 	 * contexts for local method invocation
 	 */
 	private Hashtable<String, AgentContext> htLocalExecutionContexts = new Hashtable<>();
 
+	/**
+	 * transitive group memberships shared by all contexts of this node
+	 */
+	private final GroupMembershipIndex groupMembershipIndex = new GroupMembershipIndex(this);
+
 	/**
 	 * Timer to tidy up hashtables etc (Contexts)
 	 */
@@ -166,23 +264,64 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	private NodeStatus status = NodeStatus.UNCONFIGURED;
 
 	/**
-	 * hashtable with all {@link i5.las2peer.security.MessageReceiver}s registered at this node
+	 * map with all {@link i5.las2peer.security.MessageReceiver}s registered at this node
 	 */
-	private Hashtable<String, MessageReceiver> htRegisteredReceivers = new Hashtable<>();
+	private final ConcurrentHashMap<String, MessageReceiver> registeredReceivers = new ConcurrentHashMap<>();
 
 	/**
 	 * map with all topics and their listeners
+	 * 
+	 * The listeners of a topic are an immutable snapshot, which is replaced on each change. So topic messages are
+	 * delivered without holding any lock.
 	 */
-	private HashMap<Long, TreeMap<String, MessageReceiver>> mapTopicListeners = new HashMap<>();
+	private final ConcurrentHashMap<Long, Map<String, MessageReceiver>> mapTopicListeners = new ConcurrentHashMap<>();
 	/**
 	 * other direction of {@link #mapTopicListeners}
 	 */
-	private HashMap<String, TreeSet<Long>> mapListenerTopics = new HashMap<>();
+	private final ConcurrentHashMap<String, Set<Long>> mapListenerTopics = new ConcurrentHashMap<>();
+	/**
+	 * topics {@link #topicRegistered(long)} has been called for, also used to serialize the (un)subscriptions
+	 */
+	private final Set<Long> subscribedTopics = new HashSet<>();
 
 	private ClassManager classManager = null;
 
 	private Hashtable<Long, MessageResultListener> htAnswerListeners = new Hashtable<>();
 
+	/**
+	 * completes asynchronously awaited answers with a timeout, if no answer has been received in time
+	 */
+	private static final ScheduledThreadPoolExecutor answerTimeoutScheduler;
+	static {
+		answerTimeoutScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "las2peer-answer-timeout");
+			thread.setDaemon(true);
+			return thread;
+		});
+		answerTimeoutScheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	private static final MetricFamily<LatencyHistogram> rmiDuration = MetricsRegistry.getDefault().histogram(
+			"las2peer_rmi_duration_seconds", "Duration of service invocations started on this node", "path");
+	private static final MetricFamily<Counter> rmiFailures = MetricsRegistry.getDefault()
+			.counter("las2peer_rmi_failures_total", "Failed service invocations started on this node", "path");
+	private static final MetricFamily<Gauge> serviceCallsActive = MetricsRegistry.getDefault()
+			.gauge("las2peer_service_calls_active", "Service calls currently executed by a node", "node");
+	private static final MetricFamily<Gauge> serviceCallsQueued = MetricsRegistry.getDefault()
+			.gauge("las2peer_service_calls_queued", "Service calls waiting for a thread of a node", "node");
+	private static final MetricFamily<Gauge> observerEventsPending = MetricsRegistry.getDefault()
+			.gauge("las2peer_observer_events_pending", "Monitoring events waiting for delivery to observers", "node");
+	private static final MetricFamily<Counter> observerEventsDropped = MetricsRegistry.getDefault().counter(
+			"las2peer_observer_events_dropped_total", "Monitoring events dropped, because the buffer was full", "node");
+	private static final String RMI_PATH_INVOKE = "invoke";
+	private static final String RMI_PATH_LOCAL = "local";
+	private static final String RMI_PATH_GLOBAL = "global";
+
+	/**
+	 * label value of the gauges of this node, set while the node is running
+	 */
+	private String metricsNodeLabel;
+
 	private static final String DEFAULT_INFORMATION_FILE = "etc/nodeInfo.xml";
 	private String sInformationFileName = DEFAULT_INFORMATION_FILE;
 
@@ -247,13 +386,18 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	public Node(ClassManager classManager, boolean standardObserver, boolean monitoringObserver) {
 		setFieldValues();
 
+		eventBus = new MonitoringEventBus(observerEventBufferSize, this::getNodeRepresentation,
+				"las2peer-node-observer");
+
 		if (standardObserver) {
 			initStandardLogfile();
 			initServiceLogfile();
 		}
 		
 		if (monitoringObserver) {
-			addObserver(new MonitoringObserver(50, this));
+			MonitoringObserver observer = new MonitoringObserver(50, this);
+			observer.start();
+			addObserver(observer);
 		}
 
 		this.classManager = classManager;
@@ -264,6 +408,16 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		}
 
 		nodeServiceCache = new NodeServiceCache(this, nodeServiceCacheLifetime, nodeServiceCacheResultCount);
+		nodeServiceCache.setStaleWhileRevalidate(nodeServiceCacheStaleWhileRevalidate);
+		nodeServiceCache.setAnnouncementIntervalSeconds(serviceAnnouncementInterval);
+		try {
+			nodeServiceCache.setSelectionPolicy(NodeServiceCache.SelectionPolicy.valueOf(serviceSelectionPolicy));
+		} catch (IllegalArgumentException e) {
+			logger.warning("Unknown service selection policy '" + serviceSelectionPolicy + "', using "
+					+ DEFAULT_SERVICE_SELECTION_POLICY + " instead");
+			serviceSelectionPolicy = DEFAULT_SERVICE_SELECTION_POLICY;
+			nodeServiceCache.setSelectionPolicy(NodeServiceCache.SelectionPolicy.valueOf(serviceSelectionPolicy));
+		}
 
 		userManager = new UserAgentManager(this);
 		aliasManager = new ServiceAliasManager(this);
@@ -284,7 +438,8 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		serviceLogger = L2pLogger.getInstance("service");
 		try {
 			serviceLogger.setLogfilePrefix(SERVICE_LOGFILE);
-			addObserver(serviceLogger);
+			// custom logger shall only log service messages
+			addObserver(serviceLogger, 7500, 7599);
 		} catch (IOException e) {
 			System.err.println("Fatal Error! Can't use logging prefix '"
 					+ SERVICE_LOGFILE
@@ -298,7 +453,18 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 * @param observer The observer that should be notified.
 	 */
 	public void addObserver(NodeObserver observer) {
-		observers.add(observer);
+		eventBus.addObserver(observer);
+	}
+
+	/**
+	 * Adds an observer to this node, which is only notified of events with an absolute code in the given range.
+	 * 
+	 * @param observer The observer that should be notified.
+	 * @param fromCode The smallest absolute event code to notify about
+	 * @param toCode The largest absolute event code to notify about
+	 */
+	public void addObserver(NodeObserver observer, int fromCode, int toCode) {
+		eventBus.addObserver(observer, fromCode, toCode);
 	}
 
 	/**
@@ -307,7 +473,16 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 * @param observer The observer that should be removed.
 	 */
 	public void removeObserver(NodeObserver observer) {
-		observers.remove(observer);
+		eventBus.removeObserver(observer);
+	}
+
+	/**
+	 * Gets the monitoring event bus of this node.
+	 * 
+	 * @return the bus delivering events to the observers of this node
+	 */
+	public MonitoringEventBus getEventBus() {
+		return eventBus;
 	}
 
 	/**
@@ -405,18 +580,23 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 */
 	public void observerNotice(MonitoringEvent event, Object sourceNode, String sourceAgentId, Object destinationNode,
 			String destinationAgentId, String remarks) {
-		long timestamp = new Date().getTime();
-		String sourceNodeRepresentation = getNodeRepresentation(sourceNode);
-		String destinationNodeRepresentation = getNodeRepresentation(destinationNode);
-		for (NodeObserver ob : observers) {
-			if (ob == serviceLogger 
-					&& (Math.abs(event.getCode()) < 7500 || Math.abs(event.getCode()) >= 7600)) {
-				// custom logger shall only log service messages
-				continue;
-			}
-			ob.log(timestamp, event, sourceNodeRepresentation, sourceAgentId, destinationNodeRepresentation,
-					destinationAgentId, remarks);
-		}
+		eventBus.publish(event, sourceNode, sourceAgentId, destinationNode, destinationAgentId, remarks);
+	}
+
+	/**
+	 * Logs an event to all observers. The remarks are converted to a string only if the event is delivered, so callers
+	 * on hot paths can pass ids or other objects without building a string.
+	 * 
+	 * @param event The event for this notification.
+	 * @param sourceNode A source node for this event
+	 * @param sourceAgentId A source agent id for this event
+	 * @param destinationNode A destination node for this event
+	 * @param destinationAgentId A destination agent id for this event
+	 * @param remarks Some note or description about this event, converted by {@link String#valueOf(Object)}
+	 */
+	public void observerNotice(MonitoringEvent event, Object sourceNode, String sourceAgentId, Object destinationNode,
+			String destinationAgentId, Object remarks) {
+		eventBus.publish(event, sourceNode, sourceAgentId, destinationNode, destinationAgentId, remarks);
 	}
 
 	/**
@@ -485,6 +665,50 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 			observerNotice(MonitoringEvent.NODE_STATUS_CHANGE, "" + newstatus);
 		}
 		status = newstatus;
+		if (newstatus == NodeStatus.RUNNING) {
+			registerMetrics();
+		}
+	}
+
+	private synchronized void registerMetrics() {
+		if (metricsNodeLabel != null) {
+			return;
+		}
+		metricsNodeLabel = String.valueOf(getNodeId());
+		ServiceExecutor executor = getServiceExecutor();
+		serviceCallsActive.get(metricsNodeLabel).set(executor::getActiveCount);
+		serviceCallsQueued.get(metricsNodeLabel).set(executor::getQueueSize);
+		observerEventsPending.get(metricsNodeLabel).set(eventBus::getPendingEvents);
+		observerEventsDropped.get(metricsNodeLabel).set(eventBus::getDroppedEvents);
+		registerMetrics(metricsNodeLabel);
+	}
+
+	/**
+	 * Registers additional gauges of a node implementation, when the node is running.
+	 *
+	 * @param nodeLabel The value of the node label
+	 */
+	protected void registerMetrics(String nodeLabel) {
+	}
+
+	/**
+	 * Removes the gauges registered by {@link #registerMetrics(String)}.
+	 *
+	 * @param nodeLabel The value of the node label
+	 */
+	protected void unregisterMetrics(String nodeLabel) {
+	}
+
+	private synchronized void unregisterMetrics() {
+		if (metricsNodeLabel == null) {
+			return;
+		}
+		serviceCallsActive.remove(metricsNodeLabel);
+		serviceCallsQueued.remove(metricsNodeLabel);
+		observerEventsPending.remove(metricsNodeLabel);
+		observerEventsDropped.remove(metricsNodeLabel);
+		unregisterMetrics(metricsNodeLabel);
+		metricsNodeLabel = null;
 	}
 
 	/**
@@ -574,13 +798,12 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 
 		startTime = null;
 
-		// avoid ConcurrentModificationEception
-		String[] receivers = htRegisteredReceivers.keySet().toArray(new String[0]);
-		for (String id : receivers) {
-			htRegisteredReceivers.get(id).notifyUnregister();
+		for (MessageReceiver receiver : registeredReceivers.values()) {
+			receiver.notifyUnregister();
 		}
 		observerNotice(MonitoringEvent.NODE_SHUTDOWN, this.getNodeId(), null);
-		for (NodeObserver observer : observers) {
+		eventBus.close();
+		for (NodeObserver observer : eventBus.getObservers()) {
 			if (observer instanceof MonitoringObserver) {
 				try {
 					System.out.println("Wait a little to give the observer time to send its last message...");
@@ -591,7 +814,12 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 				break;
 			}
 		}
-		htRegisteredReceivers = new Hashtable<>();
+		registeredReceivers.clear();
+		nodeServiceCache.shutDown();
+		unregisterMetrics();
+		if (serviceExecutor != null) {
+			serviceExecutor.shutdown();
+		}
 	}
 
 	/**
@@ -611,8 +839,8 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 			throw new IllegalStateException("You can register agents only to running nodes!");
 		}
 
-		if (htRegisteredReceivers.contains(receiver.getResponsibleForAgentSafeId())
-				&& htRegisteredReceivers.get(receiver.getResponsibleForAgentSafeId()) != receiver) {
+		MessageReceiver registered = registeredReceivers.get(receiver.getResponsibleForAgentSafeId());
+		if (registered != null && registered != receiver) {
 			throw new AgentAlreadyRegisteredException(
 					"Another instance of this agent (or mediator) is already registered here!");
 		}
@@ -648,19 +876,23 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 					+ receiver.getClass().getCanonicalName() + " instead");
 		}
 
-		htRegisteredReceivers.put(receiver.getResponsibleForAgentSafeId(), receiver);
+		registered = registeredReceivers.putIfAbsent(receiver.getResponsibleForAgentSafeId(), receiver);
+		if (registered != null && registered != receiver) {
+			throw new AgentAlreadyRegisteredException(
+					"Another instance of this agent (or mediator) is already registered here!");
+		}
 
 		try {
 			receiver.notifyRegistrationTo(this);
 		} catch (AgentException e) {
 			observerNotice(MonitoringEvent.AGENT_LOAD_FAILED, this, receiver, e.toString());
 
-			htRegisteredReceivers.remove(receiver.getResponsibleForAgentSafeId());
+			registeredReceivers.remove(receiver.getResponsibleForAgentSafeId(), receiver);
 			throw e;
 		} catch (Exception e) {
 			observerNotice(MonitoringEvent.AGENT_LOAD_FAILED, this, receiver, e.toString());
 
-			htRegisteredReceivers.remove(receiver.getResponsibleForAgentSafeId());
+			registeredReceivers.remove(receiver.getResponsibleForAgentSafeId(), receiver);
 			throw new AgentException("problems notifying agent of registration", e);
 		}
 
@@ -678,20 +910,21 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		unregisterReceiver(agentId);
 
 		// unregister from topics
-		if (mapListenerTopics.containsKey(agentId)) {
-			Long[] topics = mapListenerTopics.get(agentId).toArray(new Long[0]);
-			for (long topic : topics) {
+		Set<Long> topics = mapListenerTopics.get(agentId);
+		if (topics != null) {
+			for (long topic : topics.toArray(new Long[0])) {
 				unregisterReceiverFromTopic(receiver, topic);
 			}
 		}
 	}
 
 	private void unregisterReceiver(String agentId) throws AgentNotRegisteredException {
-		if (!htRegisteredReceivers.containsKey(agentId)) {
+		MessageReceiver receiver = registeredReceivers.remove(agentId);
+		if (receiver == null) {
 			throw new AgentNotRegisteredException(agentId);
 		}
 		observerNotice(MonitoringEvent.AGENT_REMOVED, getNodeId(), agentId, "");
-		htRegisteredReceivers.remove(agentId).notifyUnregister();
+		receiver.notifyUnregister();
 	}
 
 	/**
@@ -702,24 +935,35 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 * @throws AgentNotRegisteredException The given MessageReceiver is not registered to this node
 	 */
 	public void registerReceiverToTopic(MessageReceiver receiver, long topic) throws AgentNotRegisteredException {
-		if (!htRegisteredReceivers.containsKey(receiver.getResponsibleForAgentSafeId())) {
-			throw new AgentNotRegisteredException(receiver.getResponsibleForAgentSafeId());
+		String receiverId = receiver.getResponsibleForAgentSafeId();
+		if (!registeredReceivers.containsKey(receiverId)) {
+			throw new AgentNotRegisteredException(receiverId);
 		}
 
-		synchronized (mapListenerTopics) {
-			synchronized (mapTopicListeners) {
-				if (mapListenerTopics.get(receiver.getResponsibleForAgentSafeId()) == null) {
-					mapListenerTopics.put(receiver.getResponsibleForAgentSafeId(), new TreeSet<>());
-				}
-
-				if (mapListenerTopics.get(receiver.getResponsibleForAgentSafeId()).add(topic)) {
-					if (mapTopicListeners.get(topic) == null) {
-						mapTopicListeners.put(topic, new TreeMap<>());
-					}
-					mapTopicListeners.get(topic).put(receiver.getResponsibleForAgentSafeId(), receiver);
-				}
+		mapListenerTopics.compute(receiverId, (id, topics) -> {
+			if (topics == null) {
+				topics = ConcurrentHashMap.newKeySet();
+			}
+			topics.add(topic);
+			return topics;
+		});
+		mapTopicListeners.compute(topic, (t, listeners) -> {
+			if (listeners == null) {
+				return Collections.singletonMap(receiverId, receiver);
+			} else if (listeners.get(receiverId) == receiver) {
+				return listeners;
 			}
+			TreeMap<String, MessageReceiver> copy = new TreeMap<>(listeners);
+			copy.put(receiverId, receiver);
+			return Collections.unmodifiableMap(copy);
+		});
+
+		if (registeredReceivers.get(receiverId) != receiver) {
+			// unregistered in the meantime, unregisterReceiver may have missed this topic
+			unregisterReceiverFromTopic(receiverId, receiver, topic);
+			throw new AgentNotRegisteredException(receiverId);
 		}
+		updateTopicSubscription(topic);
 	}
 
 	/**
@@ -730,30 +974,75 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 * @throws NodeException If unregistering fails
 	 */
 	public void unregisterReceiverFromTopic(MessageReceiver receiver, long topic) throws NodeException {
-		unregisterReceiverFromTopic(receiver.getResponsibleForAgentSafeId(), topic);
+		unregisterReceiverFromTopic(receiver.getResponsibleForAgentSafeId(), null, topic);
 	}
 
-	private void unregisterReceiverFromTopic(String receiverId, long topic) {
-		synchronized (mapListenerTopics) {
-			synchronized (mapTopicListeners) {
-				if (!mapListenerTopics.containsKey(receiverId) || !mapListenerTopics.get(receiverId).contains(topic)) {
-					return;
-				}
-
-				mapListenerTopics.get(receiverId).remove(topic);
-				if (mapListenerTopics.get(receiverId).size() == 0) {
-					mapListenerTopics.remove(receiverId);
-				}
-
-				mapTopicListeners.get(topic).remove(receiverId);
-				if (mapTopicListeners.get(topic).size() == 0) {
-					mapTopicListeners.remove(topic);
-				}
+	/**
+	 * @param receiver the registered instance to remove, null removes any instance with the given id
+	 */
+	private void unregisterReceiverFromTopic(String receiverId, MessageReceiver receiver, long topic) {
+		boolean[] removed = new boolean[1];
+		mapTopicListeners.computeIfPresent(topic, (t, listeners) -> {
+			MessageReceiver listener = listeners.get(receiverId);
+			if (listener == null || (receiver != null && listener != receiver)) {
+				return listeners;
+			}
+			removed[0] = true;
+			if (listeners.size() == 1) {
+				return null;
+			}
+			TreeMap<String, MessageReceiver> copy = new TreeMap<>(listeners);
+			copy.remove(receiverId);
+			return Collections.unmodifiableMap(copy);
+		});
+		if (removed[0] || receiver == null) {
+			mapListenerTopics.computeIfPresent(receiverId, (id, topics) -> {
+				topics.remove(topic);
+				return topics.isEmpty() ? null : topics;
+			});
+		}
+		updateTopicSubscription(topic);
+	}
 
+	/**
+	 * subscribes to or unsubscribes from a topic, if its listeners have changed from or to none
+	 * 
+	 * This is done outside of the updates of {@link #mapTopicListeners}, since subscribing may wait for the network.
+	 * Running it after each update, serialized with all other subscription changes, ensures the last state wins.
+	 * 
+	 * @param topic the topic id
+	 */
+	private void updateTopicSubscription(long topic) {
+		synchronized (subscribedTopics) {
+			boolean listened = mapTopicListeners.containsKey(topic);
+			if (listened && subscribedTopics.add(topic)) {
+				topicRegistered(topic);
+			} else if (!listened && subscribedTopics.remove(topic)) {
+				topicUnregistered(topic);
 			}
 		}
 	}
 
+	/**
+	 * Called when the first receiver has registered to a topic. Subscription changes wait until this method returns,
+	 * so it must not register or unregister receivers itself.
+	 * 
+	 * @param topic the topic id
+	 */
+	protected void topicRegistered(long topic) {
+		// nothing to do for local topics
+	}
+
+	/**
+	 * Called when the last receiver has unregistered from a topic. Subscription changes wait until this method
+	 * returns, so it must not register or unregister receivers itself.
+	 * 
+	 * @param topic the topic id
+	 */
+	protected void topicUnregistered(long topic) {
+		// nothing to do for local topics
+	}
+
 	/**
 	 * checks if a receiver is registered to the topic
 	 * 
@@ -781,7 +1070,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 * @return true, if the given agent is registered here
 	 */
 	public boolean hasLocalAgent(String agentId) {
-		return htRegisteredReceivers.get(agentId) != null;
+		return registeredReceivers.containsKey(agentId);
 	}
 
 	/**
@@ -890,14 +1179,14 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		// Since this field is not always available
 		if (message.getSendingNodeId() != null) {
 			observerNotice(MonitoringEvent.MESSAGE_RECEIVED, message.getSendingNodeId(), message.getSenderId(),
-					this.getNodeId(), message.getRecipientId(), message.getId() + "");
+					this.getNodeId(), message.getRecipientId(), message.getId());
 		} else {
 			observerNotice(MonitoringEvent.MESSAGE_RECEIVED, null, message.getSenderId(), this.getNodeId(),
-					message.getRecipientId(), message.getId() + "");
+					message.getRecipientId(), message.getId());
 		}
 
 		if (!message.isTopic()) {
-			MessageReceiver receiver = htRegisteredReceivers.get(message.getRecipientId());
+			MessageReceiver receiver = registeredReceivers.get(message.getRecipientId());
 
 			if (receiver == null) {
 				throw new AgentNotRegisteredException(message.getRecipientId());
@@ -905,28 +1194,31 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 
 			receiver.receiveMessage(message, getAgentContext(message.getSenderId()));
 		} else {
-			TreeMap<String, MessageReceiver> map = mapTopicListeners.get(message.getTopicId());
+			// immutable snapshot, receivers registering meanwhile do not get this message
+			Map<String, MessageReceiver> map = mapTopicListeners.get(message.getTopicId());
 
 			if (map == null) {
 				throw new MessageException("No receiver registered for this topic!");
 			}
 
-			synchronized (map) {
-				for (MessageReceiver receiver : map.values()) {
-					try {
-						Message msg = message;
-						if (map.size() > 1) {
-							msg = msg.clone();
-						}
+			for (MessageReceiver receiver : map.values()) {
+				if (registeredReceivers.get(receiver.getResponsibleForAgentSafeId()) != receiver) {
+					// unregistered meanwhile
+					continue;
+				}
+				try {
+					Message msg = message;
+					if (map.size() > 1) {
+						msg = msg.clone();
+					}
 
-						msg.setRecipientId(receiver.getResponsibleForAgentSafeId());
+					msg.setRecipientId(receiver.getResponsibleForAgentSafeId());
 
-						receiver.receiveMessage(msg, getAgentContext(message.getSenderId()));
-					} catch (CloneNotSupportedException e) {
-						throw new MessageException("Cloning failed", e);
-					} catch (Exception e) {
-						logger.log(Level.SEVERE, "Message receiver failed", e);
-					}
+					receiver.receiveMessage(msg, getAgentContext(message.getSenderId()));
+				} catch (CloneNotSupportedException e) {
+					throw new MessageException("Cloning failed", e);
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Message receiver failed", e);
 				}
 			}
 		}
@@ -1070,7 +1362,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 * @throws AgentNotRegisteredException If the agent is not found at this node
 	 */
 	public AgentImpl getLocalAgent(String id) throws AgentNotRegisteredException {
-		MessageReceiver result = htRegisteredReceivers.get(id);
+		MessageReceiver result = registeredReceivers.get(id);
 
 		if (result == null) {
 			throw new AgentNotRegisteredException("The given agent agent is not registered to this node");
@@ -1091,7 +1383,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	public UserAgentImpl[] getRegisteredAgents() {
 		Vector<UserAgentImpl> result = new Vector<>();
 
-		for (MessageReceiver rec : htRegisteredReceivers.values()) {
+		for (MessageReceiver rec : registeredReceivers.values()) {
 			if (rec instanceof UserAgentImpl) {
 				result.add((UserAgentImpl) rec);
 			}
@@ -1108,7 +1400,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	public ServiceAgentImpl[] getRegisteredServices() {
 		Vector<ServiceAgentImpl> result = new Vector<>();
 
-		for (MessageReceiver rec : htRegisteredReceivers.values()) {
+		for (MessageReceiver rec : registeredReceivers.values()) {
 			if (rec instanceof ServiceAgentImpl) {
 				result.add((ServiceAgentImpl) rec);
 			}
@@ -1131,7 +1423,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		if (agent.isLocked()) {
 			throw new AgentLockedException("You need to unlock the agent for mediation!");
 		}
-		MessageReceiver receiver = htRegisteredReceivers.get(agent.getIdentifier());
+		MessageReceiver receiver = registeredReceivers.get(agent.getIdentifier());
 
 		if (receiver != null && !(receiver instanceof Mediator)) {
 			throw new AgentAlreadyRegisteredException("The requested Agent is registered directly at this node!");
@@ -1291,6 +1583,20 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	public Serializable invoke(AgentImpl executing, ServiceNameVersion service, String method,
 			Serializable[] parameters, boolean exactVersion, boolean localOnly)
 			throws ServiceInvocationException, AgentLockedException {
+		long start = System.nanoTime();
+		try {
+			return invokeInstance(executing, service, method, parameters, exactVersion, localOnly);
+		} catch (ServiceInvocationException | AgentLockedException | RuntimeException e) {
+			rmiFailures.get(RMI_PATH_INVOKE).inc();
+			throw e;
+		} finally {
+			rmiDuration.get(RMI_PATH_INVOKE).recordSince(start);
+		}
+	}
+
+	private Serializable invokeInstance(AgentImpl executing, ServiceNameVersion service, String method,
+			Serializable[] parameters, boolean exactVersion, boolean localOnly)
+			throws ServiceInvocationException, AgentLockedException {
 
 		if (getStatus() != NodeStatus.RUNNING) {
 			throw new IllegalStateException("You can invoke methods only on a running node!");
@@ -1315,14 +1621,175 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 			if (instance.local()) {
 				return invokeLocally(executing, instance.getServiceAgent(), method, parameters);
 			} else {
+				long start = instance.requestStarted();
+				// exceptions of the service itself do not count as errors of the instance
+				boolean available = true;
 				try {
 					return invokeGlobally(executing, instance.getServiceAgentId(), instance.getNodeId(), method,
 							parameters);
 				} catch (ServiceNotAvailableException e) {
+					available = false;
+					nodeServiceCache.removeGlobalServiceInstance(instance);
+					if (retry == 0) {
+						throw new ServiceNotAvailableException("Cannot reach service.", e);
+					}
+				} finally {
+					instance.requestFinished(start, available);
+				}
+			}
+		}
+
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Invokes a service method without blocking the calling thread while waiting for a remote answer.
+	 * 
+	 * Service instances are chosen and retried like in
+	 * {@link #invoke(AgentImpl, ServiceNameVersion, String, Serializable[], boolean, boolean)}. Looking up the
+	 * service instance, which may wait for the network, opening the answer and executing locally running services is
+	 * done by the {@link ServiceExecutor} of the node, see {@link ServiceExecutor#executeStep(Runnable)}.
+	 * 
+	 * @param executing the executing agent
+	 * @param service service to be invoked
+	 * @param method service method
+	 * @param parameters invocation parameters
+	 * @param exactVersion if true, an exact version match is required, otherwise, an appropriate version will be chosen
+	 * @param localOnly if true, only locally running services are executed
+	 * @return a future completed with the invocation result or exceptionally with a {@link ServiceInvocationException}
+	 *         or an {@link AgentLockedException}
+	 */
+	public CompletableFuture<Serializable> invokeAsync(AgentImpl executing, ServiceNameVersion service, String method,
+			Serializable[] parameters, boolean exactVersion, boolean localOnly) {
+		long start = System.nanoTime();
+		CompletableFuture<Serializable> result;
+		if (getStatus() != NodeStatus.RUNNING) {
+			result = failedFuture(new IllegalStateException("You can invoke methods only on a running node!"));
+		} else if (executing.isLocked()) {
+			result = failedFuture(new AgentLockedException("The executing agent has to be unlocked to call a RMI"));
+		} else {
+			result = invokeInstanceAsync(executing, service, method, parameters, exactVersion, localOnly,
+					invocationRetryCount);
+		}
+		return measured(RMI_PATH_INVOKE, start, result);
+	}
+
+	private CompletableFuture<Serializable> invokeInstanceAsync(AgentImpl executing, ServiceNameVersion service,
+			String method, Serializable[] parameters, boolean exactVersion, boolean localOnly, int retry) {
+		return supplyStep(() -> {
+			try {
+				return nodeServiceCache.getServiceAgentInstance(service, exactVersion, localOnly, executing);
+			} catch (AgentNotRegisteredException e) {
+				throw new CompletionException(new ServiceNotFoundException(service.toString(), e));
+			}
+		}).thenCompose(instance -> {
+			if (instance.local()) {
+				try {
+					return CompletableFuture
+							.completedFuture(invokeLocally(executing, instance.getServiceAgent(), method, parameters));
+				} catch (ServiceInvocationException | AgentLockedException e) {
+					return failedFuture(e);
+				}
+			}
+			return invokeInstanceAsync(executing, service, method, parameters, exactVersion, localOnly, retry,
+					instance);
+		});
+	}
+
+	private CompletableFuture<Serializable> invokeInstanceAsync(AgentImpl executing, ServiceNameVersion service,
+			String method, Serializable[] parameters, boolean exactVersion, boolean localOnly, int retry,
+			ServiceInstance instance) {
+		long start = instance.requestStarted();
+		CompletableFuture<Serializable> result = new CompletableFuture<>();
+		invokeGloballyAsync(executing, instance.getServiceAgentId(), instance.getNodeId(), method, parameters)
+				.whenComplete((value, exception) -> {
+					Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+					instance.requestFinished(start, !(cause instanceof ServiceNotAvailableException));
+					if (cause == null) {
+						result.complete(value);
+					} else if (!(cause instanceof ServiceNotAvailableException)) {
+						result.completeExceptionally(cause);
+					} else {
+						nodeServiceCache.removeGlobalServiceInstance(instance);
+						if (retry <= 1) {
+							result.completeExceptionally(
+									new ServiceNotAvailableException("Cannot reach service.", cause));
+						} else {
+							invokeInstanceAsync(executing, service, method, parameters, exactVersion, localOnly,
+									retry - 1).whenComplete((retryValue, retryException) -> {
+										if (retryException != null) {
+											result.completeExceptionally(retryException);
+										} else {
+											result.complete(retryValue);
+										}
+									});
+						}
+					}
+				});
+		return result;
+	}
+
+	/**
+	 * Invokes several methods of the same service instance with a single message.
+	 * 
+	 * The calls are sent as one {@link RMIBatchTask}, so encryption, signing, routing and the answer are shared by all
+	 * calls. The exception of a single call is reported in its result and does not affect the other calls.
+	 * 
+	 * @param executing the executing agent
+	 * @param service service to be invoked
+	 * @param calls the method calls to execute
+	 * @param parallel if true, the target node may execute the calls concurrently
+	 * @param exactVersion if true, an exact version match is required, otherwise, an appropriate version will be chosen
+	 * @param localOnly if true, only locally running services are executed
+	 * @return one result per call, in the order of the calls
+	 * @throws ServiceInvocationException If the batch could not be delivered to a service instance
+	 * @throws AgentLockedException If the executing agent was locked
+	 */
+	public List<ServiceCallResult> invokeBatch(AgentImpl executing, ServiceNameVersion service,
+			List<ServiceCall> calls, boolean parallel, boolean exactVersion, boolean localOnly)
+			throws ServiceInvocationException, AgentLockedException {
+
+		if (getStatus() != NodeStatus.RUNNING) {
+			throw new IllegalStateException("You can invoke methods only on a running node!");
+		}
+
+		if (executing.isLocked()) {
+			throw new AgentLockedException("The executing agent has to be unlocked to call a RMI");
+		}
+
+		int retry = invocationRetryCount;
+		while (retry > 0) {
+			retry--;
+
+			NodeServiceCache.ServiceInstance instance;
+
+			try {
+				instance = this.nodeServiceCache.getServiceAgentInstance(service, exactVersion, localOnly, executing);
+			} catch (AgentNotRegisteredException e) {
+				throw new ServiceNotFoundException(service.toString(), e);
+			}
+
+			if (instance.local()) {
+				ServiceAgentImpl serviceAgent = instance.getServiceAgent();
+				if (!hasLocalAgent(serviceAgent)) {
+					throw new ServiceNotFoundException("This ServiceAgent is not known locally!");
+				}
+				RMIBatchTask batch = createBatchTask(serviceAgent.getServiceNameVersion(), calls, parallel);
+				return toCallResults(serviceAgent.handle(batch, getAgentContext(executing)));
+			} else {
+				long start = instance.requestStarted();
+				boolean available = true;
+				try {
+					return invokeBatchGlobally(executing, instance.getServiceAgentId(), instance.getNodeId(), calls,
+							parallel);
+				} catch (ServiceNotAvailableException e) {
+					available = false;
 					nodeServiceCache.removeGlobalServiceInstance(instance);
 					if (retry == 0) {
 						throw new ServiceNotAvailableException("Cannot reach service.", e);
 					}
+				} finally {
+					instance.requestFinished(start, available);
 				}
 			}
 		}
@@ -1330,6 +1797,59 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		throw new IllegalStateException();
 	}
 
+	private List<ServiceCallResult> invokeBatchGlobally(AgentImpl executing, String serviceAgentId, Object nodeId,
+			List<ServiceCall> calls, boolean parallel) throws ServiceInvocationException, AgentLockedException {
+		ServiceAgentImpl serviceAgent = prepareGlobalInvocation(executing, serviceAgentId);
+
+		try {
+			Message rmiMessage = createRmiMessage(executing, serviceAgent,
+					createBatchTask(serviceAgent.getServiceNameVersion(), calls, parallel));
+			Message resultMessage;
+
+			if (nodeId != null) {
+				try {
+					resultMessage = sendMessageAndWaitForAnswer(rmiMessage, nodeId);
+				} catch (NodeNotFoundException nex) {
+					throw new ServiceNotAvailableException("Cannot reach node!", nex);
+				}
+			} else {
+				resultMessage = sendMessageAndWaitForAnswer(rmiMessage);
+			}
+
+			Serializable results = handleRmiAnswer(executing, serviceAgent, resultMessage);
+			if (!(results instanceof Serializable[])) {
+				throw new ServiceInvocationException("Unknown batch response type: " + results);
+			}
+			return toCallResults((Serializable[]) results);
+		} catch (InternalSecurityException | TimeoutException | InterruptedException | EncodingFailedException
+				| SerializationException e) {
+			throw rmiFailure(executing, e);
+		}
+	}
+
+	private static RMIBatchTask createBatchTask(ServiceNameVersion service, List<ServiceCall> calls,
+			boolean parallel) {
+		RMITask[] tasks = new RMITask[calls.size()];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = new RMITask(service, calls.get(i).getMethod(), calls.get(i).getParameters());
+		}
+		return new RMIBatchTask(tasks, parallel);
+	}
+
+	private static List<ServiceCallResult> toCallResults(Serializable[] results) throws ServiceInvocationException {
+		List<ServiceCallResult> callResults = new ArrayList<>(results.length);
+		for (Serializable result : results) {
+			if (result instanceof RMIResultContent) {
+				callResults.add(new ServiceCallResult(((RMIResultContent) result).getContent()));
+			} else if (result instanceof RMIExceptionContent) {
+				callResults.add(new ServiceCallResult(remoteException(((RMIExceptionContent) result).getException())));
+			} else {
+				throw new ServiceInvocationException("Unknown batch response type: " + result);
+			}
+		}
+		return callResults;
+	}
+
 	/**
 	 * invokes a locally running service agent
 	 * 
@@ -1345,6 +1865,19 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 */
 	public Serializable invokeLocally(AgentImpl executing, ServiceAgentImpl serviceAgent, String method,
 			Serializable[] parameters) throws ServiceInvocationException, AgentLockedException {
+		long start = System.nanoTime();
+		try {
+			return invokeLocalInstance(executing, serviceAgent, method, parameters);
+		} catch (ServiceInvocationException | AgentLockedException | RuntimeException e) {
+			rmiFailures.get(RMI_PATH_LOCAL).inc();
+			throw e;
+		} finally {
+			rmiDuration.get(RMI_PATH_LOCAL).recordSince(start);
+		}
+	}
+
+	private Serializable invokeLocalInstance(AgentImpl executing, ServiceAgentImpl serviceAgent, String method,
+			Serializable[] parameters) throws ServiceInvocationException, AgentLockedException {
 
 		if (getStatus() != NodeStatus.RUNNING) {
 			throw new IllegalStateException("You can invoke methods only on a running node!");
@@ -1382,42 +1915,24 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 	 */
 	public Serializable invokeGlobally(AgentImpl executing, String serviceAgentId, Object nodeId, String method,
 			Serializable[] parameters) throws ServiceInvocationException, AgentLockedException {
-
-		if (getStatus() != NodeStatus.RUNNING) {
-			throw new IllegalStateException("You can invoke methods only on a running node!");
-		}
-
-		// Do not log service class name (privacy..)
-		this.observerNotice(MonitoringEvent.RMI_SENT, this.getNodeId(), executing, null);
-
-		if (executing.isLocked()) {
-			throw new AgentLockedException("The executing agent has to be unlocked to call a RMI");
-		}
-
-		ServiceAgentImpl serviceAgent;
+		long start = System.nanoTime();
 		try {
-			serviceAgent = (ServiceAgentImpl) getAgent(serviceAgentId);
-		} catch (AgentNotFoundException | ClassCastException e) {
-			throw new ServiceNotFoundException("This is not a service agent!", e);
-		} catch (AgentException e) {
-			throw new ServiceNotAvailableException("This service agent is not available!", e);
+			return invokeRemoteInstance(executing, serviceAgentId, nodeId, method, parameters);
+		} catch (ServiceInvocationException | AgentLockedException | RuntimeException e) {
+			rmiFailures.get(RMI_PATH_GLOBAL).inc();
+			throw e;
+		} finally {
+			rmiDuration.get(RMI_PATH_GLOBAL).recordSince(start);
 		}
+	}
 
-		try {
-			Serializable msg;
-			if (executing instanceof PassphraseAgentImpl) {
-				msg = new UnlockAgentCall(new RMITask(serviceAgent.getServiceNameVersion(), method, parameters),
-						((PassphraseAgentImpl) executing).getPassphrase());
-			} else {
-				msg = new RMITask(serviceAgent.getServiceNameVersion(), method, parameters);
-			}
-			Message rmiMessage = new Message(executing, serviceAgent, msg);
+	private Serializable invokeRemoteInstance(AgentImpl executing, String serviceAgentId, Object nodeId, String method,
+			Serializable[] parameters) throws ServiceInvocationException, AgentLockedException {
+		ServiceAgentImpl serviceAgent = prepareGlobalInvocation(executing, serviceAgentId);
 
-			if (this instanceof LocalNode) {
-				rmiMessage.setSendingNodeId((Long) getNodeId());
-			} else {
-				rmiMessage.setSendingNodeId((NodeHandle) getNodeId());
-			}
+		try {
+			Message rmiMessage = createRmiMessage(executing, serviceAgent,
+					new RMITask(serviceAgent.getServiceNameVersion(), method, parameters));
 			Message resultMessage;
 
 			if (nodeId != null) {
@@ -1430,65 +1945,224 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 				resultMessage = sendMessageAndWaitForAnswer(rmiMessage);
 			}
 
-			ClassLoader msgClsLoader = null;
+			return handleRmiAnswer(executing, serviceAgent, resultMessage);
+		} catch (InternalSecurityException | TimeoutException | InterruptedException | EncodingFailedException
+				| SerializationException e) {
+			throw rmiFailure(executing, e);
+		}
+	}
+
+	/**
+	 * invokes a service instance in the network without blocking the calling thread while waiting for the answer
+	 * 
+	 * preferably, use {@link #invokeAsync(AgentImpl, ServiceNameVersion, String, Serializable[], boolean, boolean)}
+	 * 
+	 * @param executing the executing agent
+	 * @param serviceAgentId the id of the service agent
+	 * @param nodeId id of the node running the agent (may be null)
+	 * @param method service method
+	 * @param parameters method parameters
+	 * @return a future completed with the invocation result or exceptionally with the exceptions of
+	 *         {@link #invokeGlobally(AgentImpl, String, Object, String, Serializable[])}
+	 */
+	public CompletableFuture<Serializable> invokeGloballyAsync(AgentImpl executing, String serviceAgentId,
+			Object nodeId, String method, Serializable[] parameters) {
+		long start = System.nanoTime();
+		// fetching the service agent may wait for the network
+		CompletableFuture<ServiceAgentImpl> prepared = supplyStep(() -> {
 			try {
-				ServiceAgentImpl localInst = getLocalServiceAgent(serviceAgent.getServiceNameVersion());
-				if (localInst != null) {
-					msgClsLoader = localInst.getServiceInstance().getClass().getClassLoader();
-				}
-			} catch (ServiceNotFoundException e) {
-				// ok, no local instance found
+				return prepareGlobalInvocation(executing, serviceAgentId);
+			} catch (ServiceInvocationException | AgentLockedException e) {
+				throw new CompletionException(e);
 			}
+		});
+		return measured(RMI_PATH_GLOBAL, start, prepared
+				.thenCompose(serviceAgent -> sendRmiAsync(executing, serviceAgent, nodeId, method, parameters)));
+	}
+
+	private CompletableFuture<Serializable> sendRmiAsync(AgentImpl executing, ServiceAgentImpl serviceAgent,
+			Object nodeId, String method, Serializable[] parameters) {
+		Message rmiMessage;
+		try {
+			rmiMessage = createRmiMessage(executing, serviceAgent,
+					new RMITask(serviceAgent.getServiceNameVersion(), method, parameters));
+		} catch (InternalSecurityException | EncodingFailedException | SerializationException e) {
+			return failedFuture(rmiFailure(executing, e));
+		} catch (AgentLockedException e) {
+			return failedFuture(e);
+		}
 
+		// the answer is handed over by a network thread, so it is opened on another thread
+		return sendMessageAsync(rmiMessage, nodeId).handle((resultMessage, exception) -> supplyStep(() -> {
 			try {
-				resultMessage.open(executing, this, msgClsLoader);
-			} catch (AgentException e) {
-				throw new ServiceInvocationException("Could not open received answer!", e);
+				if (exception != null) {
+					Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+					if (cause instanceof NodeNotFoundException) {
+						throw new ServiceNotAvailableException("Cannot reach node!", cause);
+					} else if (cause instanceof TimeoutException) {
+						throw rmiFailure(executing, (TimeoutException) cause);
+					}
+					throw new ServiceNotAvailableException("Service does not respond", cause);
+				}
+				return handleRmiAnswer(executing, serviceAgent, resultMessage);
+			} catch (ServiceInvocationException e) {
+				throw new CompletionException(e);
+			} catch (InternalSecurityException | EncodingFailedException | SerializationException e) {
+				throw new CompletionException(rmiFailure(executing, e));
 			}
-			Object resultContent = resultMessage.getContent();
-
-			if (resultContent instanceof RMIExceptionContent) {
-				Throwable thrown = ((RMIExceptionContent) resultContent).getException();
-				// Do not log service class name (privacy..)
-				this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing, thrown.toString());
-				if (thrown instanceof ServiceInvocationException) {
-					throw (ServiceInvocationException) thrown;
-				} else if ((thrown instanceof InvocationTargetException)
-						&& (thrown.getCause() instanceof InternalSecurityException)) {
-					// internal L2pSecurityException (like internal method access or unauthorizes object access)
-					throw new ServiceAccessDeniedException("Internal security exception!", thrown.getCause());
-				} else {
-					throw new ServiceInvocationException("remote exception at target node", thrown);
+		})).thenCompose(answer -> answer);
+	}
+
+	/**
+	 * runs a step of an asynchronous invocation, which may block, on the service executor of this node
+	 * 
+	 * @param step the step, may throw a {@link CompletionException} to fail with its cause
+	 * @return a future completed with the result of the step, or exceptionally with a
+	 *         {@link ServiceNotAvailableException}, if the node is overloaded
+	 */
+	private <T> CompletableFuture<T> supplyStep(Supplier<T> step) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			getServiceExecutor().executeStep(() -> {
+				try {
+					result.complete(step.get());
+				} catch (CompletionException e) {
+					result.completeExceptionally(e.getCause());
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
 				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(new ServiceNotAvailableException("Node is overloaded, invocation rejected", e));
+		}
+		return result;
+	}
 
-			} else if (resultContent instanceof RMIResultContent) {
-				// Do not log service class name (privacy..)
-				this.observerNotice(MonitoringEvent.RMI_SUCCESSFUL, this.getNodeId(), executing, null);
-				return ((RMIResultContent) resultContent).getContent();
-			} else {
-				// Do not log service class name (privacy..)
-				this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing,
-						"Unknown RMI response type: " + resultContent.getClass().getCanonicalName());
-				throw new ServiceInvocationException(
-						"Unknown RMI response type: " + resultContent.getClass().getCanonicalName());
+	private ServiceAgentImpl prepareGlobalInvocation(AgentImpl executing, String serviceAgentId)
+			throws ServiceInvocationException, AgentLockedException {
+		if (getStatus() != NodeStatus.RUNNING) {
+			throw new IllegalStateException("You can invoke methods only on a running node!");
+		}
+
+		// Do not log service class name (privacy..)
+		this.observerNotice(MonitoringEvent.RMI_SENT, this.getNodeId(), executing, null);
+
+		if (executing.isLocked()) {
+			throw new AgentLockedException("The executing agent has to be unlocked to call a RMI");
+		}
+
+		try {
+			return (ServiceAgentImpl) getAgent(serviceAgentId);
+		} catch (AgentNotFoundException | ClassCastException e) {
+			throw new ServiceNotFoundException("This is not a service agent!", e);
+		} catch (AgentException e) {
+			throw new ServiceNotAvailableException("This service agent is not available!", e);
+		}
+	}
+
+	private Message createRmiMessage(AgentImpl executing, ServiceAgentImpl serviceAgent, Serializable task)
+			throws EncodingFailedException, InternalSecurityException, SerializationException, AgentLockedException {
+		Serializable msg;
+		if (executing instanceof PassphraseAgentImpl) {
+			msg = new UnlockAgentCall(task, ((PassphraseAgentImpl) executing).getPassphrase());
+		} else {
+			msg = task;
+		}
+		Message rmiMessage = new Message(executing, serviceAgent, msg, Message.DEFAULT_TIMEOUT, this);
+
+		if (this instanceof LocalNode) {
+			rmiMessage.setSendingNodeId((Long) getNodeId());
+		} else {
+			rmiMessage.setSendingNodeId((NodeHandle) getNodeId());
+		}
+		return rmiMessage;
+	}
+
+	private Serializable handleRmiAnswer(AgentImpl executing, ServiceAgentImpl serviceAgent, Message resultMessage)
+			throws ServiceInvocationException, InternalSecurityException, EncodingFailedException,
+			SerializationException {
+		ClassLoader msgClsLoader = null;
+		try {
+			ServiceAgentImpl localInst = getLocalServiceAgent(serviceAgent.getServiceNameVersion());
+			if (localInst != null) {
+				msgClsLoader = localInst.getServiceInstance().getClass().getClassLoader();
 			}
-		} catch (InternalSecurityException e) {
-			throw new ServiceInvocationFailedException("Cannot encrypt or decrypt message!", e);
-		} catch (TimeoutException | InterruptedException e) {
+		} catch (ServiceNotFoundException e) {
+			// ok, no local instance found
+		}
+
+		try {
+			resultMessage.open(executing, this, msgClsLoader);
+		} catch (AgentException e) {
+			throw new ServiceInvocationException("Could not open received answer!", e);
+		}
+		Object resultContent = resultMessage.getContent();
+
+		if (resultContent instanceof RMIExceptionContent) {
+			Throwable thrown = ((RMIExceptionContent) resultContent).getException();
 			// Do not log service class name (privacy..)
-			this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing, e.toString());
-			throw new ServiceNotAvailableException("Service does not respond", e);
-		} catch (EncodingFailedException e) {
+			this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing, thrown.toString());
+			throw remoteException(thrown);
+
+		} else if (resultContent instanceof RMIResultContent) {
 			// Do not log service class name (privacy..)
-			this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing, e.toString());
-			throw new ServiceInvocationException("message problems!", e);
-		} catch (SerializationException e) {
+			this.observerNotice(MonitoringEvent.RMI_SUCCESSFUL, this.getNodeId(), executing, null);
+			return ((RMIResultContent) resultContent).getContent();
+		} else {
 			// Do not log service class name (privacy..)
-			this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing, e.toString());
-			throw new ServiceInvocationException("message problems!", e);
+			this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing,
+					"Unknown RMI response type: " + resultContent.getClass().getCanonicalName());
+			throw new ServiceInvocationException(
+					"Unknown RMI response type: " + resultContent.getClass().getCanonicalName());
+		}
+	}
+
+	private static ServiceInvocationException remoteException(Throwable thrown) {
+		if (thrown instanceof ServiceInvocationException) {
+			return (ServiceInvocationException) thrown;
+		} else if ((thrown instanceof InvocationTargetException)
+				&& (thrown.getCause() instanceof InternalSecurityException)) {
+			// internal L2pSecurityException (like internal method access or unauthorizes object access)
+			return new ServiceAccessDeniedException("Internal security exception!", thrown.getCause());
+		} else {
+			return new ServiceInvocationException("remote exception at target node", thrown);
 		}
 	}
 
+	/**
+	 * translates a failure of the message layer into the exception thrown to the caller of a RMI
+	 */
+	private ServiceInvocationException rmiFailure(AgentImpl executing, Exception e) {
+		if (e instanceof InternalSecurityException) {
+			return new ServiceInvocationFailedException("Cannot encrypt or decrypt message!", e);
+		}
+		// Do not log service class name (privacy..)
+		this.observerNotice(MonitoringEvent.RMI_FAILED, this.getNodeId(), executing, e.toString());
+		if (e instanceof TimeoutException || e instanceof InterruptedException) {
+			return new ServiceNotAvailableException("Service does not respond", e);
+		} else {
+			return new ServiceInvocationException("message problems!", e);
+		}
+	}
+
+	/**
+	 * records the duration of an asynchronous invocation and its failure in the metrics of the given path
+	 */
+	private static <T> CompletableFuture<T> measured(String path, long start, CompletableFuture<T> future) {
+		return future.whenComplete((value, exception) -> {
+			if (exception != null) {
+				rmiFailures.get(path).inc();
+			}
+			rmiDuration.get(path).recordSince(start);
+		});
+	}
+
+	private static <T> CompletableFuture<T> failedFuture(Throwable t) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		result.completeExceptionally(t);
+		return result;
+	}
+
 	/**
 	 * Tries to get an instance of the given class as a registered service of this node.
 	 * 
@@ -1529,7 +2203,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		}
 
 		observerNotice(MonitoringEvent.MESSAGE_RECEIVED_ANSWER, answer.getSendingNodeId(), answer.getSenderId(),
-				this.getNodeId(), answer.getRecipientId(), "" + answer.getResponseToId());
+				this.getNodeId(), answer.getRecipientId(), answer.getResponseToId());
 
 		MessageResultListener listener = htAnswerListeners.get(answer.getResponseToId());
 		if (listener == null) {
@@ -1556,7 +2230,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 
 		sendMessage(m, listener);
 
-		listener.waitForOneAnswer();
+		waitForAnswers(listener, false);
 
 		if (listener.isSuccess()) {
 			return listener.getResults()[0];
@@ -1582,7 +2256,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 
 		sendMessage(m, atNodeId, listener);
 
-		listener.waitForOneAnswer();
+		waitForAnswers(listener, false);
 
 		if (listener.getResults().length == 0) {
 			throw new TimeoutException("No answer received!");
@@ -1591,6 +2265,64 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		return listener.getResults()[0];
 	}
 
+	/**
+	 * Waits for the answers to a message sent by this node. Subclasses may override this to learn about blocked threads.
+	 * 
+	 * @param listener The listener collecting the answers
+	 * @param collect If true, waits for the answers of all recipients, otherwise for the first answer
+	 * @throws InterruptedException If waiting was interrupted
+	 */
+	protected void waitForAnswers(MessageResultListener listener, boolean collect) throws InterruptedException {
+		if (collect) {
+			listener.waitForAllAnswers(false);
+		} else {
+			listener.waitForOneAnswer();
+		}
+	}
+
+	/**
+	 * Sends a message and completes the returned future with the first answer message. The calling thread is not
+	 * blocked while waiting for the answer.
+	 * 
+	 * @param m A message to send
+	 * @param atNodeId A node id to send to, may be null to let the network route the message to its recipient
+	 * @return a future completed with the response message or exceptionally with a {@link NodeNotFoundException} or a
+	 *         {@link TimeoutException}
+	 */
+	public CompletableFuture<Message> sendMessageAsync(Message m, Object atNodeId) {
+		CompletableFuture<Message> result = new CompletableFuture<>();
+		long timeout = m.getTimeoutTs() - new Date().getTime();
+		MessageResultListener listener = new MessageResultListener(timeout) {
+			@Override
+			public void notifySuccess() {
+				result.complete(getResults()[0]);
+			}
+
+			@Override
+			public void notifyException(Exception exception) {
+				result.completeExceptionally(exception);
+			}
+		};
+		ScheduledFuture<?> timeoutTask = answerTimeoutScheduler.schedule(
+				() -> result.completeExceptionally(new TimeoutException("No answer received!")), Math.max(timeout, 0),
+				TimeUnit.MILLISECONDS);
+		result.whenComplete((answer, exception) -> {
+			timeoutTask.cancel(false);
+			htAnswerListeners.remove(m.getId());
+		});
+
+		try {
+			if (atNodeId != null) {
+				sendMessage(m, atNodeId, listener);
+			} else {
+				sendMessage(m, listener);
+			}
+		} catch (NodeNotFoundException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
 	/**
 	 * Sends a message and wait for answer messages
 	 * 
@@ -1610,7 +2342,7 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 
 		sendMessage(m, listener, SendMode.BROADCAST);
 
-		listener.waitForAllAnswers(false);
+		waitForAnswers(listener, true);
 
 		Message[] results = listener.getResults();
 
@@ -1621,6 +2353,15 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		}
 	}
 
+	/**
+	 * Gets the index of group memberships used by all contexts of this node.
+	 * 
+	 * @return the group membership index of this node
+	 */
+	public GroupMembershipIndex getGroupMembershipIndex() {
+		return groupMembershipIndex;
+	}
+
 	/**
 	 * Gets the local execution context of an agent. If there is currently none, a new one will be created and stored
 	 * for later use.
@@ -1687,6 +2428,119 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		return this.nodeServiceCache;
 	}
 
+	/**
+	 * Gets the executor running all service calls of this node.
+	 * 
+	 * @return Returns the {@code ServiceExecutor} instance for this node
+	 */
+	public synchronized ServiceExecutor getServiceExecutor() {
+		if (serviceExecutor == null) {
+			serviceExecutor = new ServiceExecutor(serviceExecutorPoolSize, serviceExecutorQueueSize, virtualThreads,
+					serviceExecutorMaxVirtualCalls);
+		}
+		return serviceExecutor;
+	}
+
+	/**
+	 * Sets the limits of the executor running all service calls of this node. Has to be set before the node is
+	 * launched.
+	 * 
+	 * @param poolSize The maximum number of threads executing service calls concurrently
+	 * @param queueSize The maximum number of calls waiting for a free thread, zero for direct hand-off
+	 */
+	public synchronized void setServiceExecutorLimits(int poolSize, int queueSize) {
+		NodeStatus status = getStatus();
+		if (serviceExecutor != null || (status != NodeStatus.UNCONFIGURED && status != NodeStatus.CONFIGURED)) {
+			throw new IllegalStateException("The service executor has to be configured before the node is launched");
+		}
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least one");
+		}
+		serviceExecutorPoolSize = poolSize;
+		serviceExecutorQueueSize = queueSize;
+	}
+
+	/**
+	 * Sets the maximum number of service calls in flight in virtual thread mode. Has to be set before the node is
+	 * launched.
+	 * 
+	 * @param maxVirtualCalls The maximum number of concurrent calls, further calls are rejected
+	 */
+	public synchronized void setServiceExecutorMaxVirtualCalls(int maxVirtualCalls) {
+		NodeStatus status = getStatus();
+		if (serviceExecutor != null || (status != NodeStatus.UNCONFIGURED && status != NodeStatus.CONFIGURED)) {
+			throw new IllegalStateException("The service executor has to be configured before the node is launched");
+		}
+		if (maxVirtualCalls < 1) {
+			throw new IllegalArgumentException("Maximum number of virtual calls must be at least one");
+		}
+		serviceExecutorMaxVirtualCalls = maxVirtualCalls;
+	}
+
+	/**
+	 * Checks if this node runs service calls and message delivery on virtual threads.
+	 * 
+	 * @return Returns true, if virtual threads are enabled and supported by the runtime
+	 */
+	public boolean isVirtualThreads() {
+		return virtualThreads && VirtualThreads.isSupported();
+	}
+
+	/**
+	 * Enables or disables virtual threads for service calls and message delivery. Has to be set before the node is
+	 * launched.
+	 * 
+	 * @param virtualThreads If true, virtual threads are used on runtimes supporting them
+	 */
+	public synchronized void setVirtualThreads(boolean virtualThreads) {
+		NodeStatus status = getStatus();
+		if (serviceExecutor != null || (status != NodeStatus.UNCONFIGURED && status != NodeStatus.CONFIGURED)) {
+			throw new IllegalStateException("Virtual threads have to be configured before the node is launched");
+		}
+		if (virtualThreads && !VirtualThreads.isSupported()) {
+			logger.warning("Virtual threads are not supported by this runtime, using platform threads instead");
+		}
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * Sets the content format of messages created by this node, except for responses, which always use the format of
+	 * the message they answer. Binary content should only be enabled if all nodes of the network are able to read it.
+	 * 
+	 * @param binary If true, the signed content is encoded in binary format instead of XML
+	 */
+	public void setBinaryMessageContent(boolean binary) {
+		binaryMessageContent = binary;
+	}
+
+	/**
+	 * @return true, if messages created by this node encode their signed content in binary format
+	 */
+	public boolean isBinaryMessageContent() {
+		return binaryMessageContent;
+	}
+
+	/**
+	 * Sets the lifetime of session keys used for messages created by this node. Received messages are only accepted
+	 * with a session key, if it is enabled and the key does not live longer than this lifetime. So session keys should
+	 * be enabled with the same lifetime on all nodes of a network.
+	 * 
+	 * @param lifetimeMs How long a session key is reused for messages to the same recipient, 0 disables session keys
+	 */
+	public void setSessionKeyLifetime(long lifetimeMs) {
+		if (lifetimeMs < 0) {
+			throw new IllegalArgumentException("session key lifetime must not be negative");
+		}
+		sessionKeyLifetime = lifetimeMs;
+	}
+
+	/**
+	 * @return the lifetime of session keys in milliseconds, 0 if session keys are disabled
+	 */
+	public long getSessionKeyLifetime() {
+		return sessionKeyLifetime;
+	}
+
 	/**
 	 * Gets the approximate CPU load of the JVM the Node is running on. Correct value only available a few seconds after
 	 * the start of the Node.
@@ -1718,6 +2572,41 @@ public abstract class Node extends Configurable implements AgentStorage, NodeSto
 		this.cpuLoadThreshold = cpuLoadThreshold;
 	}
 
+	/**
+	 * Sets the policy to choose between several instances of a service in the network.
+	 * 
+	 * @param policy A selection policy
+	 */
+	public void setServiceSelectionPolicy(NodeServiceCache.SelectionPolicy policy) {
+		nodeServiceCache.setSelectionPolicy(policy);
+		this.serviceSelectionPolicy = policy.name();
+	}
+
+	public NodeServiceCache.SelectionPolicy getServiceSelectionPolicy() {
+		return nodeServiceCache.getSelectionPolicy();
+	}
+
+	/**
+	 * Sets whether outdated service information is served while it is refreshed in the background.
+	 * 
+	 * @param staleWhileRevalidate true to serve outdated service information
+	 */
+	public void setNodeServiceCacheStaleWhileRevalidate(boolean staleWhileRevalidate) {
+		nodeServiceCache.setStaleWhileRevalidate(staleWhileRevalidate);
+		this.nodeServiceCacheStaleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	/**
+	 * Sets the interval in which services started afterwards announce themselves. The announcements reach nodes running
+	 * other instances of the same service only, nodes calling the service still rely on discoveries.
+	 * 
+	 * @param seconds An interval in seconds, 0 disables announcements
+	 */
+	public void setServiceAnnouncementInterval(int seconds) {
+		nodeServiceCache.setAnnouncementIntervalSeconds(seconds);
+		this.serviceAnnouncementInterval = seconds;
+	}
+
 	// Tidy up Timer
 
 	/**
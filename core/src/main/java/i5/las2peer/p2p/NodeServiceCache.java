@@ -1,9 +1,14 @@
 package i5.las2peer.p2p;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import i5.las2peer.api.p2p.ServiceNameVersion;
@@ -11,6 +16,10 @@ import i5.las2peer.api.p2p.ServiceVersion;
 import i5.las2peer.communication.Message;
 import i5.las2peer.communication.ServiceDiscoveryContent;
 import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.MetricFamily;
+import i5.las2peer.logging.metrics.MetricsRegistry;
+import i5.las2peer.p2p.Node.SendMode;
 import i5.las2peer.persistency.EncodingFailedException;
 import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.InternalSecurityException;
@@ -22,8 +31,50 @@ import i5.las2peer.serialization.SerializationException;
  */
 public class NodeServiceCache {
 
+	/**
+	 * Policies to choose between several global instances of the same service version.
+	 */
+	public enum SelectionPolicy {
+		/**
+		 * always use the instance that answered the service discovery first
+		 */
+		FIRST_RESPONSE,
+		/**
+		 * compare two random instances and use the one with the lower expected cost
+		 */
+		POWER_OF_TWO_CHOICES,
+		/**
+		 * use the instance with the fewest requests in flight, ties are broken by the expected cost
+		 */
+		LEAST_OUTSTANDING_REQUESTS,
+	}
+
+	/**
+	 * weight of a new sample in the moving averages of latency and error rate
+	 */
+	public static final double SMOOTHING_FACTOR = 0.2;
+
+	/**
+	 * time in milliseconds after which the measures of an idle instance have decayed to about a third, so instances
+	 * that were slow once get another chance
+	 */
+	public static final long DECAY_TIME_MS = 10000;
+
+	/**
+	 * relative deviation of the announcement interval, so nodes started together do not announce at the same time
+	 */
+	public static final double ANNOUNCEMENT_JITTER = 0.25;
+
 	private final L2pLogger logger = L2pLogger.getInstance(NodeServiceCache.class);
 
+	private static final MetricFamily<Counter> cacheRequests = MetricsRegistry.getDefault().counter(
+			"las2peer_service_cache_requests_total",
+			"Service instance lookups by result: local instance, fresh or stale cache entry, or cache miss", "result");
+	private static final String RESULT_LOCAL = "local";
+	private static final String RESULT_HIT = "hit";
+	private static final String RESULT_STALE = "stale";
+	private static final String RESULT_MISS = "miss";
+
 	private final Node runningAt;
 
 	private final Map<String, SortedMap<ServiceVersion, ServiceInstance>> localServices = new HashMap<>();
@@ -32,6 +83,12 @@ public class NodeServiceCache {
 	private long lifeTimeSeconds;
 	private int waitForResults;
 	private int timeoutMs = 2000;
+	private SelectionPolicy selectionPolicy = SelectionPolicy.POWER_OF_TWO_CHOICES;
+	private int announcementIntervalSeconds = Node.DEFAULT_SERVICE_ANNOUNCEMENT_INTERVAL;
+	private boolean staleWhileRevalidate = Node.DEFAULT_NODE_SERVICE_CACHE_STALE_WHILE_REVALIDATE;
+
+	private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+	private ScheduledThreadPoolExecutor scheduler;
 
 	public NodeServiceCache(Node parent, long lifeTime, int resultCount) {
 		this.runningAt = parent;
@@ -67,6 +124,67 @@ public class NodeServiceCache {
 		this.timeoutMs = timeoutMs;
 	}
 
+	public void setSelectionPolicy(SelectionPolicy selectionPolicy) {
+		if (selectionPolicy == null) {
+			throw new IllegalArgumentException("Selection policy must not be null");
+		}
+		this.selectionPolicy = selectionPolicy;
+	}
+
+	public SelectionPolicy getSelectionPolicy() {
+		return selectionPolicy;
+	}
+
+	/**
+	 * Sets how often local services announce themselves to other nodes listening to their topic, i. e. nodes running
+	 * other instances of the same service. Applies to services registered afterwards.
+	 * 
+	 * @param announcementIntervalSeconds An interval in seconds, 0 disables announcements
+	 */
+	public void setAnnouncementIntervalSeconds(int announcementIntervalSeconds) {
+		this.announcementIntervalSeconds = announcementIntervalSeconds;
+	}
+
+	public int getAnnouncementIntervalSeconds() {
+		return announcementIntervalSeconds;
+	}
+
+	/**
+	 * If enabled, outdated instances are still returned while a single background discovery refreshes them. Callers
+	 * only block on discovery for services that are not known at all.
+	 * 
+	 * @param staleWhileRevalidate true to serve outdated instances
+	 */
+	public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	public boolean isStaleWhileRevalidate() {
+		return staleWhileRevalidate;
+	}
+
+	/**
+	 * stops announcements and background discoveries
+	 */
+	public synchronized void shutDown() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	private synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = new ScheduledThreadPoolExecutor(2, r -> {
+				Thread t = new Thread(r, "NodeServiceCache-" + runningAt.getNodeId());
+				t.setDaemon(true);
+				return t;
+			});
+			scheduler.setRemoveOnCancelPolicy(true);
+		}
+		return scheduler;
+	}
+
 	/**
 	 * clears the global cache (needed for units tests)
 	 */
@@ -91,6 +209,7 @@ public class NodeServiceCache {
 			AgentImpl acting) throws AgentNotRegisteredException {
 
 		ServiceInstance local = null, global = null;
+		String cacheResult = RESULT_MISS;
 
 		// search locally
 		if (exact) {
@@ -118,6 +237,12 @@ public class NodeServiceCache {
 		if (!localOnly && (local == null || runningAt.isBusy())) {
 			if (exact) {
 				ServiceInstance instance = getBestGlobalInstanceOfVersion(service.getName(), service.getVersion());
+				if (instance != null && instance.outdated()) {
+					cacheResult = RESULT_STALE;
+					revalidate(service, true, acting);
+				} else if (instance != null) {
+					cacheResult = RESULT_HIT;
+				}
 
 				if (instance == null) {
 					try {
@@ -129,6 +254,7 @@ public class NodeServiceCache {
 							logger.log(Level.INFO, "Could not update service cache", e);
 						}
 						if (local == null) {
+							cacheRequests.get(RESULT_MISS).inc();
 							throw new AgentNotRegisteredException(
 									"Could not retrieve service information from the network.", e);
 						}
@@ -143,6 +269,12 @@ public class NodeServiceCache {
 				ServiceInstance instance = getBestGlobalInstanceFitsVersion(service.getName(), service.getVersion());
 				if (instance != null) {
 					global = instance;
+					if (instance.outdated()) {
+						cacheResult = RESULT_STALE;
+						revalidate(service, false, acting);
+					} else {
+						cacheResult = RESULT_HIT;
+					}
 				}
 
 				if (instance == null) {
@@ -155,6 +287,7 @@ public class NodeServiceCache {
 							logger.log(Level.INFO, "Could not update service cache", e);
 						}
 						if (local == null) {
+							cacheRequests.get(RESULT_MISS).inc();
 							throw new AgentNotRegisteredException(
 									"Could not retrieve service information from the network.", e);
 						}
@@ -169,80 +302,171 @@ public class NodeServiceCache {
 		}
 
 		if (local != null && (!runningAt.isBusy() || global == null)) {
+			cacheRequests.get(RESULT_LOCAL).inc();
 			return local;
 		} else if (global != null) {
+			cacheRequests.get(cacheResult).inc();
 			return global;
 		}
 
+		cacheRequests.get(RESULT_MISS).inc();
 		throw new AgentNotRegisteredException("Could not find any agent for this service on the network!");
 	}
 
 	private ServiceInstance getBestGlobalInstanceFitsVersion(String name, ServiceVersion version) {
 		synchronized (globalServices) {
-			ServiceInstance result = null;
+			List<ServiceInstance> fresh = new ArrayList<>();
+			List<ServiceInstance> stale = new ArrayList<>();
 
 			if (globalServices.containsKey(name)) {
-				SortedMap<ServiceVersion, SortedSet<ServiceInstance>> versions = globalServices.get(name);
-				Iterator<Map.Entry<ServiceVersion, SortedSet<ServiceInstance>>> it_versions = versions.entrySet()
-						.iterator();
-
-				while (it_versions.hasNext()) {
-					Map.Entry<ServiceVersion, SortedSet<ServiceInstance>> e = it_versions.next();
-
+				for (Map.Entry<ServiceVersion, SortedSet<ServiceInstance>> e : globalServices.get(name).entrySet()) {
 					if (e.getKey().fits(version)) {
-						Iterator<ServiceInstance> it_instances = e.getValue().iterator();
-						while (it_instances.hasNext()) {
-							ServiceInstance i = it_instances.next();
-							if (!i.outdated()) {
-								if (result == null) {
-									result = i;
-								}
-							} else {
-								it_instances.remove();
-							}
-						}
-						if (e.getValue().isEmpty()) {
-							it_versions.remove();
-						}
+						// only instances of the newest fitting version are candidates
+						collectCandidates(e.getValue(), fresh.isEmpty() ? fresh : null,
+								stale.isEmpty() ? stale : null);
 					}
 				}
-
-				if (versions.isEmpty()) {
-					globalServices.remove(name);
-				}
+				removeEmpty(name);
 			}
 
-			return result;
+			return fresh.isEmpty() ? selectInstance(stale) : selectInstance(fresh);
 		}
 	}
 
 	private ServiceInstance getBestGlobalInstanceOfVersion(String name, ServiceVersion version) {
 		synchronized (globalServices) {
-			ServiceInstance result = null;
+			List<ServiceInstance> fresh = new ArrayList<>();
+			List<ServiceInstance> stale = new ArrayList<>();
 
 			if (globalServices.containsKey(name) && globalServices.get(name).containsKey(version)) {
-				SortedSet<ServiceInstance> instances = globalServices.get(name).get(version);
-				Iterator<ServiceInstance> it_instances = instances.iterator();
-				while (it_instances.hasNext()) {
-					ServiceInstance i = it_instances.next();
-					if (!i.outdated()) {
-						if (result == null) {
-							result = i;
-						}
-					} else {
-						it_instances.remove();
-					}
+				collectCandidates(globalServices.get(name).get(version), fresh, stale);
+				removeEmpty(name);
+			}
+
+			return fresh.isEmpty() ? selectInstance(stale) : selectInstance(fresh);
+		}
+	}
+
+	/**
+	 * sorts the given instances into fresh and outdated ones, outdated instances are removed unless they may be served
+	 * while revalidating
+	 * 
+	 * @param instances the instances of one service version
+	 * @param fresh collects instances that are not outdated, may be null
+	 * @param stale collects outdated instances, may be null
+	 */
+	private void collectCandidates(SortedSet<ServiceInstance> instances, List<ServiceInstance> fresh,
+			List<ServiceInstance> stale) {
+		Iterator<ServiceInstance> it_instances = instances.iterator();
+		while (it_instances.hasNext()) {
+			ServiceInstance i = it_instances.next();
+			if (!i.outdated()) {
+				if (fresh != null) {
+					fresh.add(i);
 				}
+			} else if (staleWhileRevalidate) {
+				if (stale != null) {
+					stale.add(i);
+				}
+			} else {
+				it_instances.remove();
+			}
+		}
+	}
 
-				if (instances.isEmpty()) {
-					globalServices.get(name).remove(version);
+	/**
+	 * removes empty versions of the given service and the service itself, if no version is left
+	 * 
+	 * @param name A service name
+	 */
+	private void removeEmpty(String name) {
+		SortedMap<ServiceVersion, SortedSet<ServiceInstance>> versions = globalServices.get(name);
+		if (versions != null) {
+			versions.values().removeIf(SortedSet::isEmpty);
+			if (versions.isEmpty()) {
+				globalServices.remove(name);
+			}
+		}
+	}
+
+	/**
+	 * starts a background discovery for the given service, unless one is already running
+	 * 
+	 * Outdated instances matching the service are removed afterwards, if the discovery did not find them again.
+	 * 
+	 * @param service the requested service
+	 * @param exact forces an exact version match
+	 * @param acting an acting agent invoking the service
+	 */
+	private void revalidate(ServiceNameVersion service, boolean exact, AgentImpl acting) {
+		String key = (exact ? "=" : "") + service.toString();
+		if (!revalidating.add(key)) {
+			return;
+		}
+		try {
+			getScheduler().execute(() -> {
+				try {
+					update(service, exact, acting);
+					removeOutdatedInstances(service, exact);
+				} catch (TimeoutException e) {
+					// nobody answered, so the outdated instances are gone
+					removeOutdatedInstances(service, exact);
+				} catch (Exception e) {
+					logger.log(Level.INFO, "Could not revalidate service cache", e);
+				} finally {
+					revalidating.remove(key);
 				}
-				if (globalServices.get(name).isEmpty()) {
-					globalServices.remove(name);
+			});
+		} catch (RejectedExecutionException e) {
+			revalidating.remove(key);
+		}
+	}
+
+	private void removeOutdatedInstances(ServiceNameVersion service, boolean exact) {
+		synchronized (globalServices) {
+			if (globalServices.containsKey(service.getName())) {
+				for (Map.Entry<ServiceVersion, SortedSet<ServiceInstance>> e : globalServices.get(service.getName())
+						.entrySet()) {
+					if (exact ? e.getKey().equals(service.getVersion()) : e.getKey().fits(service.getVersion())) {
+						e.getValue().removeIf(ServiceInstance::outdated);
+					}
 				}
+				removeEmpty(service.getName());
 			}
+		}
+	}
 
+	/**
+	 * chooses one of the given instances according to the selection policy
+	 * 
+	 * @param candidates instances in the order of their discovery responses
+	 * @return the chosen instance or null, if there are no candidates
+	 */
+	private ServiceInstance selectInstance(List<ServiceInstance> candidates) {
+		if (candidates.isEmpty()) {
+			return null;
+		} else if (candidates.size() == 1 || selectionPolicy == SelectionPolicy.FIRST_RESPONSE) {
+			return candidates.get(0);
+		} else if (selectionPolicy == SelectionPolicy.LEAST_OUTSTANDING_REQUESTS) {
+			ServiceInstance result = null;
+			for (ServiceInstance candidate : candidates) {
+				if (result == null || candidate.getOutstandingRequests() < result.getOutstandingRequests()
+						|| (candidate.getOutstandingRequests() == result.getOutstandingRequests()
+								&& candidate.getExpectedCost() < result.getExpectedCost())) {
+					result = candidate;
+				}
+			}
 			return result;
+		} else {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int first = random.nextInt(candidates.size());
+			int second = random.nextInt(candidates.size() - 1);
+			if (second >= first) {
+				second++;
+			}
+			ServiceInstance a = candidates.get(first);
+			ServiceInstance b = candidates.get(second);
+			return a.getExpectedCost() <= b.getExpectedCost() ? a : b;
 		}
 	}
 
@@ -267,9 +491,14 @@ public class NodeServiceCache {
 				versions.put(instance.service.getVersion(), instances);
 			}
 
-			if (!instances.contains(instance)) {
-				instances.add(instance);
+			// the set is ordered by response time, so equal instances have to be found by hand
+			for (ServiceInstance known : instances) {
+				if (known.equals(instance)) {
+					known.touch();
+					return;
+				}
 			}
+			instances.add(instance);
 		}
 	}
 
@@ -314,7 +543,7 @@ public class NodeServiceCache {
 			InternalSecurityException, SerializationException, InterruptedException, TimeoutException {
 
 		Message m = new Message(acting, ServiceAgentImpl.serviceNameToTopicId(service.getName()),
-				new ServiceDiscoveryContent(service, exact), timeoutMs);
+				new ServiceDiscoveryContent(service, exact), timeoutMs, runningAt);
 		m.setSendingNodeId(runningAt.getNodeId());
 		Message[] results = runningAt.sendMessageAndCollectAnswers(m, waitForResults);
 
@@ -355,6 +584,65 @@ public class NodeServiceCache {
 		}
 	}
 
+	/**
+	 * adds or refreshes a service instance announced by another node
+	 * 
+	 * @param announcement the announced service and agent
+	 * @param sendingNodeId the node running the announced instance
+	 */
+	public void receiveAnnouncement(ServiceDiscoveryContent announcement, Object sendingNodeId) {
+		if (sendingNodeId == null || sendingNodeId.equals(runningAt.getNodeId())) {
+			// local instances are known anyway
+			return;
+		}
+		ServiceInstance instance = new ServiceInstance(announcement.getService(), announcement.getAgentId(),
+				sendingNodeId);
+		// announced instances rank behind instances that answered a discovery
+		instance.responseTimeMs = Long.MAX_VALUE;
+		addGlobalServiceInstance(instance);
+	}
+
+	/**
+	 * schedules the next announcement of a local service
+	 * 
+	 * @param agent A local service agent
+	 * @param delayMs A delay in milliseconds
+	 */
+	private void scheduleAnnouncement(ServiceAgentImpl agent, long delayMs) {
+		try {
+			getScheduler().schedule(() -> announce(agent), delayMs, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// cache has been shut down
+		}
+	}
+
+	/**
+	 * announces a local service to its topic and schedules the next announcement, as long as the service is registered
+	 * 
+	 * @param agent A local service agent
+	 */
+	private void announce(ServiceAgentImpl agent) {
+		ServiceNameVersion service = agent.getServiceNameVersion();
+		int interval = announcementIntervalSeconds;
+		synchronized (localServices) {
+			SortedMap<ServiceVersion, ServiceInstance> versions = localServices.get(service.getName());
+			if (interval <= 0 || versions == null || !versions.containsKey(service.getVersion())
+					|| versions.get(service.getVersion()).getServiceAgent() != agent) {
+				return;
+			}
+		}
+		try {
+			Message m = new Message(agent, ServiceAgentImpl.serviceNameToTopicId(service.getName()),
+					new ServiceDiscoveryContent(agent.getIdentifier(), service), interval * 1000L, runningAt);
+			m.setSendingNodeId(runningAt.getNodeId());
+			runningAt.sendMessage(m, null, SendMode.BROADCAST);
+		} catch (Exception e) {
+			logger.log(Level.FINE, "Could not announce service " + service, e);
+		}
+		double jitter = 1 + ANNOUNCEMENT_JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+		scheduleAnnouncement(agent, (long) (interval * 1000 * jitter));
+	}
+
 	/**
 	 * register a local service
 	 * 
@@ -377,6 +665,9 @@ public class NodeServiceCache {
 						"Another ServiceAgent running the same Service is present on this Node - something went wrong!");
 			}
 		}
+		if (announcementIntervalSeconds > 0) {
+			scheduleAnnouncement(agent, 0);
+		}
 		if (runningAt instanceof EthereumNode) {
 			((EthereumNode) runningAt).announceServiceDeployment(agent);
 		}
@@ -472,6 +763,11 @@ public class NodeServiceCache {
 		long responseTimeMs;
 		private long lastSeen;
 
+		private final AtomicInteger outstandingRequests = new AtomicInteger();
+		private double latencyMs = -1; // moving average, negative if not measured yet
+		private double errorRate;
+		private long lastResponse;
+
 		/**
 		 * create a local service instance
 		 * 
@@ -514,7 +810,7 @@ public class NodeServiceCache {
 			if (this.isLocal) {
 				return this.agent.equals(o.agent);
 			} else {
-				return this.serviceAgentId == o.serviceAgentId && this.nodeId == o.nodeId;
+				return Objects.equals(this.serviceAgentId, o.serviceAgentId) && Objects.equals(this.nodeId, o.nodeId);
 			}
 		}
 
@@ -527,12 +823,17 @@ public class NodeServiceCache {
 
 			if (this.responseTimeMs < other.responseTimeMs) {
 				return -1;
-			} else if (this.responseTimeMs == other.responseTimeMs) {
-				return 0;
-			} else {
-				// (this.responseTimeMs > other.responseTimeMs)
+			} else if (this.responseTimeMs > other.responseTimeMs) {
 				return 1;
 			}
+
+			// different instances with the same response time must not be considered equal
+			int result = Objects.compare(this.serviceAgentId, other.serviceAgentId,
+					Comparator.nullsFirst(Comparator.naturalOrder()));
+			if (result == 0) {
+				result = String.valueOf(this.nodeId).compareTo(String.valueOf(other.nodeId));
+			}
+			return result;
 		}
 
 		public void touch() {
@@ -562,6 +863,81 @@ public class NodeServiceCache {
 		public Object getNodeId() {
 			return nodeId;
 		}
+
+		/**
+		 * to be called before a request is sent to this instance
+		 * 
+		 * @return the start time to pass to {@link #requestFinished(long, boolean)}
+		 */
+		public long requestStarted() {
+			outstandingRequests.incrementAndGet();
+			return System.nanoTime();
+		}
+
+		/**
+		 * to be called after a request to this instance has finished
+		 * 
+		 * @param startNanos the start time returned by {@link #requestStarted()}
+		 * @param successful false, if the instance could not be reached or did not respond in time, exceptions thrown
+		 *            by the service itself do not count as failures
+		 */
+		public void requestFinished(long startNanos, boolean successful) {
+			outstandingRequests.decrementAndGet();
+			recordResponse((System.nanoTime() - startNanos) / 1000000.0, successful);
+		}
+
+		/**
+		 * adds a response to the moving averages of latency and error rate
+		 * 
+		 * @param responseMs the time until the response in milliseconds
+		 * @param successful false, if the instance could not be reached or did not respond in time, exceptions thrown
+		 *            by the service itself do not count as failures
+		 */
+		public synchronized void recordResponse(double responseMs, boolean successful) {
+			if (latencyMs < 0) {
+				latencyMs = responseMs;
+			} else {
+				latencyMs += SMOOTHING_FACTOR * (responseMs - latencyMs);
+			}
+			errorRate += SMOOTHING_FACTOR * ((successful ? 0 : 1) - errorRate);
+			lastResponse = System.currentTimeMillis();
+		}
+
+		public int getOutstandingRequests() {
+			return outstandingRequests.get();
+		}
+
+		/**
+		 * @return the moving average of the response time in milliseconds or a negative value, if not measured yet
+		 */
+		public synchronized double getLatencyMs() {
+			return latencyMs;
+		}
+
+		/**
+		 * @return the moving average of failed requests between 0 and 1
+		 */
+		public synchronized double getErrorRate() {
+			return errorRate;
+		}
+
+		/**
+		 * estimates the cost of sending another request to this instance
+		 * 
+		 * Unmeasured instances are cheap, so they get a chance to be measured. The measures of idle instances decay
+		 * over time.
+		 * 
+		 * @return the expected latency with respect to the requests in flight, increased by the error rate
+		 */
+		public synchronized double getExpectedCost() {
+			double decay = 1;
+			if (latencyMs >= 0) {
+				long idle = Math.max(System.currentTimeMillis() - lastResponse, 0);
+				decay = Math.exp(-(double) idle / DECAY_TIME_MS);
+			}
+			double latency = Math.max(latencyMs, 0) * decay + 1;
+			return latency * (outstandingRequests.get() + 1) / Math.max(1 - errorRate * decay, 0.01);
+		}
 	}
 
 }
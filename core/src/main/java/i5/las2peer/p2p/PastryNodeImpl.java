@@ -15,6 +15,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.logging.Level;
@@ -30,9 +31,14 @@ import i5.las2peer.api.security.AnonymousAgent;
 import i5.las2peer.classLoaders.ClassManager;
 import i5.las2peer.classLoaders.libraries.SharedStorageRepository;
 import i5.las2peer.communication.Message;
+import i5.las2peer.execution.VirtualThreads;
 import i5.las2peer.logging.L2pLogger;
-import i5.las2peer.p2p.pastry.MessageEnvelope;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.Gauge;
+import i5.las2peer.logging.metrics.MetricFamily;
+import i5.las2peer.logging.metrics.MetricsRegistry;
 import i5.las2peer.p2p.pastry.NodeApplication;
+import i5.las2peer.persistency.EnvelopeCache;
 import i5.las2peer.persistency.EnvelopeVersion;
 import i5.las2peer.persistency.SharedStorage;
 import i5.las2peer.persistency.SharedStorage.STORAGE_MODE;
@@ -45,6 +51,7 @@ import i5.las2peer.security.AgentContext;
 import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.AnonymousAgentImpl;
 import i5.las2peer.security.BotAgent;
+import i5.las2peer.security.GroupAgentImpl;
 import i5.las2peer.security.MessageReceiver;
 import i5.las2peer.security.UserAgentImpl;
 import i5.las2peer.serialization.MalformedXMLException;
@@ -85,6 +92,17 @@ public class PastryNodeImpl extends Node {
 	private static final int HASHED_FETCH_TIMEOUT = 300000;
 	private static final int HASHED_STORE_TIMEOUT = 300000;
 
+	private static final MetricFamily<Counter> agentCacheRequests = MetricsRegistry.getDefault().counter(
+			"las2peer_agent_cache_requests_total", "Agent fetches looked up in the agent cache of a node", "node",
+			"result");
+	private static final MetricFamily<Counter> envelopeCacheRequests = MetricsRegistry.getDefault().counter(
+			"las2peer_envelope_cache_requests_total", "Envelope fetches looked up in the envelope cache of a node", "node",
+			"result");
+	private static final MetricFamily<Gauge> envelopeCacheHitRatio = MetricsRegistry.getDefault().gauge(
+			"las2peer_envelope_cache_hit_ratio", "Share of envelope fetches answered by the envelope cache", "node");
+	private static final MetricFamily<Gauge> envelopeCacheBytes = MetricsRegistry.getDefault()
+			.gauge("las2peer_envelope_cache_bytes", "Estimated size of the envelopes cached by a node", "node");
+
 	private final int pastryPort;
 	private final List<String> bootStrap;
 	private final STORAGE_MODE storageMode;
@@ -96,6 +114,7 @@ public class PastryNodeImpl extends Node {
 	private SharedStorage pastStorage;
 	private String storageDir; // null = default chosen by SharedStorage
 	private String nodeIdSeed;
+	private final AgentCache agentCache = new AgentCache();
 
 	/**
 	 * This constructor is mainly used by the {@link i5.las2peer.testing.TestSuite}, uses a random system defined port
@@ -205,8 +224,12 @@ public class PastryNodeImpl extends Node {
 	 * @throws EnvelopeException
 	 */
 	private void setupPastryApplications() throws EnvelopeException {
-		threadpool = Executors.newCachedThreadPool();
-		application = new NodeApplication(this);
+		if (isVirtualThreads()) {
+			threadpool = VirtualThreads.newThreadPerTaskExecutor("las2peer-pastry-virtual-");
+		} else {
+			threadpool = Executors.newCachedThreadPool();
+		}
+		application = new NodeApplication(this, threadpool);
 		pastStorage = new SharedStorage(pastryNode, storageMode, threadpool, storageDir);
 		setupRepository();
 	}
@@ -379,7 +402,7 @@ public class PastryNodeImpl extends Node {
 	}
 
 	@Override
-	public synchronized void registerReceiver(MessageReceiver receiver)
+	public void registerReceiver(MessageReceiver receiver)
 			throws AgentAlreadyRegisteredException, AgentException {
 		super.registerReceiver(receiver);
 		application.registerAgentTopic(receiver);
@@ -387,24 +410,23 @@ public class PastryNodeImpl extends Node {
 	}
 
 	@Override
-	public synchronized void unregisterReceiver(MessageReceiver receiver)
+	public void unregisterReceiver(MessageReceiver receiver)
 			throws AgentNotRegisteredException, NodeException {
 		application.unregisterAgentTopic(receiver.getResponsibleForAgentSafeId());
 		super.unregisterReceiver(receiver);
 	}
 
 	@Override
-	public synchronized void registerReceiverToTopic(MessageReceiver receiver, long topic)
-			throws AgentNotRegisteredException {
-		super.registerReceiverToTopic(receiver, topic);
+	protected void topicRegistered(long topic) {
 		application.registerTopic(topic);
 	}
 
 	@Override
-	public synchronized void unregisterReceiverFromTopic(MessageReceiver receiver, long topic) throws NodeException {
-		super.unregisterReceiverFromTopic(receiver, topic);
-		if (!super.hasTopic(topic)) {
+	protected void topicUnregistered(long topic) {
+		try {
 			application.unregisterTopic(topic);
+		} catch (NodeException e) {
+			logger.log(Level.WARNING, "Could not unsubscribe topic " + topic, e);
 		}
 	}
 
@@ -439,13 +461,7 @@ public class PastryNodeImpl extends Node {
 
 		registerAnswerListener(message.getId(), listener);
 
-		try {
-			application.sendMessage(new MessageEnvelope(pastryNode.getLocalHandle(), message), (NodeHandle) atNodeId);
-		} catch (MalformedXMLException e) {
-			logger.log(Level.SEVERE, "Can't read message XML", e);
-			observerNotice(MonitoringEvent.MESSAGE_FAILED, pastryNode, message.getSenderId(), atNodeId,
-					message.getRecipientId(), "XML exception!");
-		}
+		application.sendMessage(message, (NodeHandle) atNodeId);
 	}
 
 	/**
@@ -499,10 +515,66 @@ public class PastryNodeImpl extends Node {
 		return application;
 	}
 
+	/**
+	 * Gets the cache of agents fetched from the network. Agents may have changed in the network, so the cache timeout
+	 * should be kept short.
+	 * 
+	 * @return the agent cache of this node
+	 */
+	public AgentCache getAgentCache() {
+		return agentCache;
+	}
+
+	/**
+	 * Gets the cache of envelope versions fetched or stored by this node.
+	 * 
+	 * @return the envelope cache of this node or null, if the node has not been launched yet
+	 */
+	public EnvelopeCache getEnvelopeCache() {
+		if (pastStorage == null) {
+			return null;
+		}
+		return pastStorage.getEnvelopeCache();
+	}
+
+	@Override
+	protected void registerMetrics(String nodeLabel) {
+		agentCacheRequests.get(nodeLabel, "hit").set(agentCache::getHits);
+		agentCacheRequests.get(nodeLabel, "miss").set(agentCache::getMisses);
+		EnvelopeCache cache = getEnvelopeCache();
+		if (cache == null) {
+			return;
+		}
+		envelopeCacheRequests.get(nodeLabel, "hit").set(cache::getHits);
+		envelopeCacheRequests.get(nodeLabel, "miss").set(cache::getMisses);
+		envelopeCacheHitRatio.get(nodeLabel).set(() -> {
+			long hits = cache.getHits();
+			long requests = hits + cache.getMisses();
+			return requests > 0 ? (double) hits / requests : 0;
+		});
+		envelopeCacheBytes.get(nodeLabel).set(cache::getBytes);
+	}
+
+	@Override
+	protected void unregisterMetrics(String nodeLabel) {
+		agentCacheRequests.remove(nodeLabel, "hit");
+		agentCacheRequests.remove(nodeLabel, "miss");
+		envelopeCacheRequests.remove(nodeLabel, "hit");
+		envelopeCacheRequests.remove(nodeLabel, "miss");
+		envelopeCacheHitRatio.remove(nodeLabel);
+		envelopeCacheBytes.remove(nodeLabel);
+	}
+
 	@Override
 	public AgentImpl getAgent(String id) throws AgentNotFoundException, AgentException {
-		// no caching here, because agents may have changed in the network
 		observerNotice(MonitoringEvent.AGENT_GET_STARTED, pastryNode, id, null, (String) null, "");
+		if (!id.equalsIgnoreCase(AnonymousAgent.IDENTIFIER)) {
+			AgentImpl cached = agentCache.get(id);
+			if (cached != null) {
+				observerNotice(MonitoringEvent.AGENT_GET_SUCCESS, pastryNode, id, null, (String) null, "cached");
+				return cached;
+			}
+		}
 		try {
 			AgentImpl agentFromNet = null;
 			if (id.equalsIgnoreCase(AnonymousAgent.IDENTIFIER)) {
@@ -510,7 +582,9 @@ public class PastryNodeImpl extends Node {
 			} else {
 				EnvelopeVersion agentEnvelope = pastStorage.fetchEnvelope(EnvelopeVersion.getAgentIdentifier(id),
 						AGENT_GET_TIMEOUT);
-				agentFromNet = AgentImpl.createFromXml((String) agentEnvelope.getContent());
+				String agentXml = (String) agentEnvelope.getContent();
+				agentFromNet = AgentImpl.createFromXml(agentXml);
+				agentCache.put(id, agentEnvelope.getVersion(), agentFromNet);
 			}
 			observerNotice(MonitoringEvent.AGENT_GET_SUCCESS, pastryNode, id, null, (String) null, "");
 			return agentFromNet;
@@ -533,18 +607,22 @@ public class PastryNodeImpl extends Node {
 			throw new AgentException("Must not store anonymous agent");
 		}
 		observerNotice(MonitoringEvent.AGENT_UPLOAD_STARTED, pastryNode, agent, "");
+		String agentId = agent.getIdentifier();
+		// the cached version is outdated in any case
+		agentCache.invalidate(agentId);
 		try {
+			String agentXml = agent.toXmlString();
 			EnvelopeVersion agentEnvelope = null;
 			try {
-				agentEnvelope = pastStorage.fetchEnvelope(EnvelopeVersion.getAgentIdentifier(agent.getIdentifier()),
+				agentEnvelope = pastStorage.fetchEnvelope(EnvelopeVersion.getAgentIdentifier(agentId),
 						AGENT_GET_TIMEOUT);
-				agentEnvelope = pastStorage.createUnencryptedEnvelope(agentEnvelope, agent.toXmlString());
+				agentEnvelope = pastStorage.createUnencryptedEnvelope(agentEnvelope, agentXml);
 			} catch (EnvelopeNotFoundException e) {
-				agentEnvelope = pastStorage.createUnencryptedEnvelope(
-						EnvelopeVersion.getAgentIdentifier(agent.getIdentifier()), agent.getPublicKey(),
-						agent.toXmlString());
+				agentEnvelope = pastStorage.createUnencryptedEnvelope(EnvelopeVersion.getAgentIdentifier(agentId),
+						agent.getPublicKey(), agentXml);
 			}
 			pastStorage.storeEnvelope(agentEnvelope, agent, AGENT_STORE_TIMEOUT);
+			agentCache.put(agentId, agentEnvelope.getVersion(), agentXml);
 			if (agent instanceof UserAgentImpl) {
 				try {
 					getUserManager().registerUserAgent((UserAgentImpl) agent);
@@ -557,6 +635,8 @@ public class PastryNodeImpl extends Node {
 				} catch (AgentAlreadyExistsException e) {
 					logger.log(Level.FINE, "Could not register bot agent", e);
 				}
+			} else if (agent instanceof GroupAgentImpl) {
+				getGroupMembershipIndex().update((GroupAgentImpl) agent);
 			}
 			observerNotice(MonitoringEvent.AGENT_UPLOAD_SUCCESS, pastryNode, agent, "");
 		} catch (CryptoException | SerializationException | EnvelopeException e) {
@@ -710,6 +790,18 @@ public class PastryNodeImpl extends Node {
 		});
 	}
 
+	@Override
+	public CompletableFuture<Integer> storeEnvelopeFuture(EnvelopeVersion envelope, AgentImpl author) {
+		return pastStorage.storeEnvelopeFuture(envelope, author).whenComplete((successfulOperations, exception) -> {
+			if (exception != null) {
+				observerNotice(MonitoringEvent.ARTIFACT_UPLOAD_FAILED, pastryNode,
+						"Storage error for Artifact " + envelope.getIdentifier());
+			} else {
+				observerNotice(MonitoringEvent.ARTIFACT_ADDED, pastryNode, envelope.getIdentifier());
+			}
+		});
+	}
+
 	@Override
 	public EnvelopeVersion fetchEnvelope(String identifier, long timeoutMs)
 			throws EnvelopeNotFoundException, EnvelopeException {
@@ -757,6 +849,25 @@ public class PastryNodeImpl extends Node {
 		});
 	}
 
+	@Override
+	public CompletableFuture<EnvelopeVersion> fetchEnvelopeFuture(String identifier) {
+		if (getStatus() != NodeStatus.RUNNING) {
+			// callers of a future expect failures in the future, not as exception
+			CompletableFuture<EnvelopeVersion> result = new CompletableFuture<>();
+			result.completeExceptionally(
+					new IllegalStateException("You can fetch artifacts only from running nodes!"));
+			return result;
+		}
+		observerNotice(MonitoringEvent.ARTIFACT_FETCH_STARTED, pastryNode, identifier);
+		return pastStorage.fetchEnvelopeFuture(identifier).whenComplete((result, exception) -> {
+			if (exception != null) {
+				observerNotice(MonitoringEvent.ARTIFACT_FETCH_FAILED, pastryNode, identifier);
+			} else {
+				observerNotice(MonitoringEvent.ARTIFACT_RECEIVED, pastryNode, identifier);
+			}
+		});
+	}
+
 	@Override
 	public void removeEnvelope(String identifier) throws EnvelopeNotFoundException, EnvelopeException {
 		pastStorage.removeEnvelope(identifier);
@@ -2,7 +2,11 @@ package i5.las2peer.p2p;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import i5.las2peer.api.persistency.EnvelopeException;
 import i5.las2peer.api.persistency.EnvelopeNotFoundException;
@@ -16,6 +20,11 @@ import i5.las2peer.tools.CryptoException;
 /**
  * Responsible for mapping service aliases to service names and resolving paths to service names.
  *
+ * Resolved entries are cached locally in a trie of path segments, so resolving a known path needs no network lookups.
+ * Since registered entries are never changed, they are only refreshed after {@link #DEFAULT_CACHE_TIMEOUT}. Paths
+ * that could not be found are remembered for a much shorter time, because the alias may be registered at another node
+ * meanwhile.
+ *
  */
 public class ServiceAliasManager {
 
@@ -24,6 +33,10 @@ public class ServiceAliasManager {
 	private static final String SEPERATOR = "/";
 	private static final String BLANK = "BLANK";
 
+	public static final long DEFAULT_CACHE_TIMEOUT = 10 * 60 * 1000; // 10 minutes
+	public static final long DEFAULT_MISSING_CACHE_TIMEOUT = 10 * 1000; // 10 seconds
+	private static final int MAX_MISSING_ENTRIES = 1000;
+
 	public class AliasResolveResponse {
 		String serviceName;
 		int numMatchedParts;
@@ -42,12 +55,63 @@ public class ServiceAliasManager {
 		}
 	}
 
+	/**
+	 * node of the alias cache, representing one path segment
+	 */
+	private static class AliasTrieNode {
+		private final Map<String, AliasTrieNode> children = new ConcurrentHashMap<>();
+		private volatile String entry;
+		private volatile long expires;
+
+		private boolean isValid() {
+			return System.currentTimeMillis() < expires;
+		}
+	}
+
 	private Node node;
 
+	private final AliasTrieNode aliasTrie = new AliasTrieNode();
+
+	/**
+	 * keys without entry, with the time until they are considered missing
+	 */
+	private final Map<String, Long> missingEntries = Collections
+			.synchronizedMap(new LinkedHashMap<String, Long>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+					return size() > MAX_MISSING_ENTRIES;
+				}
+			});
+
+	private long cacheTimeout = DEFAULT_CACHE_TIMEOUT;
+	private long missingCacheTimeout = DEFAULT_MISSING_CACHE_TIMEOUT;
+
 	public ServiceAliasManager(Node node) {
 		this.node = node;
 	}
 
+	/**
+	 * Sets how long resolved entries are cached locally.
+	 * 
+	 * @param timeoutMs How long an existing entry is cached, 0 disables caching
+	 * @param missingTimeoutMs How long a missing entry is cached, 0 disables caching of missing entries
+	 */
+	public void setCacheTimeouts(long timeoutMs, long missingTimeoutMs) {
+		this.cacheTimeout = timeoutMs;
+		this.missingCacheTimeout = missingTimeoutMs;
+		clearCache();
+	}
+
+	/**
+	 * Removes all locally cached entries.
+	 */
+	public void clearCache() {
+		aliasTrie.children.clear();
+		missingEntries.clear();
+	}
+
 	/**
 	 * Registers the service alias of the given service.
 	 * 
@@ -83,6 +147,7 @@ public class ServiceAliasManager {
 			if (!currentEntry.equals(serviceName)) { // if service name is not the same, it's an error
 				throw new AliasConflictException("Alias has already been taken.");
 			} else {
+				cacheEntry(split, alias, serviceName);
 				return; // otherwise we're done
 			}
 		} catch (EnvelopeException | CryptoException | AgentAccessDeniedException | SerializationException e) {
@@ -115,7 +180,8 @@ public class ServiceAliasManager {
 					throw new AliasConflictException("Storage error.", e);
 				}
 			}
-			// else: there is already a BLANK, nothing to do
+			// else: there is already a BLANK, nothing to store
+			cacheEntry(split.subList(0, level + 1), currentKey, BLANK);
 
 			// in the case of BLANK go one level deeper
 			level++;
@@ -127,6 +193,7 @@ public class ServiceAliasManager {
 		} catch (IllegalArgumentException | EnvelopeException | SerializationException | CryptoException e) {
 			throw new AliasConflictException("Storage error.", e);
 		}
+		cacheEntry(split, alias, serviceName);
 	}
 
 	/**
@@ -141,6 +208,7 @@ public class ServiceAliasManager {
 
 		int level = 0;
 		String currentKey = null;
+		AliasTrieNode trieNode = aliasTrie;
 		while (level < split.size() && level < MAX_PATH_LEVEL) {
 			// construct key
 			if (currentKey == null) {
@@ -150,11 +218,27 @@ public class ServiceAliasManager {
 			}
 
 			String currentEntry = null;
-			try {
-				currentEntry = getEntry(currentKey);
-			} catch (EnvelopeException | CryptoException | AgentAccessDeniedException | SerializationException e) {
-				throw new AliasNotFoundException("Path does not exist.", e);
+			AliasTrieNode child = trieNode.children.get(split.get(level));
+			if (child != null && child.isValid()) {
+				currentEntry = child.entry;
+			} else {
+				Long missingUntil = missingEntries.get(currentKey);
+				if (missingUntil != null && System.currentTimeMillis() < missingUntil) {
+					throw new AliasNotFoundException("Path does not exist.");
+				}
+				try {
+					currentEntry = getEntry(currentKey);
+				} catch (EnvelopeNotFoundException e) {
+					if (missingCacheTimeout > 0) {
+						missingEntries.put(currentKey, System.currentTimeMillis() + missingCacheTimeout);
+					}
+					throw new AliasNotFoundException("Path does not exist.", e);
+				} catch (EnvelopeException | CryptoException | AgentAccessDeniedException | SerializationException e) {
+					throw new AliasNotFoundException("Path does not exist.", e);
+				}
+				child = cacheChild(trieNode, split.get(level), currentKey, currentEntry);
 			}
+			trieNode = child;
 
 			if (!currentEntry.equals(BLANK)) {
 				return new AliasResolveResponse(currentEntry, level + 1);
@@ -180,6 +264,32 @@ public class ServiceAliasManager {
 		return pathSplit;
 	}
 
+	/**
+	 * caches the entry of the given path, creating all trie nodes on the way
+	 */
+	private void cacheEntry(List<String> split, String key, String entry) {
+		AliasTrieNode trieNode = aliasTrie;
+		for (int i = 0; i < split.size() - 1; i++) {
+			trieNode = trieNode.children.computeIfAbsent(split.get(i), k -> new AliasTrieNode());
+		}
+		cacheChild(trieNode, split.get(split.size() - 1), key, entry);
+	}
+
+	private AliasTrieNode cacheChild(AliasTrieNode parent, String segment, String key, String entry) {
+		missingEntries.remove(key);
+		if (cacheTimeout <= 0) {
+			// a detached node, so the entry is used just once
+			AliasTrieNode child = new AliasTrieNode();
+			child.entry = entry;
+			return child;
+		}
+		AliasTrieNode child = parent.children.computeIfAbsent(segment, k -> new AliasTrieNode());
+		child.entry = entry;
+		// written last, so a valid node always has its entry set
+		child.expires = System.currentTimeMillis() + cacheTimeout;
+		return child;
+	}
+
 	private String getEntry(String key) throws EnvelopeNotFoundException, EnvelopeException, CryptoException,
 			AgentAccessDeniedException, SerializationException {
 		EnvelopeVersion env = node.fetchEnvelope(PREFIX + key);
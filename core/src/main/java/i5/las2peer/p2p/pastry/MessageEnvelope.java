@@ -1,12 +1,18 @@
 package i5.las2peer.p2p.pastry;
 
 import i5.las2peer.serialization.MalformedXMLException;
+import i5.las2peer.serialization.SerializationException;
 import rice.p2p.commonapi.Message;
 import rice.p2p.commonapi.NodeHandle;
 
 /**
  * a simple envelope for sending las2peer messages through the pastry network
  * 
+ * A las2peer message is either contained as XML string or in its binary format. Each envelope announces the highest
+ * version of the binary format its sending node reads, so nodes can write a version the receiver understands or fall
+ * back to XML. Envelopes of nodes without binary support lack both the version and the former binary flag, which
+ * deserialize to zero and false. The flag is still set, so nodes reading binary version 1 only keep using it.
+ * 
  */
 public class MessageEnvelope implements Message {
 
@@ -14,6 +20,9 @@ public class MessageEnvelope implements Message {
 
 	private final NodeHandle sendingNode;
 	private final String content;
+	private final byte[] binaryContent;
+	private final boolean acceptsBinary;
+	private final int binaryVersion;
 
 	/**
 	 * create a message envelope with simple string content
@@ -24,6 +33,9 @@ public class MessageEnvelope implements Message {
 	public MessageEnvelope(NodeHandle sendingNode, String content) {
 		this.sendingNode = sendingNode;
 		this.content = content;
+		this.binaryContent = null;
+		this.acceptsBinary = true;
+		this.binaryVersion = i5.las2peer.communication.Message.BINARY_MESSAGE_VERSION;
 	}
 
 	/**
@@ -33,8 +45,21 @@ public class MessageEnvelope implements Message {
 	 * @param content Another message to wrap
 	 */
 	public MessageEnvelope(NodeHandle sendingNode, i5.las2peer.communication.Message content) {
+		this(sendingNode, content.toXmlString());
+	}
+
+	/**
+	 * generate an Pastry message envelope from a las2peer message in binary format
+	 * 
+	 * @param sendingNode A sending node handle
+	 * @param content A message in binary format, see {@link i5.las2peer.communication.Message#toBinary()}
+	 */
+	public MessageEnvelope(NodeHandle sendingNode, byte[] content) {
 		this.sendingNode = sendingNode;
-		this.content = content.toXmlString();
+		this.content = null;
+		this.binaryContent = content;
+		this.acceptsBinary = true;
+		this.binaryVersion = i5.las2peer.communication.Message.BINARY_MESSAGE_VERSION;
 	}
 
 	/**
@@ -49,19 +74,44 @@ public class MessageEnvelope implements Message {
 	/**
 	 * get the content string of this message
 	 * 
-	 * @return the contained data as String
+	 * @return the contained data as String or {@code null} if the message is contained in binary format
 	 */
 	public String getContent() {
 		return content;
 	}
 
+	/**
+	 * @return true, if the contained message is in binary format
+	 */
+	public boolean isBinary() {
+		return binaryContent != null;
+	}
+
+	/**
+	 * @return the highest version of the binary message format the sending node reads, 0 if it reads XML only
+	 */
+	public int getBinaryVersion() {
+		if (binaryVersion > 0) {
+			return binaryVersion;
+		}
+		// nodes announcing the binary flag only read version 1
+		return acceptsBinary ? 1 : 0;
+	}
+
 	/**
 	 * get the contained las2peer message
 	 * 
 	 * @return the contained las2peer message
-	 * @throws MalformedXMLException If the XML data string is malformed
+	 * @throws MalformedXMLException If the XML data string or the binary data is malformed
 	 */
 	public i5.las2peer.communication.Message getContainedMessage() throws MalformedXMLException {
+		if (binaryContent != null) {
+			try {
+				return i5.las2peer.communication.Message.createFromBinary(binaryContent);
+			} catch (SerializationException e) {
+				throw new MalformedXMLException("malformed binary message", e);
+			}
+		}
 		return i5.las2peer.communication.Message.createFromXml(content);
 	}
 
@@ -4,6 +4,8 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
 import i5.las2peer.api.logging.MonitoringEvent;
@@ -18,6 +20,7 @@ import i5.las2peer.p2p.PastryNodeImpl;
 import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.MessageReceiver;
 import i5.las2peer.serialization.MalformedXMLException;
+import i5.las2peer.serialization.SerializationException;
 import i5.las2peer.tools.CryptoException;
 import i5.las2peer.tools.WaiterThread;
 import rice.p2p.commonapi.Application;
@@ -67,12 +70,31 @@ public class NodeApplication implements Application, ScribeMultiClient {
 
 	private Hashtable<Long, WaiterThread<Message>> appMessageWaiters = new Hashtable<>();
 
+	private final Executor deliveryExecutor;
+
 	/**
-	 * create a pastry application for the given node
+	 * highest binary message version of the nodes known to accept messages in binary format, learned from the
+	 * envelopes they sent
+	 */
+	private final ConcurrentHashMap<Id, Integer> binaryVersions = new ConcurrentHashMap<>();
+
+	/**
+	 * create a pastry application for the given node, each incoming message is delivered in a new thread
 	 * 
 	 * @param node A node to wrap around
 	 */
 	public NodeApplication(PastryNodeImpl node) {
+		this(node, runnable -> new Thread(runnable).start());
+	}
+
+	/**
+	 * create a pastry application for the given node
+	 * 
+	 * @param node A node to wrap around
+	 * @param deliveryExecutor An executor used to deliver incoming messages to the node
+	 */
+	public NodeApplication(PastryNodeImpl node, Executor deliveryExecutor) {
+		this.deliveryExecutor = deliveryExecutor;
 		l2pNode = node;
 		endpoint = l2pNode.getPastryNode().buildEndpoint(this, FREEPASTRY_APPLICATION_CODE);
 
@@ -209,14 +231,22 @@ public class NodeApplication implements Application, ScribeMultiClient {
 
 		if (pastMessage instanceof MessageEnvelope) {
 			try {
-				final i5.las2peer.communication.Message m = ((MessageEnvelope) pastMessage).getContainedMessage();
+				MessageEnvelope envelope = (MessageEnvelope) pastMessage;
+				if (envelope.getSendingNode() != null) {
+					int binaryVersion = envelope.getBinaryVersion();
+					if (binaryVersion > 0) {
+						binaryVersions.put(envelope.getSendingNode().getId(), binaryVersion);
+					} else {
+						binaryVersions.remove(envelope.getSendingNode().getId());
+					}
+				}
+				final i5.las2peer.communication.Message m = envelope.getContainedMessage();
 
 				// Is already done in Node-Classes
 //				l2pNode.observerNotice( Event.MESSAGE_RECEIVED, ((MessageEnvelope) pastMessage).getSendingNode(),
 //						m.getSender(), l2pNode.getPastryNode(), m.getRecipient(), "Got an envelope for a las2peer message!" );
 
-				// hmmmm, is the problem here??
-				new Thread(new Runnable() {
+				deliveryExecutor.execute(new Runnable() {
 					@Override
 					public void run() {
 						try {
@@ -226,7 +256,7 @@ public class NodeApplication implements Application, ScribeMultiClient {
 							e.printStackTrace();
 						}
 					}
-				}).start();
+				});
 
 			} catch (Exception e) {
 				System.out.println("Exception while opening message!: " + e);
@@ -279,8 +309,11 @@ public class NodeApplication implements Application, ScribeMultiClient {
 
 	@Override
 	public boolean forward(RouteMessage pastMessage) {
-		l2pNode.observerNotice(MonitoringEvent.MESSAGE_FORWARDING, l2pNode.getNodeId(), (String) null,
-				pastMessage.getDestinationId(), (String) null, "" + pastMessage);
+		if (l2pNode.getEventBus().isObserved(MonitoringEvent.MESSAGE_FORWARDING)) {
+			// the route message is changed while it is forwarded, so it is converted right now
+			l2pNode.observerNotice(MonitoringEvent.MESSAGE_FORWARDING, l2pNode.getNodeId(), (String) null,
+					pastMessage.getDestinationId(), (String) null, pastMessage.toString());
+		}
 		return true;
 	}
 
@@ -328,6 +361,38 @@ public class NodeApplication implements Application, ScribeMultiClient {
 		endpoint.route(null, m, to);
 	}
 
+	/**
+	 * send a las2peer message to the given node handle
+	 * 
+	 * The message is sent in the highest binary format version both nodes read, if the receiving node is known to
+	 * accept binary messages and this version can represent the message, otherwise as XML.
+	 * 
+	 * @param m A message to send
+	 * @param to A target node handle
+	 */
+	public void sendMessage(i5.las2peer.communication.Message m, NodeHandle to) {
+		l2pNode.observerNotice(MonitoringEvent.MESSAGE_SENDING, l2pNode.getPastryNode(), m.getSender(), to,
+				m.getRecipient(), "message: " + m);
+
+		MessageEnvelope envelope = null;
+		Integer binaryVersion = binaryVersions.get(to.getId());
+		if (binaryVersion != null) {
+			int version = Math.min(binaryVersion, i5.las2peer.communication.Message.BINARY_MESSAGE_VERSION);
+			try {
+				envelope = new MessageEnvelope(getLocalHandle(), m.toBinary(version));
+			} catch (SerializationException e) {
+				logger.log(Level.FINE, "Could not encode binary message version " + version + ", falling back to XML",
+						e);
+			}
+		}
+		if (envelope == null) {
+			envelope = new MessageEnvelope(getLocalHandle(), m);
+		}
+
+		logger.info("\t --> " + this + " sending (encapsulated) message directly to " + to);
+		endpoint.route(null, envelope, to);
+	}
+
 	/**
 	 * send a pastry message to the given node
 	 * 
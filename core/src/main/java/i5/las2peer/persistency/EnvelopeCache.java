@@ -0,0 +1,249 @@
+package i5.las2peer.persistency;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node local cache of envelope versions fetched from or stored in the shared storage.
+ *
+ * An envelope version never changes once it is stored, so versions are cached until they are displaced by more
+ * recently used ones. The cache is bounded by the estimated size of the cached envelopes in bytes. The contents stay
+ * encrypted, each reader has to decrypt them as before.
+ *
+ * Which version is the latest may change at any time by an update from another node. So the latest version of an
+ * identifier is only remembered for a short time, after it has been fetched or stored on this node.
+ */
+public class EnvelopeCache {
+
+	public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024; // 16 MB
+	public static final long DEFAULT_LATEST_TIMEOUT = 2 * 1000; // 2 seconds
+
+	// rough size of an encoded public key and the object overhead around it
+	private static final int READER_KEY_OVERHEAD = 400;
+	private static final int ENTRY_OVERHEAD = 200;
+
+	private static class CachedEnvelope {
+		private final EnvelopeVersion envelope;
+		private final long bytes;
+
+		private CachedEnvelope(EnvelopeVersion envelope, long bytes) {
+			this.envelope = envelope;
+			this.bytes = bytes;
+		}
+	}
+
+	private static class LatestVersion {
+		private final long version;
+		private final long expires;
+
+		private LatestVersion(long version, long expires) {
+			this.version = version;
+			this.expires = expires;
+		}
+	}
+
+	private final LinkedHashMap<String, CachedEnvelope> envelopes = new LinkedHashMap<>(16, 0.75f, true);
+	private final HashMap<String, LatestVersion> latestVersions = new HashMap<>();
+	private long bytes;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private volatile long maxBytes = DEFAULT_MAX_BYTES;
+	private volatile long latestTimeout = DEFAULT_LATEST_TIMEOUT;
+
+	/**
+	 * Gets a cached envelope version.
+	 *
+	 * @param identifier The identifier of the envelope
+	 * @param version The version of the envelope or {@link EnvelopeVersion#LATEST_VERSION}
+	 * @return Returns the cached envelope or null, if it is not cached or the latest version is not known anymore
+	 */
+	public EnvelopeVersion get(String identifier, long version) {
+		CachedEnvelope cached = null;
+		synchronized (envelopes) {
+			long cachedVersion = version;
+			if (version == EnvelopeVersion.LATEST_VERSION) {
+				LatestVersion latest = latestVersions.get(identifier);
+				if (latest != null && latest.expires < System.currentTimeMillis()) {
+					latestVersions.remove(identifier);
+					latest = null;
+				}
+				cachedVersion = latest != null ? latest.version : EnvelopeVersion.NULL_VERSION;
+			}
+			if (cachedVersion != EnvelopeVersion.NULL_VERSION) {
+				cached = envelopes.get(getKey(identifier, cachedVersion));
+			}
+		}
+		if (cached == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return cached.envelope;
+	}
+
+	/**
+	 * Caches the given envelope version.
+	 *
+	 * @param envelope An envelope version fetched from or stored in the network
+	 * @param latest true, if this version has just been seen as the latest version. A newer version known as latest is
+	 *            not replaced.
+	 */
+	public void put(EnvelopeVersion envelope, boolean latest) {
+		long size = estimateBytes(envelope);
+		synchronized (envelopes) {
+			String identifier = envelope.getIdentifier();
+			if (size > maxBytes) {
+				if (latest) {
+					// a cached older version must not be taken as latest anymore
+					latestVersions.remove(identifier);
+				}
+				return;
+			}
+			CachedEnvelope previous = envelopes.put(getKey(identifier, envelope.getVersion()),
+					new CachedEnvelope(envelope, size));
+			if (previous != null) {
+				bytes -= previous.bytes;
+			}
+			bytes += size;
+			if (latest && latestTimeout > 0) {
+				LatestVersion known = latestVersions.get(identifier);
+				if (known == null || known.version <= envelope.getVersion()
+						|| known.expires < System.currentTimeMillis()) {
+					latestVersions.put(identifier,
+							new LatestVersion(envelope.getVersion(), System.currentTimeMillis() + latestTimeout));
+				}
+			}
+			evict();
+		}
+	}
+
+	/**
+	 * Forgets the latest version of the given identifier, e. g. because another node stored a newer version. The
+	 * cached versions stay valid.
+	 *
+	 * @param identifier The identifier of the envelope
+	 */
+	public void invalidateLatest(String identifier) {
+		synchronized (envelopes) {
+			latestVersions.remove(identifier);
+		}
+	}
+
+	/**
+	 * Removes all envelopes from the cache.
+	 */
+	public void clear() {
+		synchronized (envelopes) {
+			envelopes.clear();
+			latestVersions.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * Sets the maximum estimated size of all cached envelopes. Least recently used envelopes are removed first.
+	 *
+	 * @param maxBytes The maximum size in bytes, 0 disables the cache
+	 */
+	public void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		synchronized (envelopes) {
+			evict();
+		}
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Sets how long the latest version of an identifier is remembered.
+	 *
+	 * @param timeoutMs A timeout in milliseconds, 0 always asks the network for the latest version
+	 */
+	public void setLatestTimeout(long timeoutMs) {
+		this.latestTimeout = timeoutMs;
+		if (timeoutMs <= 0) {
+			synchronized (envelopes) {
+				latestVersions.clear();
+			}
+		}
+	}
+
+	public long getLatestTimeout() {
+		return latestTimeout;
+	}
+
+	/**
+	 * @return the estimated size of all cached envelopes in bytes
+	 */
+	public long getBytes() {
+		synchronized (envelopes) {
+			return bytes;
+		}
+	}
+
+	/**
+	 * @return the number of cached envelope versions
+	 */
+	public int getSize() {
+		synchronized (envelopes) {
+			return envelopes.size();
+		}
+	}
+
+	/**
+	 * @return how many requests were answered from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return how many requests were not found in the cache
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * removes least recently used envelopes until the size limit is met, must be called while holding the lock
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, CachedEnvelope>> it = envelopes.entrySet().iterator();
+		while (bytes > maxBytes && it.hasNext()) {
+			CachedEnvelope eldest = it.next().getValue();
+			it.remove();
+			bytes -= eldest.bytes;
+			String identifier = eldest.envelope.getIdentifier();
+			LatestVersion latest = latestVersions.get(identifier);
+			if (latest != null && latest.version == eldest.envelope.getVersion()) {
+				latestVersions.remove(identifier);
+			}
+		}
+	}
+
+	private static String getKey(String identifier, long version) {
+		return identifier + "#" + version;
+	}
+
+	private static long estimateBytes(EnvelopeVersion envelope) {
+		long size = ENTRY_OVERHEAD + 2L * envelope.getIdentifier().length();
+		size += envelope.getRawContentLength();
+		if (envelope.getReaderKeys() != null) {
+			for (byte[] encryptedKey : envelope.getReaderKeys().values()) {
+				size += READER_KEY_OVERHEAD + encryptedKey.length;
+			}
+		}
+		for (String groupId : envelope.getReaderGroupIds()) {
+			size += 2L * groupId.length();
+		}
+		return size;
+	}
+
+}
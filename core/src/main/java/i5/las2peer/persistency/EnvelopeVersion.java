@@ -26,6 +26,7 @@ import i5.las2peer.logging.L2pLogger;
 import i5.las2peer.security.AgentContext;
 import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.GroupAgentImpl;
+import i5.las2peer.serialization.CompressionTools;
 import i5.las2peer.serialization.MalformedXMLException;
 import i5.las2peer.serialization.SerializationException;
 import i5.las2peer.serialization.SerializeTools;
@@ -59,6 +60,11 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * encoding of compressed content in the XML representation, nodes without compression support reject it
+	 */
+	private static final String COMPRESSED_CONTENT_ENCODING = "Deflate+Base64";
+
 	public static String getAgentIdentifier(String agentId) {
 		return "agent-" + agentId;
 	}
@@ -69,16 +75,23 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 	private final HashMap<PublicKey, byte[]> readerKeys;
 	private final HashSet<String> readerGroupIds;
 	private final byte[] rawContent;
+	/**
+	 * true, if the serialized content is compressed before encryption. Such envelopes are serialized as
+	 * {@link CompressedEnvelopeVersion}, so the serialized form of other envelopes stays the same.
+	 */
+	private final transient boolean compressed;
 
-	// just for the XML factory method
+	// just for the XML factory method and the serialized form of compressed envelopes
 	private EnvelopeVersion(String identifier, long version, PublicKey authorPubKey,
-			HashMap<PublicKey, byte[]> readerKeys, HashSet<String> readerGroupIds, byte[] rawContent) {
+			HashMap<PublicKey, byte[]> readerKeys, HashSet<String> readerGroupIds, byte[] rawContent,
+			boolean compressed) {
 		this.identifier = identifier;
 		this.version = version;
 		this.authorPubKey = authorPubKey;
 		this.readerKeys = readerKeys;
 		this.readerGroupIds = readerGroupIds;
 		this.rawContent = rawContent;
+		this.compressed = compressed;
 	}
 
 	/**
@@ -167,10 +180,16 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 		this.authorPubKey = authorPubKey;
 		readerKeys = new HashMap<>();
 		readerGroupIds = new HashSet<>(readerGroups);
+		byte[] serialized = SerializeTools.serialize(content);
+		byte[] compressedContent = CompressionTools.compressIfUseful(serialized);
+		compressed = compressedContent != null;
+		if (compressed) {
+			serialized = compressedContent;
+		}
 		if (readers != null && !readers.isEmpty()) {
 			// we have a non empty set of readers, lets encrypt!
 			SecretKey contentKey = CryptoTools.generateSymmetricKey();
-			rawContent = CryptoTools.encryptSymmetric(content, contentKey);
+			rawContent = CryptoTools.encryptSymmetric(serialized, contentKey);
 			for (Object reader : readers) {
 				if (reader instanceof GroupAgentImpl) {
 					AgentImpl agent = (AgentImpl) reader;
@@ -202,7 +221,7 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 			}
 		} else {
 			// unencrypted envelope
-			rawContent = SerializeTools.serialize(content);
+			rawContent = serialized;
 		}
 	}
 
@@ -242,6 +261,16 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 		return readerKeys != null && !readerKeys.isEmpty();
 	}
 
+	/**
+	 * Checks if the content is compressed before encryption. Nodes without compression support can not read such
+	 * envelopes.
+	 *
+	 * @return Returns {@code true} if the content is compressed
+	 */
+	public boolean isCompressed() {
+		return compressed;
+	}
+
 	public HashMap<PublicKey, byte[]> getReaderKeys() {
 		return readerKeys;
 	}
@@ -251,17 +280,18 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 		return new HashSet<>(readerGroupIds);
 	}
 
+	/**
+	 * @return the size of the (encrypted) content in bytes
+	 */
+	int getRawContentLength() {
+		return rawContent != null ? rawContent.length : 0;
+	}
+
 	public Serializable getContent() throws CryptoException, EnvelopeAccessDeniedException, SerializationException {
 		if (isEncrypted()) {
 			return getContent(AgentContext.getCurrent());
 		} else {
-			ClassLoader clsLoader = null;
-			try {
-				clsLoader = Context.get().getServiceClassLoader();
-			} catch (IllegalStateException e) {
-				logger.log(Level.FINER, "Could not get service class loader using default. " + e.toString());
-			}
-			return SerializeTools.deserialize(rawContent, clsLoader);
+			return deserializeContent(rawContent);
 		}
 	}
 
@@ -281,7 +311,7 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 					byte[] encryptedReaderKey = readerKeys.get(agent.getPublicKey());
 					if (encryptedReaderKey != null) {
 						// use group to decrypt content
-						decryptedReaderKey = agent.decryptSymmetricKey(encryptedReaderKey);
+						decryptedReaderKey = context.decryptGroupReaderKey(agent, encryptedReaderKey);
 						break;
 					}
 				} catch (AgentException | CryptoException | SerializationException e) {
@@ -306,6 +336,13 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 		} else {
 			decrypted = rawContent;
 		}
+		return deserializeContent(decrypted);
+	}
+
+	private Serializable deserializeContent(byte[] decrypted) throws SerializationException {
+		if (compressed) {
+			decrypted = CompressionTools.decompress(decrypted);
+		}
 		ClassLoader clsLoader = null;
 		try {
 			clsLoader = Context.get().getServiceClassLoader();
@@ -328,8 +365,8 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 		} catch (CryptoException e) {
 			throw new SerializationException("Could not convert author public key to String", e);
 		}
-		result.append("\t<las2peer:content encoding=\"Base64\">").append(Base64.getEncoder().encodeToString(rawContent))
-				.append("</las2peer:content>\n");
+		result.append("\t<las2peer:content encoding=\"" + (compressed ? COMPRESSED_CONTENT_ENCODING : "Base64") + "\">")
+				.append(Base64.getEncoder().encodeToString(rawContent)).append("</las2peer:content>\n");
 		result.append(
 				"\t<las2peer:keys encoding=\"base64\" encryption=\"" + CryptoTools.getAsymmetricAlgorithm() + "\">\n");
 		for (Entry<PublicKey, byte[]> readerKey : readerKeys.entrySet()) {
@@ -380,7 +417,8 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 		}
 		// read content from XML
 		Element content = XmlTools.getSingularElement(rootElement, "las2peer:content");
-		if (!content.getAttribute("encoding").equals("Base64")) {
+		boolean compressed = content.getAttribute("encoding").equals(COMPRESSED_CONTENT_ENCODING);
+		if (!compressed && !content.getAttribute("encoding").equals("Base64")) {
 			throw new MalformedXMLException("base 64 encoding of the content expected");
 		}
 		byte[] rawContent = Base64.getDecoder().decode(content.getTextContent());
@@ -436,7 +474,8 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 			String groupId = group.getAttribute("id");
 			readerGroupIds.add(groupId);
 		}
-		return new EnvelopeVersion(identifier, version, authorPubKey, readerKeys, readerGroupIds, rawContent);
+		return new EnvelopeVersion(identifier, version, authorPubKey, readerKeys, readerGroupIds, rawContent,
+				compressed);
 	}
 
 	/**
@@ -450,4 +489,38 @@ public class EnvelopeVersion implements Serializable, XmlAble {
 		return createFromXml(XmlTools.getRootElement(xml, "las2peer:envelope"));
 	}
 
+	private Object writeReplace() {
+		return compressed ? new CompressedEnvelopeVersion(this) : this;
+	}
+
+	/**
+	 * Serialized form of envelopes with compressed content. Nodes without compression support do not know this class
+	 * and reject such envelopes, instead of reading the compressed content as serialized object.
+	 */
+	private static final class CompressedEnvelopeVersion implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String identifier;
+		private final long version;
+		private final PublicKey authorPubKey;
+		private final HashMap<PublicKey, byte[]> readerKeys;
+		private final HashSet<String> readerGroupIds;
+		private final byte[] rawContent;
+
+		private CompressedEnvelopeVersion(EnvelopeVersion envelope) {
+			identifier = envelope.identifier;
+			version = envelope.version;
+			authorPubKey = envelope.authorPubKey;
+			readerKeys = envelope.readerKeys;
+			readerGroupIds = envelope.readerGroupIds;
+			rawContent = envelope.rawContent;
+		}
+
+		private Object readResolve() {
+			return new EnvelopeVersion(identifier, version, authorPubKey, readerKeys, readerGroupIds, rawContent, true);
+		}
+
+	}
+
 }
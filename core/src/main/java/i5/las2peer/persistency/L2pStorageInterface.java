@@ -3,6 +3,7 @@ package i5.las2peer.persistency;
 import java.io.Serializable;
 import java.security.PublicKey;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 import i5.las2peer.api.persistency.EnvelopeAlreadyExistsException;
 import i5.las2peer.api.persistency.EnvelopeException;
@@ -149,6 +150,17 @@ public interface L2pStorageInterface {
 	public void storeEnvelopeAsync(EnvelopeVersion Envelope, AgentImpl author, StorageStoreResultHandler resultHandler,
 			StorageCollisionHandler collisionHandler, StorageExceptionHandler exceptionHandler);
 
+	/**
+	 * Stores the given Envelope in the network. The content is signed with the key from the given author. With this
+	 * method collisions are handled by completing the future with an {@link EnvelopeAlreadyExistsException}.
+	 * 
+	 * @param Envelope The Envelope to store in the network.
+	 * @param author The author that is used to sign the content.
+	 * @return Returns a future that completes with the number of successful store operations or exceptionally, if
+	 *         an issue with the storage occurs.
+	 */
+	public CompletableFuture<Integer> storeEnvelopeFuture(EnvelopeVersion Envelope, AgentImpl author);
+
 	/**
 	 * Fetches the latest version for the given identifier from the network.
 	 * 
@@ -171,6 +183,15 @@ public interface L2pStorageInterface {
 	public void fetchEnvelopeAsync(String identifier, StorageEnvelopeHandler envelopeHandler,
 			StorageExceptionHandler exceptionHandler);
 
+	/**
+	 * Fetches the latest version for the given identifier from the network.
+	 * 
+	 * @param identifier An unique identifier for the Envelope.
+	 * @return Returns a future that completes with the fetched Envelope or exceptionally, for example with an
+	 *         {@link EnvelopeNotFoundException}, if the Envelope could not be fetched.
+	 */
+	public CompletableFuture<EnvelopeVersion> fetchEnvelopeFuture(String identifier);
+
 	/**
 	 * Removes the envelope with the given identifier from the network.
 	 * 
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 import i5.las2peer.api.persistency.EnvelopeAlreadyExistsException;
@@ -113,6 +114,18 @@ public class LocalStorage implements L2pStorageInterface {
 		}
 	}
 
+	@Override
+	public CompletableFuture<Integer> storeEnvelopeFuture(EnvelopeVersion envelope, AgentImpl author) {
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		try {
+			storeEnvelope(envelope, author, 0);
+			result.complete(1);
+		} catch (EnvelopeException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
 	@Override
 	public EnvelopeVersion fetchEnvelope(String identifier, long timeoutMs) throws EnvelopeException {
 		EnvelopeVersion inStorage = storedEnvelopes.get(identifier);
@@ -138,6 +151,13 @@ public class LocalStorage implements L2pStorageInterface {
 		}
 	}
 
+	@Override
+	public CompletableFuture<EnvelopeVersion> fetchEnvelopeFuture(String identifier) {
+		CompletableFuture<EnvelopeVersion> result = new CompletableFuture<>();
+		fetchEnvelopeAsync(identifier, result::complete, result::completeExceptionally);
+		return result;
+	}
+
 	@Override
 	public void removeEnvelope(String identifier) throws EnvelopeException {
 		EnvelopeVersion inStorage = storedEnvelopes.remove(identifier);
@@ -1,11 +1,12 @@
 package i5.las2peer.persistency;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
 import java.security.PublicKey;
 import java.util.ArrayList;
@@ -14,21 +15,38 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 import i5.las2peer.api.Configurable;
 import i5.las2peer.api.persistency.EnvelopeAlreadyExistsException;
 import i5.las2peer.api.persistency.EnvelopeException;
 import i5.las2peer.api.persistency.EnvelopeNotFoundException;
 import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.LatencyHistogram;
+import i5.las2peer.logging.metrics.MetricFamily;
+import i5.las2peer.logging.metrics.MetricsRegistry;
 import i5.las2peer.persistency.helper.ArtifactPartComparator;
 import i5.las2peer.persistency.helper.FetchEnvelopeHelper;
 import i5.las2peer.persistency.helper.FetchHashedHelper;
 import i5.las2peer.persistency.helper.LatestArtifactVersionFinder;
+import i5.las2peer.persistency.helper.LatestVersionResolver;
 import i5.las2peer.persistency.helper.MergeCounter;
 import i5.las2peer.persistency.helper.MultiArtifactHandler;
 import i5.las2peer.persistency.helper.MultiStoreResult;
+import i5.las2peer.persistency.helper.PartOutputStream;
 import i5.las2peer.persistency.helper.StoreProcessHelper;
 import i5.las2peer.persistency.pastry.PastFetchContinuation;
 import i5.las2peer.persistency.pastry.PastInsertContinuation;
@@ -78,10 +96,38 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 	public static final long DEFAULT_ASYNC_INSERT_OPERATION_TIMEOUT = 5 * 60 * 1000 * 1000; // ms => 5 min
 	private long asyncInsertOperationTimeout = DEFAULT_ASYNC_INSERT_OPERATION_TIMEOUT;
 
+	// a single daemon thread fails timed out insert operations, instead of one waiting thread per operation
+	private static final ScheduledThreadPoolExecutor timeoutScheduler;
+	static {
+		timeoutScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "las2peer-storage-timeout");
+			thread.setDaemon(true);
+			return thread;
+		});
+		timeoutScheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	private static final MetricFamily<LatencyHistogram> operationDuration = MetricsRegistry.getDefault().histogram(
+			"las2peer_storage_duration_seconds", "Duration of envelope operations in the shared storage", "operation");
+	private static final MetricFamily<Counter> operationFailures = MetricsRegistry.getDefault().counter(
+			"las2peer_storage_failures_total", "Failed envelope operations in the shared storage", "operation");
+	private static final String OPERATION_STORE = "store";
+	private static final String OPERATION_FETCH = "fetch";
+	// the probed versions per fetch are the lookups needed without version heads
+	private static final MetricFamily<Counter> latestFetches = MetricsRegistry.getDefault().counter(
+			"las2peer_storage_latest_fetches_total", "Fetches of the latest envelope version by resolution",
+			"resolution");
+	private static final MetricFamily<Counter> latestFetchLookups = MetricsRegistry.getDefault().counter(
+			"las2peer_storage_latest_fetch_lookups_total", "DHT lookups to resolve the latest envelope version",
+			"resolution");
+	private static final String RESOLUTION_HEAD = "head";
+	private static final String RESOLUTION_PROBE = "probe";
+
 	private final PastImpl pastStorage;
 	private final PastryIdFactory artifactIdFactory;
 	private final ExecutorService threadpool;
 	private final ConcurrentHashMap<String, Long> versionCache;
+	private final EnvelopeCache envelopeCache = new EnvelopeCache();
 
 	public SharedStorage(Node node, STORAGE_MODE storageMode, ExecutorService threadpool, String storageDir)
 			throws EnvelopeException {
@@ -118,6 +164,13 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 		versionCache = new ConcurrentHashMap<>();
 	}
 
+	/**
+	 * @return the cache of envelope versions fetched or stored by this node
+	 */
+	public EnvelopeCache getEnvelopeCache() {
+		return envelopeCache;
+	}
+
 	public long getLocalSize() {
 		return pastStorage.getStorageManager().getTotalSize();
 	}
@@ -140,21 +193,25 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 				new PastLookupContinuation(threadpool, lookupHandler, exceptionHandler));
 	}
 
-	private void waitForStoreResult(StoreProcessHelper resultHelper, long timeoutMs) throws EnvelopeException {
-		long startWait = System.currentTimeMillis();
-		while (System.currentTimeMillis() - startWait < timeoutMs) {
-			try {
-				if (resultHelper.getResult() >= 0) {
-					return;
-				}
-				Thread.sleep(1);
-			} catch (EnvelopeException e) {
-				throw e;
-			} catch (Exception e) {
-				throw new EnvelopeException(e);
+	private static <T> T waitForResult(CompletableFuture<T> future, long timeoutMs, String timeoutMessage)
+			throws EnvelopeException {
+		if (timeoutMs < 0) {
+			throw new IllegalArgumentException("Timeout must be greater or equal to zero");
+		}
+		try {
+			return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new EnvelopeException(timeoutMessage);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EnvelopeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof EnvelopeException) {
+				throw (EnvelopeException) cause;
 			}
+			throw new EnvelopeException(cause);
 		}
-		throw new EnvelopeException("store operation timed out");
 	}
 
 	@Override
@@ -201,21 +258,24 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 
 	@Override
 	public void storeEnvelope(EnvelopeVersion envelope, AgentImpl author, long timeoutMs) throws EnvelopeException {
-		if (timeoutMs < 0) {
-			throw new IllegalArgumentException("Timeout must be greater or equal to zero");
-		}
+		waitForResult(storeEnvelopeFuture(envelope, author), timeoutMs, "store operation timed out");
+	}
+
+	@Override
+	public CompletableFuture<Integer> storeEnvelopeFuture(EnvelopeVersion envelope, AgentImpl author) {
 		StoreProcessHelper resultHelper = new StoreProcessHelper();
 		storeEnvelopeAsync(envelope, author, resultHelper, resultHelper, resultHelper);
-		waitForStoreResult(resultHelper, timeoutMs);
+		return resultHelper;
 	}
 
 	@Override
 	public void storeEnvelopeAsync(EnvelopeVersion envelope, AgentImpl author, StorageStoreResultHandler resultHandler,
 			StorageCollisionHandler collisionHandler, StorageExceptionHandler exceptionHandler) {
 		logger.info("Storing envelope " + envelope + " ...");
+		MeasuredOperation measured = new MeasuredOperation(OPERATION_STORE, resultHandler, null, exceptionHandler);
 		// insert envelope into DHT
 		final MergeCounter mergeCounter = new MergeCounter();
-		storeEnvelopeAsync(envelope, author, resultHandler, collisionHandler, exceptionHandler, mergeCounter);
+		storeEnvelopeAsync(envelope, author, measured, collisionHandler, measured, mergeCounter);
 	}
 
 	private void storeEnvelopeAsync(EnvelopeVersion envelope, AgentImpl author, StorageStoreResultHandler resultHandler,
@@ -249,6 +309,8 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 			ArrayList<PastContentHandle> metadataHandles, StorageStoreResultHandler resultHandler,
 			StorageCollisionHandler collisionHandler, StorageExceptionHandler exceptionHandler,
 			MergeCounter mergeCounter) {
+		// another node stored this version, so the cached latest version is outdated
+		envelopeCache.invalidateLatest(envelope.getIdentifier());
 		if (collisionHandler != null) {
 			fetchWithMetadata(metadataHandles, new StorageEnvelopeHandler() {
 				@Override
@@ -293,72 +355,62 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 		}
 		// XXX only accept envelope if the content has changed?
 		logger.fine("Inserting parted envelope into network DHT");
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final String identifier = envelope.getIdentifier();
+		MultiStoreResult multiResult = new MultiStoreResult();
+		// serialize directly into parts and start each part insert as soon as the part is full
+		PartOutputStream partStream = new PartOutputStream(NetworkArtifact.MAX_SIZE) {
+			@Override
+			protected void onPart(int partIndex, byte[] part) throws IOException {
+				try {
+					NetworkArtifact toStore = new EnvelopeArtifact(artifactIdFactory, identifier, partIndex, part,
+							author);
+					logger.fine("Storing part " + partIndex + " for envelope " + envelope + " with id "
+							+ toStore.getId().toStringFull());
+					pastStorage.insert(toStore,
+							new PastInsertContinuation(threadpool, multiResult, multiResult, toStore));
+				} catch (Exception e) {
+					throw new IOException("Could not insert part " + partIndex + " of envelope " + envelope, e);
+				}
+			}
+		};
 		try {
-			ObjectOutputStream oos = new ObjectOutputStream(baos);
+			ObjectOutputStream oos = new ObjectOutputStream(partStream);
 			oos.writeObject(envelope);
-			baos.close();
+			oos.close();
 		} catch (IOException e) {
-			if (exceptionHandler != null) {
-				exceptionHandler.onException(e);
-			}
 			// cancel insert operation
-			return;
-		}
-		byte[] serialized = baos.toByteArray();
-		int size = serialized.length;
-		int parts = size / NetworkArtifact.MAX_SIZE;
-		if (parts * NetworkArtifact.MAX_SIZE < size) {
-			parts++; // this happens if max size is not a divider of size
-		}
-		int partsize = size / parts + 1;
-		logger.fine("Given object is serialized " + size + " bytes heavy, split into " + parts + " parts each "
-				+ partsize + " bytes in size");
-		MultiStoreResult multiResult = new MultiStoreResult(parts);
-		final String identifier = envelope.getIdentifier();
-		try {
-			int offset = 0;
-			for (int part = 0; part < parts; part++) {
-				byte[] rawPart = Arrays.copyOfRange(serialized, offset, offset + partsize);
-				NetworkArtifact toStore = new EnvelopeArtifact(artifactIdFactory, identifier, part, rawPart, author);
-				logger.fine("Storing part " + part + " for envelope " + envelope + " with id "
-						+ toStore.getId().toStringFull());
-				pastStorage.insert(toStore, new PastInsertContinuation(threadpool, multiResult, multiResult, toStore));
-				offset += partsize;
-			}
-		} catch (Exception e) {
+			multiResult.onException(e);
 			if (exceptionHandler != null) {
 				exceptionHandler.onException(e);
 			}
 			return;
 		}
-		// wait for all part inserts
-		long insertStart = System.currentTimeMillis();
-		while (!multiResult.isDone()) {
-			if (System.currentTimeMillis() - insertStart >= asyncInsertOperationTimeout) {
-				// this point means the network layer did not receive positive or negative feedback
-				if (exceptionHandler != null) {
-					exceptionHandler.onException(new EnvelopeException("Network communication timeout"));
-				}
-				return;
-			}
-			try {
-				Thread.sleep(1);
-			} catch (InterruptedException e) {
+		final int numOfParts = partStream.getParts();
+		logger.fine("Given object is split into " + numOfParts + " parts each up to " + NetworkArtifact.MAX_SIZE
+				+ " bytes in size");
+		multiResult.setParts(numOfParts);
+		// fail the insert, if the network layer does not give positive or negative feedback in time
+		ScheduledFuture<?> timeout = timeoutScheduler.schedule(
+				() -> multiResult.onException(new EnvelopeException("Network communication timeout")),
+				asyncInsertOperationTimeout, TimeUnit.MILLISECONDS);
+		// all parts done? insert MetadataEnvelope to complete insert operation
+		multiResult.whenCompleteAsync((minSuccessfulOperations, exception) -> {
+			timeout.cancel(false);
+			if (exception != null) {
 				if (exceptionHandler != null) {
-					exceptionHandler.onException(e);
+					exceptionHandler.onException(unwrap(exception));
 				}
 				return;
 			}
-		}
-		Exception exception = multiResult.getException();
-		if (exception != null) {
-			if (exceptionHandler != null) {
-				exceptionHandler.onException(exception);
-			}
-			return;
-		}
-		// all parts done? insert MetadataEnvelope to complete insert operation
+			insertMetadata(envelope, numOfParts, author, minSuccessfulOperations, resultHandler,
+					exceptionHandler);
+		}, threadpool);
+	}
+
+	private void insertMetadata(EnvelopeVersion envelope, int parts, AgentImpl author, int minSuccessfulOperations,
+			StorageStoreResultHandler resultHandler, StorageExceptionHandler exceptionHandler) {
+		final String identifier = envelope.getIdentifier();
+		final long version = envelope.getVersion();
 		try {
 			MetadataEnvelope metadataEnvelope = new MetadataEnvelope(identifier, version, parts);
 			NetworkArtifact metadataArtifact = new MetadataArtifact(artifactIdFactory, identifier, version,
@@ -368,26 +420,65 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 			pastStorage.insert(metadataArtifact,
 					new PastInsertContinuation(threadpool, new StorageStoreResultHandler() {
 						@Override
-						public void onResult(Serializable envelope, int successfulOperations) {
-							// all done - call actual user defined result handlers
-							Exception e = multiResult.getException();
-							if (e != null) {
-								if (exceptionHandler != null) {
-									exceptionHandler.onException(e);
+						public void onResult(Serializable stored, int successfulOperations) {
+							versionCache.merge(identifier, version, Math::max);
+							// read your own writes without asking the network
+							envelopeCache.put(envelope, true);
+							// point the head to this version, before the insert is reported as done
+							insertVersionHead(metadataEnvelope, author, () -> {
+								// all done - call actual user defined result handlers
+								if (resultHandler != null) {
+									resultHandler.onResult(stored, minSuccessfulOperations);
 								}
-							} else if (resultHandler != null) {
-								resultHandler.onResult(envelope, multiResult.getMinSuccessfulOperations());
-							}
+							});
 						}
 					}, exceptionHandler, metadataArtifact));
 		} catch (Exception e) {
 			if (exceptionHandler != null) {
 				exceptionHandler.onException(e);
 			}
-			return;
 		}
 	}
 
+	private void insertVersionHead(MetadataEnvelope metadataEnvelope, AgentImpl author, Runnable done) {
+		// a failed head update does not fail the insert, fetching finds the version after a lagging head
+		try {
+			VersionHeadArtifact head = new VersionHeadArtifact(artifactIdFactory, metadataEnvelope, author);
+			logger.fine("Storing version head for envelope " + metadataEnvelope.toString() + " with id "
+					+ head.getId().toStringFull());
+			pastStorage.insert(head, new PastInsertContinuation(threadpool, new StorageStoreResultHandler() {
+				@Override
+				public void onResult(Serializable serializable, int successfulOperations) {
+					if (successfulOperations < 1) {
+						logger.info("Version head for envelope " + metadataEnvelope.toString() + " not updated");
+					}
+					done.run();
+				}
+			}, new StorageExceptionHandler() {
+				@Override
+				public void onException(Exception e) {
+					logger.log(Level.INFO, "Could not update version head for envelope " + metadataEnvelope, e);
+					done.run();
+				}
+			}, head));
+		} catch (Exception e) {
+			logger.log(Level.INFO, "Could not update version head for envelope " + metadataEnvelope, e);
+			done.run();
+		}
+	}
+
+	private static Exception unwrap(Throwable exception) {
+		// exceptions from dependent stages are wrapped by the completable future
+		Throwable cause = exception;
+		if (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof Exception) {
+			return (Exception) cause;
+		}
+		return new EnvelopeException(cause);
+	}
+
 	@Override
 	public EnvelopeVersion fetchEnvelope(String identifier, long timeoutMs)
 			throws EnvelopeNotFoundException, EnvelopeException {
@@ -396,26 +487,18 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 
 	public EnvelopeVersion fetchEnvelope(String identifier, long version, long timeoutMs)
 			throws EnvelopeNotFoundException, EnvelopeException {
-		if (timeoutMs < 0) {
-			throw new IllegalArgumentException("Timeout must be greater or equal to zero");
-		}
+		return waitForResult(fetchEnvelopeFuture(identifier, version), timeoutMs, "Fetch operation time out");
+	}
+
+	@Override
+	public CompletableFuture<EnvelopeVersion> fetchEnvelopeFuture(String identifier) {
+		return fetchEnvelopeFuture(identifier, EnvelopeVersion.LATEST_VERSION);
+	}
+
+	public CompletableFuture<EnvelopeVersion> fetchEnvelopeFuture(String identifier, long version) {
 		FetchEnvelopeHelper resultHelper = new FetchEnvelopeHelper();
 		fetchEnvelopeAsync(identifier, version, resultHelper, resultHelper);
-		long startWait = System.currentTimeMillis();
-		while (System.currentTimeMillis() - startWait < timeoutMs) {
-			try {
-				EnvelopeVersion result = resultHelper.getResult();
-				if (result != null) {
-					return result;
-				}
-				Thread.sleep(1);
-			} catch (EnvelopeException e) {
-				throw e;
-			} catch (Exception e) {
-				throw new EnvelopeException(e);
-			}
-		}
-		throw new EnvelopeException("Fetch operation time out");
+		return resultHelper;
 	}
 
 	@Override
@@ -433,44 +516,35 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 			}
 			return;
 		}
+		EnvelopeVersion cached = envelopeCache.get(identifier, version);
+		if (cached != null) {
+			envelopeHandler.onEnvelopeReceived(cached);
+			return;
+		}
+		MeasuredOperation measured = new MeasuredOperation(OPERATION_FETCH, null, envelopeHandler, exceptionHandler);
+		fetchEnvelopeMeasured(identifier, version, measured, measured);
+	}
+
+	private void fetchEnvelopeMeasured(String identifier, long version, StorageEnvelopeHandler envelopeHandler,
+			StorageExceptionHandler exceptionHandler) {
 		// get handles for first part of the desired version
 		if (version == EnvelopeVersion.LATEST_VERSION) {
 			// retrieve the latest version from the network
-			Long startVersion = versionCache.get(identifier);
-			if (startVersion == null) {
-				startVersion = EnvelopeVersion.START_VERSION;
-			}
-			logger.fine("Starting latest version lookup for " + identifier + " at " + startVersion);
-			threadpool.execute(new LatestArtifactVersionFinder(identifier, startVersion, new StorageLookupHandler() {
+			fetchLatestEnvelope(identifier, envelopeHandler, exceptionHandler);
+		} else {
+			Id checkId = MetadataArtifact.buildMetadataId(artifactIdFactory, identifier, version);
+			lookupHandles(checkId, new StorageLookupHandler() {
 				@Override
 				public void onLookup(ArrayList<PastContentHandle> metadataHandles) {
 					if (metadataHandles.size() > 0) {
+						// call from first part
 						fetchWithMetadata(metadataHandles, new StorageEnvelopeHandler() {
 							@Override
 							public void onEnvelopeReceived(EnvelopeVersion result) {
-								// this handler-in-the-middle updates the version cache,
-								// before returning the result to the actual envelope handler
-								versionCache.put(result.getIdentifier(), result.getVersion());
+								envelopeCache.put(result, false);
 								envelopeHandler.onEnvelopeReceived(result);
 							}
 						}, exceptionHandler);
-					} else {
-						// not found
-						if (exceptionHandler != null) {
-							exceptionHandler.onException(new EnvelopeNotFoundException(
-									"no version found for identifier '" + identifier + "'"));
-						}
-					}
-				}
-			}, artifactIdFactory, pastStorage, numOfReplicas + 1, threadpool));
-		} else {
-			Id checkId = MetadataArtifact.buildMetadataId(artifactIdFactory, identifier, version);
-			lookupHandles(checkId, new StorageLookupHandler() {
-				@Override
-				public void onLookup(ArrayList<PastContentHandle> metadataHandles) {
-					if (metadataHandles.size() > 0) {
-						// call from first part
-						fetchWithMetadata(metadataHandles, envelopeHandler, exceptionHandler);
 					} else {
 						// not found
 						if (exceptionHandler != null) {
@@ -485,6 +559,112 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 		}
 	}
 
+	private void fetchLatestEnvelope(String identifier, StorageEnvelopeHandler envelopeHandler,
+			StorageExceptionHandler exceptionHandler) {
+		// a version known from a previous operation on this node reveals a stale head
+		Long knownVersion = versionCache.get(identifier);
+		StorageEnvelopeHandler cachingHandler = new StorageEnvelopeHandler() {
+			@Override
+			public void onEnvelopeReceived(EnvelopeVersion result) {
+				// this handler-in-the-middle updates the version cache,
+				// before returning the result to the actual envelope handler
+				versionCache.put(result.getIdentifier(), result.getVersion());
+				envelopeCache.put(result, true);
+				envelopeHandler.onEnvelopeReceived(result);
+			}
+		};
+		new LatestVersionResolver(identifier, knownVersion, cachingHandler, exceptionHandler) {
+			@Override
+			protected void fetchHead(String identifier, Consumer<MetadataEnvelope> headHandler,
+					StorageExceptionHandler headExceptionHandler) {
+				fetchVersionHead(identifier, headHandler, headExceptionHandler);
+			}
+
+			@Override
+			protected void lookupVersion(String identifier, long version, Consumer<Boolean> existsHandler,
+					StorageExceptionHandler lookupExceptionHandler) {
+				Id metadataId = MetadataArtifact.buildMetadataId(artifactIdFactory, identifier, version);
+				lookupHandles(metadataId, new StorageLookupHandler() {
+					@Override
+					public void onLookup(ArrayList<PastContentHandle> metadataHandles) {
+						existsHandler.accept(!metadataHandles.isEmpty());
+					}
+				}, lookupExceptionHandler);
+			}
+
+			@Override
+			protected void fetchParts(MetadataEnvelope metadata, StorageEnvelopeHandler partsEnvelopeHandler,
+					StorageExceptionHandler partsExceptionHandler) {
+				latestFetches.get(RESOLUTION_HEAD).inc();
+				// the head and the version after it
+				latestFetchLookups.get(RESOLUTION_HEAD).add(2);
+				SharedStorage.this.fetchParts(metadata, partsEnvelopeHandler, partsExceptionHandler);
+			}
+
+			@Override
+			protected void probe(String identifier, long startVersion, StorageEnvelopeHandler probeEnvelopeHandler,
+					StorageExceptionHandler probeExceptionHandler) {
+				probeLatestEnvelope(identifier, startVersion, probeEnvelopeHandler, probeExceptionHandler);
+			}
+		}.start();
+	}
+
+	private void fetchVersionHead(String identifier, Consumer<MetadataEnvelope> headHandler,
+			StorageExceptionHandler exceptionHandler) {
+		Id headId = VersionHeadArtifact.buildId(artifactIdFactory, identifier);
+		logger.fine("Looking for version head of " + identifier + " at id " + headId.toStringFull() + " ...");
+		lookupHandles(headId, new StorageLookupHandler() {
+			@Override
+			public void onLookup(ArrayList<PastContentHandle> headHandles) {
+				if (headHandles.isEmpty()) {
+					exceptionHandler.onException(new EnvelopeNotFoundException("no version head found"));
+					return;
+				}
+				fetchFromHandles(headHandles, new StorageArtifactHandler() {
+					@Override
+					public void onReceive(AbstractArtifact artifact) {
+						MetadataEnvelope metadata;
+						try {
+							if (!(artifact instanceof VersionHeadArtifact)) {
+								throw new EnvelopeException("expected " + VersionHeadArtifact.class.getCanonicalName()
+										+ " but got " + artifact.getClass().getCanonicalName() + " instead");
+							}
+							metadata = ((VersionHeadArtifact) artifact).getMetadata();
+						} catch (EnvelopeException | VerificationFailedException e) {
+							exceptionHandler.onException(e);
+							return;
+						}
+						headHandler.accept(metadata);
+					}
+				}, exceptionHandler);
+			}
+		}, exceptionHandler);
+	}
+
+	private void probeLatestEnvelope(String identifier, long startVersion, StorageEnvelopeHandler envelopeHandler,
+			StorageExceptionHandler exceptionHandler) {
+		logger.fine("Starting latest version lookup for " + identifier + " at " + startVersion);
+		AtomicReference<LatestArtifactVersionFinder> finder = new AtomicReference<>();
+		finder.set(new LatestArtifactVersionFinder(identifier, startVersion, new StorageLookupHandler() {
+			@Override
+			public void onLookup(ArrayList<PastContentHandle> metadataHandles) {
+				// the head lookup came first
+				latestFetches.get(RESOLUTION_PROBE).inc();
+				latestFetchLookups.get(RESOLUTION_PROBE).add(1 + finder.get().getProbedVersions());
+				if (metadataHandles.size() > 0) {
+					fetchWithMetadata(metadataHandles, envelopeHandler, exceptionHandler);
+				} else {
+					// not found
+					if (exceptionHandler != null) {
+						exceptionHandler.onException(
+								new EnvelopeNotFoundException("no version found for identifier '" + identifier + "'"));
+					}
+				}
+			}
+		}, artifactIdFactory, pastStorage, numOfReplicas + 1, threadpool));
+		threadpool.execute(finder.get());
+	}
+
 	private void fetchWithMetadata(ArrayList<PastContentHandle> metadataHandles, StorageEnvelopeHandler envelopeHandler,
 			StorageExceptionHandler exceptionHandler) {
 		fetchFromHandles(metadataHandles, new StorageArtifactHandler() {
@@ -493,27 +673,8 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 				try {
 					Serializable received = SerializeTools.deserialize(artifact.getContent());
 					if (received instanceof MetadataEnvelope) {
-						MetadataEnvelope metadata = (MetadataEnvelope) received;
 						// metadata received query all actual data parts
-						int size = metadata.getEnvelopeNumOfParts();
-						MultiArtifactHandler artifactHandler = new MultiArtifactHandler(size,
-								new StoragePartsHandler() {
-									@Override
-									public void onPartsReceived(ArrayList<NetworkArtifact> parts) {
-										try {
-											EnvelopeVersion result = buildFromParts(artifactIdFactory, metadata, parts);
-											envelopeHandler.onEnvelopeReceived(result);
-										} catch (IllegalArgumentException | EnvelopeException e) {
-											if (exceptionHandler != null) {
-												exceptionHandler.onException(e);
-											}
-										}
-									}
-								}, exceptionHandler);
-						for (int partIndex = 0; partIndex < size; partIndex++) {
-							fetchPart(metadata.getEnvelopeIdentifier(), partIndex, metadata.getEnvelopeVersion(),
-									artifactHandler);
-						}
+						fetchParts((MetadataEnvelope) received, envelopeHandler, exceptionHandler);
 					} else if (exceptionHandler != null) {
 						exceptionHandler.onException(
 								new EnvelopeException("expected " + MetadataEnvelope.class.getCanonicalName()
@@ -528,6 +689,27 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 		}, exceptionHandler);
 	}
 
+	private void fetchParts(MetadataEnvelope metadata, StorageEnvelopeHandler envelopeHandler,
+			StorageExceptionHandler exceptionHandler) {
+		int size = metadata.getEnvelopeNumOfParts();
+		MultiArtifactHandler artifactHandler = new MultiArtifactHandler(size, new StoragePartsHandler() {
+			@Override
+			public void onPartsReceived(ArrayList<NetworkArtifact> parts) {
+				try {
+					EnvelopeVersion result = buildFromParts(artifactIdFactory, metadata, parts);
+					envelopeHandler.onEnvelopeReceived(result);
+				} catch (IllegalArgumentException | EnvelopeException e) {
+					if (exceptionHandler != null) {
+						exceptionHandler.onException(e);
+					}
+				}
+			}
+		}, exceptionHandler);
+		for (int partIndex = 0; partIndex < size; partIndex++) {
+			fetchPart(metadata.getEnvelopeIdentifier(), partIndex, metadata.getEnvelopeVersion(), artifactHandler);
+		}
+	}
+
 	private void fetchPart(String identifier, int part, long version, MultiArtifactHandler artifactHandler) {
 		Id checkId = EnvelopeArtifact.buildId(artifactIdFactory, identifier, part);
 		logger.fine("Fetching part (" + part + ") of envelope '" + identifier + "' with id " + checkId.toStringFull()
@@ -570,8 +752,8 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 			int lastPartIndex = -1;
 			int numberOfParts = 0;
 			PublicKey authorPubKey = null;
-			// concat raw byte arrays
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			// read parts in order without concatenating them
+			ArrayList<InputStream> partStreams = new ArrayList<>(artifacts.size());
 			for (NetworkArtifact artifact : artifacts) {
 				logger.fine("concating content of " + artifact.toString() + " with " + metadata.getEnvelopeNumOfParts()
 						+ " parts");
@@ -627,17 +809,15 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 				try {
 					byte[] rawContent = artifact.getContent();
 					if (rawContent != null) {
-						// add content to buffer
-						baos.write(rawContent);
+						partStreams.add(new ByteArrayInputStream(rawContent));
 					}
 				} catch (VerificationFailedException e) {
 					throw new EnvelopeException("Could not retrieve content from part", e);
 				}
 			}
-			byte[] bytes = baos.toByteArray();
-			// deserialize object
-			ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-			ObjectInputStream ois = new ObjectInputStream(bais);
+			// deserialize object directly from the parts
+			ObjectInputStream ois = new ObjectInputStream(
+					new SequenceInputStream(Collections.enumeration(partStreams)));
 			Object obj = ois.readObject();
 			EnvelopeVersion result;
 			if (obj instanceof EnvelopeVersion) {
@@ -676,12 +856,9 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 	}
 
 	public void storeHashedContent(byte[] content, long timeoutMs) throws EnvelopeException {
-		if (timeoutMs < 0) {
-			throw new IllegalArgumentException("Timeout must be greater or equal to zero");
-		}
 		StoreProcessHelper resultHelper = new StoreProcessHelper();
 		storeHashedContentAsync(content, resultHelper, resultHelper);
-		waitForStoreResult(resultHelper, timeoutMs);
+		waitForResult(resultHelper, timeoutMs, "store operation timed out");
 	}
 
 	public void fetchHashedContentAsync(byte[] hash, StorageArtifactHandler artifactHandler,
@@ -723,26 +900,68 @@ public class SharedStorage extends Configurable implements L2pStorageInterface {
 	}
 
 	public byte[] fetchHashedContent(byte[] hash, long timeoutMs) throws EnvelopeException {
-		if (timeoutMs < 0) {
-			throw new IllegalArgumentException("Timeout must be greater or equal to zero");
-		}
 		FetchHashedHelper resultHelper = new FetchHashedHelper();
 		fetchHashedContentAsync(hash, resultHelper, resultHelper);
-		long startWait = System.currentTimeMillis();
-		while (System.currentTimeMillis() - startWait < timeoutMs) {
-			try {
-				HashedArtifact result = resultHelper.getResult();
-				if (result != null) {
-					return result.getContent();
+		HashedArtifact result = waitForResult(resultHelper, timeoutMs, "Fetch operation time out");
+		try {
+			return result.getContent();
+		} catch (VerificationFailedException e) {
+			throw new EnvelopeException(e);
+		}
+	}
+
+	/**
+	 * Records the duration and outcome of an envelope operation, before handing its result to the actual handlers.
+	 */
+	private static class MeasuredOperation
+			implements StorageStoreResultHandler, StorageEnvelopeHandler, StorageExceptionHandler {
+
+		private final String operation;
+		private final StorageStoreResultHandler resultHandler;
+		private final StorageEnvelopeHandler envelopeHandler;
+		private final StorageExceptionHandler exceptionHandler;
+		private final long start = System.nanoTime();
+		private final AtomicBoolean recorded = new AtomicBoolean();
+
+		private MeasuredOperation(String operation, StorageStoreResultHandler resultHandler,
+				StorageEnvelopeHandler envelopeHandler, StorageExceptionHandler exceptionHandler) {
+			this.operation = operation;
+			this.resultHandler = resultHandler;
+			this.envelopeHandler = envelopeHandler;
+			this.exceptionHandler = exceptionHandler;
+		}
+
+		private void record(boolean failed) {
+			if (recorded.compareAndSet(false, true)) {
+				operationDuration.get(operation).recordSince(start);
+				if (failed) {
+					operationFailures.get(operation).inc();
 				}
-				Thread.sleep(1);
-			} catch (EnvelopeException e) {
-				throw e;
-			} catch (Exception e) {
-				throw new EnvelopeException(e);
 			}
 		}
-		throw new EnvelopeException("Fetch operation time out");
+
+		@Override
+		public void onResult(Serializable serializable, int successfulOperations) {
+			record(false);
+			if (resultHandler != null) {
+				resultHandler.onResult(serializable, successfulOperations);
+			}
+		}
+
+		@Override
+		public void onEnvelopeReceived(EnvelopeVersion result) {
+			record(false);
+			envelopeHandler.onEnvelopeReceived(result);
+		}
+
+		@Override
+		public void onException(Exception e) {
+			record(true);
+			if (exceptionHandler != null) {
+				exceptionHandler.onException(e);
+			}
+		}
+
 	}
 
 }
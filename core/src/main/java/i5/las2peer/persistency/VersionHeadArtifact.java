@@ -0,0 +1,91 @@
+package i5.las2peer.persistency;
+
+import java.io.Serializable;
+
+import i5.las2peer.api.security.AgentLockedException;
+import i5.las2peer.security.AgentImpl;
+import i5.las2peer.serialization.SerializationException;
+import i5.las2peer.serialization.SerializeTools;
+import i5.las2peer.tools.CryptoException;
+import rice.p2p.commonapi.Id;
+import rice.p2p.past.PastContent;
+import rice.p2p.past.PastException;
+import rice.pastry.commonapi.PastryIdFactory;
+
+/**
+ * The version head points to the latest stored version of an envelope. It contains a copy of the
+ * {@link MetadataEnvelope} of that version, so the latest version can be fetched with a single lookup instead of
+ * probing the metadata of each version. The head is mutable, but only its author may replace it and only with a head
+ * of the same or a higher version.
+ */
+public class VersionHeadArtifact extends NetworkArtifact {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long version;
+
+	public VersionHeadArtifact(PastryIdFactory idFactory, MetadataEnvelope metadata, AgentImpl author)
+			throws CryptoException, VerificationFailedException, AgentLockedException, SerializationException {
+		super(buildId(idFactory, metadata.getEnvelopeIdentifier()), 0, SerializeTools.serialize(metadata), author);
+		this.version = metadata.getEnvelopeVersion();
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the metadata of the version this head points to.
+	 *
+	 * @return Returns the metadata of the latest version
+	 * @throws VerificationFailedException If the signature or the version of this head is invalid
+	 */
+	public MetadataEnvelope getMetadata() throws VerificationFailedException {
+		try {
+			Serializable received = SerializeTools.deserialize(getContent());
+			if (!(received instanceof MetadataEnvelope)) {
+				throw new VerificationFailedException("expected " + MetadataEnvelope.class.getCanonicalName()
+						+ " but got " + received.getClass().getCanonicalName() + " instead");
+			}
+			MetadataEnvelope metadata = (MetadataEnvelope) received;
+			if (metadata.getEnvelopeVersion() != version) {
+				throw new VerificationFailedException("Head version (" + version
+						+ ") does not match metadata version (" + metadata.getEnvelopeVersion() + ")");
+			}
+			return metadata;
+		} catch (SerializationException e) {
+			throw new VerificationFailedException("Could not deserialize metadata", e);
+		}
+	}
+
+	@Override
+	public PastContent checkInsert(Id id, PastContent existingContent) throws PastException {
+		try {
+			// the version used for the comparison below must match the signed content
+			getMetadata();
+		} catch (VerificationFailedException e) {
+			throw new PastException(e.toString());
+		}
+		if (existingContent != null) {
+			VersionHeadArtifact existingHead = (VersionHeadArtifact) existingContent;
+			if (!hasSameAuthor(existingHead)) {
+				throw new PastException("Write access blocked! Different authors");
+			} else if (existingHead.getVersion() > version) {
+				throw new PastException("Version head must not go back from version " + existingHead.getVersion()
+						+ " to " + version);
+			}
+		}
+		// don't tell the super class about existing copy -> mutable content
+		return super.checkInsert(id, null);
+	}
+
+	@Override
+	public boolean isMutable() {
+		return true;
+	}
+
+	public static Id buildId(PastryIdFactory idFactory, String identifier) {
+		return idFactory.buildId("head-" + identifier);
+	}
+
+}
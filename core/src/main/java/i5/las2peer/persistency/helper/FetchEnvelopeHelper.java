@@ -1,37 +1,25 @@
 package i5.las2peer.persistency.helper;
 
+import java.util.concurrent.CompletableFuture;
+
 import i5.las2peer.persistency.EnvelopeVersion;
 import i5.las2peer.persistency.StorageEnvelopeHandler;
 import i5.las2peer.persistency.StorageExceptionHandler;
 
-public class FetchEnvelopeHelper implements StorageEnvelopeHandler, StorageExceptionHandler {
-
-	private Exception exception;
-	private EnvelopeVersion result;
+/**
+ * Completes with the fetched envelope or the first exception of a fetch operation.
+ */
+public class FetchEnvelopeHelper extends CompletableFuture<EnvelopeVersion>
+		implements StorageEnvelopeHandler, StorageExceptionHandler {
 
 	@Override
 	public void onEnvelopeReceived(EnvelopeVersion result) {
-		synchronized (this) {
-			this.result = result;
-		}
+		complete(result);
 	}
 
 	@Override
 	public void onException(Exception e) {
-		synchronized (this) {
-			if (exception == null) {
-				exception = e;
-			}
-		}
-	}
-
-	public EnvelopeVersion getResult() throws Exception {
-		synchronized (this) {
-			if (exception != null) {
-				throw exception;
-			}
-			return result;
-		}
+		completeExceptionally(e);
 	}
 
 }
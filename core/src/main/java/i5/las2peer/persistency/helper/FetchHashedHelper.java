@@ -1,40 +1,28 @@
 package i5.las2peer.persistency.helper;
 
+import java.util.concurrent.CompletableFuture;
+
 import i5.las2peer.persistency.AbstractArtifact;
 import i5.las2peer.persistency.HashedArtifact;
 import i5.las2peer.persistency.StorageArtifactHandler;
 import i5.las2peer.persistency.StorageExceptionHandler;
 
-public class FetchHashedHelper implements StorageArtifactHandler, StorageExceptionHandler {
-
-	private Exception exception;
-	private HashedArtifact result;
+/**
+ * Completes with the fetched hashed artifact or the first exception of a fetch operation.
+ */
+public class FetchHashedHelper extends CompletableFuture<HashedArtifact>
+		implements StorageArtifactHandler, StorageExceptionHandler {
 
 	@Override
 	public void onReceive(AbstractArtifact result) {
 		if (result instanceof HashedArtifact) {
-			synchronized (this) {
-				this.result = (HashedArtifact) result;
-			}
+			complete((HashedArtifact) result);
 		}
 	}
 
 	@Override
 	public void onException(Exception e) {
-		synchronized (this) {
-			if (exception == null) {
-				exception = e;
-			}
-		}
-	}
-
-	public HashedArtifact getResult() throws Exception {
-		synchronized (this) {
-			if (exception != null) {
-				throw exception;
-			}
-			return result;
-		}
+		completeExceptionally(e);
 	}
 
 }
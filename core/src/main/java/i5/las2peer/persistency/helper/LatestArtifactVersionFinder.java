@@ -5,6 +5,8 @@ import java.util.HashMap;
 import java.util.concurrent.ExecutorService;
 
 import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.MetricsRegistry;
 import i5.las2peer.persistency.EnvelopeVersion;
 import i5.las2peer.persistency.MetadataArtifact;
 import i5.las2peer.persistency.StorageExceptionHandler;
@@ -23,6 +25,12 @@ public class LatestArtifactVersionFinder implements Runnable, StorageLookupHandl
 
 	private static final L2pLogger logger = L2pLogger.getInstance(LatestArtifactVersionFinder.class);
 
+	private static final Counter lookups = MetricsRegistry.getDefault()
+			.counter("las2peer_storage_version_lookups_total", "Searches for the latest version of an envelope").get();
+	private static final Counter probes = MetricsRegistry.getDefault()
+			.counter("las2peer_storage_version_probes_total", "Versions probed while searching for the latest version")
+			.get();
+
 	private final String identifier;
 	private final long startVersion;
 	private final StorageLookupHandler nodeLookupHandler;
@@ -34,6 +42,7 @@ public class LatestArtifactVersionFinder implements Runnable, StorageLookupHandl
 	private long currentOffset;
 	private long unknownVersion;
 	private long latestVersion;
+	private int probedVersions;
 	private final HashMap<Long, ArrayList<PastContentHandle>> versionToHandle;
 
 	/**
@@ -102,11 +111,21 @@ public class LatestArtifactVersionFinder implements Runnable, StorageLookupHandl
 
 	@Override
 	public void run() {
+		lookups.inc();
 		requestLookup(startVersion);
 	}
 
+	/**
+	 * @return the number of versions looked up in the network so far
+	 */
+	public int getProbedVersions() {
+		return probedVersions;
+	}
+
 	private void requestLookup(long version) {
 		currentVersion = version;
+		probedVersions++;
+		probes.inc();
 		Id checkId = MetadataArtifact.buildMetadataId(artifactIdFactory, identifier, currentVersion);
 		logger.fine("Looking for metadata envelope with identifier '" + identifier + "' and version " + currentVersion
 				+ " at id " + checkId.toStringFull() + " ...");
@@ -0,0 +1,132 @@
+package i5.las2peer.persistency.helper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import i5.las2peer.api.persistency.EnvelopeException;
+import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.persistency.EnvelopeVersion;
+import i5.las2peer.persistency.MetadataEnvelope;
+import i5.las2peer.persistency.StorageEnvelopeHandler;
+import i5.las2peer.persistency.StorageExceptionHandler;
+
+/**
+ * This class is used to resolve the latest version of an envelope. The version head is tried first, since it leads
+ * to the metadata of the latest version with a single lookup. The head is only a shortcut, because a failed or
+ * concurrent head update leaves it lagging behind. So the version after the head is looked up, too. If it exists, the
+ * head is missing, older than a version already known or its parts cannot be read, the versions are probed instead.
+ * The actual network operations are left to the implementing class.
+ */
+public abstract class LatestVersionResolver implements StorageExceptionHandler {
+
+	private static final L2pLogger logger = L2pLogger.getInstance(LatestVersionResolver.class);
+
+	private final String identifier;
+	private final Long knownVersion;
+	private final StorageEnvelopeHandler envelopeHandler;
+	private final StorageExceptionHandler exceptionHandler;
+	private final AtomicBoolean fallenBack = new AtomicBoolean();
+	private volatile long probeStart;
+
+	/**
+	 * Initiates the resolution of the latest version.
+	 *
+	 * @param identifier The identifier of the envelope.
+	 * @param knownVersion The latest version known from previous operations or null, if none is known.
+	 * @param envelopeHandler The handler receiving the latest version.
+	 * @param exceptionHandler The handler receiving the exception, if probing the versions failed, too.
+	 */
+	public LatestVersionResolver(String identifier, Long knownVersion, StorageEnvelopeHandler envelopeHandler,
+			StorageExceptionHandler exceptionHandler) {
+		this.identifier = identifier;
+		this.knownVersion = knownVersion;
+		this.envelopeHandler = envelopeHandler;
+		this.exceptionHandler = exceptionHandler;
+		probeStart = knownVersion != null ? knownVersion : EnvelopeVersion.START_VERSION;
+	}
+
+	/**
+	 * Starts the resolution with the lookup of the version head.
+	 */
+	public void start() {
+		fetchHead(identifier, new Consumer<MetadataEnvelope>() {
+			@Override
+			public void accept(MetadataEnvelope metadata) {
+				long headVersion = metadata.getEnvelopeVersion();
+				if (knownVersion != null && headVersion < knownVersion) {
+					onException(new EnvelopeException("stale head at version " + headVersion + ", but version "
+							+ knownVersion + " is known"));
+					return;
+				}
+				lookupVersion(identifier, headVersion + 1, new Consumer<Boolean>() {
+					@Override
+					public void accept(Boolean exists) {
+						if (exists) {
+							probeStart = headVersion + 1;
+							onException(new EnvelopeException("stale head at version " + headVersion + ", but version "
+									+ probeStart + " exists"));
+						} else {
+							fetchParts(metadata, envelopeHandler, LatestVersionResolver.this);
+						}
+					}
+				}, LatestVersionResolver.this);
+			}
+		}, this);
+	}
+
+	/**
+	 * This method is called if the version head could not be used. The versions are probed only once, even if several
+	 * parts failed.
+	 */
+	@Override
+	public void onException(Exception e) {
+		if (!fallenBack.compareAndSet(false, true)) {
+			return;
+		}
+		logger.fine("Version head for " + identifier + " not usable (" + e.toString() + ")");
+		probe(identifier, probeStart, envelopeHandler, exceptionHandler);
+	}
+
+	/**
+	 * Looks up the version head of the envelope.
+	 *
+	 * @param identifier The identifier of the envelope.
+	 * @param headHandler The handler receiving the metadata the head points to.
+	 * @param exceptionHandler The handler receiving the exception, if there is no valid head.
+	 */
+	protected abstract void fetchHead(String identifier, Consumer<MetadataEnvelope> headHandler,
+			StorageExceptionHandler exceptionHandler);
+
+	/**
+	 * Checks if the given version of the envelope exists, without fetching it.
+	 *
+	 * @param identifier The identifier of the envelope.
+	 * @param version The version to look up.
+	 * @param existsHandler The handler receiving true, if the version exists.
+	 * @param exceptionHandler The handler receiving the exception, if the lookup failed.
+	 */
+	protected abstract void lookupVersion(String identifier, long version, Consumer<Boolean> existsHandler,
+			StorageExceptionHandler exceptionHandler);
+
+	/**
+	 * Fetches the parts of the version the head points to.
+	 *
+	 * @param metadata The metadata of the version.
+	 * @param envelopeHandler The handler receiving the envelope.
+	 * @param exceptionHandler The handler receiving the exception, if a part could not be read.
+	 */
+	protected abstract void fetchParts(MetadataEnvelope metadata, StorageEnvelopeHandler envelopeHandler,
+			StorageExceptionHandler exceptionHandler);
+
+	/**
+	 * Fetches the latest version by probing the versions, e. g. with a {@link LatestArtifactVersionFinder}.
+	 *
+	 * @param identifier The identifier of the envelope.
+	 * @param startVersion The version to start probing at.
+	 * @param envelopeHandler The handler receiving the envelope.
+	 * @param exceptionHandler The handler receiving the exception, if no version was found.
+	 */
+	protected abstract void probe(String identifier, long startVersion, StorageEnvelopeHandler envelopeHandler,
+			StorageExceptionHandler exceptionHandler);
+
+}
@@ -1,7 +1,7 @@
 package i5.las2peer.persistency.helper;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 import i5.las2peer.api.persistency.EnvelopeException;
 import i5.las2peer.persistency.StorageExceptionHandler;
@@ -9,16 +9,23 @@ import i5.las2peer.persistency.StorageStoreResultHandler;
 
 /**
  * This class is used to handle the multiple store results generated from a parted artifact insert. It provides the
- * result handlers for the insert process itself and methods to wait for the result or an exception. Both can be
- * retrieved via methods, too.
+ * result handlers for the insert process itself and completes with the minimal number of successful operations for
+ * any part, once all parts are stored, or exceptionally with the first error.
  */
-public class MultiStoreResult implements StorageStoreResultHandler, StorageExceptionHandler {
+public class MultiStoreResult extends CompletableFuture<Integer>
+		implements StorageStoreResultHandler, StorageExceptionHandler {
 
-	private final int parts;
-	private ArrayList<Integer> results;
+	private int parts;
+	private int results;
 	private int minSuccessfulOperations;
-	private boolean failed;
-	private Exception exception;
+
+	/**
+	 * Initiates the store result container for a yet unknown number of parts. The result is not completed before the
+	 * number of parts is set with {@link #setParts(int)}.
+	 */
+	public MultiStoreResult() {
+		this(-1);
+	}
 
 	/**
 	 * Initiates the store result container for the given number of parts.
@@ -27,48 +34,48 @@ public class MultiStoreResult implements StorageStoreResultHandler, StorageExcep
 	 */
 	public MultiStoreResult(int parts) {
 		this.parts = parts;
-		results = new ArrayList<>(parts);
+		results = 0;
 		minSuccessfulOperations = Integer.MAX_VALUE;
-		failed = false;
+	}
+
+	/**
+	 * Sets the number of parts, once all part inserts are started.
+	 *
+	 * @param parts The number of parts that must be stored to complete this store operation.
+	 */
+	public void setParts(int parts) {
+		synchronized (this) {
+			this.parts = parts;
+			checkDone();
+		}
 	}
 
 	@Override
 	public void onResult(Serializable serializable, int successfulOperations) {
 		synchronized (this) {
-			results.add(successfulOperations);
+			results++;
 			if (successfulOperations < minSuccessfulOperations) {
 				minSuccessfulOperations = successfulOperations;
 			}
 			if (minSuccessfulOperations < 1) {
-				failed = true; // if one part fails, we're busted
-				exception = new EnvelopeException("Artifact part insert failed!");
+				// if one part fails, we're busted
+				completeExceptionally(new EnvelopeException("Artifact part insert failed!"));
+			} else {
+				checkDone();
 			}
 		}
 	}
 
-	@Override
-	public void onException(Exception e) {
-		synchronized (this) {
-			if (!failed) { // if this result is already failed ignore further errors
-				failed = true;
-				exception = e;
-			}
+	private void checkDone() {
+		if (parts >= 0 && results >= parts) {
+			complete(minSuccessfulOperations);
 		}
 	}
 
-	/**
-	 * Checks if the underlying store result is completed or not.
-	 *
-	 * @return Returns {@code true} if the store operation is finished.
-	 */
-	public boolean isDone() {
-		synchronized (this) {
-			if (failed) {
-				return failed;
-			} else {
-				return results.size() >= parts; // bigger should equal to failed actually
-			}
-		}
+	@Override
+	public void onException(Exception e) {
+		// if this result is already done ignore further errors
+		completeExceptionally(e);
 	}
 
 	/**
@@ -82,15 +89,4 @@ public class MultiStoreResult implements StorageStoreResultHandler, StorageExcep
 		}
 	}
 
-	/**
-	 * Gets the exception from this store operation.
-	 *
-	 * @return Returns an exception or {@code null} if there is none.
-	 */
-	public Exception getException() {
-		synchronized (this) {
-			return exception;
-		}
-	}
-
 }
@@ -0,0 +1,101 @@
+package i5.las2peer.persistency.helper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This stream splits the written data into parts of a fixed size. Each part is handed to {@link #onPart(int, byte[])}
+ * as soon as it is full, so the data never has to be buffered completely. The last part is handed over on
+ * {@link #close()} and may be smaller than the part size.
+ */
+public abstract class PartOutputStream extends OutputStream {
+
+	private final int partSize;
+	private byte[] buffer;
+	private int position;
+	private int parts;
+	private boolean closed;
+
+	/**
+	 * Initiates the stream for the given part size.
+	 *
+	 * @param partSize The maximum number of bytes in each part.
+	 */
+	public PartOutputStream(int partSize) {
+		if (partSize < 1) {
+			throw new IllegalArgumentException("Part size must be greater than zero");
+		}
+		this.partSize = partSize;
+		buffer = new byte[partSize];
+	}
+
+	/**
+	 * This method is called for each part in order.
+	 *
+	 * @param partIndex The index of the part starting with zero.
+	 * @param part The content of the part.
+	 * @throws IOException If the part could not be handled. This cancels the write operation.
+	 */
+	protected abstract void onPart(int partIndex, byte[] part) throws IOException;
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		buffer[position++] = (byte) b;
+		if (position == partSize) {
+			flushPart();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			int count = Math.min(len, partSize - position);
+			System.arraycopy(b, off, buffer, position, count);
+			position += count;
+			off += count;
+			len -= count;
+			if (position == partSize) {
+				flushPart();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (position > 0 || parts == 0) {
+			byte[] part = new byte[position];
+			System.arraycopy(buffer, 0, part, 0, position);
+			onPart(parts++, part);
+		}
+		buffer = null;
+	}
+
+	/**
+	 * Gets the number of parts handed over so far.
+	 *
+	 * @return Returns the number of parts.
+	 */
+	public int getParts() {
+		return parts;
+	}
+
+	private void flushPart() throws IOException {
+		byte[] part = buffer;
+		buffer = new byte[partSize];
+		position = 0;
+		onPart(parts++, part);
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+}
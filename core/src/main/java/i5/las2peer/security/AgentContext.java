@@ -1,7 +1,14 @@
 package i5.las2peer.security;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.Hashtable;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.crypto.SecretKey;
 
 import i5.las2peer.api.security.Agent;
 import i5.las2peer.api.security.AgentAccessDeniedException;
@@ -12,6 +19,8 @@ import i5.las2peer.api.security.AgentOperationFailedException;
 import i5.las2peer.api.security.PassphraseAgent;
 import i5.las2peer.execution.ServiceThread;
 import i5.las2peer.p2p.Node;
+import i5.las2peer.serialization.SerializationException;
+import i5.las2peer.tools.CryptoException;
 
 /**
  * A context that can be created for an agent to perform operations in the network. Cached in the node for remembering
@@ -19,9 +28,47 @@ import i5.las2peer.p2p.Node;
  */
 public class AgentContext implements AgentStorage {
 
-	private AgentImpl agent;
+	public static final long DEFAULT_GROUP_TIMEOUT = 10 * 1000; // 10 seconds
+	public static final int DEFAULT_GROUP_CACHE_SIZE = 100;
+	public static final int READER_KEYS_PER_GROUP = 100;
+
+	private static volatile long groupTimeout = DEFAULT_GROUP_TIMEOUT;
+	private static volatile int groupCacheSize = DEFAULT_GROUP_CACHE_SIZE;
+
+	private static class UnlockedGroup {
+		private final GroupAgentImpl group;
+		// id of the member group this group has been unlocked with, null if unlocked by the main agent
+		private final String openedVia;
+		private volatile long checked;
+		// envelope keys decrypted with this group, keyed by their encrypted form
+		private final LinkedHashMap<ByteBuffer, SecretKey> readerKeys = new LinkedHashMap<ByteBuffer, SecretKey>(16,
+				0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ByteBuffer, SecretKey> eldest) {
+				return size() > READER_KEYS_PER_GROUP;
+			}
+		};
+
+		private UnlockedGroup(GroupAgentImpl group, String openedVia, long checked) {
+			this.group = group;
+			this.openedVia = openedVia;
+			this.checked = checked;
+		}
+	}
 
-	private Hashtable<String, GroupAgentImpl> groupAgents = new Hashtable<>();
+	private final LinkedHashMap<String, UnlockedGroup> groupAgents = new LinkedHashMap<String, UnlockedGroup>(16,
+			0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, UnlockedGroup> eldest) {
+			return size() > groupCacheSize;
+		}
+	};
+
+	private AgentImpl agent;
 
 	private Node localNode;
 
@@ -66,33 +113,91 @@ public class AgentContext implements AgentStorage {
 	/**
 	 * Tries to open the given id for this context.
 	 * 
+	 * Unlocked groups are cached in this context. After {@link #getGroupTimeout()} a cached group is checked against
+	 * the group in the network. If its members or their keys have changed, e. g. because a member has been revoked,
+	 * the group is unlocked again. If the group can not be fetched, the cached group is dropped and the request fails,
+	 * so a revoked member can not keep using the group while the network is unavailable.
+	 * 
 	 * @param groupId The group id to fetch and unlock
 	 * @return the unlocked GroupAgent of the given id
 	 * @throws AgentAccessDeniedException If the group agent can not be unlocked
 	 * @throws AgentNotFoundException If the group agent could not be found or is not a group agent
-	 * @throws AgentOperationFailedException If the agent's keys can not be deserialized
+	 * @throws AgentOperationFailedException If the agent can not be fetched or its keys can not be deserialized
 	 */
 	public GroupAgentImpl requestGroupAgent(String groupId)
 			throws AgentAccessDeniedException, AgentNotFoundException, AgentOperationFailedException {
-		if (groupAgents.containsKey(groupId)) {
-			return groupAgents.get(groupId);
+		return requestGroupAgent(groupId, new HashSet<String>());
+	}
+
+	private GroupAgentImpl requestGroupAgent(String groupId, Set<String> opening)
+			throws AgentAccessDeniedException, AgentNotFoundException, AgentOperationFailedException {
+		if (!opening.add(groupId)) {
+			throw new AgentAccessDeniedException("Group " + groupId + " is a member of itself");
 		}
+		try {
+			UnlockedGroup cached;
+			synchronized (groupAgents) {
+				cached = groupAgents.get(groupId);
+			}
+			if (cached != null && cached.checked + groupTimeout > System.currentTimeMillis()) {
+				return cached.group;
+			}
+
+			GroupAgentImpl group = fetchGroupAgent(groupId);
+			if (cached != null) {
+				if (group.hasSameMemberKeys(cached.group) && isStillOpenable(cached, opening)) {
+					cached.checked = System.currentTimeMillis();
+					return cached.group;
+				}
+				removeGroupAgent(groupId);
+			}
+			return unlockGroupAgent(group, opening);
+		} finally {
+			opening.remove(groupId);
+		}
+	}
 
+	/**
+	 * fetches the group agent from the network, drops the cached group if it can not be fetched
+	 */
+	private GroupAgentImpl fetchGroupAgent(String groupId)
+			throws AgentNotFoundException, AgentOperationFailedException {
 		AgentImpl agent;
 		try {
 			agent = localNode.getAgent(groupId);
 		} catch (AgentNotFoundException e) {
+			removeGroupAgent(groupId);
 			throw e;
 		} catch (AgentException e1) {
+			removeGroupAgent(groupId);
 			throw new AgentOperationFailedException(e1);
 		}
 
 		if (!(agent instanceof GroupAgentImpl)) {
+			removeGroupAgent(groupId);
 			throw new AgentNotFoundException("Agent " + groupId + " is not a group agent!");
 		}
+		return (GroupAgentImpl) agent;
+	}
 
-		GroupAgentImpl group = (GroupAgentImpl) agent;
+	/**
+	 * checks, if the member group a cached group has been unlocked with can still be unlocked
+	 */
+	private boolean isStillOpenable(UnlockedGroup cached, Set<String> opening) {
+		if (cached.openedVia == null) {
+			return true;
+		}
+		try {
+			requestGroupAgent(cached.openedVia, opening);
+			return true;
+		} catch (AgentException e) {
+			return false;
+		}
+	}
 
+	private GroupAgentImpl unlockGroupAgent(GroupAgentImpl group, Set<String> opening)
+			throws AgentAccessDeniedException, AgentOperationFailedException {
+		String openedVia = null;
 		if (group.hasMember(this.getMainAgent())) {
 			try {
 				group.unlock(this.getMainAgent());
@@ -102,8 +207,9 @@ public class AgentContext implements AgentStorage {
 		} else {
 			for (String memberId : group.getMemberList()) {
 				try {
-					GroupAgentImpl member = requestGroupAgent(memberId);
+					GroupAgentImpl member = requestGroupAgent(memberId, opening);
 					group.unlock(member);
+					openedVia = memberId;
 					break;
 				} catch (Exception e) {
 					// do nothing
@@ -115,11 +221,75 @@ public class AgentContext implements AgentStorage {
 			throw new AgentAccessDeniedException("Unable to open group!");
 		}
 
-		groupAgents.put(groupId, group);
+		synchronized (groupAgents) {
+			groupAgents.put(group.getIdentifier(), new UnlockedGroup(group, openedVia, System.currentTimeMillis()));
+		}
 
 		return group;
 	}
 
+	/**
+	 * Decrypts the key of an envelope that is readable by the given group. Keys decrypted with a group unlocked in this
+	 * context are cached as long as the group is, so reading the same envelope again needs no asymmetric decryption.
+	 * 
+	 * @param group An unlocked group, usually requested via {@link #requestGroupAgent(String)}
+	 * @param encryptedKey The key of the envelope encrypted for the given group
+	 * @return the decrypted envelope key
+	 * @throws AgentLockedException If the group is locked
+	 * @throws SerializationException If the decrypted key can not be deserialized
+	 * @throws CryptoException If the key can not be decrypted
+	 */
+	public SecretKey decryptGroupReaderKey(GroupAgentImpl group, byte[] encryptedKey)
+			throws AgentLockedException, SerializationException, CryptoException {
+		UnlockedGroup cached;
+		synchronized (groupAgents) {
+			cached = groupAgents.get(group.getIdentifier());
+		}
+		if (cached == null || cached.group != group) {
+			return group.decryptSymmetricKey(encryptedKey);
+		}
+		ByteBuffer cacheKey = ByteBuffer.wrap(encryptedKey.clone());
+		SecretKey result;
+		synchronized (cached.readerKeys) {
+			result = cached.readerKeys.get(cacheKey);
+		}
+		if (result == null) {
+			result = group.decryptSymmetricKey(encryptedKey);
+			synchronized (cached.readerKeys) {
+				cached.readerKeys.put(cacheKey, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * returns the cached group, after checking it like {@link #requestGroupAgent(String)} does, if it has expired
+	 * 
+	 * @return the unlocked group or null, if it is not cached or could not be opened again
+	 */
+	private GroupAgentImpl getCachedGroupAgent(String groupId) {
+		UnlockedGroup cached;
+		synchronized (groupAgents) {
+			cached = groupAgents.get(groupId);
+		}
+		if (cached == null) {
+			return null;
+		} else if (cached.checked + groupTimeout > System.currentTimeMillis()) {
+			return cached.group;
+		}
+		try {
+			return requestGroupAgent(groupId);
+		} catch (AgentException e) {
+			return null;
+		}
+	}
+
+	private void removeGroupAgent(String groupId) {
+		synchronized (groupAgents) {
+			groupAgents.remove(groupId);
+		}
+	}
+
 	/**
 	 * returns an unlocked instance of the requested Agent
 	 * 
@@ -169,7 +339,8 @@ public class AgentContext implements AgentStorage {
 	}
 
 	/**
-	 * Checks if the given agent is transitive member of the given group.
+	 * Checks if the given agent is transitive member of the given group. The members of the given group are looked up
+	 * in the {@link GroupMembershipIndex} of the local node, so member groups are only fetched once in a while.
 	 * 
 	 * @param groupAgent The group
 	 * @param agentId the agent to check if its member of the group
@@ -179,19 +350,7 @@ public class AgentContext implements AgentStorage {
 		if (groupAgent.hasMember(agentId)) {
 			return true;
 		}
-		for (String memberId : groupAgent.getMemberList()) {
-			try {
-				AgentImpl agent = getAgent(memberId);
-				if (agent instanceof GroupAgentImpl) {
-					GroupAgentImpl group = (GroupAgentImpl) agent;
-					if (isMemberRecursive(group, agentId)) {
-						return true;
-					}
-				}
-			} catch (AgentException e) {
-			}
-		}
-		return false;
+		return localNode.getGroupMembershipIndex().isMemberOfAny(Arrays.asList(groupAgent.getMemberList()), agentId);
 	}
 
 	/**
@@ -221,7 +380,8 @@ public class AgentContext implements AgentStorage {
 
 	/**
 	 * Uses this context as {@link AgentStorage}. Returns agents that are unlocked in this context first. E.g. necessary
-	 * for opening a received {@link i5.las2peer.communication.Message}.
+	 * for opening a received {@link i5.las2peer.communication.Message}. Expired groups are checked against the network
+	 * first, like by {@link #requestGroupAgent(String)}.
 	 * 
 	 * @param id
 	 * @return get the agent of the given id
@@ -233,8 +393,8 @@ public class AgentContext implements AgentStorage {
 			return agent;
 		}
 
-		AgentImpl result;
-		if ((result = groupAgents.get(id)) != null) {
+		GroupAgentImpl result = getCachedGroupAgent(id);
+		if (result != null) {
 			return result;
 		}
 
@@ -243,7 +403,45 @@ public class AgentContext implements AgentStorage {
 
 	@Override
 	public boolean hasAgent(String id) {
-		return id.equalsIgnoreCase(agent.getIdentifier()) || groupAgents.containsKey(id);
+		if (id.equalsIgnoreCase(agent.getIdentifier())) {
+			return true;
+		}
+		return getCachedGroupAgent(id) != null;
+	}
+
+	/**
+	 * Sets how long an unlocked group is used by a context, before it is checked against the group in the network.
+	 * 
+	 * @param timeoutMs A timeout in milliseconds, 0 checks the group on each request
+	 */
+	public static void setGroupTimeout(long timeoutMs) {
+		if (timeoutMs < 0) {
+			throw new IllegalArgumentException("group timeout must not be negative");
+		}
+		groupTimeout = timeoutMs;
+	}
+
+	/**
+	 * @return how long an unlocked group is used before it is checked again in milliseconds
+	 */
+	public static long getGroupTimeout() {
+		return groupTimeout;
+	}
+
+	/**
+	 * Sets the maximum number of unlocked groups cached per context. Least recently used groups are removed first.
+	 * 
+	 * @param size The maximum number of groups
+	 */
+	public static void setGroupCacheSize(int size) {
+		groupCacheSize = size;
+	}
+
+	/**
+	 * @return the maximum number of unlocked groups cached per context
+	 */
+	public static int getGroupCacheSize() {
+		return groupCacheSize;
 	}
 
 	/**
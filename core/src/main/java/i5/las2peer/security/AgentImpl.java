@@ -2,13 +2,18 @@ package i5.las2peer.security;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Signature;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.crypto.SecretKey;
 
@@ -23,6 +28,7 @@ import i5.las2peer.api.security.AgentOperationFailedException;
 import i5.las2peer.communication.Message;
 import i5.las2peer.communication.MessageException;
 import i5.las2peer.p2p.Node;
+import i5.las2peer.persistency.VerificationFailedException;
 import i5.las2peer.serialization.MalformedXMLException;
 import i5.las2peer.serialization.SerializationException;
 import i5.las2peer.serialization.SerializeTools;
@@ -55,6 +61,21 @@ public abstract class AgentImpl implements Agent, XmlAble, Cloneable, MessageRec
 
 	private Node runningAt;
 
+	/**
+	 * maximum number of cached session keys per direction
+	 */
+	private static final int MAX_SESSION_KEYS = 256;
+
+	/**
+	 * session keys for messages sent by this agent, by recipient id
+	 */
+	private Map<String, SessionKey> outgoingSessionKeys = newSessionKeyCache();
+
+	/**
+	 * decrypted and verified session keys of messages received by this agent, by encrypted key
+	 */
+	private Map<ByteBuffer, IncomingSessionKey> incomingSessionKeys = newSessionKeyCache();
+
 	/**
 	 * Creates an empty agent.
 	 * 
@@ -98,6 +119,9 @@ public abstract class AgentImpl implements Agent, XmlAble, Cloneable, MessageRec
 	 */
 	public void lockPrivateKey() {
 		privateKey = null;
+		// new instances, since clones share these caches
+		outgoingSessionKeys = newSessionKeyCache();
+		incomingSessionKeys = newSessionKeyCache();
 	}
 
 	/**
@@ -199,6 +223,106 @@ public abstract class AgentImpl implements Agent, XmlAble, Cloneable, MessageRec
 		return symmetricGroupKey;
 	}
 
+	/**
+	 * Gets a session key for messages from this agent to the given recipient. A cached key is reused until it expires,
+	 * so the asymmetric encryption and signing of the key are only necessary once per key lifetime.
+	 * 
+	 * @param recipient The receiving agent
+	 * @param lifetimeMs How long a newly created key may be used for new messages
+	 * @return a session key for the given recipient
+	 * @throws AgentLockedException the private key has not been unlocked yet
+	 * @throws CryptoException If the key can not be encrypted or signed
+	 */
+	public SessionKey getSessionKey(AgentImpl recipient, long lifetimeMs)
+			throws AgentLockedException, CryptoException {
+		if (isLocked()) {
+			throw new AgentLockedException();
+		}
+		String recipientId = recipient.getIdentifier();
+		SessionKey sessionKey = outgoingSessionKeys.get(recipientId);
+		if (sessionKey == null || sessionKey.isExpired()) {
+			SecretKey key = CryptoTools.generateSymmetricKey();
+			byte[] encryptedKey;
+			try {
+				encryptedKey = CryptoTools.encryptAsymmetric(key, recipient.getPublicKey());
+			} catch (SerializationException e) {
+				throw new CryptoException("unable to serialize session key", e);
+			}
+			long expiresMs = System.currentTimeMillis() + lifetimeMs;
+			byte[] signature = signContent(
+					SessionKey.getSignedData(encryptedKey, getIdentifier(), recipientId, expiresMs));
+			sessionKey = new SessionKey(getIdentifier(), recipientId, key, encryptedKey, signature, expiresMs);
+			outgoingSessionKeys.put(recipientId, sessionKey);
+		}
+		return sessionKey;
+	}
+
+	/**
+	 * Decrypts a session key encrypted for this agent and verifies its signature. Keys already opened are taken from a
+	 * cache, so that messages sharing a session key need only one asymmetric decryption and signature verification.
+	 * 
+	 * @param crypted The encrypted session key
+	 * @param sender The agent that has signed the session key
+	 * @param expiresMs The signed expiration time of the session key
+	 * @param signature The signature of the sender, see {@link SessionKey#getSignedData(byte[], String, String, long)}
+	 * @return Returns the decrypted {@link javax.crypto.SecretKey}
+	 * @throws AgentLockedException the private key has not been unlocked yet
+	 * @throws CryptoException If an issue occurs with decryption or the signature is invalid.
+	 * @throws SerializationException If an issue occurs with deserializing the decrypted data.
+	 */
+	public SecretKey openSessionKey(byte[] crypted, AgentImpl sender, long expiresMs, byte[] signature)
+			throws AgentLockedException, SerializationException, CryptoException {
+		if (isLocked()) {
+			throw new AgentLockedException();
+		}
+		ByteBuffer cacheKey = ByteBuffer.wrap(crypted.clone());
+		IncomingSessionKey cached = incomingSessionKeys.get(cacheKey);
+		if (cached != null && cached.senderId.equalsIgnoreCase(sender.getIdentifier())
+				&& cached.expiresMs == expiresMs && Arrays.equals(cached.signature, signature)) {
+			return cached.key;
+		}
+		byte[] signedData = SessionKey.getSignedData(crypted, sender.getIdentifier(), getIdentifier(), expiresMs);
+		try {
+			if (!CryptoTools.verifySignature(signature, signedData, sender.getPublicKey())) {
+				throw new CryptoException("session key signature invalid");
+			}
+		} catch (VerificationFailedException e) {
+			throw new CryptoException("unable to verify session key signature", e);
+		}
+		SecretKey key = cached != null ? cached.key : decryptSymmetricKey(crypted);
+		incomingSessionKeys.put(cacheKey,
+				new IncomingSessionKey(key, sender.getIdentifier(), expiresMs, signature.clone()));
+		return key;
+	}
+
+	/**
+	 * a decrypted session key together with the verified signature of its sender
+	 */
+	private static class IncomingSessionKey {
+		private final SecretKey key;
+		private final String senderId;
+		private final long expiresMs;
+		private final byte[] signature;
+
+		private IncomingSessionKey(SecretKey key, String senderId, long expiresMs, byte[] signature) {
+			this.key = key;
+			this.senderId = senderId;
+			this.expiresMs = expiresMs;
+			this.signature = signature;
+		}
+	}
+
+	private static <K, V> Map<K, V> newSessionKeyCache() {
+		return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > MAX_SESSION_KEYS;
+			}
+		});
+	}
+
 	/**
 	 * Uses the {@link i5.las2peer.tools.CryptoTools} to create a {@link Signature java.security.Signature} and
 	 * initializes the object for signing with the agent's private key.
@@ -19,6 +19,8 @@ import java.security.KeyPair;
 import java.security.PublicKey;
 import java.util.Base64;
 
+import javax.crypto.SecretKey;
+
 /**
  * User agent for las2peer networks with blockchain-based registry.
  *
@@ -93,8 +95,9 @@ public class EthereumAgent extends UserAgentImpl {
 	}
 
 	@Override
-	public void unlock(String passphrase) throws AgentAccessDeniedException, AgentOperationFailedException {
-		super.unlock(passphrase);
+	public void unlock(String passphrase, SecretKey passphraseKey)
+			throws AgentAccessDeniedException, AgentOperationFailedException {
+		super.unlock(passphrase, passphraseKey);
 
 		credentials = CredentialUtils.fromMnemonic(ethereumMnemonic, passphrase);
 		registryClient = new ReadWriteRegistryClient(new RegistryConfiguration(), credentials);
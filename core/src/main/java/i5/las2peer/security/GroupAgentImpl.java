@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.security.KeyPair;
 import java.security.PublicKey;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -113,6 +114,26 @@ public class GroupAgentImpl extends AgentImpl implements GroupAgent {
 		}
 	}
 
+	/**
+	 * checks, if the given instance of this group has the same members with the same encrypted group keys, e. g. to
+	 * find out if a cached instance is still up to date
+	 * 
+	 * @param other Another instance of this group
+	 * @return true, if both instances grant access to the same members
+	 */
+	boolean hasSameMemberKeys(GroupAgentImpl other) {
+		if (!getIdentifier().equals(other.getIdentifier())
+				|| htEncryptedKeyVersions.size() != other.htEncryptedKeyVersions.size()) {
+			return false;
+		}
+		for (Map.Entry<String, byte[]> entry : htEncryptedKeyVersions.entrySet()) {
+			if (!Arrays.equals(entry.getValue(), other.htEncryptedKeyVersions.get(entry.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * add a member to this group
 	 * 
@@ -209,6 +230,16 @@ public class GroupAgentImpl extends AgentImpl implements GroupAgent {
 		openedBy = null;
 	}
 
+	@Override
+	protected Object clone() throws CloneNotSupportedException {
+		GroupAgentImpl result = (GroupAgentImpl) super.clone();
+		// member changes of a copy must not affect this instance
+		result.htEncryptedKeyVersions = new HashMap<>(htEncryptedKeyVersions);
+		result.membersToAdd = new HashMap<>(membersToAdd);
+		result.membersToRemove = new HashMap<>(membersToRemove);
+		return result;
+	}
+
 	@Override
 	public String toXmlString() {
 		try {
@@ -365,9 +396,10 @@ public class GroupAgentImpl extends AgentImpl implements GroupAgent {
 			try {
 				Message msg = null;
 				if (contentSerializable != null) {
-					msg = new Message(this, member, contentSerializable);
+					msg = new Message(this, member, contentSerializable, Message.DEFAULT_TIMEOUT,
+							getRunningAtNode());
 				} else if (contentXmlAble != null) {
-					msg = new Message(this, member, contentXmlAble);
+					msg = new Message(this, member, contentXmlAble, Message.DEFAULT_TIMEOUT, getRunningAtNode());
 				} else {
 					getRunningAtNode().observerNotice(MonitoringEvent.SERVICE_ERROR,
 							"The message content is null. Dropping message!");
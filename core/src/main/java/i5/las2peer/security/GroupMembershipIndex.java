@@ -0,0 +1,402 @@
+package i5.las2peer.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import i5.las2peer.api.security.AgentException;
+import i5.las2peer.api.security.AgentNotFoundException;
+
+/**
+ * Node wide index of group memberships, used to check transitive memberships without fetching each member again.
+ *
+ * For each known group the index stores its direct members, for any other agent only that it is no group. The
+ * transitive members of a group are computed from these entries and cached, too. Member lists are public, so one index
+ * is shared by all contexts of a node.
+ *
+ * A group is fetched again after {@link #getTimeout()}. Only if its member list has changed, the transitive members of
+ * the groups containing it are computed again. Agents that could not be found are fetched again after the timeout,
+ * too, since they may be stored later. If a group can not be fetched, it is removed from the index, so no membership
+ * is granted from an outdated entry. All agents of one nesting level that have to be fetched are fetched in parallel.
+ */
+public class GroupMembershipIndex {
+
+	public static final long DEFAULT_TIMEOUT = 10 * 1000; // 10 seconds
+	public static final int DEFAULT_MAX_SIZE = 10000;
+	public static final int FETCH_THREADS = 8;
+
+	// check time of agents that exist, but are no groups, these are never fetched again
+	private static final long NO_GROUP = Long.MAX_VALUE;
+
+	private static final ExecutorService fetchExecutor;
+	static {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "las2peer-group-index");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		fetchExecutor = executor;
+	}
+
+	private static class GroupEntry {
+		private final Set<String> members;
+		private volatile long checked;
+
+		private GroupEntry(Set<String> members, long checked) {
+			this.members = members;
+			this.checked = checked;
+		}
+	}
+
+	private static class TransitiveMembers {
+		private final Set<String> members;
+		// all groups the members have been collected from, including the group itself
+		private final Set<String> groups;
+		// time of the oldest check of these groups
+		private final long checked;
+
+		private TransitiveMembers(Set<String> members, Set<String> groups, long checked) {
+			this.members = members;
+			this.groups = groups;
+			this.checked = checked;
+		}
+	}
+
+	private final AgentStorage storage;
+
+	private final LinkedHashMap<String, GroupEntry> groups = new LinkedHashMap<String, GroupEntry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, GroupEntry> eldest) {
+			return size() > maxSize;
+		}
+	};
+	// time of the last check of agents that are no groups or could not be found
+	private final LinkedHashMap<String, Long> nonGroups = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+			return size() > maxSize;
+		}
+	};
+	private final LinkedHashMap<String, TransitiveMembers> transitive = new LinkedHashMap<String, TransitiveMembers>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, TransitiveMembers> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private final AtomicLong fetches = new AtomicLong();
+
+	private volatile long timeout = DEFAULT_TIMEOUT;
+	private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+	/**
+	 * Creates a new index.
+	 *
+	 * @param storage The storage agents are fetched from, usually the node
+	 */
+	public GroupMembershipIndex(AgentStorage storage) {
+		this.storage = storage;
+	}
+
+	/**
+	 * Checks if the given agent is a transitive member of the given group.
+	 *
+	 * @param groupId The id of a group. If it is no group, no agent is its member.
+	 * @param agentId The id of an agent
+	 * @return true, if the agent is a member of the group or of one of its member groups
+	 */
+	public boolean isMember(String groupId, String agentId) {
+		return isMemberOfAny(Collections.singleton(groupId), agentId);
+	}
+
+	/**
+	 * Checks if the given agent is a transitive member of any of the given groups. Groups that are not known yet are
+	 * fetched together.
+	 *
+	 * @param groupIds Ids of groups. Ids of other agents are ignored.
+	 * @param agentId The id of an agent
+	 * @return true, if the agent is a member of any of the groups or of one of their member groups
+	 */
+	public boolean isMemberOfAny(Collection<String> groupIds, String agentId) {
+		List<String> outdated = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			for (String groupId : groupIds) {
+				TransitiveMembers cached = transitive.get(groupId);
+				if (cached != null && cached.checked + timeout > now) {
+					if (cached.members.contains(agentId)) {
+						return true;
+					}
+				} else if (!isNonGroup(groupId, now)) {
+					outdated.add(groupId);
+				}
+			}
+		}
+		if (outdated.isEmpty()) {
+			return false;
+		}
+		refresh(outdated);
+		for (String groupId : outdated) {
+			if (getTransitiveMembers(groupId).contains(agentId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets all transitive members of the given group.
+	 *
+	 * @param groupId The id of a group
+	 * @return an unmodifiable set of all members of the group and its member groups, empty if the id is no group
+	 */
+	public Set<String> getMembers(String groupId) {
+		synchronized (this) {
+			TransitiveMembers cached = transitive.get(groupId);
+			if (cached != null && cached.checked + timeout > System.currentTimeMillis()) {
+				return cached.members;
+			} else if (isNonGroup(groupId, System.currentTimeMillis())) {
+				return Collections.emptySet();
+			}
+		}
+		refresh(Collections.singletonList(groupId));
+		return getTransitiveMembers(groupId);
+	}
+
+	/**
+	 * Updates the entry of the given group, e. g. after it has been stored by this node.
+	 *
+	 * @param group A group agent
+	 */
+	public void update(GroupAgentImpl group) {
+		Set<String> members = new HashSet<>(Arrays.asList(group.getMemberList()));
+		String groupId = group.getIdentifier();
+		synchronized (this) {
+			GroupEntry previous = groups.put(groupId, new GroupEntry(members, System.currentTimeMillis()));
+			nonGroups.remove(groupId);
+			if (previous == null || !previous.members.equals(members)) {
+				invalidateTransitive(groupId);
+			}
+		}
+	}
+
+	/**
+	 * Removes the given agent from the index.
+	 *
+	 * @param agentId An agent id
+	 */
+	public synchronized void invalidate(String agentId) {
+		groups.remove(agentId);
+		nonGroups.remove(agentId);
+		invalidateTransitive(agentId);
+	}
+
+	/**
+	 * Removes all entries from the index.
+	 */
+	public synchronized void clear() {
+		groups.clear();
+		nonGroups.clear();
+		transitive.clear();
+	}
+
+	/**
+	 * Sets how long a group is used before it is fetched again.
+	 *
+	 * @param timeoutMs A timeout in milliseconds, 0 fetches all groups again on each check
+	 */
+	public void setTimeout(long timeoutMs) {
+		this.timeout = timeoutMs;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Sets the maximum number of groups and of other agents kept in the index. Least recently used entries are removed
+	 * first.
+	 *
+	 * @param maxSize The maximum number of entries
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the number of groups in the index
+	 */
+	public synchronized int getGroupCount() {
+		return groups.size();
+	}
+
+	/**
+	 * @return how many agents have been fetched by this index
+	 */
+	public long getFetches() {
+		return fetches.get();
+	}
+
+	/**
+	 * Fetches all outdated or unknown groups reachable from the given groups, one nesting level after the other.
+	 */
+	private void refresh(Collection<String> groupIds) {
+		Set<String> visited = new HashSet<>();
+		Set<String> level = new LinkedHashSet<>(groupIds);
+		while (!level.isEmpty()) {
+			List<String> toFetch = new ArrayList<>();
+			long now = System.currentTimeMillis();
+			synchronized (this) {
+				for (String id : level) {
+					GroupEntry entry = groups.get(id);
+					if (entry == null ? !isNonGroup(id, now) : entry.checked + timeout <= now) {
+						toFetch.add(id);
+					}
+				}
+			}
+			fetchAll(toFetch);
+			visited.addAll(level);
+			Set<String> next = new LinkedHashSet<>();
+			synchronized (this) {
+				for (String id : level) {
+					GroupEntry entry = groups.get(id);
+					if (entry != null) {
+						for (String member : entry.members) {
+							if (!visited.contains(member)) {
+								next.add(member);
+							}
+						}
+					}
+				}
+			}
+			level = next;
+		}
+	}
+
+	private void fetchAll(List<String> ids) {
+		if (ids.size() == 1) {
+			fetch(ids.get(0));
+			return;
+		}
+		List<CompletableFuture<Void>> futures = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			futures.add(CompletableFuture.runAsync(() -> fetch(id), fetchExecutor));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+	}
+
+	private void fetch(String id) {
+		fetches.incrementAndGet();
+		AgentImpl agent;
+		try {
+			agent = storage.getAgent(id);
+		} catch (AgentNotFoundException e) {
+			agent = null;
+		} catch (AgentException e) {
+			// unknown for now, fetched again with the next check
+			invalidate(id);
+			return;
+		}
+		if (agent instanceof GroupAgentImpl) {
+			update((GroupAgentImpl) agent);
+		} else {
+			synchronized (this) {
+				if (groups.remove(id) != null) {
+					invalidateTransitive(id);
+				}
+				nonGroups.put(id, agent != null ? NO_GROUP : System.currentTimeMillis());
+			}
+		}
+	}
+
+	/**
+	 * checks if the given agent is known to be no group, must be called while holding the lock
+	 */
+	private boolean isNonGroup(String id, long now) {
+		Long checked = nonGroups.get(id);
+		return checked != null && (checked == NO_GROUP || checked + timeout > now);
+	}
+
+	/**
+	 * computes the transitive members of a group from the known entries, returns an empty set for unknown groups. The
+	 * result is only cached, if the kind of all members is known.
+	 */
+	private synchronized Set<String> getTransitiveMembers(String groupId) {
+		GroupEntry root = groups.get(groupId);
+		if (root == null) {
+			return Collections.emptySet();
+		}
+		Set<String> members = new HashSet<>();
+		Set<String> visitedGroups = new HashSet<>();
+		long checked = root.checked;
+		boolean complete = true;
+		List<String> pending = new ArrayList<>();
+		pending.add(groupId);
+		visitedGroups.add(groupId);
+		while (!pending.isEmpty()) {
+			GroupEntry entry = groups.get(pending.remove(pending.size() - 1));
+			if (entry == null) {
+				continue;
+			}
+			checked = Math.min(checked, entry.checked);
+			for (String member : entry.members) {
+				members.add(member);
+				if (groups.containsKey(member)) {
+					if (visitedGroups.add(member)) {
+						pending.add(member);
+					}
+				} else if (isNonGroup(member, System.currentTimeMillis())) {
+					checked = Math.min(checked, nonGroups.get(member));
+				} else {
+					complete = false;
+				}
+			}
+		}
+		Set<String> result = Collections.unmodifiableSet(members);
+		if (complete) {
+			transitive.put(groupId, new TransitiveMembers(result, visitedGroups, checked));
+		}
+		return result;
+	}
+
+	/**
+	 * removes all transitive members computed from the given agent, must be called while holding the lock
+	 */
+	private void invalidateTransitive(String agentId) {
+		Iterator<TransitiveMembers> it = transitive.values().iterator();
+		while (it.hasNext()) {
+			TransitiveMembers cached = it.next();
+			if (cached.groups.contains(agentId) || cached.members.contains(agentId)) {
+				it.remove();
+			}
+		}
+	}
+
+}
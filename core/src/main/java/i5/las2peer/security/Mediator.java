@@ -3,6 +3,7 @@ package i5.las2peer.security;
 import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 import i5.las2peer.api.execution.ServiceInvocationException;
 import i5.las2peer.api.logging.MonitoringEvent;
@@ -222,6 +223,20 @@ public class Mediator implements MessageReceiver {
 		return runningAt.invoke(myAgent, serviceNameVersion, method, parameters, false, localOnly);
 	}
 
+	/**
+	 * Invokes a service method (in the network) for the mediated agent without waiting for the result.
+	 * 
+	 * @param serviceNameVersion the service and version to invoke
+	 * @param method method to invoke
+	 * @param parameters list of method parameters
+	 * @param localOnly if true, only services on this node are invoked
+	 * @return future result of the method invocation
+	 */
+	public CompletableFuture<Serializable> invokeAsync(ServiceNameVersion serviceNameVersion, String method,
+			Serializable[] parameters, boolean localOnly) {
+		return runningAt.invokeAsync(myAgent, serviceNameVersion, method, parameters, false, localOnly);
+	}
+
 	/**
 	 * Gets the number of waiting messages.
 	 * 
@@ -65,14 +65,39 @@ public abstract class PassphraseAgentImpl extends AgentImpl implements Passphras
 	@Override
 	public void unlock(String passphrase) throws AgentAccessDeniedException, AgentOperationFailedException {
 		try {
-			SecretKey key = CryptoTools.generateKeyForPassphrase(passphrase, salt);
-			super.unlockPrivateKey(key);
-			this.passphrase = passphrase;
+			unlock(passphrase, derivePassphraseKey(passphrase));
 		} catch (CryptoException e) {
 			throw new AgentAccessDeniedException("unable to create key from passphrase", e);
 		}
 	}
 
+	/**
+	 * Unlocks the private key with a key derived from the given passphrase before. This skips the costly key
+	 * derivation, e. g. when unlocking a fresh instance of an agent that has been unlocked recently.
+	 * 
+	 * @param passphrase The passphrase the key has been derived from
+	 * @param passphraseKey The key as returned by {@link #derivePassphraseKey(String)}
+	 * @throws AgentAccessDeniedException If the key does not unlock the private key, e. g. since the passphrase has
+	 *             been changed in the meantime
+	 * @throws AgentOperationFailedException If the private key can not be deserialized
+	 */
+	public void unlock(String passphrase, SecretKey passphraseKey)
+			throws AgentAccessDeniedException, AgentOperationFailedException {
+		super.unlockPrivateKey(passphraseKey);
+		this.passphrase = passphrase;
+	}
+
+	/**
+	 * Derives the key protecting the private key from the given passphrase.
+	 * 
+	 * @param passphrase A passphrase
+	 * @return the key for {@link #unlock(String, SecretKey)}, valid until the passphrase is changed
+	 * @throws CryptoException If the key can not be derived
+	 */
+	public SecretKey derivePassphraseKey(String passphrase) throws CryptoException {
+		return CryptoTools.generateKeyForPassphrase(passphrase, salt);
+	}
+
 	@Override
 	public void unlockPrivateKey(String passphrase) throws AgentAccessDeniedException, AgentOperationFailedException {
 		unlock(passphrase);
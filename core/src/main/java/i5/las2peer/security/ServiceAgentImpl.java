@@ -6,9 +6,12 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.KeyPair;
 import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.w3c.dom.Element;
 
@@ -18,6 +21,7 @@ import i5.las2peer.api.execution.InternalServiceException;
 import i5.las2peer.api.execution.ServiceInvocationException;
 import i5.las2peer.api.execution.ServiceInvocationFailedException;
 import i5.las2peer.api.execution.ServiceMethodNotFoundException;
+import i5.las2peer.api.execution.ServiceNotAvailableException;
 import i5.las2peer.api.logging.MonitoringEvent;
 import i5.las2peer.api.p2p.ServiceNameVersion;
 import i5.las2peer.api.security.AgentAccessDeniedException;
@@ -34,9 +38,16 @@ import i5.las2peer.communication.RMIExceptionContent;
 import i5.las2peer.communication.RMIResultContent;
 import i5.las2peer.communication.ServiceDiscoveryContent;
 import i5.las2peer.execution.ExecutionContext;
+import i5.las2peer.execution.RMIBatchTask;
 import i5.las2peer.execution.RMITask;
+import i5.las2peer.execution.ServiceExecutor;
 import i5.las2peer.execution.ServiceHelper;
+import i5.las2peer.execution.ServiceThread;
 import i5.las2peer.logging.L2pLogger;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.LatencyHistogram;
+import i5.las2peer.logging.metrics.MetricFamily;
+import i5.las2peer.logging.metrics.MetricsRegistry;
 import i5.las2peer.p2p.AliasConflictException;
 import i5.las2peer.p2p.Node;
 import i5.las2peer.p2p.NodeNotFoundException;
@@ -55,11 +66,25 @@ import i5.las2peer.tools.SimpleTools;
  */
 public class ServiceAgentImpl extends PassphraseAgentImpl implements ServiceAgent {
 
+	private static final MetricFamily<LatencyHistogram> callDuration = MetricsRegistry.getDefault().histogram(
+			"las2peer_service_call_duration_seconds", "Execution time of service methods", "service", "method");
+	private static final MetricFamily<Counter> callFailures = MetricsRegistry.getDefault().counter(
+			"las2peer_service_call_failures_total", "Failed executions of service methods", "service", "method");
+	/**
+	 * method label of calls to methods the service does not have, since their names are chosen by the caller
+	 */
+	private static final String UNKNOWN_METHOD = "unknown";
+
 	/**
 	 * the name of the service class, this agent represents in the network
 	 */
 	private ServiceNameVersion nameVersion;
 
+	/**
+	 * string form of {@link #nameVersion} used as metrics label
+	 */
+	private String metricsLabel;
+
 	/**
 	 * instance of the service (if started at a node)
 	 */
@@ -150,6 +175,19 @@ public class ServiceAgentImpl extends PassphraseAgentImpl implements ServiceAgen
 							m.getSender(), getRunningAtNode().getNodeId(), this, "Exception: " + e);
 				}
 
+				response.setSendingNodeId(getRunningAtNode().getNodeId());
+				getRunningAtNode().sendResponse(response, m.getSendingNodeId());
+			} else if (content instanceof RMIBatchTask) {
+				RMIBatchTask batch = (RMIBatchTask) content;
+				getRunningAtNode().observerNotice(MonitoringEvent.SERVICE_INVOCATION, m.getSendingNodeId(),
+						m.getSender(), getRunningAtNode().getNodeId(), this,
+						this.getServiceNameVersion() + "/batch of " + batch.getTasks().length);
+
+				Message response = new Message(m, new RMIResultContent(handle(batch, c)));
+				getRunningAtNode().observerNotice(MonitoringEvent.SERVICE_INVOCATION_FINISHED, m.getSendingNodeId(),
+						m.getSender(), getRunningAtNode().getNodeId(), this,
+						this.getServiceNameVersion() + "/batch of " + batch.getTasks().length);
+
 				response.setSendingNodeId(getRunningAtNode().getNodeId());
 				getRunningAtNode().sendResponse(response, m.getSendingNodeId());
 			} else if (content instanceof ListMethodsContent) {
@@ -170,7 +208,12 @@ public class ServiceAgentImpl extends PassphraseAgentImpl implements ServiceAgen
 				getRunningAtNode().sendResponse(response, m.getSendingNodeId());
 			} else if (content instanceof ServiceDiscoveryContent) {
 				if (!((ServiceDiscoveryContent) content).isRequest()) {
-					throw new MessageException("Got a ServiceDiscovery response - can't handle it!");
+					// announcement of another instance of this service
+					if (!getIdentifier().equals(((ServiceDiscoveryContent) content).getAgentId())) {
+						getRunningAtNode().getNodeServiceCache().receiveAnnouncement((ServiceDiscoveryContent) content,
+								m.getSendingNodeId());
+					}
+					return;
 				}
 				if (m.getSendingNodeId() == null) {
 					throw new MessageException("If no sendind node is given - where should I send the answer to?!");
@@ -464,47 +507,142 @@ public class ServiceAgentImpl extends PassphraseAgentImpl implements ServiceAgen
 	 * @throws IllegalArgumentException
 	 */
 	public Serializable handle(RMITask task, AgentContext agentContext) throws ServiceInvocationException {
-		if (!getServiceNameVersion().equals(task.getServiceNameVersion())) {
-			throw new ServiceInvocationFailedException("Service is not matching requested class!"
-					+ getServiceNameVersion() + "/" + task.getServiceNameVersion());
-		}
+		checkTask(task);
 
-		// init context and executor
+		// init context
 		ExecutionContext context = new ExecutionContext(this, agentContext, agentContext.getLocalNode());
-		ExecutorService executor = context.getExecutor();
 
 		// execute
 		try {
-			return executor.submit(() -> {
-				Object res = invoke(task.getMethodName(), task.getParameters());
+			return agentContext.getLocalNode().getServiceExecutor().invoke(context, () -> execute(task));
+		} catch (RejectedExecutionException e) {
+			throw new ServiceNotAvailableException("Node is overloaded, service call rejected", e);
+		} catch (ExecutionException e) {
+			throw invocationFailure(e);
+		} catch (Exception e) {
+			throw new ServiceInvocationFailedException("Service invocation failed", e);
+		} finally {
+			context.close();
+		}
+	}
 
-				if (res == null) {
-					return null;
-				}
+	/**
+	 * execute a batch of RMITasks
+	 * 
+	 * Each task is executed with its own context and a failing task does not affect the others. Parallel batches are
+	 * executed in order, if called from within a service call, to avoid waiting for a saturated pool.
+	 * 
+	 * @param batch
+	 * @param agentContext
+	 * @return one {@link RMIResultContent} or {@link RMIExceptionContent} per task
+	 */
+	public Serializable[] handle(RMIBatchTask batch, AgentContext agentContext) {
+		RMITask[] tasks = batch.getTasks();
+		Serializable[] results = new Serializable[tasks.length];
 
-				if (!(res instanceof Serializable)) {
-					throw new ServiceInvocationFailedException(
-							"Result is not serializable: " + res.getClass() + " / " + res);
+		if (!batch.isParallel() || tasks.length < 2 || ServiceThread.hasContext()) {
+			for (int i = 0; i < tasks.length; i++) {
+				try {
+					results[i] = new RMIResultContent(handle(tasks[i], agentContext));
+				} catch (ServiceInvocationException e) {
+					results[i] = new RMIExceptionContent(e);
 				}
+			}
+			return results;
+		}
 
-				return (Serializable) res;
-			}).get();
-		} catch (ExecutionException e) {
-			if (e.getCause() instanceof InvocationTargetException) {
-				if (e.getCause().getCause() instanceof ServiceInvocationException) {
-					throw (ServiceInvocationException) e.getCause().getCause();
-				} else {
-					throw new InternalServiceException("Internal exception in service", e.getCause());
+		ServiceExecutor executor = agentContext.getLocalNode().getServiceExecutor();
+		ExecutionContext[] contexts = new ExecutionContext[tasks.length];
+		List<Future<Serializable>> pending = new ArrayList<>(tasks.length);
+		for (int i = 0; i < tasks.length; i++) {
+			RMITask task = tasks[i];
+			Future<Serializable> future = null;
+			try {
+				checkTask(task);
+				contexts[i] = new ExecutionContext(this, agentContext, agentContext.getLocalNode());
+				future = executor.submit(contexts[i], () -> execute(task));
+			} catch (ServiceInvocationException e) {
+				results[i] = new RMIExceptionContent(e);
+			} catch (RejectedExecutionException e) {
+				results[i] = new RMIExceptionContent(
+						new ServiceNotAvailableException("Node is overloaded, service call rejected", e));
+			}
+			pending.add(future);
+		}
+
+		for (int i = 0; i < tasks.length; i++) {
+			Future<Serializable> future = pending.get(i);
+			try {
+				if (future != null) {
+					results[i] = new RMIResultContent(future.get());
+				}
+			} catch (ExecutionException e) {
+				results[i] = new RMIExceptionContent(invocationFailure(e));
+			} catch (InterruptedException e) {
+				future.cancel(true);
+				Thread.currentThread().interrupt();
+				results[i] = new RMIExceptionContent(
+						new ServiceInvocationFailedException("Service invocation failed", e));
+			} finally {
+				if (contexts[i] != null) {
+					contexts[i].close();
 				}
-			} else if (e.getCause() instanceof ServiceInvocationException) {
-				throw (ServiceInvocationException) e.getCause();
-			} else {
-				throw new ServiceInvocationFailedException("Service invocation failed", e);
 			}
+		}
+		return results;
+	}
+
+	private void checkTask(RMITask task) throws ServiceInvocationFailedException {
+		if (!getServiceNameVersion().equals(task.getServiceNameVersion())) {
+			throw new ServiceInvocationFailedException("Service is not matching requested class!"
+					+ getServiceNameVersion() + "/" + task.getServiceNameVersion());
+		}
+	}
+
+	private Serializable execute(RMITask task) throws Exception {
+		if (metricsLabel == null) {
+			metricsLabel = getServiceNameVersion().toString();
+		}
+		long start = System.nanoTime();
+		String method = task.getMethodName();
+		try {
+			return executeMethod(task);
 		} catch (Exception e) {
-			throw new ServiceInvocationFailedException("Service invocation failed", e);
+			if (e instanceof ServiceMethodNotFoundException) {
+				method = UNKNOWN_METHOD;
+			}
+			callFailures.get(metricsLabel, method).inc();
+			throw e;
 		} finally {
-			executor.shutdownNow();
+			callDuration.get(metricsLabel, method).recordSince(start);
+		}
+	}
+
+	private Serializable executeMethod(RMITask task) throws Exception {
+		Object res = invoke(task.getMethodName(), task.getParameters());
+
+		if (res == null) {
+			return null;
+		}
+
+		if (!(res instanceof Serializable)) {
+			throw new ServiceInvocationFailedException("Result is not serializable: " + res.getClass() + " / " + res);
+		}
+
+		return (Serializable) res;
+	}
+
+	private static ServiceInvocationException invocationFailure(ExecutionException e) {
+		if (e.getCause() instanceof InvocationTargetException) {
+			if (e.getCause().getCause() instanceof ServiceInvocationException) {
+				return (ServiceInvocationException) e.getCause().getCause();
+			} else {
+				return new InternalServiceException("Internal exception in service", e.getCause());
+			}
+		} else if (e.getCause() instanceof ServiceInvocationException) {
+			return (ServiceInvocationException) e.getCause();
+		} else {
+			return new ServiceInvocationFailedException("Service invocation failed", e);
 		}
 	}
 
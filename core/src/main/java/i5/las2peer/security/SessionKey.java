@@ -0,0 +1,99 @@
+package i5.las2peer.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.SecretKey;
+
+/**
+ * A symmetric key that is reused for several messages from one sender to one recipient.
+ *
+ * The key is encrypted for the recipient and the encrypted key is signed by the sender once on creation, together
+ * with its expiration time. Messages using a session key carry both, so the recipient has to decrypt the key and
+ * verify the sender only once, while the content of each single message is protected by authenticated symmetric
+ * encryption.
+ *
+ * Since the recipient knows the key as well, the content of such a message is not signed by the sender. The recipient
+ * can be sure the message was sent by the sender, but unlike a signed message it can not prove this to others.
+ *
+ */
+public final class SessionKey {
+
+	private final String senderId;
+	private final String recipientId;
+	private final SecretKey key;
+	private final byte[] encryptedKey;
+	private final byte[] signature;
+	private final long expiresMs;
+
+	SessionKey(String senderId, String recipientId, SecretKey key, byte[] encryptedKey, byte[] signature,
+			long expiresMs) {
+		this.senderId = senderId;
+		this.recipientId = recipientId;
+		this.key = key;
+		this.encryptedKey = encryptedKey;
+		this.signature = signature;
+		this.expiresMs = expiresMs;
+	}
+
+	public String getSenderId() {
+		return senderId;
+	}
+
+	public String getRecipientId() {
+		return recipientId;
+	}
+
+	/**
+	 * @return the plain symmetric key
+	 */
+	public SecretKey getKey() {
+		return key;
+	}
+
+	/**
+	 * @return the symmetric key encrypted with the public key of the recipient
+	 */
+	public byte[] getEncryptedKey() {
+		return encryptedKey.clone();
+	}
+
+	/**
+	 * @return the signature of the sender for the data given by {@link #getSignedData(byte[], String, String, long)}
+	 */
+	public byte[] getSignature() {
+		return signature.clone();
+	}
+
+	/**
+	 * @return the time this key expires in milliseconds since the epoch
+	 */
+	public long getExpires() {
+		return expiresMs;
+	}
+
+	/**
+	 * @return true, if this key should not be used for new messages anymore
+	 */
+	public boolean isExpired() {
+		return System.currentTimeMillis() >= expiresMs;
+	}
+
+	/**
+	 * Gets the data that is signed by the sender of a session key. It binds the encrypted key to the sender, the
+	 * recipient and the expiration time of the key.
+	 *
+	 * @param encryptedKey The symmetric key encrypted for the recipient
+	 * @param senderId The id of the sending agent
+	 * @param recipientId The id of the receiving agent
+	 * @param expiresMs The expiration time of the key
+	 * @return the data to sign or verify
+	 */
+	public static byte[] getSignedData(byte[] encryptedKey, String senderId, String recipientId, long expiresMs) {
+		byte[] sender = senderId.getBytes(StandardCharsets.UTF_8);
+		byte[] recipient = recipientId.getBytes(StandardCharsets.UTF_8);
+		return ByteBuffer.allocate(encryptedKey.length + sender.length + recipient.length + 2 + Long.BYTES)
+				.put(encryptedKey).put((byte) 0).put(sender).put((byte) 0).put(recipient).putLong(expiresMs).array();
+	}
+
+}
@@ -0,0 +1,178 @@
+package i5.las2peer.serialization;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <i>Static</i> class to compress content before it is encrypted.
+ *
+ * Compression is disabled by default, because nodes not supporting it can not read compressed content. If enabled via
+ * {@link #setThreshold(int)}, content of at least the threshold size is compressed with Deflate. Content larger than
+ * {@link #LARGE_CONTENT_SIZE} uses the fastest compression level. The compressed form is only used, if it is actually
+ * smaller than the original.
+ *
+ * Compressed data starts with the length of the original data, followed by the Deflate stream. So it never starts with
+ * the header of a Java serialization stream. On decompression the length is checked against
+ * {@link #getMaxDecompressedSize()} and against the maximum compression ratio of Deflate, before any memory is
+ * allocated for the original data.
+ *
+ */
+public class CompressionTools {
+
+	/**
+	 * the default threshold, compression is disabled
+	 */
+	public static final int DEFAULT_THRESHOLD = 0;
+
+	/**
+	 * content of at least this size is compressed with the fastest level
+	 */
+	public static final int LARGE_CONTENT_SIZE = 1024 * 1024; // 1 MB
+
+	/**
+	 * the default maximum size of decompressed data
+	 */
+	public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 256 * 1024 * 1024; // 256 MB
+
+	private static final int LENGTH_PREFIX = 4;
+
+	/**
+	 * Deflate can not compress data by a larger factor, so a larger length does not belong to valid data
+	 */
+	private static final long MAX_DEFLATE_RATIO = 1032;
+
+	private static volatile int threshold = DEFAULT_THRESHOLD;
+
+	private static volatile int maxDecompressedSize = DEFAULT_MAX_DECOMPRESSED_SIZE;
+
+	/**
+	 * Sets the minimum size of content that is compressed.
+	 *
+	 * @param bytes A size in bytes, 0 disables compression
+	 */
+	public static void setThreshold(int bytes) {
+		threshold = bytes;
+	}
+
+	/**
+	 * @return the minimum size of content that is compressed, 0 if compression is disabled
+	 */
+	public static int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Sets the maximum size of decompressed data. Larger data is rejected, so that a small message can not make a node
+	 * allocate huge amounts of memory.
+	 *
+	 * @param bytes A size in bytes
+	 */
+	public static void setMaxDecompressedSize(int bytes) {
+		maxDecompressedSize = bytes;
+	}
+
+	/**
+	 * @return the maximum size of decompressed data
+	 */
+	public static int getMaxDecompressedSize() {
+		return maxDecompressedSize;
+	}
+
+	/**
+	 * compress the given data, if compression is enabled, the data is large enough and compression makes it smaller
+	 *
+	 * @param data The data to compress
+	 * @return compressed data or null, if the data should be used as is
+	 */
+	public static byte[] compressIfUseful(byte[] data) {
+		int minSize = threshold;
+		if (minSize <= 0 || data.length < minSize) {
+			return null;
+		}
+		int level = data.length >= LARGE_CONTENT_SIZE ? Deflater.BEST_SPEED : Deflater.DEFAULT_COMPRESSION;
+		byte[] compressed = compress(data, level);
+		if (compressed.length >= data.length) {
+			return null;
+		}
+		return compressed;
+	}
+
+	/**
+	 * compress the given data
+	 *
+	 * @param data The data to compress
+	 * @param level A Deflate compression level
+	 * @return the length of the data followed by the compressed data
+	 */
+	public static byte[] compress(byte[] data, int level) {
+		Deflater deflater = new Deflater(level);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length / 4 + 64);
+			baos.write(ByteBuffer.allocate(LENGTH_PREFIX).putInt(data.length).array(), 0, LENGTH_PREFIX);
+			byte[] buffer = new byte[Math.min(Math.max(data.length, 64), 64 * 1024)];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				baos.write(buffer, 0, count);
+			}
+			return baos.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * decompress data compressed by {@link #compress(byte[], int)}
+	 *
+	 * @param compressed The compressed data
+	 * @return the original data
+	 * @throws SerializationException If the data is malformed or its original size exceeds the maximum
+	 */
+	public static byte[] decompress(byte[] compressed) throws SerializationException {
+		if (compressed.length < LENGTH_PREFIX) {
+			throw new SerializationException("compressed data too short");
+		}
+		int length = ByteBuffer.wrap(compressed, 0, LENGTH_PREFIX).getInt();
+		if (length < 0) {
+			throw new SerializationException("invalid length of compressed data " + length);
+		}
+		int maxSize = maxDecompressedSize;
+		if (length > maxSize) {
+			throw new SerializationException(
+					"length of compressed data " + length + " exceeds the maximum size " + maxSize);
+		}
+		if (length > (compressed.length - LENGTH_PREFIX) * MAX_DEFLATE_RATIO) {
+			throw new SerializationException("length of compressed data " + length + " exceeds the size possible for "
+					+ (compressed.length - LENGTH_PREFIX) + " compressed bytes");
+		}
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed, LENGTH_PREFIX, compressed.length - LENGTH_PREFIX);
+			byte[] result = new byte[length];
+			int offset = 0;
+			while (offset < length) {
+				int count = inflater.inflate(result, offset, length - offset);
+				if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				offset += count;
+			}
+			if (offset == length && !inflater.finished() && inflater.inflate(new byte[1]) > 0) {
+				throw new SerializationException("compressed data exceeds its length " + length);
+			}
+			if (offset != length || !inflater.finished()) {
+				throw new SerializationException("compressed data does not match its length " + length);
+			}
+			return result;
+		} catch (DataFormatException e) {
+			throw new SerializationException("malformed compressed data", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
@@ -5,6 +5,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.KeyPair;
@@ -22,6 +23,7 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.Arrays;
 import java.util.Base64;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -29,7 +31,9 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
+import javax.crypto.ShortBufferException;
 import javax.crypto.interfaces.PBEKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -64,6 +68,11 @@ public class CryptoTools {
 	private static final String DEFAULT_KEY_FACTORY_NAME = "PBKDF2WithHmacSHA1";
 	private static String keyFactoryName = DEFAULT_KEY_FACTORY_NAME;
 
+	private static final String AUTHENTICATED_SYMMETRIC_ALGORITHM = "AES/GCM/NoPadding";
+	private static final int AUTHENTICATED_IV_LENGTH = 12;
+	private static final int AUTHENTICATED_TAG_LENGTH = 128;
+	private static final SecureRandom ivRandom = new SecureRandom();
+
 	/**
 	 * used hash method
 	 * 
@@ -91,6 +100,15 @@ public class CryptoTools {
 		return symmetricAlgorithm;
 	}
 
+	/**
+	 * get the authenticated symmetric algorithm used by {@link #encryptSymmetricAuthenticated(byte[], SecretKey)}
+	 * 
+	 * @return authenticated symmetric algorithm
+	 */
+	public static String getAuthenticatedSymmetricAlgorithm() {
+		return AUTHENTICATED_SYMMETRIC_ALGORITHM;
+	}
+
 	/**
 	 * get the signature method in use
 	 * 
@@ -457,6 +475,74 @@ public class CryptoTools {
 		return encryptSymmetric(SerializeTools.serialize(plainData), key);
 	}
 
+	/**
+	 * encrypt the given data symmetrically with the given key using an authenticated mode
+	 * 
+	 * Each call uses a fresh random initialization vector, which is prepended to the result. So the same key can safely
+	 * be used for many messages and any modification of the encrypted data is detected on decryption.
+	 * 
+	 * @param baPlainData The data that is encrypted.
+	 * @param symmetricKey The key that is used to encrypt the given data.
+	 * @return initialization vector and encrypted content as byte array
+	 * @throws CryptoException If an issue occurs with encryption.
+	 */
+	public static byte[] encryptSymmetricAuthenticated(byte[] baPlainData, SecretKey symmetricKey)
+			throws CryptoException {
+		try {
+			byte[] iv = new byte[AUTHENTICATED_IV_LENGTH];
+			ivRandom.nextBytes(iv);
+			Cipher c = Cipher.getInstance(AUTHENTICATED_SYMMETRIC_ALGORITHM);
+			c.init(Cipher.ENCRYPT_MODE, symmetricKey, new GCMParameterSpec(AUTHENTICATED_TAG_LENGTH, iv));
+
+			byte[] result = new byte[iv.length + c.getOutputSize(baPlainData.length)];
+			System.arraycopy(iv, 0, result, 0, iv.length);
+			c.doFinal(baPlainData, 0, baPlainData.length, result, iv.length);
+			return result;
+		} catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
+			throw new CryptoException("key problems", e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new CryptoException("algorithm problems", e);
+		} catch (NoSuchPaddingException e) {
+			throw new CryptoException("padding problems", e);
+		} catch (IllegalBlockSizeException | ShortBufferException e) {
+			throw new CryptoException("blocksize problems", e);
+		} catch (BadPaddingException e) {
+			throw new CryptoException("padding problems", e);
+		}
+	}
+
+	/**
+	 * decrypt and verify a byte block encrypted by {@link #encryptSymmetricAuthenticated(byte[], SecretKey)}
+	 * 
+	 * @param baCipherData The initialization vector and encrypted data that is decrypted.
+	 * @param key The key that is used to decrypt the given data.
+	 * @return decrypted content as byte array
+	 * @throws CryptoException If an issue occurs with decryption or the data has been modified.
+	 */
+	public static byte[] decryptSymmetricAuthenticated(byte[] baCipherData, SecretKey key) throws CryptoException {
+		if (baCipherData.length < AUTHENTICATED_IV_LENGTH) {
+			throw new CryptoException("encrypted data too short!");
+		}
+		try {
+			Cipher c = Cipher.getInstance(AUTHENTICATED_SYMMETRIC_ALGORITHM);
+			c.init(Cipher.DECRYPT_MODE, key,
+					new GCMParameterSpec(AUTHENTICATED_TAG_LENGTH, baCipherData, 0, AUTHENTICATED_IV_LENGTH));
+			return c.doFinal(baCipherData, AUTHENTICATED_IV_LENGTH, baCipherData.length - AUTHENTICATED_IV_LENGTH);
+		} catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
+			throw new CryptoException("Key problems!", e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new CryptoException("algorithm problems!", e);
+		} catch (NoSuchPaddingException e) {
+			throw new CryptoException("padding problems!", e);
+		} catch (IllegalBlockSizeException e) {
+			throw new CryptoException("block size problems!", e);
+		} catch (AEADBadTagException e) {
+			throw new CryptoException("authentication failed, content has been modified!", e);
+		} catch (BadPaddingException e) {
+			throw new CryptoException("padding problems!", e);
+		}
+	}
+
 	public static PrivateKey stringToPrivateKey(String base64) throws CryptoException {
 		byte[] clear = Base64.getDecoder().decode(base64);
 		PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(clear);
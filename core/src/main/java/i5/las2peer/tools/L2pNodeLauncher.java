@@ -60,6 +60,7 @@ import i5.las2peer.security.InternalSecurityException;
 import i5.las2peer.security.PassphraseAgentImpl;
 import i5.las2peer.security.ServiceAgentImpl;
 import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.serialization.CompressionTools;
 import i5.las2peer.serialization.MalformedXMLException;
 import i5.las2peer.serialization.SerializationException;
 import i5.las2peer.tools.helper.L2pNodeLauncherConfiguration;
@@ -575,7 +576,7 @@ public class L2pNodeLauncher {
 		}
 
 		AgentImpl receiver = node.getServiceAgent(ServiceNameVersion.fromString(serviceNameVersion), currentUser);
-		Message request = new Message(currentUser, receiver, new ListMethodsContent());
+		Message request = new Message(currentUser, receiver, new ListMethodsContent(), Message.DEFAULT_TIMEOUT, node);
 		request.setSendingNodeId(node.getNodeId());
 
 		Message response = node.sendMessageAndWaitForAnswer(request);
@@ -947,6 +948,9 @@ public class L2pNodeLauncher {
 		if (launcherConfiguration.isSandbox()) {
 			L2pSecurityManager.enableSandbox(); // ENABLE SANDBOXING!!!
 		}
+		if (launcherConfiguration.getCompressionThreshold() > 0) {
+			CompressionTools.setThreshold(launcherConfiguration.getCompressionThreshold());
+		}
 		// check configuration
 		String logDir = launcherConfiguration.getLogDir();
 		if (logDir != null) {
@@ -990,6 +994,15 @@ public class L2pNodeLauncher {
 				launcherConfiguration.getBootstrap(), storageMode, launcherConfiguration.getStorageDirectory(),
 				launcherConfiguration.useMonitoringObserver(), cl, launcherConfiguration.getNodeIdSeed(),
 				launcherConfiguration.getEthereumMnemonic(), launcherConfiguration.getEthereumPassword());
+		if (launcherConfiguration.useVirtualThreads()) {
+			launcher.node.setVirtualThreads(true);
+		}
+		if (launcherConfiguration.useBinaryMessages()) {
+			launcher.node.setBinaryMessageContent(true);
+		}
+		if (launcherConfiguration.getSessionKeyLifetime() > 0) {
+			launcher.node.setSessionKeyLifetime(launcherConfiguration.getSessionKeyLifetime() * 1000);
+		}
 		// check special commands
 		if (launcherConfiguration.isPrintHelp()) {
 			launcher.bFinished = true;
@@ -1081,6 +1094,22 @@ public class L2pNodeLauncher {
 		System.out.println("  " + L2pNodeLauncherConfiguration.ARG_NODE_ID_SEED + "|"
 				+ L2pNodeLauncherConfiguration.ARG_SHORT_NODE_ID_SEED
 				+ " LONG\t\tgenerates the (random) node id by using this seed\n");
+		System.out.println("  " + L2pNodeLauncherConfiguration.ARG_VIRTUAL_THREADS + "|"
+				+ L2pNodeLauncherConfiguration.ARG_SHORT_VIRTUAL_THREADS
+				+ "\t\truns service calls and message delivery on virtual threads (requires Java 21)\n");
+		System.out.println("  " + L2pNodeLauncherConfiguration.ARG_BINARY_MESSAGES + "|"
+				+ L2pNodeLauncherConfiguration.ARG_SHORT_BINARY_MESSAGES
+				+ "\t\tencodes the signed content of sent messages in binary format.\n"
+				+ "\t\t\t\t\tOnly use this if all nodes in the network support it.\n");
+		System.out.println("  " + L2pNodeLauncherConfiguration.ARG_SESSION_KEY_LIFETIME + "|"
+				+ L2pNodeLauncherConfiguration.ARG_SHORT_SESSION_KEY_LIFETIME
+				+ " SECONDS\treuses message keys between two agents for the given time.\n"
+				+ "\t\t\t\t\tMessages using such keys are only accepted by nodes with\n"
+				+ "\t\t\t\t\tthis option, so set it on all nodes in the network.\n");
+		System.out.println("  " + L2pNodeLauncherConfiguration.ARG_COMPRESSION_THRESHOLD + "|"
+				+ L2pNodeLauncherConfiguration.ARG_SHORT_COMPRESSION_THRESHOLD
+				+ " BYTES\tcompresses message and envelope contents of at least this size.\n"
+				+ "\t\t\t\t\tOnly use this if all nodes in the network support it.\n");
 		System.out.println("  " + L2pNodeLauncherConfiguration.ARG_STORAGE_MODE + "|"
 				+ L2pNodeLauncherConfiguration.ARG_SHORT_STORAGE_MODE + " MODE\t\tsets Pastry's storage mode\n"
 				+ "\t\t\t\t\tSupported Modes: "
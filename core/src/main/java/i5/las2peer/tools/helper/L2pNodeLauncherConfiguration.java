@@ -69,6 +69,18 @@ public class L2pNodeLauncherConfiguration {
 	public static final String ARG_SANDBOX = "--sandbox";
 	public static final String ARG_SHORT_SANDBOX = "-sb";
 
+	public static final String ARG_VIRTUAL_THREADS = "--virtual-threads";
+	public static final String ARG_SHORT_VIRTUAL_THREADS = "-vt";
+
+	public static final String ARG_BINARY_MESSAGES = "--binary-messages";
+	public static final String ARG_SHORT_BINARY_MESSAGES = "-bm";
+
+	public static final String ARG_SESSION_KEY_LIFETIME = "--session-key-lifetime";
+	public static final String ARG_SHORT_SESSION_KEY_LIFETIME = "-skl";
+
+	public static final String ARG_COMPRESSION_THRESHOLD = "--compression-threshold";
+	public static final String ARG_SHORT_COMPRESSION_THRESHOLD = "-ct";
+
 	public static final String ARG_ETHEREUM_MNEMONIC = "--ethereum-mnemonic";
 
 	public static final String ARG_ETHEREUM_PASSWORD = "--ethereum-password";
@@ -93,6 +105,10 @@ public class L2pNodeLauncherConfiguration {
 	private String logDir;
 	private final Set<String> serviceDirectories = new HashSet<>();
 	private Long nodeIdSeed;
+	private boolean virtualThreads;
+	private boolean binaryMessages;
+	private long sessionKeyLifetime;
+	private int compressionThreshold;
 	private final List<String> commands = new LinkedList<>();
 	private boolean sandbox;
 	private String ethereumMnemonic;
@@ -196,6 +212,46 @@ public class L2pNodeLauncherConfiguration {
 				setDebugMode(true);
 			} else if (arg.equalsIgnoreCase(ARG_SHORT_SANDBOX) || arg.equalsIgnoreCase(ARG_SANDBOX)) {
 				setSandbox(true);
+			} else if (arg.equalsIgnoreCase(ARG_SHORT_VIRTUAL_THREADS) || arg.equalsIgnoreCase(ARG_VIRTUAL_THREADS)) {
+				setVirtualThreads(true);
+			} else if (arg.equalsIgnoreCase(ARG_SHORT_BINARY_MESSAGES) || arg.equalsIgnoreCase(ARG_BINARY_MESSAGES)) {
+				setBinaryMessages(true);
+			} else if (arg.equalsIgnoreCase(ARG_SHORT_SESSION_KEY_LIFETIME)
+					|| arg.equalsIgnoreCase(ARG_SESSION_KEY_LIFETIME)) {
+				if (itArg.hasNext() == false) {
+					throw new IllegalArgumentException(
+							"Illegal argument '" + arg + "', because lifetime in seconds expected after it");
+				} else {
+					String sLifetime = itArg.next();
+					try {
+						long lifetime = Long.valueOf(sLifetime);
+						if (lifetime < 0) {
+							throw new NumberFormatException();
+						}
+						setSessionKeyLifetime(lifetime);
+					} catch (NumberFormatException ex) {
+						throw new IllegalArgumentException("Illegal argument '" + arg + "', because '" + sLifetime
+								+ "' is not a positive integer");
+					}
+				}
+			} else if (arg.equalsIgnoreCase(ARG_SHORT_COMPRESSION_THRESHOLD)
+					|| arg.equalsIgnoreCase(ARG_COMPRESSION_THRESHOLD)) {
+				if (itArg.hasNext() == false) {
+					throw new IllegalArgumentException(
+							"Illegal argument '" + arg + "', because threshold in bytes expected after it");
+				} else {
+					String sThreshold = itArg.next();
+					try {
+						int threshold = Integer.valueOf(sThreshold);
+						if (threshold < 0) {
+							throw new NumberFormatException();
+						}
+						setCompressionThreshold(threshold);
+					} catch (NumberFormatException ex) {
+						throw new IllegalArgumentException("Illegal argument '" + arg + "', because '" + sThreshold
+								+ "' is not a positive integer");
+					}
+				}
 			} else if (arg.equalsIgnoreCase(ARG_SHORT_BIND_ADDRESS) || arg.equalsIgnoreCase(ARG_BIND_ADDRESS)) {
 				if (itArg.hasNext() == false) {
 					throw new IllegalArgumentException(
@@ -364,6 +420,22 @@ public class L2pNodeLauncherConfiguration {
 		if (strNodeIdSeed != null) {
 			setNodeIdSeed(Long.valueOf(strNodeIdSeed));
 		}
+		String strVirtualThreads = conf.get("virtualThreads");
+		if (strVirtualThreads != null) {
+			setVirtualThreads(Boolean.valueOf(strVirtualThreads));
+		}
+		String strBinaryMessages = conf.get("binaryMessages");
+		if (strBinaryMessages != null) {
+			setBinaryMessages(Boolean.valueOf(strBinaryMessages));
+		}
+		String strSessionKeyLifetime = conf.get("sessionKeyLifetime");
+		if (strSessionKeyLifetime != null) {
+			setSessionKeyLifetime(Long.valueOf(strSessionKeyLifetime));
+		}
+		String strCompressionThreshold = conf.get("compressionThreshold");
+		if (strCompressionThreshold != null) {
+			setCompressionThreshold(Integer.valueOf(strCompressionThreshold));
+		}
 		String strEthereumMnemonic = conf.get("ethereumMnemonic");
 		if (strEthereumMnemonic != null) {
 			setEthereumMnemonic(strEthereumMnemonic);
@@ -397,6 +469,10 @@ public class L2pNodeLauncherConfiguration {
 			conf.put("logDir", getLogDir());
 			conf.put("serviceDirectories", getServiceDirectories());
 			conf.put("nodeIdSeed", getNodeIdSeed());
+			conf.put("virtualThreads", useVirtualThreads());
+			conf.put("binaryMessages", useBinaryMessages());
+			conf.put("sessionKeyLifetime", getSessionKeyLifetime());
+			conf.put("compressionThreshold", getCompressionThreshold());
 			conf.put("commands", getCommands());
 			// auto create parent directory
 			File parent = new File(filename).getParentFile();
@@ -526,6 +602,44 @@ public class L2pNodeLauncherConfiguration {
 		this.nodeIdSeed = nodeIdSeed;
 	}
 
+	public boolean useVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public boolean useBinaryMessages() {
+		return binaryMessages;
+	}
+
+	public void setBinaryMessages(boolean binaryMessages) {
+		this.binaryMessages = binaryMessages;
+	}
+
+	/**
+	 * @return the lifetime of message session keys in seconds, 0 if disabled
+	 */
+	public long getSessionKeyLifetime() {
+		return sessionKeyLifetime;
+	}
+
+	public void setSessionKeyLifetime(long sessionKeyLifetime) {
+		this.sessionKeyLifetime = sessionKeyLifetime;
+	}
+
+	/**
+	 * @return the minimum size in bytes of message and envelope contents that are compressed, 0 if disabled
+	 */
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
 	public List<String> getCommands() {
 		return commands;
 	}
@@ -1,5 +1,13 @@
 package i5.las2peer.api;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import i5.las2peer.api.execution.ServiceCall;
+import i5.las2peer.api.execution.ServiceCallResult;
+
 public class TestService2 extends Service {
 
 	public int usingOther(int i) {
@@ -15,4 +23,40 @@ public class TestService2 extends Service {
 			return -200;
 		}
 	}
+
+	public int usingOtherAsync(int i, int count) {
+		try {
+			List<CompletableFuture<Serializable>> results = new ArrayList<>();
+			for (int c = 0; c < count; c++) {
+				results.add(Context.get().invokeInternallyAsync("i5.las2peer.api.TestService", "inc", new Integer(i)));
+			}
+
+			int sum = 0;
+			for (CompletableFuture<Serializable> result : results) {
+				sum += (Integer) result.get();
+			}
+			return sum;
+		} catch (Exception e) {
+			e.printStackTrace();
+			return -200;
+		}
+	}
+
+	public int usingOtherBatch(int i, int count) {
+		try {
+			List<ServiceCall> calls = new ArrayList<>();
+			for (int c = 0; c < count; c++) {
+				calls.add(new ServiceCall("inc", new Integer(i)));
+			}
+
+			int sum = 0;
+			for (ServiceCallResult result : Context.get().invokeBatch("i5.las2peer.api.TestService", calls, true)) {
+				sum += (Integer) result.getResult();
+			}
+			return sum;
+		} catch (Exception e) {
+			e.printStackTrace();
+			return -200;
+		}
+	}
 }
@@ -2,24 +2,35 @@ package i5.las2peer.communication;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Date;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.api.security.AgentException;
 import i5.las2peer.execution.RMITask;
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.security.AgentImpl;
+import i5.las2peer.security.AgentStorage;
 import i5.las2peer.security.BasicAgentStorage;
 import i5.las2peer.security.InternalSecurityException;
 import i5.las2peer.security.ServiceAgentImpl;
 import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.serialization.CompressionTools;
+import i5.las2peer.serialization.SerializationException;
 import i5.las2peer.testing.MockAgentFactory;
 
 public class MessageTest {
@@ -400,4 +411,239 @@ public class MessageTest {
 		}
 	}
 
+	@Test
+	public void testBinaryFormat() {
+		try {
+			UserAgentImpl a = UserAgentImpl.createUserAgent("passa");
+			UserAgentImpl b = UserAgentImpl.createUserAgent("passb");
+
+			a.unlock("passa");
+			b.unlock("passb");
+			BasicAgentStorage storage = new BasicAgentStorage();
+			storage.registerAgents(a, b);
+
+			Message m = new Message(a, b, "some content");
+			m.setSendingNodeId(new Long(100));
+
+			byte[] binary = m.toBinary();
+			assertTrue(binary.length < m.toXmlString().getBytes(StandardCharsets.UTF_8).length);
+
+			Message andBack = Message.createFromBinary(binary);
+			assertEquals(m.getId(), andBack.getId());
+			assertEquals(a.getIdentifier(), andBack.getSenderId());
+			assertEquals(b.getIdentifier(), andBack.getRecipientId());
+			assertEquals(m.getTimestamp(), andBack.getTimestamp());
+			assertEquals(m.getValidMs(), andBack.getValidMs());
+			assertEquals(new Long(100), andBack.getSendingNodeId());
+
+			andBack.open(b, storage);
+			assertEquals("some content", andBack.getContent());
+
+			// older versions are still written and read
+			Message versionOne = Message.createFromBinary(m.toBinary(1));
+			versionOne.open(b, storage);
+			assertEquals("some content", versionOne.getContent());
+
+			try {
+				m.toBinary(Message.BINARY_MESSAGE_VERSION + 1);
+				fail("SerializationException expected");
+			} catch (SerializationException e) {
+				// expected
+			}
+			try {
+				Message.createFromBinary(m.toXmlString().getBytes(StandardCharsets.UTF_8));
+				fail("SerializationException expected");
+			} catch (SerializationException e) {
+				// expected
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testBinaryContent() {
+		try {
+			UserAgentImpl a = UserAgentImpl.createUserAgent("passa");
+			UserAgentImpl b = UserAgentImpl.createUserAgent("passb");
+
+			a.unlock("passa");
+			b.unlock("passb");
+			BasicAgentStorage storage = new BasicAgentStorage();
+			storage.registerAgents(a, b);
+
+			LocalNode node = new LocalNodeManager().newNode();
+			node.setBinaryMessageContent(true);
+			Message m = new Message(a, b, "some content", Message.DEFAULT_TIMEOUT, node);
+			Message topic = new Message(a, 42, "some topic content", Message.DEFAULT_TIMEOUT, node);
+
+			// binary content can be transferred in both formats
+			Message fromXml = Message.createFromXml(m.toXmlString());
+			fromXml.open(b, storage);
+			assertEquals("some content", fromXml.getContent());
+
+			Message fromBinary = Message.createFromBinary(m.toBinary());
+			fromBinary.open(b, storage);
+			assertEquals("some content", fromBinary.getContent());
+
+			Message topicBack = Message.createFromBinary(topic.toBinary());
+			topicBack.open(b, storage);
+			assertEquals("some topic content", topicBack.getContent());
+
+			// the response uses the format of the request, although it is created without a node
+			Message response = new Message(fromBinary, "some answer");
+			Message responseBack = Message.createFromBinary(response.toBinary());
+			responseBack.open(a, storage);
+			assertEquals("some answer", responseBack.getContent());
+			assertEquals(m.getId(), responseBack.getResponseToId().longValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testSessionKey() {
+		try {
+			UserAgentImpl a = UserAgentImpl.createUserAgent("passa");
+			UserAgentImpl b = UserAgentImpl.createUserAgent("passb");
+
+			a.unlock("passa");
+			b.unlock("passb");
+			BasicAgentStorage storage = new BasicAgentStorage();
+			storage.registerAgents(a, b);
+
+			LocalNodeManager manager = new LocalNodeManager();
+			LocalNode sending = manager.newNode();
+			LocalNode receiving = manager.newNode();
+			sending.storeAgent(a);
+			sending.storeAgent(b);
+			sending.setSessionKeyLifetime(60000);
+			receiving.setSessionKeyLifetime(60000);
+
+			Message first = new Message(a, b, "first content", Message.DEFAULT_TIMEOUT, sending);
+			Message second = new Message(a, b, "second content", Message.DEFAULT_TIMEOUT, sending);
+			assertTrue(first.usesSessionKey());
+			assertTrue(second.usesSessionKey());
+			assertSame(a.getSessionKey(b, 60000), a.getSessionKey(b, 60000));
+
+			Message firstBack = Message.createFromXml(first.toXmlString());
+			assertTrue(firstBack.usesSessionKey());
+			firstBack.open(b, receiving);
+			assertEquals("first content", firstBack.getContent());
+
+			Message secondBack = Message.createFromBinary(second.toBinary());
+			assertTrue(secondBack.usesSessionKey());
+			secondBack.open(b, receiving);
+			assertEquals("second content", secondBack.getContent());
+
+			// binary versions before 3 can not represent session keys
+			try {
+				second.toBinary(2);
+				fail("SerializationException expected");
+			} catch (SerializationException e) {
+				// expected
+			}
+
+			// the content is still signed by the sender, holding the session key is not enough to create messages
+			String forged = second.toXmlString().replaceFirst("(<signature[^>]*>)[^<]*",
+					"$1" + Base64.getEncoder().encodeToString(signatureOf(first)));
+			assertNotEquals(second.toXmlString(), forged);
+			assertOpenFails(Message.createFromXml(forged), b, receiving);
+
+			// the expiration of the key is signed
+			String manipulated = first.toXmlString().replaceFirst("expires=\"(\\d+)\"",
+					"expires=\"" + (System.currentTimeMillis() + 30000) + "\"");
+			assertNotEquals(first.toXmlString(), manipulated);
+			assertOpenFails(Message.createFromXml(manipulated), b, receiving);
+
+			// a key living longer than accepted by the receiving node is rejected
+			sending.setSessionKeyLifetime(600000);
+			Message longLived = new Message(b, a, "long lived", Message.DEFAULT_TIMEOUT, sending);
+			assertOpenFails(Message.createFromXml(longLived.toXmlString()), a, receiving);
+
+			// responses use the session key lifetime of the node that opened the request
+			Message response = new Message(firstBack, "some answer");
+			assertTrue(response.usesSessionKey());
+
+			// nodes without session keys enabled do not accept them, this includes opening without a node
+			LocalNode disabled = manager.newNode();
+			assertOpenFails(Message.createFromXml(first.toXmlString()), b, disabled);
+			assertOpenFails(Message.createFromXml(first.toXmlString()), b, storage);
+
+			// without session keys each message gets its own key again
+			Message plain = new Message(a, b, "plain content");
+			assertFalse(plain.usesSessionKey());
+			Message plainBack = Message.createFromXml(plain.toXmlString());
+			plainBack.open(b, storage);
+			assertEquals("plain content", plainBack.getContent());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	private static byte[] signatureOf(Message message) {
+		String xml = message.toXmlString();
+		int start = xml.indexOf('>', xml.indexOf("<signature")) + 1;
+		return Base64.getDecoder().decode(xml.substring(start, xml.indexOf("</signature>")));
+	}
+
+	private static void assertOpenFails(Message message, AgentImpl recipient, AgentStorage storage)
+			throws AgentException {
+		try {
+			message.open(recipient, storage);
+			fail("InternalSecurityException expected");
+		} catch (InternalSecurityException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCompression() {
+		try {
+			UserAgentImpl a = UserAgentImpl.createUserAgent("passa");
+			UserAgentImpl b = UserAgentImpl.createUserAgent("passb");
+
+			a.unlock("passa");
+			b.unlock("passb");
+			BasicAgentStorage storage = new BasicAgentStorage();
+			storage.registerAgents(a, b);
+
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 1000; i++) {
+				sb.append("{\"id\":").append(i).append(",\"name\":\"entry\"},");
+			}
+			String content = sb.toString();
+
+			LocalNode node = new LocalNodeManager().newNode();
+			node.setBinaryMessageContent(true);
+			Message plain = new Message(a, b, content);
+			Message xml;
+			Message binary;
+			CompressionTools.setThreshold(1024);
+			try {
+				xml = new Message(a, b, content);
+				binary = new Message(a, b, content, Message.DEFAULT_TIMEOUT, node);
+			} finally {
+				CompressionTools.setThreshold(CompressionTools.DEFAULT_THRESHOLD);
+			}
+			assertTrue(xml.toXmlString().length() < plain.toXmlString().length() / 4);
+			assertTrue(binary.toBinary().length < plain.toBinary().length / 4);
+
+			// compressed content can be opened, although compression is disabled again
+			Message xmlBack = Message.createFromXml(xml.toXmlString());
+			xmlBack.open(b, storage);
+			assertEquals(content, xmlBack.getContent());
+
+			Message binaryBack = Message.createFromBinary(binary.toBinary());
+			binaryBack.open(b, storage);
+			assertEquals(content, binaryBack.getContent());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 }
@@ -8,6 +8,7 @@ import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Assert;
@@ -475,8 +476,8 @@ public class ExecutionContextTest {
 	}
 
 	@Test
-	public void testMonitoring() {
-		final List<String> messages = new ArrayList<>();
+	public void testMonitoring() throws InterruptedException {
+		final List<String> messages = Collections.synchronizedList(new ArrayList<>());
 		node.addObserver(new NodeObserver() {
 			@Override
 			public void log(Long timestamp, MonitoringEvent event, String sourceNode, String sourceAgentId,
@@ -488,6 +489,10 @@ public class ExecutionContextTest {
 
 		context.monitorEvent(this, MonitoringEvent.SERVICE_CUSTOM_ERROR_1, "testMessage", true);
 
+		// events are delivered asynchronously
+		for (int i = 0; i < 100 && node.getEventBus().getPendingEvents() > 0; i++) {
+			Thread.sleep(50);
+		}
 		assertTrue(messages.get(messages.size() - 1).contains(this.getClass().getSimpleName()));
 		assertTrue(messages.get(messages.size() - 1).contains(MonitoringEvent.SERVICE_CUSTOM_ERROR_1.toString()));
 		assertTrue(messages.get(messages.size() - 1).contains("testMessage"));
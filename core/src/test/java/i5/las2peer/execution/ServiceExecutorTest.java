@@ -0,0 +1,266 @@
+package i5.las2peer.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import i5.las2peer.api.Context;
+
+public class ServiceExecutorTest {
+
+	private ServiceExecutor executor;
+
+	@Before
+	public void setup() {
+		executor = new ServiceExecutor(2, 1);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void testContextBinding() throws Exception {
+		ExecutionContext context = new ExecutionContext(null, null, null);
+
+		assertSame(context, executor.invoke(context, () -> Context.getCurrent()));
+
+		try {
+			Context.getCurrent();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testThreadReuse() throws Exception {
+		ServiceExecutor singleThreaded = new ServiceExecutor(1, 1);
+		ExecutionContext context = new ExecutionContext(null, null, null);
+
+		try {
+			Thread first = singleThreaded.invoke(context, () -> Thread.currentThread());
+			Thread second = singleThreaded.invoke(context, () -> Thread.currentThread());
+
+			assertTrue(first instanceof ServiceThread);
+			assertSame(first, second);
+		} finally {
+			singleThreaded.shutdown();
+		}
+	}
+
+	@Test
+	public void testNestedInvocation() throws Exception {
+		ExecutionContext outer = new ExecutionContext(null, null, null);
+		ExecutionContext inner = new ExecutionContext(null, null, null);
+
+		Thread caller = executor.invoke(outer, () -> {
+			Thread callee = executor.invoke(inner, () -> {
+				assertSame(inner, Context.getCurrent());
+				return Thread.currentThread();
+			});
+			// nested calls run on the calling thread and restore the outer context
+			assertSame(Thread.currentThread(), callee);
+			assertSame(outer, Context.getCurrent());
+			return callee;
+		});
+
+		assertTrue(caller instanceof ServiceThread);
+	}
+
+	@Test
+	public void testRejection() throws Exception {
+		ExecutionContext context = new ExecutionContext(null, null, null);
+		CountDownLatch release = new CountDownLatch(1);
+
+		// occupy both threads and the only queue slot
+		for (int i = 0; i < 3; i++) {
+			executor.execute(context, () -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					// shutdown
+				}
+			});
+		}
+
+		try {
+			executor.execute(context, () -> {
+			});
+			fail("RejectedExecutionException expected");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+
+		release.countDown();
+	}
+
+	@Test
+	public void testSteps() throws Exception {
+		ExecutionContext context = new ExecutionContext(null, null, null);
+		CountDownLatch release = new CountDownLatch(1);
+		Runnable blocking = () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				// shutdown
+			}
+		};
+
+		// a saturated pool does not delay steps, they are not bound to a context
+		for (int i = 0; i < 3; i++) {
+			executor.execute(context, blocking);
+		}
+		CountDownLatch stepped = new CountDownLatch(1);
+		executor.executeStep(() -> {
+			if (!ServiceThread.hasContext()) {
+				stepped.countDown();
+			}
+		});
+		assertTrue(stepped.await(5, TimeUnit.SECONDS));
+
+		// steps are limited like service calls, occupy both step threads and the only queue slot
+		CountDownLatch started = new CountDownLatch(2);
+		for (int i = 0; i < 2; i++) {
+			executor.executeStep(() -> {
+				started.countDown();
+				blocking.run();
+			});
+		}
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		executor.executeStep(blocking);
+		try {
+			executor.executeStep(() -> {
+			});
+			fail("RejectedExecutionException expected");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+
+		release.countDown();
+	}
+
+	@Test
+	public void testContextExecutor() throws Exception {
+		ExecutionContext context = new ExecutionContext(null, null, null);
+		ExecutorService contextExecutor = new ContextExecutorService(executor, context);
+
+		Future<Context> result = contextExecutor.submit(() -> Context.getCurrent());
+		assertSame(context, result.get(5, TimeUnit.SECONDS));
+		assertNotSame(Thread.currentThread(), contextExecutor.submit(() -> Thread.currentThread()).get());
+
+		CountDownLatch started = new CountDownLatch(1);
+		Future<?> blocked = contextExecutor.submit(() -> {
+			started.countDown();
+			Thread.sleep(60000);
+			return null;
+		});
+		started.await();
+
+		contextExecutor.shutdownNow();
+		assertTrue(blocked.isCancelled());
+		assertTrue(contextExecutor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(true, contextExecutor.isShutdown());
+	}
+
+	@Test
+	public void testShutdown() throws Exception {
+		ServiceExecutor singleThreaded = new ServiceExecutor(1, 2);
+		ExecutionContext context = new ExecutionContext(null, null, null);
+		ExecutorService contextExecutor = new ContextExecutorService(singleThreaded, context);
+		CountDownLatch started = new CountDownLatch(1);
+
+		Future<?> running = singleThreaded.submit(context, () -> {
+			started.countDown();
+			Thread.sleep(60000);
+			return null;
+		});
+		started.await();
+		Future<?> queued = singleThreaded.submit(context, () -> null);
+		Future<?> queuedViaContext = contextExecutor.submit(() -> null);
+
+		singleThreaded.shutdown();
+		// callers waiting for queued calls do not wait forever
+		assertTrue(queued.isCancelled());
+		assertTrue(queuedViaContext.isCancelled());
+		try {
+			running.get(5, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof InterruptedException);
+		}
+		contextExecutor.shutdown();
+		assertTrue(contextExecutor.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testVirtualThreads() throws Exception {
+		assumeTrue(VirtualThreads.isSupported());
+
+		ServiceExecutor virtual = new ServiceExecutor(1, 0, true, 3);
+		ExecutionContext outer = new ExecutionContext(null, null, null);
+		ExecutionContext inner = new ExecutionContext(null, null, null);
+		CountDownLatch release = new CountDownLatch(1);
+
+		try {
+			assertTrue(virtual.isVirtual());
+			Thread caller = virtual.invoke(outer, () -> {
+				assertSame(outer, Context.getCurrent());
+				Thread callee = virtual.invoke(inner, () -> Thread.currentThread());
+				assertSame(Thread.currentThread(), callee);
+				assertSame(outer, Context.getCurrent());
+				return callee;
+			});
+			assertTrue(!(caller instanceof ServiceThread));
+
+			// the maximum number of virtual calls limits the calls in flight, not pool and queue size
+			virtual.execute(outer, () -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					// shutdown
+				}
+			});
+			virtual.execute(outer, () -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					// shutdown
+				}
+			});
+			virtual.execute(outer, () -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					// shutdown
+				}
+			});
+			try {
+				virtual.execute(outer, () -> {
+				});
+				fail("RejectedExecutionException expected");
+			} catch (RejectedExecutionException e) {
+				// expected
+			}
+		} finally {
+			release.countDown();
+			virtual.shutdown();
+		}
+	}
+
+}
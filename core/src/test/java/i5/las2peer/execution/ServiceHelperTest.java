@@ -1,6 +1,8 @@
 package i5.las2peer.execution;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.lang.reflect.InvocationTargetException;
@@ -8,6 +10,7 @@ import java.lang.reflect.InvocationTargetException;
 import org.junit.Test;
 
 import i5.las2peer.api.TestService;
+import i5.las2peer.api.execution.ServiceAccessDeniedException;
 import i5.las2peer.api.execution.ServiceMethodNotFoundException;
 import i5.las2peer.security.InternalSecurityException;
 
@@ -57,4 +60,26 @@ public class ServiceHelperTest {
 		}
 	}
 
+	@Test
+	public void testCachedDispatch() throws Exception {
+		TestService testee = new TestService();
+
+		// repeated calls use the cached method handle
+		for (int i = 0; i < 3; i++) {
+			assertEquals(4, ServiceHelper.execute(testee, "inc", 2));
+			assertEquals("echo", ServiceHelper.execute(testee, "getEcho", "echo"));
+			assertNull(ServiceHelper.execute(testee, "getEcho", (Object) null));
+		}
+
+		ServiceHelper.invalidateDispatchCache(TestService.class.getClassLoader());
+		assertEquals(4, ServiceHelper.execute(testee, "inc", 2));
+
+		try {
+			ServiceHelper.execute(testee, "accessForbidden");
+			fail("InvocationTargetException expected");
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof ServiceAccessDeniedException);
+		}
+	}
+
 }
@@ -0,0 +1,171 @@
+package i5.las2peer.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import i5.las2peer.api.logging.MonitoringEvent;
+
+public class MonitoringEventBusTest {
+
+	private static class CollectingObserver implements NodeObserver {
+		private final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+		private final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void log(Long timestamp, MonitoringEvent event, String sourceNode, String sourceAgentId,
+				String destinationNode, String destinationAgentId, String remarks) {
+			lines.add(event + " " + sourceNode + " " + sourceAgentId + " " + destinationNode + " "
+					+ destinationAgentId + " " + remarks);
+			threads.add(Thread.currentThread());
+		}
+	}
+
+	@Test
+	public void testAsynchronousDelivery() throws InterruptedException {
+		MonitoringEventBus bus = new MonitoringEventBus(16, node -> node == null ? null : "node-" + node, "test-bus");
+		CollectingObserver all = new CollectingObserver();
+		CollectingObserver service = new CollectingObserver();
+		bus.addObserver(all);
+		bus.addObserver(service, 7500, 7599);
+
+		bus.publish(MonitoringEvent.MESSAGE_RECEIVED, 1, "a", 2, "b", 42L);
+		bus.publish(MonitoringEvent.SERVICE_CUSTOM_MESSAGE_1, null, null, null, null, "custom");
+		bus.close();
+
+		assertEquals(0, bus.getPendingEvents());
+		assertEquals(2, all.lines.size());
+		assertEquals("MESSAGE_RECEIVED node-1 a node-2 b 42", all.lines.get(0));
+		assertNotSame(Thread.currentThread(), all.threads.get(0));
+		assertEquals(1, service.lines.size());
+		assertEquals("SERVICE_CUSTOM_MESSAGE_1 null null null null custom", service.lines.get(0));
+
+		// closed buses deliver synchronously
+		bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, null);
+		assertEquals(3, all.lines.size());
+		assertSame(Thread.currentThread(), all.threads.get(2));
+	}
+
+	@Test
+	public void testFilterAndOverflow() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		MonitoringEventBus bus = new MonitoringEventBus(4, String::valueOf, "test-bus");
+		CollectingObserver observer = new CollectingObserver() {
+			@Override
+			public void log(Long timestamp, MonitoringEvent event, String sourceNode, String sourceAgentId,
+					String destinationNode, String destinationAgentId, String remarks) {
+				super.log(timestamp, event, sourceNode, sourceAgentId, destinationNode, destinationAgentId, remarks);
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		bus.addObserver(observer, 5000, 5000);
+		assertFalse(bus.isObserved(MonitoringEvent.NODE_STATUS_CHANGE));
+		assertTrue(bus.isObserved(MonitoringEvent.MESSAGE_RECEIVED));
+
+		// the consumer blocks in the first event, so the buffer fills up
+		bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, 0);
+		blocked.await();
+		for (int i = 1; i <= 10; i++) {
+			bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, i);
+			bus.publish(MonitoringEvent.NODE_STATUS_CHANGE, null, null, null, null, i);
+		}
+		assertEquals(4, bus.getPendingEvents());
+		assertEquals(7, bus.getDroppedEvents());
+
+		release.countDown();
+		bus.close();
+		assertEquals(4, observer.lines.size());
+		assertTrue(observer.lines.get(3).endsWith(" 3"));
+	}
+
+	@Test
+	public void testPublishWhileClosing() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean concurrent = new AtomicBoolean();
+		MonitoringEventBus bus = new MonitoringEventBus(4, String::valueOf, "test-bus");
+		CollectingObserver observer = new CollectingObserver() {
+			private int active;
+
+			@Override
+			public void log(Long timestamp, MonitoringEvent event, String sourceNode, String sourceAgentId,
+					String destinationNode, String destinationAgentId, String remarks) {
+				synchronized (this) {
+					if (active++ > 0) {
+						concurrent.set(true);
+					}
+				}
+				super.log(timestamp, event, sourceNode, sourceAgentId, destinationNode, destinationAgentId, remarks);
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				synchronized (this) {
+					active--;
+				}
+			}
+		};
+		bus.addObserver(observer);
+
+		// the consumer is still delivering the buffered events, when the bus is closed
+		bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, 1);
+		bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, 2);
+		blocked.await();
+		Thread closing = new Thread(bus::close);
+		closing.start();
+		while (closing.getState() != Thread.State.TIMED_WAITING) {
+			// waiting for the consumer
+			Thread.yield();
+		}
+		Thread publishing = new Thread(() -> bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, 3));
+		publishing.start();
+		Thread.sleep(100);
+		release.countDown();
+		publishing.join();
+		closing.join();
+
+		// the synchronously delivered event does not overtake the buffered ones
+		assertFalse(concurrent.get());
+		assertEquals(3, observer.lines.size());
+		for (int i = 0; i < 3; i++) {
+			assertTrue(observer.lines.get(i).endsWith(" " + (i + 1)));
+		}
+		assertSame(publishing, observer.threads.get(2));
+	}
+
+	@Test
+	public void testSynchronousDelivery() {
+		MonitoringEventBus bus = new MonitoringEventBus(0, String::valueOf, "test-bus");
+		CollectingObserver observer = new CollectingObserver();
+		bus.addObserver(observer);
+		bus.addObserver(observer);
+		assertEquals(1, bus.getObservers().size());
+
+		bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, null);
+		assertEquals(1, observer.lines.size());
+		assertSame(Thread.currentThread(), observer.threads.get(0));
+
+		bus.removeObserver(observer);
+		bus.publish(MonitoringEvent.MESSAGE_RECEIVED, null, null, null, null, null);
+		assertEquals(1, observer.lines.size());
+	}
+
+}
@@ -0,0 +1,95 @@
+package i5.las2peer.logging.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+	@Test
+	public void testHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getMax());
+		assertEquals(500.5, histogram.getMean(TimeUnit.MICROSECONDS), 0.001);
+
+		// buckets have a relative error of at most 1/16
+		long median = histogram.getValueAtQuantile(0.5);
+		assertTrue(median >= 500_000 && median <= 500_000 * 17 / 16);
+		long p99 = histogram.getValueAtQuantile(0.99);
+		assertTrue(p99 >= 990_000 && p99 <= 1_000_000);
+		assertEquals(histogram.getMax(), histogram.getValueAtQuantile(1));
+		long belowOneMilli = histogram.getCountAtOrBelow(TimeUnit.MILLISECONDS.toNanos(1));
+		assertEquals(1000, belowOneMilli);
+
+		for (long value : new long[] { 0, 1, 15, 16, 17, 1023, 1024, Long.MAX_VALUE }) {
+			int index = LatencyHistogram.bucketIndex(value);
+			assertTrue(value <= LatencyHistogram.bucketUpperBound(index));
+			if (index > 0) {
+				assertTrue(value > LatencyHistogram.bucketUpperBound(index - 1));
+			}
+		}
+	}
+
+	@Test
+	public void testFamilies() {
+		MetricsRegistry registry = new MetricsRegistry();
+		MetricFamily<Counter> requests = registry.counter("test_requests_total", "Requests", "path", "result");
+		requests.get("a", "ok").inc();
+		requests.get("a", "ok").add(2);
+		requests.get("a", "failed").inc();
+		assertSame(requests.get("a", "ok"), requests.get("a", "ok"));
+		assertEquals(3, requests.get("a", "ok").get());
+		assertSame(requests, registry.counter("test_requests_total", "Requests", "path", "result"));
+
+		try {
+			requests.get("a");
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			registry.gauge("test_requests_total", "Requests");
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		requests.remove("a", "failed");
+		assertEquals(0, requests.get("a", "failed").get());
+
+		// a counter can read its count from a function instead
+		requests.get("b", "ok").set(() -> 42);
+		assertEquals(42, requests.get("b", "ok").get());
+	}
+
+	@Test
+	public void testPrometheusFormat() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("test_total", "A counter").get().add(3);
+		registry.gauge("test_queue", "A gauge", "node").get("n\"1").set(() -> 1.5);
+		LatencyHistogram histogram = registry.histogram("test_duration_seconds", "A histogram", "op").get("x");
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+		histogram.record(TimeUnit.SECONDS.toNanos(20));
+
+		String output = registry.toPrometheus();
+		assertTrue(output.contains("# HELP test_total A counter\n# TYPE test_total counter\ntest_total 3\n"));
+		assertTrue(output.contains("# TYPE test_queue gauge\ntest_queue{node=\"n\\\"1\"} 1.5\n"));
+		assertTrue(output.contains("# TYPE test_duration_seconds histogram\n"));
+		assertTrue(output.contains("test_duration_seconds_bucket{op=\"x\",le=\"0.001\"} 0\n"));
+		assertTrue(output.contains("test_duration_seconds_bucket{op=\"x\",le=\"0.0025\"} 1\n"));
+		assertTrue(output.contains("test_duration_seconds_bucket{op=\"x\",le=\"10\"} 1\n"));
+		assertTrue(output.contains("test_duration_seconds_bucket{op=\"x\",le=\"+Inf\"} 2\n"));
+		assertTrue(output.contains("test_duration_seconds_sum{op=\"x\"} 20.002\n"));
+		assertTrue(output.contains("test_duration_seconds_count{op=\"x\"} 2\n"));
+	}
+
+}
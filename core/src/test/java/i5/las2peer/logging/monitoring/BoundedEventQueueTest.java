@@ -0,0 +1,72 @@
+package i5.las2peer.logging.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BoundedEventQueueTest {
+
+	@Test
+	public void testBounds() {
+		BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(3);
+		assertEquals(4, queue.capacity());
+		assertNull(queue.poll());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(queue.offer(i));
+		}
+		assertFalse(queue.offer(4));
+		assertEquals(4, queue.size());
+		assertEquals(Integer.valueOf(0), queue.poll());
+		assertTrue(queue.offer(4));
+		for (int i = 1; i <= 4; i++) {
+			assertEquals(Integer.valueOf(i), queue.poll());
+		}
+		assertNull(queue.poll());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testConcurrentProducers() throws InterruptedException {
+		final int producers = 4;
+		final int perProducer = 50000;
+		BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(64);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					while (!queue.offer(producer * perProducer + i)) {
+						Thread.yield();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		// each producer's elements are taken in order and none is lost
+		int[] next = new int[producers];
+		int received = 0;
+		while (received < producers * perProducer) {
+			Integer element = queue.poll();
+			if (element == null) {
+				Thread.yield();
+				continue;
+			}
+			int producer = element / perProducer;
+			assertEquals(next[producer]++, element % perProducer);
+			received++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(queue.poll());
+	}
+
+}
@@ -6,6 +6,8 @@ import i5.las2peer.communication.Message;
 import i5.las2peer.p2p.MessageResultListener;
 import i5.las2peer.p2p.Node;
 import i5.las2peer.security.MonitoringAgent;
+import i5.las2peer.serialization.SerializationException;
+import i5.las2peer.serialization.SerializeTools;
 import i5.las2peer.tools.CryptoTools;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,6 +17,9 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import java.security.KeyPair;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -38,6 +43,7 @@ public class MonitoringObserverTest {
     private static final int MIN_MESSAGE_CACHE_SIZE = 50;
     private static final MonitoringEvent SOME_EVENT = MonitoringEvent.SERVICE_CUSTOM_MESSAGE_42;
     private static final String SOME_SOURCE_NODE = "some source node";
+    private static final int SEND_TIMEOUT = 5000;
 
     /**
      * Configure the node mock to behave like a node with an existing processing service.
@@ -66,13 +72,13 @@ public class MonitoringObserverTest {
     public void testProcessingAgentExists() throws AgentException {
         // given
         setupNodeWithExistingProcessingService();
-        MonitoringObserver observer = new MonitoringObserver(MIN_MESSAGE_CACHE_SIZE, this.node);
+        MonitoringObserver observer = newStartedObserver();
         triggerReadyForInit(observer);
         // when
         fillMessageCache(observer);
         // then
         ArgumentCaptor<Message> messageCapture = ArgumentCaptor.forClass(Message.class);
-        verify(node, times(1)).sendMessage(messageCapture.capture(),
+        verify(node, timeout(SEND_TIMEOUT).times(1)).sendMessage(messageCapture.capture(),
                 any(MessageResultListener.class));
     }
 
@@ -80,26 +86,75 @@ public class MonitoringObserverTest {
     public void testProcessingAgentMissing() throws AgentException {
         // given
         setupNodeWithoutProcessingService();
-        MonitoringObserver observer = new MonitoringObserver(MIN_MESSAGE_CACHE_SIZE, this.node);
+        MonitoringObserver observer = newStartedObserver();
         triggerReadyForInit(observer);
         // when
         fillMessageCache(observer);
         // then
+        awaitDroppedEvents(observer, MIN_MESSAGE_CACHE_SIZE);
         verify(node, never()).sendMessage(any(Message.class), any(MessageResultListener.class));
     }
 
+    @Test
+    public void testQueueOverflow() throws AgentException {
+        // given
+        setupNodeWithoutProcessingService();
+        // the observer is not started, so no thread takes messages from the queue
+        MonitoringObserver observer = new MonitoringObserver(MIN_MESSAGE_CACHE_SIZE, 0, this.node);
+        // when
+        for (int i = 0; i <= 64; i++) {
+            simpleLog(observer);
+        }
+        // then the queue holds 64 messages, the oldest one was dropped
+        assertEquals(64, observer.getPendingEvents());
+        assertEquals(1, observer.getDroppedEvents());
+        // when
+        observer.setBackpressurePolicy(MonitoringObserver.BackpressurePolicy.SAMPLE);
+        for (int i = 0; i < 100; i++) {
+            simpleLog(observer);
+        }
+        // then new messages are dropped
+        assertEquals(64, observer.getPendingEvents());
+        assertEquals(101, observer.getDroppedEvents());
+    }
+
+    @Test
+    public void testCompressedBatch() throws AgentException, SerializationException {
+        // given
+        setupNodeWithExistingProcessingService();
+        MonitoringObserver observer = newStartedObserver();
+        observer.setCompressBatches(true);
+        // when
+        fillMessageCache(observer);
+        // then
+        verify(node, timeout(SEND_TIMEOUT).times(1)).sendMessage(any(Message.class), any(MessageResultListener.class));
+
+        MonitoringMessage[] messages = new MonitoringMessage[MIN_MESSAGE_CACHE_SIZE];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new MonitoringMessage((long) i, SOME_EVENT, SOME_SOURCE_NODE, null, null, "test", null);
+        }
+        CompressedMonitoringMessages compressed = CompressedMonitoringMessages.compress(messages);
+        assertEquals(MIN_MESSAGE_CACHE_SIZE, compressed.getCount());
+        assertTrue(compressed.getCompressedSize() < SerializeTools.serialize(messages).length / 4);
+        MonitoringMessage[] restored = compressed.getMessages();
+        assertEquals(MIN_MESSAGE_CACHE_SIZE, restored.length);
+        assertEquals(Long.valueOf(42), restored[42].getTimestamp());
+        assertEquals(SOME_SOURCE_NODE, restored[42].getSourceNode());
+    }
+
     @Test
     public void testProcessingAgentMissingAndThenAppearing() throws AgentException {
         // given
         setupNodeWithoutProcessingService();
-        MonitoringObserver observer = new MonitoringObserver(MIN_MESSAGE_CACHE_SIZE, this.node);
+        MonitoringObserver observer = newStartedObserver();
         triggerReadyForInit(observer);
         fillMessageCache(observer);
+        awaitDroppedEvents(observer, MIN_MESSAGE_CACHE_SIZE);
         // when
         setupNodeWithExistingProcessingService();
         fillMessageCache(observer);
         // then
-        verify(node, times(1)).sendMessage(any(Message.class),
+        verify(node, timeout(SEND_TIMEOUT).times(1)).sendMessage(any(Message.class),
                 any(MessageResultListener.class));
     }
 
@@ -107,20 +162,78 @@ public class MonitoringObserverTest {
     public void testProcessingAgentExistsAndThenMissingAndThenAppearing() throws AgentException {
         // given
         setupNodeWithExistingProcessingService();
-        MonitoringObserver observer = new MonitoringObserver(MIN_MESSAGE_CACHE_SIZE, this.node);
+        MonitoringObserver observer = newStartedObserver();
         triggerReadyForInit(observer);
         fillMessageCache(observer);
+        awaitSentBatch();
         setupNodeWithoutProcessingService();
         fillMessageCache(observer);
+        awaitSentBatch();
         // when
         setupNodeWithExistingProcessingService();
         fillMessageCache(observer);
         // then
         // just test for single call because the mock is reset upon each "setup..." call and forgets previous calls
-        verify(node, times(1)).sendMessage(any(Message.class),
+        verify(node, timeout(SEND_TIMEOUT).times(1)).sendMessage(any(Message.class),
                 any(MessageResultListener.class));
     }
 
+    @Test
+    public void testFlush() throws AgentException {
+        // given
+        setupNodeWithExistingProcessingService();
+        MonitoringObserver observer = new MonitoringObserver(MIN_MESSAGE_CACHE_SIZE, this.node);
+        triggerReadyForInit(observer);
+        fillMessageCache(observer);
+        // when
+        observer.flush();
+        // then a full batch and the remaining status change are sent (50 + 1 messages)
+        verify(node, times(2)).sendMessage(any(Message.class), any(MessageResultListener.class));
+        assertEquals(0, observer.getPendingEvents());
+        assertEquals(0, observer.getDroppedEvents());
+    }
+
+    @Test
+    public void testClose() throws AgentException {
+        // given
+        setupNodeWithExistingProcessingService();
+        MonitoringObserver observer = newStartedObserver();
+        observer.close();
+        // when
+        triggerReadyForInit(observer);
+        fillMessageCache(observer);
+        observer.flush();
+        // then nothing is sent and no agent is fetched to send it
+        verify(node, never()).getAgent(anyString());
+        verify(node, never()).sendMessage(any(Message.class), any(MessageResultListener.class));
+        assertEquals(0, observer.getPendingEvents());
+        assertEquals(MIN_MESSAGE_CACHE_SIZE + 1, observer.getDroppedEvents());
+        try {
+            observer.start();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private MonitoringObserver newStartedObserver() {
+        MonitoringObserver observer = new MonitoringObserver(MIN_MESSAGE_CACHE_SIZE, this.node);
+        observer.start();
+        return observer;
+    }
+
+    private void awaitSentBatch() {
+        verify(node, timeout(SEND_TIMEOUT).times(1)).sendMessage(any(Message.class), any(MessageResultListener.class));
+    }
+
+    private void awaitDroppedEvents(MonitoringObserver observer, long expected) {
+        long end = System.currentTimeMillis() + SEND_TIMEOUT;
+        while (observer.getDroppedEvents() < expected && System.currentTimeMillis() < end) {
+            Thread.yield();
+        }
+        assertEquals(expected, observer.getDroppedEvents());
+    }
+
     private void triggerReadyForInit(MonitoringObserver observer) {
         simpleLog(observer, MonitoringEvent.NODE_STATUS_CHANGE, "RUNNING");
     }
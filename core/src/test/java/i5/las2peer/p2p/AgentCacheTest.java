@@ -0,0 +1,97 @@
+package i5.las2peer.p2p;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import i5.las2peer.security.AgentImpl;
+import i5.las2peer.security.GroupAgentImpl;
+import i5.las2peer.security.UserAgentImpl;
+
+public class AgentCacheTest {
+
+	@Test
+	public void testFreshInstances() throws Exception {
+		UserAgentImpl agent = UserAgentImpl.createUserAgent("pass");
+		AgentCache cache = new AgentCache();
+		assertNull(cache.get(agent.getIdentifier()));
+
+		cache.put(agent.getIdentifier(), 1, agent.toXmlString());
+		AgentImpl first = cache.get(agent.getIdentifier());
+		AgentImpl second = cache.get(agent.getIdentifier());
+		assertNotNull(first);
+		assertNotSame(first, second);
+		assertEquals(agent.getIdentifier(), first.getIdentifier());
+
+		// unlocking one instance does not affect others
+		((UserAgentImpl) first).unlock("pass");
+		assertTrue(second.isLocked());
+		assertTrue(cache.get(agent.getIdentifier()).isLocked());
+
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testGroupCopies() throws Exception {
+		UserAgentImpl member = UserAgentImpl.createUserAgent("pass");
+		UserAgentImpl other = UserAgentImpl.createUserAgent("pass");
+		member.unlock("pass");
+		GroupAgentImpl group = GroupAgentImpl.createGroupAgent(new AgentImpl[] { member });
+		AgentCache cache = new AgentCache();
+		cache.put(group.getIdentifier(), 1, AgentImpl.createFromXml(group.toXmlString()));
+
+		// changing the members of one copy does not affect the cached agent
+		GroupAgentImpl copy = (GroupAgentImpl) cache.get(group.getIdentifier());
+		copy.unlock(member);
+		copy.addMember(other);
+		copy.apply();
+		assertTrue(copy.hasMember(other));
+		GroupAgentImpl cached = (GroupAgentImpl) cache.get(group.getIdentifier());
+		assertTrue(cached.isLocked());
+		assertTrue(cached.hasMember(member));
+		assertFalse(cached.hasMember(other));
+	}
+
+	@Test
+	public void testVersions() throws Exception {
+		UserAgentImpl agent = UserAgentImpl.createUserAgent("pass");
+		agent.unlock("pass");
+		String oldXml = agent.toXmlString();
+		agent.setLoginName("newname");
+		String newXml = agent.toXmlString();
+
+		AgentCache cache = new AgentCache();
+		cache.put(agent.getIdentifier(), 2, newXml);
+		// an older version must not replace the newer one
+		cache.put(agent.getIdentifier(), 1, oldXml);
+		assertEquals("newname", ((UserAgentImpl) cache.get(agent.getIdentifier())).getLoginName());
+
+		cache.invalidate(agent.getIdentifier());
+		assertNull(cache.get(agent.getIdentifier()));
+	}
+
+	@Test
+	public void testTimeoutAndSize() throws Exception {
+		UserAgentImpl a = UserAgentImpl.createUserAgent("pass");
+		UserAgentImpl b = UserAgentImpl.createUserAgent("pass");
+
+		AgentCache cache = new AgentCache();
+		cache.setMaxSize(1);
+		cache.put(a.getIdentifier(), 1, a.toXmlString());
+		cache.put(b.getIdentifier(), 1, b.toXmlString());
+		assertNull(cache.get(a.getIdentifier()));
+		assertNotNull(cache.get(b.getIdentifier()));
+
+		cache.setTimeout(0);
+		assertNull(cache.get(b.getIdentifier()));
+		cache.put(a.getIdentifier(), 1, a.toXmlString());
+		assertNull(cache.get(a.getIdentifier()));
+	}
+
+}
@@ -1,19 +1,32 @@
 package i5.las2peer.p2p;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import i5.las2peer.api.execution.ServiceCall;
+import i5.las2peer.api.execution.ServiceCallResult;
 import i5.las2peer.api.execution.ServiceInvocationException;
+import i5.las2peer.api.execution.ServiceMethodNotFoundException;
 import i5.las2peer.api.execution.ServiceNotFoundException;
 import i5.las2peer.api.p2p.ServiceNameVersion;
 import i5.las2peer.classLoaders.ServiceClassLoader;
 import i5.las2peer.execution.ExecutionContext;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.LatencyHistogram;
+import i5.las2peer.logging.metrics.MetricFamily;
+import i5.las2peer.logging.metrics.MetricsRegistry;
+import i5.las2peer.p2p.NodeServiceCache.ServiceInstance;
 import i5.las2peer.security.ServiceAgentImpl;
 import i5.las2peer.security.UserAgentImpl;
 import i5.las2peer.testing.MockAgentFactory;
@@ -105,6 +118,134 @@ public class LocalNodeInvocationTest {
 		}
 	}
 
+	@Test
+	public void testAsyncInvocation() {
+		try {
+			LocalNode serviceNode1 = manager.newNode();
+			LocalNode serviceNode2 = manager.newNode();
+			UserAgentImpl eve = MockAgentFactory.getEve();
+
+			eve.unlock("evespass");
+			serviceNode1.storeAgent(eve);
+			serviceNode1.launch();
+			serviceNode2.launch();
+
+			serviceNode1.startService(ServiceNameVersion.fromString("i5.las2peer.api.TestService@1.0"), "a pass");
+			serviceNode2.startService(ServiceNameVersion.fromString("i5.las2peer.api.TestService2@1.0"), "a 2nd pass");
+
+			LocalNode callerNode = manager.launchNode();
+			Serializable result = callerNode
+					.invokeAsync(eve, ServiceNameVersion.fromString("i5.las2peer.api.TestService@1.0"), "inc",
+							new Serializable[] { new Integer(12) }, false, false)
+					.get(10, TimeUnit.SECONDS);
+			assertEquals(14, result);
+
+			// fan-out from inside a service
+			result = callerNode.invoke(eve, "i5.las2peer.api.TestService2@1.0", "usingOtherAsync",
+					new Serializable[] { new Integer(12), new Integer(5) });
+			assertEquals(70, result);
+
+			try {
+				callerNode.invokeAsync(eve, ServiceNameVersion.fromString("i5.las2peer.api.NotExisting@1.0"), "inc",
+						new Serializable[] { new Integer(12) }, false, false).get(10, TimeUnit.SECONDS);
+				Assert.fail("ExecutionException expected");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof ServiceNotFoundException);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testAsyncFailover() {
+		try {
+			LocalNode serviceNode1 = manager.newNode();
+			LocalNode serviceNode2 = manager.newNode();
+			UserAgentImpl eve = MockAgentFactory.getEve();
+
+			eve.unlock("evespass");
+			serviceNode1.storeAgent(eve);
+			serviceNode1.launch();
+			serviceNode2.launch();
+
+			ServiceNameVersion service = ServiceNameVersion.fromString("i5.las2peer.api.TestService@1.0");
+			serviceNode1.startService(service, "a pass");
+			serviceNode2.startService(service, "a pass");
+
+			LocalNode callerNode = manager.launchNode();
+			callerNode.setServiceSelectionPolicy(NodeServiceCache.SelectionPolicy.FIRST_RESPONSE);
+			ServiceInstance first = callerNode.getNodeServiceCache().getServiceAgentInstance(service, true, false,
+					eve);
+			LatencyHistogram duration = MetricsRegistry.getDefault()
+					.histogram("las2peer_rmi_duration_seconds", "", "path").get("invoke");
+			long invocations = duration.getCount();
+
+			// the node of the chosen instance is gone, so the call is retried with the other instance
+			LocalNode gone = first.getNodeId().equals(serviceNode1.getNodeId()) ? serviceNode1 : serviceNode2;
+			gone.shutDown();
+			Serializable result = callerNode
+					.invokeAsync(eve, service, "inc", new Serializable[] { new Integer(12) }, true, false)
+					.get(10, TimeUnit.SECONDS);
+			assertEquals(14, result);
+			ServiceInstance next = callerNode.getNodeServiceCache().getServiceAgentInstance(service, true, false,
+					eve);
+			assertNotEquals(gone.getNodeId(), next.getNodeId());
+			assertEquals(invocations + 1, duration.getCount());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testBatchInvocation() {
+		try {
+			LocalNode serviceNode1 = manager.newNode();
+			LocalNode serviceNode2 = manager.newNode();
+			UserAgentImpl eve = MockAgentFactory.getEve();
+
+			eve.unlock("evespass");
+			serviceNode1.storeAgent(eve);
+			serviceNode1.launch();
+			serviceNode2.launch();
+
+			ServiceNameVersion service = ServiceNameVersion.fromString("i5.las2peer.api.TestService@1.0");
+			serviceNode1.startService(service, "a pass");
+			serviceNode2.startService(ServiceNameVersion.fromString("i5.las2peer.api.TestService2@1.0"), "a 2nd pass");
+
+			List<ServiceCall> calls = Arrays.asList(new ServiceCall("inc", new Integer(12)),
+					new ServiceCall("notExisting"), new ServiceCall("inc", new Integer(5)));
+
+			LocalNode callerNode = manager.launchNode();
+			for (boolean parallel : new boolean[] { false, true }) {
+				// remote and local batches
+				for (LocalNode node : new LocalNode[] { callerNode, serviceNode1 }) {
+					List<ServiceCallResult> results = node.invokeBatch(eve, service, calls, parallel, false, false);
+					assertEquals(3, results.size());
+					assertEquals(14, results.get(0).getResult());
+					assertTrue(results.get(1).getException() instanceof ServiceMethodNotFoundException);
+					assertEquals(7, results.get(2).getResult());
+				}
+			}
+
+			// batch from inside a service
+			Object result = callerNode.invoke(eve, "i5.las2peer.api.TestService2@1.0", "usingOtherBatch",
+					new Serializable[] { new Integer(12), new Integer(5) });
+			assertEquals(70, result);
+
+			// names of methods the service does not have are not used as metrics label
+			MetricFamily<Counter> failures = MetricsRegistry.getDefault()
+					.counter("las2peer_service_call_failures_total", "", "service", "method");
+			assertTrue(failures.get(service.toString(), "unknown").get() >= 4);
+			failures.forEach((labels, counter) -> assertNotEquals("notExisting", labels[1]));
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 	@Test
 	public void testSubinvocationFail() {
 		try {
@@ -7,7 +7,17 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -17,8 +27,11 @@ import i5.las2peer.api.security.AgentException;
 import i5.las2peer.api.security.AgentLockedException;
 import i5.las2peer.api.security.AgentNotFoundException;
 import i5.las2peer.communication.Message;
+import i5.las2peer.communication.MessageException;
 import i5.las2peer.communication.PingPongContent;
 import i5.las2peer.p2p.Node.SendMode;
+import i5.las2peer.security.AgentContext;
+import i5.las2peer.security.AgentImpl;
 import i5.las2peer.security.AnonymousAgentImpl;
 import i5.las2peer.security.Mediator;
 import i5.las2peer.security.ServiceAgentImpl;
@@ -614,4 +627,184 @@ public class LocalNodeTest {
 		}
 	}
 
+	/**
+	 * mediator with its own id that only counts the messages it receives
+	 */
+	private static class CountingReceiver extends Mediator {
+		private final String id;
+		private final AtomicInteger received = new AtomicInteger();
+
+		private CountingReceiver(Node node, AgentImpl agent, String id) throws AgentLockedException {
+			super(node, agent);
+			this.id = id;
+		}
+
+		@Override
+		public String getResponsibleForAgentSafeId() {
+			return id;
+		}
+
+		@Override
+		public void receiveMessage(Message message, AgentContext c) throws MessageException {
+			received.incrementAndGet();
+		}
+	}
+
+	@Test
+	public void testConcurrentTopicRegistration() {
+		try {
+			UserAgentImpl adam = MockAgentFactory.getAdam();
+			adam.unlock("adamspass");
+			LocalNode testee = new LocalNodeManager().launchNode();
+			testee.storeAgent(adam);
+
+			// these receivers stay registered during the whole test
+			List<CountingReceiver> permanent = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				CountingReceiver receiver = new CountingReceiver(testee, adam, "permanent" + i);
+				testee.registerReceiver(receiver);
+				testee.registerReceiverToTopic(receiver, 1);
+				permanent.add(receiver);
+			}
+
+			ExecutorService executor = Executors.newFixedThreadPool(12);
+			AtomicBoolean running = new AtomicBoolean(true);
+			AtomicInteger broadcasts = new AtomicInteger();
+			List<Future<?>> registrations = new ArrayList<>();
+			List<Future<?>> deliveries = new ArrayList<>();
+
+			// thousands of receivers register and unregister
+			for (int t = 0; t < 8; t++) {
+				final int thread = t;
+				registrations.add(executor.submit(() -> {
+					for (int i = 0; i < 500; i++) {
+						CountingReceiver receiver = new CountingReceiver(testee, adam, "temp" + thread + "_" + i);
+						testee.registerReceiver(receiver);
+						testee.registerReceiverToTopic(receiver, 1);
+						testee.registerReceiverToTopic(receiver, 2 + i % 3);
+						if (i % 2 == 0) {
+							testee.unregisterReceiverFromTopic(receiver, 1);
+						}
+						testee.unregisterReceiver(receiver);
+					}
+					return null;
+				}));
+			}
+
+			// while topic messages are delivered
+			Message message = new Message(adam, 1, "some content");
+			for (int t = 0; t < 4; t++) {
+				deliveries.add(executor.submit(() -> {
+					while (running.get()) {
+						testee.receiveMessage(message);
+						broadcasts.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+
+			for (Future<?> f : registrations) {
+				f.get(5, TimeUnit.MINUTES);
+			}
+			running.set(false);
+			for (Future<?> f : deliveries) {
+				f.get(1, TimeUnit.MINUTES);
+			}
+			executor.shutdown();
+
+			// each delivery reached all permanent receivers and none of the temporary ones is left
+			assertTrue(broadcasts.get() > 0);
+			for (CountingReceiver receiver : permanent) {
+				assertEquals(broadcasts.get(), receiver.received.get());
+			}
+			for (int t = 0; t < 8; t++) {
+				for (int i = 0; i < 500; i++) {
+					assertFalse(testee.hasLocalAgent("temp" + t + "_" + i));
+				}
+			}
+			assertFalse(testee.hasTopic(2));
+			assertFalse(testee.hasTopic(3));
+			assertFalse(testee.hasTopic(4));
+
+			for (CountingReceiver receiver : permanent) {
+				testee.unregisterReceiver(receiver);
+			}
+			assertFalse(testee.hasTopic(1));
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	/**
+	 * local node tracking its topic subscriptions, subscribing takes a while like in a real network
+	 */
+	private static class SubscribingNode extends LocalNode {
+		private final Set<Long> subscribed = ConcurrentHashMap.newKeySet();
+		private final AtomicInteger unbalanced = new AtomicInteger();
+
+		private SubscribingNode(LocalNodeManager manager) {
+			super(manager);
+		}
+
+		@Override
+		protected void topicRegistered(long topic) {
+			if (!subscribed.add(topic)) {
+				unbalanced.incrementAndGet();
+			}
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		protected void topicUnregistered(long topic) {
+			if (!subscribed.remove(topic)) {
+				unbalanced.incrementAndGet();
+			}
+		}
+	}
+
+	@Test
+	public void testTopicRegistrationRacingUnregister() {
+		try {
+			UserAgentImpl adam = MockAgentFactory.getAdam();
+			adam.unlock("adamspass");
+			SubscribingNode testee = new SubscribingNode(new LocalNodeManager());
+			testee.launch();
+			testee.storeAgent(adam);
+
+			ExecutorService executor = Executors.newFixedThreadPool(2);
+			for (int i = 0; i < 500; i++) {
+				CountingReceiver receiver = new CountingReceiver(testee, adam, "racing" + i);
+				testee.registerReceiver(receiver);
+				Future<?> registration = executor.submit(() -> {
+					try {
+						testee.registerReceiverToTopic(receiver, 1);
+					} catch (AgentNotRegisteredException e) {
+						// lost the race
+					}
+					return null;
+				});
+				Future<?> unregistration = executor.submit(() -> {
+					testee.unregisterReceiver(receiver);
+					return null;
+				});
+				registration.get(1, TimeUnit.MINUTES);
+				unregistration.get(1, TimeUnit.MINUTES);
+				assertFalse(testee.hasTopic(1));
+			}
+			executor.shutdown();
+
+			// each subscription has been undone exactly once
+			assertEquals(0, testee.unbalanced.get());
+			assertTrue(testee.subscribed.isEmpty());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 }
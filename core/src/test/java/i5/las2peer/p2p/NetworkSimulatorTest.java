@@ -0,0 +1,225 @@
+package i5.las2peer.p2p;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.execution.ExecutionContext;
+import i5.las2peer.execution.ServiceExecutor;
+import i5.las2peer.p2p.NetworkSimulator.Clock;
+import i5.las2peer.security.ServiceAgentImpl;
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.testing.MockAgentFactory;
+
+public class NetworkSimulatorTest {
+
+	@Test
+	public void testVirtualClock() throws InterruptedException {
+		NetworkSimulator simulator = new NetworkSimulator(Clock.VIRTUAL_TIME, 1);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(3);
+		long start = System.currentTimeMillis();
+		// events scheduled by a running event are due relative to its time
+		simulator.schedule(0, () -> {
+			simulator.schedule(60000, () -> {
+				order.add("late at " + simulator.currentTimeMillis());
+				done.countDown();
+			});
+			simulator.schedule(10, () -> {
+				order.add("early at " + simulator.currentTimeMillis());
+				simulator.schedule(20, () -> {
+					order.add("follow-up at " + simulator.currentTimeMillis());
+					done.countDown();
+				});
+				done.countDown();
+			});
+		});
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start < 60000);
+		assertEquals("early at 10", order.get(0));
+		assertEquals("follow-up at 30", order.get(1));
+		assertEquals("late at 60000", order.get(2));
+		assertEquals(0, simulator.getPendingEvents());
+		simulator.shutdown();
+	}
+
+	@Test
+	public void testBlockedDelivery() throws InterruptedException {
+		NetworkSimulator simulator = new NetworkSimulator(Clock.VIRTUAL_TIME, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		// a delivery blocked by something outside of the simulation keeps the clock from advancing
+		simulator.schedule(0, () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		simulator.schedule(10, done::countDown);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		assertFalse(done.await(500, TimeUnit.MILLISECONDS));
+		assertEquals(0, simulator.currentTimeMillis());
+		release.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(10, simulator.currentTimeMillis());
+		simulator.shutdown();
+	}
+
+	@Test
+	public void testWaitingDelivery() throws InterruptedException {
+		NetworkSimulator simulator = new NetworkSimulator(Clock.VIRTUAL_TIME, 1);
+		CountDownLatch answer = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		List<Long> times = Collections.synchronizedList(new ArrayList<>());
+		// a delivery waiting for a later event lets the clock advance to it
+		simulator.schedule(0, () -> {
+			simulator.schedule(10, answer::countDown);
+			try {
+				simulator.waitFor(answer::await);
+				times.add(simulator.currentTimeMillis());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			done.countDown();
+		});
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(Collections.singletonList(10L), times);
+		simulator.shutdown();
+	}
+
+	@Test
+	public void testAttributedWaits() throws Exception {
+		NetworkSimulator simulator = new NetworkSimulator(Clock.VIRTUAL_TIME, 1);
+		ServiceExecutor executor = new ServiceExecutor(4, 0);
+		ExecutionContext context = Mockito.mock(ExecutionContext.class);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch externalAnswer = new CountDownLatch(1);
+		CountDownLatch serviceAnswer = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		List<Long> times = Collections.synchronizedList(new ArrayList<>());
+		try {
+			simulator.schedule(0, () -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			simulator.schedule(10, externalAnswer::countDown);
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			// a service call not started by a delivery waits, while the delivery is still busy
+			Future<Void> external = executor.submit(context, () -> {
+				simulator.waitFor(externalAnswer::await);
+				return null;
+			});
+			assertFalse(externalAnswer.await(500, TimeUnit.MILLISECONDS));
+			assertEquals(0, simulator.currentTimeMillis());
+			release.countDown();
+			external.get(10, TimeUnit.SECONDS);
+			assertEquals(10, simulator.currentTimeMillis());
+
+			// a service call started by a delivery waits on its behalf
+			simulator.schedule(0, () -> {
+				simulator.schedule(20, serviceAnswer::countDown);
+				try {
+					executor.invoke(context, () -> {
+						simulator.waitFor(serviceAnswer::await);
+						return null;
+					});
+					times.add(simulator.currentTimeMillis());
+				} catch (Exception e) {
+					Assert.fail(e.toString());
+				}
+				done.countDown();
+			});
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			assertEquals(Collections.singletonList(30L), times);
+		} finally {
+			executor.shutdown();
+			simulator.shutdown();
+		}
+	}
+
+	@Test
+	public void testLinkModels() {
+		NetworkSimulator first = new NetworkSimulator(Clock.VIRTUAL_TIME, 42);
+		NetworkSimulator second = new NetworkSimulator(Clock.VIRTUAL_TIME, 42);
+		LocalNodeManager firstManager = new LocalNodeManager(first);
+		LocalNodeManager secondManager = new LocalNodeManager(second);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(firstManager.newNode().getNodeId(), secondManager.newNode().getNodeId());
+		}
+
+		Random random = new Random(7);
+		LinkModel uniform = LinkModel.uniform(5, 8);
+		for (int i = 0; i < 100; i++) {
+			long delay = uniform.delay(1, 2, null, random);
+			assertTrue(delay >= 5 && delay <= 8);
+		}
+		assertTrue(LinkModel.of(0, 5, 0, 0).delay(1, 2, null, new Random(0)) >= 0);
+
+		first.setLinkModel(LinkModel.of(10, 0, 0, 1.0));
+		assertFalse(first.transmit(1, 2, null, () -> Assert.fail("lost message delivered")));
+		assertEquals(1, first.getSentMessages());
+		assertEquals(1, first.getLostMessages());
+		assertEquals(0, first.getPendingEvents());
+		first.shutdown();
+		second.shutdown();
+	}
+
+	@Test
+	public void testSimulatedInvocations() {
+		NetworkSimulator simulator = new NetworkSimulator(Clock.VIRTUAL_TIME, 4711, LinkModel.of(50, 10, 0, 0));
+		try {
+			LocalNodeManager manager = new LocalNodeManager(simulator);
+			UserAgentImpl eve = MockAgentFactory.getEve();
+			eve.unlock("evespass");
+
+			LocalNode serviceNode = manager.newNode();
+			serviceNode.storeAgent(eve);
+			serviceNode.launch();
+			ServiceAgentImpl serviceAgent = serviceNode
+					.startService(ServiceNameVersion.fromString("i5.las2peer.api.TestService@1.0"), "a pass");
+
+			List<LocalNode> callers = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				callers.add(manager.launchNode());
+			}
+
+			for (int i = 0; i < callers.size(); i++) {
+				Object result = callers.get(i).invokeGlobally(eve, serviceAgent.getIdentifier(),
+						serviceNode.getNodeId(), "inc", new Serializable[] { i });
+				assertEquals(i + 2, result);
+			}
+			// each invocation travels two simulated links of about 50 ms
+			assertTrue(simulator.currentTimeMillis() >= 20 * 2 * 20);
+			assertTrue(simulator.getDeliveredMessages() >= 40);
+			assertEquals(0, simulator.getLostMessages());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		} finally {
+			simulator.shutdown();
+		}
+	}
+
+}
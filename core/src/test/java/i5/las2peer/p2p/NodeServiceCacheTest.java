@@ -1,14 +1,22 @@
 package i5.las2peer.p2p;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import i5.las2peer.api.execution.ServiceInvocationException;
 import i5.las2peer.api.p2p.ServiceNameVersion;
+import i5.las2peer.p2p.NetworkSimulator.Clock;
 import i5.las2peer.p2p.NodeServiceCache.ServiceInstance;
 import i5.las2peer.security.ServiceAgentImpl;
 import i5.las2peer.security.UserAgentImpl;
@@ -206,4 +214,177 @@ public class NodeServiceCacheTest {
 		}
 	}
 
+	@Test
+	public void testInstanceSelection() {
+		try {
+			ServiceNameVersion serviceNameVersion = ServiceNameVersion.fromString("i5.las2peer.api.TestService@2.2");
+			NetworkSimulator simulator = new NetworkSimulator(Clock.REAL_TIME, 1, LinkModel.constant(0));
+			LocalNodeManager manager = new LocalNodeManager(simulator);
+			Node invokingNode = manager.launchNode();
+			Node slowNode = manager.launchNode();
+			Node node1 = manager.launchNode();
+			Node node2 = manager.launchNode();
+			slowNode.startService(serviceNameVersion, "a pass");
+			node1.startService(serviceNameVersion, "a pass");
+			node2.startService(serviceNameVersion, "a pass");
+
+			UserAgentImpl userAgent = MockAgentFactory.getAdam();
+			userAgent.unlock("adamspass");
+			invokingNode.storeAgent(userAgent);
+			invokingNode.registerReceiver(userAgent);
+
+			NodeServiceCache cache = invokingNode.getNodeServiceCache();
+			cache.setTimeoutMs(10000);
+			assertEquals(NodeServiceCache.SelectionPolicy.POWER_OF_TWO_CHOICES, cache.getSelectionPolicy());
+
+			// real invocations are measured, unmeasured instances are preferred
+			invokingNode.setServiceSelectionPolicy(NodeServiceCache.SelectionPolicy.LEAST_OUTSTANDING_REQUESTS);
+			for (int i = 0; i < 3; i++) {
+				assertEquals(10,
+						invokingNode.invoke(userAgent, serviceNameVersion, "getInt", new Serializable[0], true));
+			}
+			for (int i = 0; i < 10; i++) {
+				ServiceInstance instance = cache.getServiceAgentInstance(serviceNameVersion, true, false, userAgent);
+				assertEquals(0, instance.getOutstandingRequests());
+				assertTrue(instance.getLatencyMs() >= 0);
+			}
+
+			// messages from and to the slow node take much longer
+			long invokingId = (Long) invokingNode.getNodeId();
+			long slowId = (Long) slowNode.getNodeId();
+			AtomicInteger slowCount = new AtomicInteger();
+			simulator.setLinkModel((fromNode, toNode, message, random) -> {
+				if (fromNode == invokingId && toNode == slowId) {
+					slowCount.incrementAndGet();
+				}
+				return fromNode == slowId || toNode == slowId ? 100 : 1;
+			});
+			invokingNode.setServiceSelectionPolicy(NodeServiceCache.SelectionPolicy.POWER_OF_TWO_CHOICES);
+			cache.clear(); // start without the measures of the first invocations
+			for (int i = 0; i < 50; i++) {
+				assertEquals(10,
+						invokingNode.invoke(userAgent, serviceNameVersion, "getInt", new Serializable[0], true));
+			}
+			assertTrue("slow node got " + slowCount + " messages", slowCount.get() < 15);
+			simulator.setLinkModel(LinkModel.constant(0));
+
+			// requests stuck at the slow node shift the traffic away from it
+			invokingNode.setServiceSelectionPolicy(NodeServiceCache.SelectionPolicy.LEAST_OUTSTANDING_REQUESTS);
+			ServiceInstance stuck = cache.getServiceAgentInstance(serviceNameVersion, true, false, userAgent);
+			stuck.requestStarted();
+			for (int i = 0; i < 100; i++) {
+				ServiceInstance instance = cache.getServiceAgentInstance(serviceNameVersion, true, false, userAgent);
+				assertNotSame(stuck, instance);
+			}
+
+			// the first response policy always picks the same instance
+			invokingNode.setServiceSelectionPolicy(NodeServiceCache.SelectionPolicy.FIRST_RESPONSE);
+			ServiceInstance first = cache.getServiceAgentInstance(serviceNameVersion, true, false, userAgent);
+			for (int i = 0; i < 100; i++) {
+				assertSame(first, cache.getServiceAgentInstance(serviceNameVersion, true, false, userAgent));
+			}
+
+			// exceptions thrown by the service do not count as errors of the instance
+			assertEquals(0, first.getErrorRate(), 0);
+			try {
+				invokingNode.invoke(userAgent, serviceNameVersion, "exception", new Serializable[0], true);
+				fail("ServiceInvocationException expected");
+			} catch (ServiceInvocationException e) {
+				// expected
+			}
+			assertEquals(0, first.getErrorRate(), 0);
+			assertSame(first, cache.getServiceAgentInstance(serviceNameVersion, true, false, userAgent));
+
+			// an unreachable instance counts as error, the invocation is retried at another instance
+			for (Node node : new Node[] { slowNode, node1, node2 }) {
+				if (node.getNodeId().equals(first.getNodeId())) {
+					node.shutDown();
+				}
+			}
+			assertEquals(10, invokingNode.invoke(userAgent, serviceNameVersion, "getInt", new Serializable[0], true));
+			assertTrue(first.getErrorRate() > 0);
+			assertNotSame(first, cache.getServiceAgentInstance(serviceNameVersion, true, false, userAgent));
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testAnnouncementsAndStaleWhileRevalidate() {
+		try {
+			ServiceNameVersion service21 = ServiceNameVersion.fromString("i5.las2peer.api.TestService@2.1");
+			ServiceNameVersion service22 = ServiceNameVersion.fromString("i5.las2peer.api.TestService@2.2");
+			LocalNodeManager manager = new LocalNodeManager();
+			Node invokingNode = manager.launchNode();
+			Node node1 = manager.launchNode();
+			Node node2 = manager.launchNode();
+			node1.setServiceAnnouncementInterval(1);
+			node2.setServiceAnnouncementInterval(1);
+			node1.startService(service21, "a pass");
+			ServiceAgentImpl agent22 = node2.startService(service22, "a pass");
+
+			// nodes hosting the service learn about other versions from announcements, a discovery would fail
+			// without an acting agent
+			ServiceInstance announced = null;
+			for (int i = 0; i < 50 && announced == null; i++) {
+				try {
+					announced = node1.getNodeServiceCache().getServiceAgentInstance(service22, true, false, null);
+				} catch (AgentNotRegisteredException e) {
+					Thread.sleep(100);
+				}
+			}
+			assertNotNull(announced);
+			assertEquals(agent22.getIdentifier(), announced.getServiceAgentId());
+			assertEquals(node2.getNodeId(), announced.getNodeId());
+
+			UserAgentImpl userAgent = MockAgentFactory.getAdam();
+			userAgent.unlock("adamspass");
+			invokingNode.storeAgent(userAgent);
+			invokingNode.registerReceiver(userAgent);
+
+			NodeServiceCache cache = invokingNode.getNodeServiceCache();
+			cache.setTimeoutMs(5000);
+			cache.setWaitForResults(1);
+			cache.setLifeTimeSeconds(1);
+			ServiceInstance known = cache.getServiceAgentInstance(service22, true, false, userAgent);
+			Thread.sleep(2100);
+			assertTrue(known.outdated());
+
+			// the outdated instance is served while a background discovery refreshes it
+			long start = System.currentTimeMillis();
+			assertSame(known, cache.getServiceAgentInstance(service22, true, false, userAgent));
+			assertTrue(System.currentTimeMillis() - start < 1000);
+			for (int i = 0; i < 200 && known.outdated(); i++) {
+				Thread.sleep(100);
+			}
+			assertFalse(known.outdated());
+
+			// once the service is gone, the refresh removes the outdated instance
+			node2.stopService(agent22);
+			cache.setTimeoutMs(2000);
+			Thread.sleep(2100);
+			assertSame(known, cache.getServiceAgentInstance(service22, true, false, userAgent));
+			boolean removed = false;
+			for (int i = 0; i < 50 && !removed; i++) {
+				Thread.sleep(200);
+				try {
+					cache.getServiceAgentInstance(service22, true, false, userAgent);
+				} catch (AgentNotRegisteredException e) {
+					removed = true;
+				}
+			}
+			assertTrue(removed);
+
+			// without stale-while-revalidate an outdated instance is never served
+			cache.setStaleWhileRevalidate(false);
+			known = cache.getServiceAgentInstance(service21, true, false, userAgent);
+			Thread.sleep(2100);
+			assertNotSame(known, cache.getServiceAgentInstance(service21, true, false, userAgent));
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 }
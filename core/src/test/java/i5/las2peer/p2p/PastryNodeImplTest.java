@@ -1,10 +1,13 @@
 package i5.las2peer.p2p;
 
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import i5.las2peer.persistency.EnvelopeVersion;
 import i5.las2peer.testing.TestSuite;
 
 public class PastryNodeImplTest {
@@ -43,6 +46,20 @@ public class PastryNodeImplTest {
 		}
 	}
 
+	@Test
+	public void testFetchFromStoppedNode() throws Exception {
+		PastryNodeImpl testNode = new PastryNodeImpl(null, null, null, null);
+		// the failure is reported through the future
+		CompletableFuture<EnvelopeVersion> future = testNode.fetchEnvelopeFuture("test");
+		Assert.assertTrue(future.isCompletedExceptionally());
+		try {
+			future.get();
+			Assert.fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
 	@Test
 	public void testStartNetwork() {
 		ArrayList<PastryNodeImpl> nodes = null;
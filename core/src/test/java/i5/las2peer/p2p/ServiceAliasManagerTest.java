@@ -147,6 +147,64 @@ public class ServiceAliasManagerTest {
 				.getNumMatchedParts());
 	}
 
+	@Test
+	public void testCache() throws CryptoException, InternalSecurityException, AliasConflictException,
+			AliasNotFoundException, AgentAccessDeniedException, AgentOperationFailedException {
+		LocalNodeManager manager = new LocalNodeManager();
+		LocalNode node1 = manager.launchNode();
+		LocalNode node2 = manager.launchNode();
+		ServiceAgentImpl agentA = ServiceAgentImpl.createServiceAgent(ServiceNameVersion.fromString("serviceA@1.0"),
+				"asdf");
+		agentA.unlock("asdf");
+
+		// the missing alias is remembered at node1
+		try {
+			node1.getServiceAliasManager().resolvePathToServiceName("prefix/aliasA");
+			fail("AliasNotFoundException expected");
+		} catch (AliasNotFoundException e) {
+		}
+
+		// registering at node1 itself updates its cache
+		node1.getServiceAliasManager().registerServiceAlias(agentA, "prefix/aliasA");
+		assertEquals("serviceA", node1.getServiceAliasManager().resolvePathToServiceName("prefix/aliasA/asdf")
+				.getServiceName());
+		assertEquals("serviceA",
+				node2.getServiceAliasManager().resolvePathToServiceName("prefix/aliasA").getServiceName());
+
+		// aliases registered at node2 are not visible at node1 until the missing entry expires
+		ServiceAgentImpl agentB = ServiceAgentImpl.createServiceAgent(ServiceNameVersion.fromString("serviceB@1.0"),
+				"asdf");
+		agentB.unlock("asdf");
+		try {
+			node1.getServiceAliasManager().resolvePathToServiceName("prefix/aliasB");
+			fail("AliasNotFoundException expected");
+		} catch (AliasNotFoundException e) {
+		}
+		node2.getServiceAliasManager().registerServiceAlias(agentB, "prefix/aliasB");
+		try {
+			node1.getServiceAliasManager().resolvePathToServiceName("prefix/aliasB");
+			fail("AliasNotFoundException expected");
+		} catch (AliasNotFoundException e) {
+		}
+		node1.getServiceAliasManager().clearCache();
+		assertEquals("serviceB",
+				node1.getServiceAliasManager().resolvePathToServiceName("prefix/aliasB").getServiceName());
+
+		// registering an alias that already exists updates the cache, too
+		ServiceAgentImpl agentC = ServiceAgentImpl.createServiceAgent(ServiceNameVersion.fromString("serviceC@1.0"),
+				"asdf");
+		agentC.unlock("asdf");
+		try {
+			node1.getServiceAliasManager().resolvePathToServiceName("prefix/aliasC");
+			fail("AliasNotFoundException expected");
+		} catch (AliasNotFoundException e) {
+		}
+		node2.getServiceAliasManager().registerServiceAlias(agentC, "prefix/aliasC");
+		node1.getServiceAliasManager().registerServiceAlias(agentC, "prefix/aliasC");
+		assertEquals("serviceC",
+				node1.getServiceAliasManager().resolvePathToServiceName("prefix/aliasC").getServiceName());
+	}
+
 	@Test
 	public void testIntegration() throws CryptoException, InternalSecurityException, AgentAlreadyRegisteredException,
 			AgentException, AliasNotFoundException, AgentAccessDeniedException {
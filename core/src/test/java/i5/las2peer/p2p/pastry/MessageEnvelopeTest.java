@@ -1,6 +1,10 @@
 package i5.las2peer.p2p.pastry;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -29,6 +33,25 @@ public class MessageEnvelopeTest {
 		}
 	}
 
+	@Test
+	public void testBinaryVersion() throws Exception {
+		MessageEnvelope envelope = new MessageEnvelope(null, "some data to test");
+		assertEquals(Message.BINARY_MESSAGE_VERSION, envelope.getBinaryVersion());
+
+		// envelopes of nodes announcing only the binary flag read version 1
+		Field version = MessageEnvelope.class.getDeclaredField("binaryVersion");
+		version.setAccessible(true);
+		version.setInt(envelope, 0);
+		MessageEnvelope legacy = (MessageEnvelope) SerializeTools.deserialize(SerializeTools.serialize(envelope));
+		assertEquals(1, legacy.getBinaryVersion());
+
+		// nodes without binary support have neither
+		Field flag = MessageEnvelope.class.getDeclaredField("acceptsBinary");
+		flag.setAccessible(true);
+		flag.setBoolean(envelope, false);
+		assertEquals(0, envelope.getBinaryVersion());
+	}
+
 	public void testFromMessage() {
 		try {
 			UserAgentImpl adam = UserAgentImpl.createUserAgent("passa");
@@ -58,4 +81,38 @@ public class MessageEnvelopeTest {
 		}
 	}
 
+	@Test
+	public void testBinaryMessage() {
+		try {
+			UserAgentImpl adam = UserAgentImpl.createUserAgent("passa");
+			UserAgentImpl eve = UserAgentImpl.createUserAgent("passb");
+
+			BasicAgentStorage storage = new BasicAgentStorage();
+			storage.registerAgents(adam, eve);
+
+			adam.unlock("passa");
+			eve.unlock("passb");
+
+			String data = "some data to test";
+
+			Message m = new Message(adam, eve, data);
+
+			MessageEnvelope testee = new MessageEnvelope(null, m.toBinary());
+
+			byte[] serialized = SerializeTools.serialize(testee);
+			MessageEnvelope andBack = (MessageEnvelope) SerializeTools.deserialize(serialized);
+
+			assertTrue(andBack.isBinary());
+			assertEquals(Message.BINARY_MESSAGE_VERSION, andBack.getBinaryVersion());
+			assertNull(andBack.getContent());
+
+			Message contained = andBack.getContainedMessage();
+			contained.open(eve, storage);
+			assertEquals(data, contained.getContent());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 }
@@ -0,0 +1,105 @@
+package i5.las2peer.persistency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import i5.las2peer.security.AgentImpl;
+import i5.las2peer.tools.CryptoTools;
+
+public class EnvelopeCacheTest {
+
+	private static PublicKey authorKey;
+
+	@BeforeClass
+	public static void createKey() {
+		authorKey = CryptoTools.generateKeyPair().getPublic();
+	}
+
+	private static EnvelopeVersion create(String identifier, String content) throws Exception {
+		return new EnvelopeVersion(identifier, authorKey, content, new ArrayList<AgentImpl>());
+	}
+
+	@Test
+	public void testVersions() throws Exception {
+		EnvelopeVersion first = create("test", "first");
+		EnvelopeVersion second = new EnvelopeVersion(first, "second");
+		EnvelopeCache cache = new EnvelopeCache();
+		assertNull(cache.get("test", EnvelopeVersion.LATEST_VERSION));
+
+		cache.put(first, false);
+		assertSame(first, cache.get("test", first.getVersion()));
+		// only fetched by version, so the latest version is still unknown
+		assertNull(cache.get("test", EnvelopeVersion.LATEST_VERSION));
+
+		cache.put(second, true);
+		assertSame(second, cache.get("test", EnvelopeVersion.LATEST_VERSION));
+		// an older version seen later does not replace the known latest version
+		cache.put(first, true);
+		assertSame(second, cache.get("test", EnvelopeVersion.LATEST_VERSION));
+		assertSame(first, cache.get("test", first.getVersion()));
+
+		cache.invalidateLatest("test");
+		assertNull(cache.get("test", EnvelopeVersion.LATEST_VERSION));
+		assertSame(second, cache.get("test", second.getVersion()));
+
+		assertEquals(5, cache.getHits());
+		assertEquals(3, cache.getMisses());
+	}
+
+	@Test
+	public void testLatestTimeout() throws Exception {
+		EnvelopeVersion envelope = create("test", "content");
+		EnvelopeCache cache = new EnvelopeCache();
+		cache.setLatestTimeout(100);
+		cache.put(envelope, true);
+		assertSame(envelope, cache.get("test", EnvelopeVersion.LATEST_VERSION));
+		Thread.sleep(200);
+		assertNull(cache.get("test", EnvelopeVersion.LATEST_VERSION));
+		assertSame(envelope, cache.get("test", envelope.getVersion()));
+
+		cache.setLatestTimeout(0);
+		cache.put(envelope, true);
+		assertNull(cache.get("test", EnvelopeVersion.LATEST_VERSION));
+	}
+
+	@Test
+	public void testSizeLimit() throws Exception {
+		char[] large = new char[10000];
+		EnvelopeVersion a = create("a", new String(large));
+		EnvelopeVersion b = create("b", new String(large));
+		EnvelopeVersion c = create("c", new String(large));
+		EnvelopeCache cache = new EnvelopeCache();
+		cache.put(a, true);
+		long size = cache.getBytes();
+		assertTrue(size > 10000);
+
+		cache.setMaxBytes(2 * size + size / 2);
+		cache.put(b, true);
+		assertEquals(2 * size, cache.getBytes());
+		// use a, so b is the least recently used envelope
+		cache.get("a", EnvelopeVersion.LATEST_VERSION);
+		cache.put(c, true);
+		assertEquals(2, cache.getSize());
+		assertEquals(2 * size, cache.getBytes());
+		assertNull(cache.get("b", b.getVersion()));
+		assertNull(cache.get("b", EnvelopeVersion.LATEST_VERSION));
+		assertSame(a, cache.get("a", a.getVersion()));
+		assertSame(c, cache.get("c", EnvelopeVersion.LATEST_VERSION));
+
+		// too large for the cache at all
+		cache.setMaxBytes(size / 2);
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getBytes());
+		cache.put(a, true);
+		assertNull(cache.get("a", EnvelopeVersion.LATEST_VERSION));
+	}
+
+}
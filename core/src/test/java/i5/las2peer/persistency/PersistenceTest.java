@@ -1,6 +1,8 @@
 package i5.las2peer.persistency;
 
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -8,6 +10,9 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import i5.las2peer.api.persistency.EnvelopeAlreadyExistsException;
+import i5.las2peer.logging.metrics.Counter;
+import i5.las2peer.logging.metrics.MetricsRegistry;
 import i5.las2peer.p2p.PastryNodeImpl;
 import i5.las2peer.persistency.SharedStorage.STORAGE_MODE;
 import i5.las2peer.security.UserAgentImpl;
@@ -64,6 +69,58 @@ public class PersistenceTest {
 		}
 	}
 
+	@Test
+	public void testFutures() {
+		try {
+			PastryNodeImpl node1 = nodes.get(0);
+			PastryNodeImpl node2 = nodes.get(1);
+			UserAgentImpl smith = MockAgentFactory.getAdam();
+			smith.unlock("adamspass");
+			EnvelopeVersion env = node1.createUnencryptedEnvelope("future", smith.getPublicKey(), "This is las2peer!");
+			EnvelopeVersion fetched = node1.storeEnvelopeFuture(env, smith)
+					.thenCompose(successfulOperations -> node2.fetchEnvelopeFuture("future"))
+					.get(30, TimeUnit.SECONDS);
+			Assert.assertEquals(env.getContent(), fetched.getContent());
+			// a second store of the same version collides
+			try {
+				node2.storeEnvelopeFuture(env, smith).get(30, TimeUnit.SECONDS);
+				Assert.fail("ExecutionException expected");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof EnvelopeAlreadyExistsException);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void testVersionHead() {
+		try {
+			PastryNodeImpl node1 = nodes.get(0);
+			PastryNodeImpl node2 = nodes.get(1);
+			UserAgentImpl smith = MockAgentFactory.getAdam();
+			smith.unlock("adamspass");
+			EnvelopeVersion env = node1.createUnencryptedEnvelope("head", smith.getPublicKey(), "version 1");
+			node1.storeEnvelope(env, smith);
+			for (int version = 2; version <= 10; version++) {
+				env = node1.createUnencryptedEnvelope(env, "version " + version);
+				node1.storeEnvelope(env, smith);
+			}
+			Counter headFetches = MetricsRegistry.getDefault()
+					.counter("las2peer_storage_latest_fetches_total", "", "resolution").get("head");
+			long before = headFetches.get();
+			// node 2 has no cached version and must use the head
+			EnvelopeVersion fetched = node2.fetchEnvelope("head");
+			Assert.assertEquals(10, fetched.getVersion());
+			Assert.assertEquals("version 10", fetched.getContent());
+			Assert.assertEquals(before + 1, headFetches.get());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 	@Ignore
 	@Test
 	public void testVersionSafety() {
@@ -0,0 +1,179 @@
+package i5.las2peer.persistency.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import i5.las2peer.api.persistency.EnvelopeNotFoundException;
+import i5.las2peer.persistency.EnvelopeVersion;
+import i5.las2peer.persistency.LocalStorage;
+import i5.las2peer.persistency.MetadataEnvelope;
+import i5.las2peer.persistency.StorageEnvelopeHandler;
+import i5.las2peer.persistency.StorageExceptionHandler;
+import i5.las2peer.testing.MockAgentFactory;
+
+public class LatestVersionResolverTest {
+
+	private List<EnvelopeVersion> versions;
+	private MetadataEnvelope head;
+	private boolean partsFail;
+	private List<String> lookups;
+	private EnvelopeVersion received;
+	private Exception failure;
+
+	@Before
+	public void setup() throws Exception {
+		LocalStorage storage = new LocalStorage();
+		versions = new ArrayList<>();
+		EnvelopeVersion envelope = storage.createUnencryptedEnvelope("test",
+				MockAgentFactory.getAdam().getPublicKey(), "version 1");
+		versions.add(envelope);
+		for (int i = 2; i <= 5; i++) {
+			envelope = storage.createUnencryptedEnvelope(envelope, "version " + i);
+			versions.add(envelope);
+		}
+		head = new MetadataEnvelope("test", 5, 2);
+		partsFail = false;
+		lookups = new ArrayList<>();
+		received = null;
+		failure = null;
+	}
+
+	private void resolve(Long knownVersion) {
+		new LatestVersionResolver("test", knownVersion, new StorageEnvelopeHandler() {
+			@Override
+			public void onEnvelopeReceived(EnvelopeVersion result) {
+				received = result;
+			}
+		}, new StorageExceptionHandler() {
+			@Override
+			public void onException(Exception e) {
+				failure = e;
+			}
+		}) {
+			@Override
+			protected void fetchHead(String identifier, Consumer<MetadataEnvelope> headHandler,
+					StorageExceptionHandler exceptionHandler) {
+				lookups.add("head");
+				if (head == null) {
+					exceptionHandler.onException(new EnvelopeNotFoundException("no version head found"));
+				} else {
+					headHandler.accept(head);
+				}
+			}
+
+			@Override
+			protected void lookupVersion(String identifier, long version, Consumer<Boolean> existsHandler,
+					StorageExceptionHandler exceptionHandler) {
+				lookups.add("lookup " + version);
+				existsHandler.accept(version <= versions.size());
+			}
+
+			@Override
+			protected void fetchParts(MetadataEnvelope metadata, StorageEnvelopeHandler envelopeHandler,
+					StorageExceptionHandler exceptionHandler) {
+				lookups.add("parts " + metadata.getEnvelopeVersion());
+				if (partsFail) {
+					// each missing part reports its own failure
+					for (int part = 0; part < metadata.getEnvelopeNumOfParts(); part++) {
+						exceptionHandler.onException(new EnvelopeNotFoundException("part " + part + " not found"));
+					}
+				} else {
+					envelopeHandler.onEnvelopeReceived(versions.get((int) metadata.getEnvelopeVersion() - 1));
+				}
+			}
+
+			@Override
+			protected void probe(String identifier, long startVersion, StorageEnvelopeHandler envelopeHandler,
+					StorageExceptionHandler exceptionHandler) {
+				lookups.add("probe " + startVersion);
+				if (versions.isEmpty()) {
+					exceptionHandler.onException(new EnvelopeNotFoundException("no version found"));
+				} else {
+					envelopeHandler.onEnvelopeReceived(versions.get(versions.size() - 1));
+				}
+			}
+		}.start();
+	}
+
+	@Test
+	public void testHead() {
+		resolve(null);
+		assertEquals(5, received.getVersion());
+		assertNull(failure);
+		// the head leads to the parts without probing, once no later version exists
+		assertEquals(3, lookups.size());
+		assertEquals("head", lookups.get(0));
+		assertEquals("lookup 6", lookups.get(1));
+		assertEquals("parts 5", lookups.get(2));
+	}
+
+	@Test
+	public void testMissingHead() {
+		head = null;
+		resolve(null);
+		assertEquals(5, received.getVersion());
+		assertEquals(2, lookups.size());
+		assertEquals("probe " + EnvelopeVersion.START_VERSION, lookups.get(1));
+	}
+
+	@Test
+	public void testStaleHead() {
+		head = new MetadataEnvelope("test", 3, 1);
+		resolve(4L);
+		assertEquals(5, received.getVersion());
+		// the parts of the stale version are not fetched
+		assertEquals(2, lookups.size());
+		assertEquals("probe 4", lookups.get(1));
+
+		// a head at the known version is still used
+		lookups.clear();
+		versions.remove(4);
+		head = new MetadataEnvelope("test", 4, 1);
+		resolve(4L);
+		assertEquals(4, received.getVersion());
+		assertEquals("parts 4", lookups.get(2));
+	}
+
+	@Test
+	public void testLaggingHead() {
+		// the head update of the latest versions failed
+		head = new MetadataEnvelope("test", 3, 1);
+		resolve(null);
+		assertEquals(5, received.getVersion());
+		assertNull(failure);
+		// the parts of the lagging version are not fetched
+		assertEquals(3, lookups.size());
+		assertEquals("lookup 4", lookups.get(1));
+		assertEquals("probe 4", lookups.get(2));
+	}
+
+	@Test
+	public void testFailingParts() {
+		partsFail = true;
+		resolve(null);
+		assertEquals(5, received.getVersion());
+		assertNull(failure);
+		// both failing parts lead to a single probe
+		assertEquals(4, lookups.size());
+		assertEquals("parts 5", lookups.get(2));
+		assertEquals("probe " + EnvelopeVersion.START_VERSION, lookups.get(3));
+	}
+
+	@Test
+	public void testNotFound() {
+		head = null;
+		versions.clear();
+		resolve(null);
+		assertNull(received);
+		assertTrue(failure instanceof EnvelopeNotFoundException);
+	}
+
+}
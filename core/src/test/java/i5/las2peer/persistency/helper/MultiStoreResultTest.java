@@ -0,0 +1,75 @@
+package i5.las2peer.persistency.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import i5.las2peer.api.persistency.EnvelopeException;
+
+public class MultiStoreResultTest {
+
+	@Test
+	public void testAllPartsStored() throws Exception {
+		MultiStoreResult result = new MultiStoreResult(3);
+		result.onResult(null, 5);
+		result.onResult(null, 3);
+		assertFalse(result.isDone());
+		result.onResult(null, 4);
+		assertTrue(result.isDone());
+		assertEquals(3, result.get().intValue());
+		// errors after completion are ignored
+		result.onException(new EnvelopeException("too late"));
+		assertEquals(3, result.get().intValue());
+	}
+
+	@Test
+	public void testUnknownParts() throws Exception {
+		MultiStoreResult result = new MultiStoreResult();
+		result.onResult(null, 5);
+		result.onResult(null, 4);
+		assertFalse(result.isDone());
+		result.setParts(3);
+		assertFalse(result.isDone());
+		result.onResult(null, 6);
+		assertEquals(4, result.get().intValue());
+		result = new MultiStoreResult();
+		result.onResult(null, 2);
+		result.setParts(1);
+		assertEquals(2, result.get().intValue());
+	}
+
+	@Test
+	public void testPartFailed() throws Exception {
+		MultiStoreResult result = new MultiStoreResult(3);
+		result.onResult(null, 0);
+		assertTrue(result.isDone());
+		try {
+			result.get();
+			fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof EnvelopeException);
+		}
+	}
+
+	@Test
+	public void testFirstExceptionWins() throws Exception {
+		MultiStoreResult result = new MultiStoreResult(2);
+		EnvelopeException first = new EnvelopeException("first");
+		result.onException(first);
+		result.onException(new EnvelopeException("second"));
+		result.onResult(null, 5);
+		try {
+			result.get();
+			fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			assertSame(first, e.getCause());
+		}
+	}
+
+}
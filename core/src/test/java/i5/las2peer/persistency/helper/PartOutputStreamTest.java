@@ -0,0 +1,73 @@
+package i5.las2peer.persistency.helper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PartOutputStreamTest {
+
+	private static class CollectingStream extends PartOutputStream {
+		private final ArrayList<byte[]> parts = new ArrayList<>();
+
+		public CollectingStream(int partSize) {
+			super(partSize);
+		}
+
+		@Override
+		protected void onPart(int partIndex, byte[] part) {
+			assertEquals(parts.size(), partIndex);
+			parts.add(part);
+		}
+	}
+
+	@Test
+	public void testParts() throws Exception {
+		CollectingStream stream = new CollectingStream(4);
+		stream.write(new byte[] { 0, 1, 2 });
+		stream.write(3);
+		// first part is handed over as soon as it is full
+		assertEquals(1, stream.parts.size());
+		stream.write(new byte[] { 4, 5, 6, 7, 8, 9 }, 1, 5);
+		assertEquals(2, stream.parts.size());
+		stream.close();
+		assertEquals(3, stream.getParts());
+		assertArrayEquals(new byte[] { 0, 1, 2, 3 }, stream.parts.get(0));
+		assertArrayEquals(new byte[] { 5, 6, 7, 8 }, stream.parts.get(1));
+		assertArrayEquals(new byte[] { 9 }, stream.parts.get(2));
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		CollectingStream stream = new CollectingStream(4);
+		stream.close();
+		assertEquals(1, stream.getParts());
+		assertEquals(0, stream.parts.get(0).length);
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		byte[] data = new byte[10000];
+		new Random().nextBytes(data);
+		CollectingStream stream = new CollectingStream(1000);
+		ObjectOutputStream oos = new ObjectOutputStream(stream);
+		oos.writeObject(data);
+		oos.close();
+		ArrayList<InputStream> partStreams = new ArrayList<>();
+		for (byte[] part : stream.parts) {
+			partStreams.add(new ByteArrayInputStream(part));
+		}
+		ObjectInputStream ois = new ObjectInputStream(new SequenceInputStream(Collections.enumeration(partStreams)));
+		assertArrayEquals(data, (byte[]) ois.readObject());
+	}
+
+}
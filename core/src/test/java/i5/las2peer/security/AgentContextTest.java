@@ -2,8 +2,12 @@ package i5.las2peer.security;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.spy;
 
 import java.io.IOException;
 
@@ -11,10 +15,12 @@ import org.junit.Test;
 
 import i5.las2peer.api.security.AgentAccessDeniedException;
 import i5.las2peer.api.security.AgentException;
+import i5.las2peer.api.security.AgentOperationFailedException;
 import i5.las2peer.p2p.AgentAlreadyRegisteredException;
 import i5.las2peer.p2p.LocalNode;
 import i5.las2peer.p2p.LocalNodeManager;
 import i5.las2peer.p2p.NodeException;
+import i5.las2peer.persistency.EnvelopeVersion;
 import i5.las2peer.serialization.MalformedXMLException;
 import i5.las2peer.serialization.SerializationException;
 import i5.las2peer.testing.MockAgentFactory;
@@ -129,4 +135,173 @@ public class AgentContextTest {
 			fail("exception thrown: " + e);
 		}
 	}
+
+	@Test
+	public void testGroupCache() throws Exception {
+		LocalNode node = new LocalNodeManager().launchNode();
+		try {
+			UserAgentImpl admin = UserAgentImpl.createUserAgent("adminpass");
+			admin.unlock("adminpass");
+			UserAgentImpl member = UserAgentImpl.createUserAgent("memberpass");
+			member.unlock("memberpass");
+			node.storeAgent(admin);
+			node.storeAgent(member);
+			GroupAgentImpl group = GroupAgentImpl.createGroupAgent(new AgentImpl[] { admin, member });
+			group.unlock(admin);
+			node.storeAgent(group);
+			GroupAgentImpl superGroup = GroupAgentImpl.createGroupAgent(new AgentImpl[] { group });
+			superGroup.unlock(group);
+			node.storeAgent(superGroup);
+
+			AgentContext context = new AgentContext(node, member);
+			GroupAgentImpl unlocked = context.requestGroupAgent(group.getIdentifier());
+			GroupAgentImpl unlockedSuper = context.requestGroupAgent(superGroup.getIdentifier());
+			assertSame(unlocked, context.requestGroupAgent(group.getIdentifier()));
+			assertSame(unlockedSuper, context.requestGroupAgent(superGroup.getIdentifier()));
+			EnvelopeVersion envelope = node.createEnvelope("test", member.getPublicKey(), "content", superGroup);
+			assertEquals("content", envelope.getContent(context));
+			assertEquals("content", envelope.getContent(context));
+
+			// revoke the member, the cached groups are used until they are checked again
+			group.revokeMember(member);
+			group.apply();
+			node.storeAgent(group);
+			assertSame(unlockedSuper, context.requestGroupAgent(superGroup.getIdentifier()));
+
+			AgentContext.setGroupTimeout(0);
+			try {
+				context.requestGroupAgent(superGroup.getIdentifier());
+				fail("AgentAccessDeniedException expected");
+			} catch (AgentAccessDeniedException e) {
+				// expected
+			}
+			try {
+				context.requestGroupAgent(group.getIdentifier());
+				fail("AgentAccessDeniedException expected");
+			} catch (AgentAccessDeniedException e) {
+				// expected
+			}
+			assertFalse(context.hasAgent(group.getIdentifier()));
+			try {
+				envelope.getContent(context);
+				fail("CryptoException expected");
+			} catch (CryptoException e) {
+				// expected
+			}
+
+			// unchanged groups are not unlocked again
+			AgentContext adminContext = new AgentContext(node, admin);
+			GroupAgentImpl adminSuper = adminContext.requestGroupAgent(superGroup.getIdentifier());
+			assertSame(adminSuper, adminContext.requestGroupAgent(superGroup.getIdentifier()));
+		} finally {
+			AgentContext.setGroupTimeout(AgentContext.DEFAULT_GROUP_TIMEOUT);
+			node.shutDown();
+		}
+	}
+
+	@Test
+	public void testHasAccessAfterRevocation() throws Exception {
+		LocalNode node = new LocalNodeManager().launchNode();
+		try {
+			UserAgentImpl admin = UserAgentImpl.createUserAgent("adminpass");
+			admin.unlock("adminpass");
+			UserAgentImpl member = UserAgentImpl.createUserAgent("memberpass");
+			member.unlock("memberpass");
+			node.storeAgent(admin);
+			node.storeAgent(member);
+			GroupAgentImpl group = GroupAgentImpl.createGroupAgent(new AgentImpl[] { admin, member });
+			group.unlock(admin);
+			node.storeAgent(group);
+
+			AgentContext context = new AgentContext(node, member);
+			GroupAgentImpl unlocked = context.requestGroupAgent(group.getIdentifier());
+			assertTrue(context.hasAccess(group.getIdentifier()));
+
+			// revoke the member, the cached group is used until it is checked again
+			group.revokeMember(member);
+			group.apply();
+			node.storeAgent(group);
+			assertTrue(context.hasAccess(group.getIdentifier()));
+			assertSame(unlocked, context.getAgent(group.getIdentifier()));
+
+			// an expired group is checked against the network by all lookups
+			AgentContext.setGroupTimeout(0);
+			assertFalse(context.hasAccess(group.getIdentifier()));
+			assertFalse(context.hasAgent(group.getIdentifier()));
+			assertTrue(context.getAgent(group.getIdentifier()).isLocked());
+		} finally {
+			AgentContext.setGroupTimeout(AgentContext.DEFAULT_GROUP_TIMEOUT);
+			node.shutDown();
+		}
+	}
+
+	@Test
+	public void testGroupFetchFailure() throws Exception {
+		LocalNode node = new LocalNodeManager().launchNode();
+		try {
+			UserAgentImpl member = UserAgentImpl.createUserAgent("memberpass");
+			member.unlock("memberpass");
+			node.storeAgent(member);
+			GroupAgentImpl group = GroupAgentImpl.createGroupAgent(new AgentImpl[] { member });
+			group.unlock(member);
+			node.storeAgent(group);
+
+			LocalNode failingNode = spy(node);
+			AgentContext context = new AgentContext(failingNode, member);
+			GroupAgentImpl unlocked = context.requestGroupAgent(group.getIdentifier());
+
+			// the cached group is used until it is checked again
+			doAnswer(invocation -> {
+				throw new AgentOperationFailedException("network unavailable");
+			}).when(failingNode).getAgent(group.getIdentifier());
+			assertSame(unlocked, context.requestGroupAgent(group.getIdentifier()));
+
+			// an expired group is not used without a successful check
+			AgentContext.setGroupTimeout(0);
+			try {
+				context.requestGroupAgent(group.getIdentifier());
+				fail("AgentOperationFailedException expected");
+			} catch (AgentOperationFailedException e) {
+				// expected
+			}
+			assertFalse(context.hasAgent(group.getIdentifier()));
+
+			doCallRealMethod().when(failingNode).getAgent(group.getIdentifier());
+			assertEquals(group.getIdentifier(), context.requestGroupAgent(group.getIdentifier()).getIdentifier());
+		} finally {
+			AgentContext.setGroupTimeout(AgentContext.DEFAULT_GROUP_TIMEOUT);
+			node.shutDown();
+		}
+	}
+
+	@Test
+	public void testGroupCycle() throws Exception {
+		LocalNode node = new LocalNodeManager().launchNode();
+		try {
+			UserAgentImpl admin = UserAgentImpl.createUserAgent("adminpass");
+			admin.unlock("adminpass");
+			UserAgentImpl other = UserAgentImpl.createUserAgent("otherpass");
+			other.unlock("otherpass");
+			GroupAgentImpl first = GroupAgentImpl.createGroupAgent(new AgentImpl[] { admin });
+			first.unlock(admin);
+			GroupAgentImpl second = GroupAgentImpl.createGroupAgent(new AgentImpl[] { first });
+			second.unlock(first);
+			first.addMember(second);
+			first.apply();
+			node.storeAgent(first);
+			node.storeAgent(second);
+
+			AgentContext context = new AgentContext(node, other);
+			try {
+				context.requestGroupAgent(first.getIdentifier());
+				fail("AgentAccessDeniedException expected");
+			} catch (AgentAccessDeniedException e) {
+				// expected
+			}
+			assertEquals(second.getIdentifier(),
+					new AgentContext(node, admin).requestGroupAgent(second.getIdentifier()).getIdentifier());
+		} finally {
+			node.shutDown();
+		}
+	}
 }
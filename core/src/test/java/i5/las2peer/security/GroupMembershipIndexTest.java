@@ -0,0 +1,136 @@
+package i5.las2peer.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import i5.las2peer.api.security.AgentException;
+import i5.las2peer.api.security.AgentNotFoundException;
+import i5.las2peer.api.security.AgentOperationFailedException;
+
+public class GroupMembershipIndexTest {
+
+	private UserAgentImpl user;
+	private UserAgentImpl other;
+	private UserAgentImpl outsider;
+	private GroupAgentImpl inner;
+	private GroupAgentImpl middle;
+	private GroupAgentImpl outer;
+	private BasicAgentStorage storage;
+
+	@Before
+	public void setup() throws Exception {
+		user = UserAgentImpl.createUserAgent("userpass");
+		other = UserAgentImpl.createUserAgent("otherpass");
+		outsider = UserAgentImpl.createUserAgent("outsiderpass");
+		user.unlock("userpass");
+		other.unlock("otherpass");
+		inner = GroupAgentImpl.createGroupAgent(new AgentImpl[] { user });
+		middle = GroupAgentImpl.createGroupAgent(new AgentImpl[] { inner, other });
+		outer = GroupAgentImpl.createGroupAgent(new AgentImpl[] { middle });
+		storage = new BasicAgentStorage();
+		storage.registerAgents(user, other, outsider, inner, middle, outer);
+	}
+
+	@Test
+	public void testTransitiveMembers() {
+		GroupMembershipIndex index = new GroupMembershipIndex(storage);
+		assertTrue(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+		assertTrue(index.isMember(outer.getIdentifier(), other.getIdentifier()));
+		assertFalse(index.isMember(outer.getIdentifier(), outsider.getIdentifier()));
+		assertFalse(index.isMember(user.getIdentifier(), user.getIdentifier()));
+		assertEquals(new HashSet<>(Arrays.asList(middle.getIdentifier(), inner.getIdentifier(), user.getIdentifier(),
+				other.getIdentifier())), index.getMembers(outer.getIdentifier()));
+		assertEquals(new HashSet<>(Arrays.asList(user.getIdentifier())), index.getMembers(inner.getIdentifier()));
+		// each agent has been fetched once
+		assertEquals(5, index.getFetches());
+		assertEquals(3, index.getGroupCount());
+	}
+
+	@Test
+	public void testUpdate() throws Exception {
+		GroupMembershipIndex index = new GroupMembershipIndex(storage);
+		assertTrue(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+		long fetches = index.getFetches();
+
+		// a local update changes the transitive members, only the new member is fetched
+		inner.unlock(user);
+		inner.revokeMember(user);
+		inner.addMember(outsider);
+		inner.apply();
+		index.update(inner);
+		assertFalse(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+		assertTrue(index.isMember(outer.getIdentifier(), outsider.getIdentifier()));
+		assertEquals(fetches + 1, index.getFetches());
+
+		// changes in the storage are noticed after the timeout
+		middle.unlock(other);
+		middle.revokeMember(other);
+		middle.apply();
+		storage.registerAgent(middle);
+		assertTrue(index.isMember(outer.getIdentifier(), other.getIdentifier()));
+		index.setTimeout(0);
+		assertFalse(index.isMember(outer.getIdentifier(), other.getIdentifier()));
+	}
+
+	@Test
+	public void testMissingAgent() throws Exception {
+		storage.unregisterAgent(inner);
+		GroupMembershipIndex index = new GroupMembershipIndex(storage);
+		assertFalse(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+		long fetches = index.getFetches();
+
+		// the missing agent is not fetched again until the timeout
+		storage.registerAgent(inner);
+		assertFalse(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+		assertEquals(fetches, index.getFetches());
+		index.setTimeout(0);
+		assertTrue(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+	}
+
+	@Test
+	public void testFetchFailure() throws Exception {
+		boolean[] failing = { false };
+		storage = new BasicAgentStorage() {
+			@Override
+			public AgentImpl getAgent(String id) throws AgentNotFoundException, AgentException {
+				if (failing[0]) {
+					throw new AgentOperationFailedException("network unavailable");
+				}
+				return super.getAgent(id);
+			}
+		};
+		storage.registerAgents(user, other, outsider, inner, middle, outer);
+		GroupMembershipIndex index = new GroupMembershipIndex(storage);
+		assertTrue(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+
+		// outdated groups that can not be fetched are not used
+		failing[0] = true;
+		index.setTimeout(0);
+		assertFalse(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+		assertTrue(index.getMembers(outer.getIdentifier()).isEmpty());
+
+		failing[0] = false;
+		assertTrue(index.isMember(outer.getIdentifier(), user.getIdentifier()));
+	}
+
+	@Test
+	public void testCycle() throws Exception {
+		inner.unlock(user);
+		inner.addMember(outer);
+		inner.apply();
+		storage.registerAgent(inner);
+
+		GroupMembershipIndex index = new GroupMembershipIndex(storage);
+		assertFalse(index.isMember(inner.getIdentifier(), outsider.getIdentifier()));
+		assertTrue(index.isMember(inner.getIdentifier(), other.getIdentifier()));
+		assertTrue(index.isMember(outer.getIdentifier(), outer.getIdentifier()));
+	}
+
+}
@@ -0,0 +1,154 @@
+package i5.las2peer.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.After;
+import org.junit.Test;
+
+import i5.las2peer.p2p.LocalNode;
+import i5.las2peer.p2p.LocalNodeManager;
+import i5.las2peer.persistency.EnvelopeVersion;
+import i5.las2peer.security.AgentContext;
+import i5.las2peer.security.UserAgentImpl;
+import i5.las2peer.serialization.CompressionTools;
+import i5.las2peer.serialization.SerializationException;
+import i5.las2peer.serialization.SerializeTools;
+
+public class CompressionToolsTest {
+
+	private static String createJson(int entries) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < entries; i++) {
+			sb.append("{\"id\":").append(i).append(",\"name\":\"entry ").append(i).append("\",\"active\":true},");
+		}
+		return sb.append("]").toString();
+	}
+
+	@After
+	public void resetThreshold() {
+		CompressionTools.setThreshold(CompressionTools.DEFAULT_THRESHOLD);
+		CompressionTools.setMaxDecompressedSize(CompressionTools.DEFAULT_MAX_DECOMPRESSED_SIZE);
+	}
+
+	@Test
+	public void testCompressDecompress() throws Exception {
+		byte[] data = createJson(1000).getBytes();
+		byte[] compressed = CompressionTools.compress(data, Deflater.DEFAULT_COMPRESSION);
+		assertTrue(compressed.length < data.length / 4);
+		assertArrayEquals(data, CompressionTools.decompress(compressed));
+		assertArrayEquals(new byte[0], CompressionTools.decompress(CompressionTools.compress(new byte[0], 1)));
+
+		// truncated or manipulated data is rejected
+		try {
+			CompressionTools.decompress(Arrays.copyOf(compressed, compressed.length / 2));
+			fail("SerializationException expected");
+		} catch (SerializationException e) {
+			// expected
+		}
+		compressed[3]++;
+		try {
+			CompressionTools.decompress(compressed);
+			fail("SerializationException expected");
+		} catch (SerializationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testThreshold() {
+		byte[] data = createJson(100).getBytes();
+		// disabled by default
+		assertNull(CompressionTools.compressIfUseful(data));
+		CompressionTools.setThreshold(data.length + 1);
+		assertNull(CompressionTools.compressIfUseful(data));
+		CompressionTools.setThreshold(data.length);
+		assertTrue(CompressionTools.compressIfUseful(data).length < data.length);
+		// random data does not get smaller
+		byte[] random = new byte[data.length];
+		new Random(1).nextBytes(random);
+		assertNull(CompressionTools.compressIfUseful(random));
+	}
+
+	@Test
+	public void testDecompressionLimit() throws Exception {
+		// highly compressible data is fine within the maximum size
+		byte[] zeros = new byte[1024 * 1024];
+		byte[] compressed = CompressionTools.compress(zeros, Deflater.BEST_COMPRESSION);
+		assertArrayEquals(zeros, CompressionTools.decompress(compressed));
+		CompressionTools.setMaxDecompressedSize(zeros.length - 1);
+		try {
+			CompressionTools.decompress(compressed);
+			fail("SerializationException expected");
+		} catch (SerializationException e) {
+			// expected
+		}
+
+		// a length Deflate can not reach with the given data is rejected before allocating it
+		CompressionTools.setMaxDecompressedSize(Integer.MAX_VALUE);
+		byte[] bomb = Arrays.copyOf(CompressionTools.compress(new byte[10], Deflater.BEST_COMPRESSION), 16);
+		bomb[0] = 0x7f;
+		try {
+			CompressionTools.decompress(bomb);
+			fail("SerializationException expected");
+		} catch (SerializationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testEnvelope() throws Exception {
+		LocalNode node = new LocalNodeManager().launchNode();
+		try {
+			UserAgentImpl agent = UserAgentImpl.createUserAgent("pass");
+			agent.unlock("pass");
+			AgentContext context = new AgentContext(node, agent);
+			String json = createJson(1000);
+
+			EnvelopeVersion plain = node.createEnvelope("test", agent.getPublicKey(), json, agent);
+			assertFalse(plain.isCompressed());
+
+			CompressionTools.setThreshold(1024);
+			EnvelopeVersion encrypted = node.createEnvelope("test", agent.getPublicKey(), json, agent);
+			assertTrue(encrypted.isCompressed());
+			assertEquals(json, encrypted.getContent(context));
+			EnvelopeVersion fromXml = EnvelopeVersion.createFromXml(encrypted.toXmlString());
+			assertTrue(fromXml.isCompressed());
+			assertEquals(json, fromXml.getContent(context));
+			// nodes without compression support reject the content encoding
+			assertFalse(encrypted.toXmlString().contains("encoding=\"Base64\""));
+			EnvelopeVersion deserialized = (EnvelopeVersion) SerializeTools
+					.deserialize(SerializeTools.serialize(encrypted));
+			assertTrue(deserialized.isCompressed());
+			assertEquals(json, deserialized.getContent(context));
+			// only compressed envelopes use a serialized form unknown to nodes without compression support
+			String compressedForm = "CompressedEnvelopeVersion";
+			assertTrue(new String(SerializeTools.serialize(encrypted), StandardCharsets.ISO_8859_1)
+					.contains(compressedForm));
+			assertFalse(new String(SerializeTools.serialize(plain), StandardCharsets.ISO_8859_1)
+					.contains(compressedForm));
+			assertFalse(((EnvelopeVersion) SerializeTools.deserialize(SerializeTools.serialize(plain))).isCompressed());
+
+			EnvelopeVersion unencrypted = node.createUnencryptedEnvelope("test", agent.getPublicKey(), json);
+			assertTrue(unencrypted.isCompressed());
+			assertTrue(unencrypted.toXmlString().length() < plain.toXmlString().length() / 4);
+			assertEquals(json, unencrypted.getContent(context));
+
+			// compressed envelopes can still be read after compression is disabled
+			CompressionTools.setThreshold(0);
+			assertEquals(json, EnvelopeVersion.createFromXml(unencrypted.toXmlString()).getContent(context));
+		} finally {
+			node.shutDown();
+		}
+	}
+
+}
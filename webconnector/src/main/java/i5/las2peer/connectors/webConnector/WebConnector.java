@@ -43,6 +43,7 @@ import i5.las2peer.connectors.ConnectorException;
 import i5.las2peer.connectors.webConnector.handler.AgentsHandler;
 import i5.las2peer.connectors.webConnector.handler.AuthHandler;
 import i5.las2peer.connectors.webConnector.handler.DefaultHandler;
+import i5.las2peer.connectors.webConnector.handler.MetricsHandler;
 import i5.las2peer.connectors.webConnector.handler.ServicesHandler;
 import i5.las2peer.connectors.webConnector.handler.SwaggerUIHandler;
 import i5.las2peer.connectors.webConnector.handler.WebappHandler;
@@ -122,6 +123,12 @@ public class WebConnector extends Connector {
 	public static final int DEFAULT_SESSION_TIMEOUT = 24 * 60; // minutes = 24 hours
 	private int sessionTimeout = DEFAULT_SESSION_TIMEOUT;
 
+	public static final int DEFAULT_AUTHENTICATION_CACHE_TIMEOUT = 5 * 60; // seconds = 5 minutes
+	private int authenticationCacheTimeout = DEFAULT_AUTHENTICATION_CACHE_TIMEOUT;
+
+	public static final int DEFAULT_AUTHENTICATION_CACHE_SIZE = 1000;
+	private int authenticationCacheSize = DEFAULT_AUTHENTICATION_CACHE_SIZE;
+
 	public static final int DEFAULT_MAX_THREADS = 10;
 	protected int maxThreads = DEFAULT_MAX_THREADS;
 
@@ -373,6 +380,7 @@ public class WebConnector extends Connector {
 			config.register(new CORSResponseFilter(this));
 			config.register(new WebConnectorRequestHandler(this));
 			config.register(new DefaultHandler(this));
+			config.register(new MetricsHandler());
 			config.register(new WebappHandler());
 			config.register(new AuthHandler(this));
 			config.register(new ServicesHandler(this));
@@ -656,6 +664,50 @@ public class WebConnector extends Connector {
 		return authenticationManager.authenticateAgent(requestHeaders, accessTokenQueryParam);
 	}
 
+	/**
+	 * Removes cached authentications of the given agent. Has to be called, if the agent is updated, e. g. its
+	 * passphrase changed.
+	 * 
+	 * @param agentId The id of the updated agent
+	 */
+	public void invalidateAuthentication(String agentId) {
+		if (authenticationManager != null) {
+			authenticationManager.invalidateCachedAgent(agentId);
+		}
+	}
+
+	/**
+	 * @return how long in seconds an authenticated agent is cached, 0 disables the cache
+	 */
+	public int getAuthenticationCacheTimeout() {
+		return authenticationCacheTimeout;
+	}
+
+	/**
+	 * set how long authenticated agents are cached, has to be called before the connector is started
+	 * 
+	 * @param timeoutInSeconds The cache timeout in seconds, 0 disables the cache
+	 */
+	public void setAuthenticationCacheTimeout(int timeoutInSeconds) {
+		authenticationCacheTimeout = timeoutInSeconds;
+	}
+
+	/**
+	 * @return the maximum number of cached authentications
+	 */
+	public int getAuthenticationCacheSize() {
+		return authenticationCacheSize;
+	}
+
+	/**
+	 * set the maximum number of cached authentications, has to be called before the connector is started
+	 * 
+	 * @param size The maximum number of cache entries
+	 */
+	public void setAuthenticationCacheSize(int size) {
+		authenticationCacheSize = size;
+	}
+
 	public AgentSession getOrCreateSession(PassphraseAgentImpl agent) {
 		synchronized (sessions) {
 			final String agentId = agent.getIdentifier();
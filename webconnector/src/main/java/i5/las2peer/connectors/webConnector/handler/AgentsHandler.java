@@ -186,6 +186,7 @@ public class AgentsHandler {
 					.entity("Invalid agent type '" + agent.getClass().getSimpleName() + "'").build();
 		}
 		node.storeAgent(agent);
+		connector.invalidateAuthentication(agent.getIdentifier());
 		JSONObject json = new JSONObject();
 		json.put("code", Status.OK.getStatusCode());
 		json.put("text", Status.OK.getStatusCode() + " - Agent uploaded");
@@ -230,6 +231,7 @@ public class AgentsHandler {
 		}
 		passAgent.changePassphrase(passphraseNew);
 		node.storeAgent(passAgent);
+		connector.invalidateAuthentication(passAgent.getIdentifier());
 		JSONObject json = new JSONObject();
 		json.put("code", Status.OK.getStatusCode());
 		json.put("text", Status.OK.getStatusCode() + " - Passphrase changed");
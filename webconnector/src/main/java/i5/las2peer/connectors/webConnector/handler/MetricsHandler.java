@@ -0,0 +1,41 @@
+package i5.las2peer.connectors.webConnector.handler;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import i5.las2peer.logging.metrics.MetricsRegistry;
+
+/**
+ * Exposes the metrics of this node in the Prometheus text format, so they can be scraped by a monitoring system.
+ */
+@Path(MetricsHandler.RESOURCE_PATH)
+public class MetricsHandler {
+
+	public static final String RESOURCE_PATH = DefaultHandler.ROOT_RESOURCE_PATH + "/metrics";
+
+	private final MetricsRegistry registry;
+
+	public MetricsHandler() {
+		this(MetricsRegistry.getDefault());
+	}
+
+	public MetricsHandler(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@GET
+	public Response getMetrics() {
+		StreamingOutput output = stream -> {
+			Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+			registry.writePrometheus(writer);
+		};
+		return Response.ok(output, MetricsRegistry.PROMETHEUS_CONTENT_TYPE).build();
+	}
+
+}
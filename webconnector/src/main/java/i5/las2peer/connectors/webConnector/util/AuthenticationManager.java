@@ -4,9 +4,15 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 
+import javax.crypto.SecretKey;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.InternalServerErrorException;
@@ -14,6 +20,7 @@ import javax.ws.rs.NotAuthorizedException;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 
+import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.oauth2.sdk.ErrorObject;
 import com.nimbusds.oauth2.sdk.ParseException;
 import com.nimbusds.oauth2.sdk.http.HTTPRequest;
@@ -29,6 +36,7 @@ import i5.las2peer.connectors.webConnector.WebConnector;
 import i5.las2peer.logging.L2pLogger;
 import i5.las2peer.p2p.EthereumNode;
 import i5.las2peer.security.*;
+import i5.las2peer.tools.CryptoException;
 import i5.las2peer.tools.CryptoTools;
 import net.minidev.json.JSONObject;
 
@@ -41,8 +49,26 @@ public class AuthenticationManager {
 
 	private final WebConnector connector;
 
+	/**
+	 * agents of recent authentications, by a salted hash of the given credentials
+	 */
+	private final Map<String, CachedAuthentication> authenticationCache;
+	private final byte[] cacheSalt = new byte[32];
+	private final long cacheTimeoutMs;
+
 	public AuthenticationManager(WebConnector connector) {
 		this.connector = connector;
+		this.cacheTimeoutMs = connector.getAuthenticationCacheTimeout() * 1000L;
+		final int cacheSize = connector.getAuthenticationCacheSize();
+		this.authenticationCache = Collections.synchronizedMap(new LinkedHashMap<String, CachedAuthentication>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedAuthentication> eldest) {
+				return size() > cacheSize;
+			}
+		});
+		new SecureRandom().nextBytes(cacheSalt);
 	}
 
 	// FIXME: "bearer" authorization is broken, because for the OIDC auto-registration we require both a token and a
@@ -68,17 +94,26 @@ public class AuthenticationManager {
 
 		String accessToken = extractToken(accessTokenHeader, authorizationHeader, accessTokenQueryParam);
 		Credentials credentials = extractBasicAuthCredentials(authorizationHeader);
+		String oidcProviderHeader = requestHeaders.getFirst(OIDC_PROVIDER_KEY);
+
+		String cacheKey = null;
+		if (credentials != null) {
+			cacheKey = getCacheKey(authorizationHeader, accessToken, oidcProviderHeader);
+			AgentImpl cached = getCachedAgent(cacheKey);
+			if (cached != null) {
+				return cached;
+			}
+		}
 
 		try {
 			if (accessToken != null) {
 				if (credentials == null) {
 					throw new BadRequestException("We require a password (in basic authorization header) when a OIDC access token sent! (see Javadoc)");
 				}
-				String oidcProviderHeader = requestHeaders.getFirst(OIDC_PROVIDER_KEY);
-				return authenticateOIDC(accessToken, oidcProviderHeader, credentials);
+				return authenticateOIDC(accessToken, oidcProviderHeader, credentials, cacheKey);
 			} else if (credentials != null) {
 				// basic authentication
-				return authenticateCredentials(credentials);
+				return authenticateCredentials(credentials, cacheKey, Long.MAX_VALUE);
 			} else {
 				// anonymous login
 				return AnonymousAgentImpl.getInstance();
@@ -92,15 +127,100 @@ public class AuthenticationManager {
 		}
 	}
 
+	/**
+	 * Removes all cached authentications of the given agent, e. g. after its passphrase has been changed.
+	 *
+	 * @param agentId The id of the agent
+	 */
+	public void invalidateCachedAgent(String agentId) {
+		synchronized (authenticationCache) {
+			authenticationCache.values().removeIf(cached -> cached.agent.getIdentifier().equalsIgnoreCase(agentId));
+		}
+	}
+
+	private String getCacheKey(String authorizationHeader, String accessToken, String oidcProviderHeader) {
+		if (cacheTimeoutMs <= 0) {
+			return null;
+		}
+		String credentials = authorizationHeader + "\n" + accessToken + "\n" + oidcProviderHeader;
+		byte[] data = credentials.getBytes(StandardCharsets.UTF_8);
+		byte[] salted = new byte[cacheSalt.length + data.length];
+		System.arraycopy(cacheSalt, 0, salted, 0, cacheSalt.length);
+		System.arraycopy(data, 0, salted, cacheSalt.length, data.length);
+		try {
+			return Base64.getEncoder().encodeToString(CryptoTools.getSecureHash(salted));
+		} catch (CryptoException e) {
+			logger.log(Level.WARNING, "Could not hash credentials, authentication is not cached", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a copy of the agent of a cached authentication, unlocked with the cached passphrase key. So requests
+	 * never share an agent instance and the agent is not fetched again. Changes of the agent made at other nodes are
+	 * noticed after the cache timeout, or as soon as the cached authentication is invalidated.
+	 */
+	private AgentImpl getCachedAgent(String cacheKey) {
+		if (cacheKey == null) {
+			return null;
+		}
+		CachedAuthentication cached = authenticationCache.get(cacheKey);
+		if (cached == null) {
+			return null;
+		}
+		if (cached.expires >= System.currentTimeMillis()) {
+			try {
+				PassphraseAgentImpl agent = (PassphraseAgentImpl) cached.agent.cloneLocked();
+				agent.unlock(cached.passphrase, cached.passphraseKey);
+				return agent;
+			} catch (CloneNotSupportedException | AgentException e) {
+				logger.log(Level.FINE, "Cached authentication is not valid anymore", e);
+			}
+		}
+		authenticationCache.remove(cacheKey);
+		return null;
+	}
+
+	private void cacheAuthentication(String cacheKey, PassphraseAgentImpl agent, String passphrase,
+			SecretKey passphraseKey, long validUntil) {
+		long expires = Math.min(System.currentTimeMillis() + cacheTimeoutMs, validUntil);
+		if (cacheKey != null && expires > System.currentTimeMillis()) {
+			try {
+				// a locked copy, the agent itself is handed to the current request
+				PassphraseAgentImpl copy = (PassphraseAgentImpl) agent.cloneLocked();
+				authenticationCache.put(cacheKey, new CachedAuthentication(copy, passphrase, passphraseKey, expires));
+			} catch (CloneNotSupportedException e) {
+				logger.log(Level.WARNING, "Could not copy agent, authentication is not cached", e);
+			}
+		}
+	}
+
+	/**
+	 * Gets the expiration time of a JWT access token. Other tokens can only be checked by the OIDC provider.
+	 *
+	 * @return the expiration time in milliseconds, 0 if it is unknown
+	 */
+	private static long getTokenExpiration(String token) {
+		try {
+			Date expiration = JWTParser.parse(token).getJWTClaimsSet().getExpirationTime();
+			return expiration != null ? expiration.getTime() : 0;
+		} catch (java.text.ParseException e) {
+			return 0;
+		}
+	}
+
 	/**
 	 * Returns unlocked agent corresponding to the given credentials.
 	 * The identifier is not simply an agent ID (sorry) but starts with a namespace prefix as defined in
 	 * {@link UserAgentManager} followed by the corresponding string. This allows logging in via either
 	 * the agent ID, a login ID, an email address, and so on.
 	 *
+	 * Successful authentications of passphrase agents are cached until the given time at most.
+	 *
 	 * {@see UserAgentManager#getAgentId(String)}
 	 */
-	private AgentImpl authenticateCredentials(Credentials credentials) throws AgentException {
+	private AgentImpl authenticateCredentials(Credentials credentials, String cacheKey, long cacheUntil)
+			throws AgentException {
 		String prefixedIdentifier = credentials.identifier;
 		String agentId;
 
@@ -118,7 +238,15 @@ public class AuthenticationManager {
 
 		AgentImpl agent = connector.getL2pNode().getAgent(agentId);
 		if (agent instanceof PassphraseAgentImpl) {
-			((PassphraseAgentImpl) agent).unlock(credentials.password);
+			PassphraseAgentImpl passphraseAgent = (PassphraseAgentImpl) agent;
+			SecretKey passphraseKey;
+			try {
+				passphraseKey = passphraseAgent.derivePassphraseKey(credentials.password);
+			} catch (CryptoException e) {
+				throw new AgentAccessDeniedException("unable to create key from passphrase", e);
+			}
+			passphraseAgent.unlock(credentials.password, passphraseKey);
+			cacheAuthentication(cacheKey, passphraseAgent, credentials.password, passphraseKey, cacheUntil);
 		}
 		return agent;
 	}
@@ -127,13 +255,15 @@ public class AuthenticationManager {
 	 * Attempts to find an existing agent and unlock it, otherwise registers a new one.
 	 *
 	 * For registration, uses OIDC profile "preferred_username" as login name, ignoring identifier in credentials.
-	 * For log-in, uses provided credentials, ignoring all OIDC data including the token.
+	 * For log-in, uses provided credentials, ignoring all OIDC data including the token. The log-in is cached no
+	 * longer than the token is valid.
 	 *
 	 * {@see UserAgentManager#getAgentId(String)}
 	 */
-	private PassphraseAgentImpl authenticateOIDC(String token, String oidcProviderHeader, Credentials credentials) throws AgentException {
+	private PassphraseAgentImpl authenticateOIDC(String token, String oidcProviderHeader, Credentials credentials,
+			String cacheKey) throws AgentException {
 		try {
-			AgentImpl existingAgent = authenticateCredentials(credentials);
+			AgentImpl existingAgent = authenticateCredentials(credentials, cacheKey, getTokenExpiration(token));
 			if (existingAgent instanceof UserAgentImpl) {
 				return (UserAgentImpl) existingAgent;
 			} else {
@@ -295,6 +425,20 @@ public class AuthenticationManager {
 		}
 	}
 
+	private static class CachedAuthentication {
+		final PassphraseAgentImpl agent;
+		// kept like in an unlocked agent, since it is needed for invocations at other nodes
+		final String passphrase;
+		final SecretKey passphraseKey;
+		final long expires;
+		CachedAuthentication(PassphraseAgentImpl agent, String passphrase, SecretKey passphraseKey, long expires) {
+			this.agent = agent;
+			this.passphrase = passphrase;
+			this.passphraseKey = passphraseKey;
+			this.expires = expires;
+		}
+	}
+
 	private class Credentials {
 		String identifier;
 		String password;
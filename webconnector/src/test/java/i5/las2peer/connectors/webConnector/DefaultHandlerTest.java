@@ -13,6 +13,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import i5.las2peer.connectors.webConnector.handler.DefaultHandler;
+import i5.las2peer.connectors.webConnector.handler.MetricsHandler;
 import i5.las2peer.connectors.webConnector.handler.WebappHandler;
 import i5.las2peer.tools.L2pNodeLauncher;
 import i5.las2peer.tools.SimpleTools;
@@ -141,4 +142,22 @@ public class DefaultHandlerTest extends AbstractTestHandler {
 		}
 	}
 
+	@Test
+	public void testGetMetrics() {
+		try {
+			WebTarget target = webClient.target(connector.getHttpEndpoint() + MetricsHandler.RESOURCE_PATH);
+			Response response = target.request().get();
+			Assert.assertEquals(Status.OK.getStatusCode(), response.getStatus());
+			Assert.assertEquals("0.0.4", response.getMediaType().getParameters().get("version"));
+			byte[] bytes = SimpleTools.toByteArray((InputStream) response.getEntity());
+			String responseBody = new String(bytes, StandardCharsets.UTF_8);
+			Assert.assertTrue(responseBody.contains("# TYPE las2peer_rmi_duration_seconds histogram"));
+			Assert.assertTrue(responseBody.contains("las2peer_service_calls_active{node=\""));
+			response.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.toString());
+		}
+	}
+
 }
@@ -179,6 +179,39 @@ public class WebConnectorTest {
 		}
 	}
 
+	@Test
+	public void testAuthenticationCache() {
+		try {
+			MiniClient c = new MiniClient();
+			c.setConnectorEndpoint(connector.getHttpEndpoint());
+			c.setLogin(testAgent.getIdentifier(), testPass);
+			ClientResponse result = c.sendRequest("GET", "test/ok", "");
+			Assert.assertEquals("OK", result.getResponse().trim());
+
+			// change the passphrase, once the connector is told, the old passphrase is rejected
+			UserAgentImpl changed = (UserAgentImpl) node.getAgent(testAgent.getIdentifier());
+			changed.unlock(testPass);
+			changed.changePassphrase("newpass");
+			node.storeAgent(changed);
+			connector.invalidateAuthentication(testAgent.getIdentifier());
+			result = c.sendRequest("GET", "test/ok", "");
+			Assert.assertEquals(401, result.getHttpCode());
+
+			c.setLogin(testAgent.getIdentifier(), "newpass");
+			result = c.sendRequest("GET", "test/ok", "");
+			Assert.assertEquals("OK", result.getResponse().trim());
+			result = c.sendRequest("GET", "test/ok", "");
+			Assert.assertEquals("OK", result.getResponse().trim());
+
+			connector.invalidateAuthentication(testAgent.getIdentifier());
+			result = c.sendRequest("GET", "test/ok", "");
+			Assert.assertEquals("OK", result.getResponse().trim());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Exception: " + e);
+		}
+	}
+
 	@Test
 	public void testExceptions() {
 		try {